@@ -42,6 +42,8 @@ public class CacheFactory
 
         switch (cacheConfig.getCacheType()) {
             case FILE_MERGE:
+            case SEGMENTED:
+                // the input stream only depends on the CacheManager interface, which both implement
                 return new FileMergeCachingFileSystem(
                         factoryUri,
                         factoryConfig,
@@ -25,6 +25,8 @@ public class CacheStats
     private final AtomicLong hit = new AtomicLong();
     private final AtomicLong miss = new AtomicLong();
     private final AtomicLong quotaExceed = new AtomicLong();
+    private final AtomicLong admissionRejected = new AtomicLong();
+    private final AtomicLong eviction = new AtomicLong();
 
     public void incrementCacheHit()
     {
@@ -41,6 +43,16 @@ public class CacheStats
         quotaExceed.getAndIncrement();
     }
 
+    public void incrementAdmissionRejected()
+    {
+        admissionRejected.getAndIncrement();
+    }
+
+    public void incrementEviction()
+    {
+        eviction.getAndIncrement();
+    }
+
     public void addInMemoryRetainedBytes(long bytes)
     {
         inMemoryRetainedBytes.addAndGet(bytes);
@@ -69,4 +81,16 @@ public class CacheStats
     {
         return quotaExceed.get();
     }
+
+    @Managed
+    public long getAdmissionRejected()
+    {
+        return admissionRejected.get();
+    }
+
+    @Managed
+    public long getEviction()
+    {
+        return eviction.get();
+    }
 }
@@ -16,5 +16,6 @@ package com.facebook.presto.cache;
 public enum CacheType
 {
     FILE_MERGE,
-    ALLUXIO
+    ALLUXIO,
+    SEGMENTED
 }
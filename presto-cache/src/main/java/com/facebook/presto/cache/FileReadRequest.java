@@ -16,6 +16,7 @@ package com.facebook.presto.cache;
 import org.apache.hadoop.fs.Path;
 
 import java.util.Objects;
+import java.util.OptionalLong;
 
 import static java.util.Objects.requireNonNull;
 
@@ -24,12 +25,21 @@ public class FileReadRequest
     private final Path path;
     private final long offset;
     private final int length;
+    private final long fileModificationTime;
+    private final OptionalLong fileLength;
 
     public FileReadRequest(Path path, long offset, int length)
+    {
+        this(path, offset, length, 0, OptionalLong.empty());
+    }
+
+    public FileReadRequest(Path path, long offset, int length, long fileModificationTime, OptionalLong fileLength)
     {
         this.path = requireNonNull(path, "path is null");
         this.offset = requireNonNull(offset, "offset is null");
         this.length = requireNonNull(length, "length is null");
+        this.fileModificationTime = fileModificationTime;
+        this.fileLength = requireNonNull(fileLength, "fileLength is null");
     }
 
     public Path getPath()
@@ -47,10 +57,23 @@ public class FileReadRequest
         return length;
     }
 
+    /**
+     * Returns the modification time of the file being read, or 0 if it is unknown.
+     */
+    public long getFileModificationTime()
+    {
+        return fileModificationTime;
+    }
+
+    public OptionalLong getFileLength()
+    {
+        return fileLength;
+    }
+
     @Override
     public int hashCode()
     {
-        return Objects.hash(path, offset, length);
+        return Objects.hash(path, offset, length, fileModificationTime, fileLength);
     }
 
     @Override
@@ -65,6 +88,8 @@ public class FileReadRequest
         FileReadRequest other = (FileReadRequest) object;
         return Objects.equals(this.path, other.path) &&
                 Objects.equals(this.offset, other.offset) &&
-                Objects.equals(this.length, other.length);
+                Objects.equals(this.length, other.length) &&
+                this.fileModificationTime == other.fileModificationTime &&
+                Objects.equals(this.fileLength, other.fileLength);
     }
 }
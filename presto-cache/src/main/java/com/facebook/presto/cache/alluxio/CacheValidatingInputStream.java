@@ -14,9 +14,14 @@
 package com.facebook.presto.cache.alluxio;
 
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileRange;
+import org.apache.hadoop.fs.VectoredReadUtils;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.IntFunction;
 
 import static com.google.common.base.Verify.verify;
 import static java.util.Objects.requireNonNull;
@@ -103,4 +108,12 @@ public class CacheValidatingInputStream
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public void readVectored(List<? extends FileRange> ranges, IntFunction<ByteBuffer> allocate)
+            throws IOException
+    {
+        // read the ranges one by one through readFully, instead of letting the wrapped stream serve them
+        VectoredReadUtils.readVectored(this, ranges, allocate);
+    }
 }
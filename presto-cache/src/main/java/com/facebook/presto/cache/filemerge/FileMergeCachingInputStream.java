@@ -17,9 +17,15 @@ import com.facebook.presto.cache.CacheManager;
 import com.facebook.presto.cache.FileReadRequest;
 import com.facebook.presto.hive.CacheQuota;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.VectoredReadUtils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.IntFunction;
 
 import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.Slices.wrappedBuffer;
@@ -31,6 +37,8 @@ public final class FileMergeCachingInputStream
     private final FSDataInputStream inputStream;
     private final CacheManager cacheManager;
     private final Path path;
+    private final long fileModificationTime;
+    private final OptionalLong fileLength;
     private final CacheQuota cacheQuota;
     private final boolean cacheValidationEnabled;
 
@@ -38,6 +46,8 @@ public final class FileMergeCachingInputStream
             FSDataInputStream inputStream,
             CacheManager cacheManager,
             Path path,
+            long fileModificationTime,
+            OptionalLong fileLength,
             CacheQuota cacheQuota,
             boolean cacheValidationEnabled)
     {
@@ -45,6 +55,8 @@ public final class FileMergeCachingInputStream
         this.inputStream = requireNonNull(inputStream, "inputStream is null");
         this.cacheManager = requireNonNull(cacheManager, "cacheManager is null");
         this.path = requireNonNull(path, "path is null");
+        this.fileModificationTime = fileModificationTime;
+        this.fileLength = requireNonNull(fileLength, "fileLength is null");
         this.cacheQuota = requireNonNull(cacheQuota, "cacheQuota is null");
         this.cacheValidationEnabled = cacheValidationEnabled;
     }
@@ -60,7 +72,7 @@ public final class FileMergeCachingInputStream
     public void readFully(long position, byte[] buffer, int offset, int length)
             throws IOException
     {
-        FileReadRequest key = new FileReadRequest(path, position, length);
+        FileReadRequest key = new FileReadRequest(path, position, length, fileModificationTime, fileLength);
         switch (cacheManager.get(key, buffer, offset, cacheQuota)) {
             case HIT:
                 break;
@@ -81,4 +93,12 @@ public final class FileMergeCachingInputStream
             }
         }
     }
+
+    @Override
+    public void readVectored(List<? extends FileRange> ranges, IntFunction<ByteBuffer> allocate)
+            throws IOException
+    {
+        // read the ranges one by one through readFully, instead of letting the wrapped stream serve them
+        VectoredReadUtils.readVectored(this, ranges, allocate);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.google.errorprone.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Integer.highestOneBit;
+
+/**
+ * Approximate access frequency of recently used keys (TinyLFU): a count-min sketch of
+ * small saturating counters that are halved periodically, so frequencies age out and
+ * reflect the recent workload rather than all time.
+ * <p>
+ * The 4-bit counters are packed sixteen to a long and updated with compare-and-set, so
+ * readers can record accesses without a lock. Concurrent updates racing with a reset
+ * may lose an increment, which only makes the estimate slightly less precise.
+ */
+@ThreadSafe
+class FrequencySketch
+{
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final int MAX_COUNT = 15;
+    private static final int COUNTERS_PER_LONG = 16;
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int width;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    public FrequencySketch(int expectedKeys)
+    {
+        checkArgument(expectedKeys > 0, "expectedKeys must be positive");
+        // at least four counters per key keep collisions from inflating the frequency of rare keys
+        this.width = Math.max(highestOneBit(Math.min(expectedKeys, 1 << 24) * 8 - 1), COUNTERS_PER_LONG);
+        this.table = new AtomicLongArray(SEEDS.length * width / COUNTERS_PER_LONG);
+        this.mask = width - 1;
+        this.sampleSize = Math.max(expectedKeys, 16) * 10;
+    }
+
+    public void increment(int hash)
+    {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            added |= incrementCounter(counter(hash, row));
+        }
+        // only the thread that reaches the sample size resets, the others keep counting
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    public int frequency(int hash)
+    {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int counter = counter(hash, row);
+            frequency = Math.min(frequency, count(table.get(counter / COUNTERS_PER_LONG), counter));
+        }
+        return frequency;
+    }
+
+    private boolean incrementCounter(int counter)
+    {
+        int index = counter / COUNTERS_PER_LONG;
+        while (true) {
+            long value = table.get(index);
+            if (count(value, counter) == MAX_COUNT) {
+                return false;
+            }
+            if (table.compareAndSet(index, value, value + (1L << shift(counter)))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset()
+    {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, value -> (value >>> 1) & RESET_MASK);
+        }
+        additions.addAndGet(-(sampleSize / 2));
+    }
+
+    private int counter(int hash, int row)
+    {
+        long value = (hash + SEEDS[row]) * SEEDS[row];
+        value += value >>> 32;
+        return row * width + ((int) value & mask);
+    }
+
+    private static int count(long value, int counter)
+    {
+        return (int) (value >>> shift(counter)) & MAX_COUNT;
+    }
+
+    private static int shift(int counter)
+    {
+        return (counter % COUNTERS_PER_LONG) * 4;
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.cache.CacheStats;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import org.apache.hadoop.fs.Path;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Maps cached pages to the fixed-size slots of the cache files.
+ * <p>
+ * Each slot holds one contiguous range of one page. Slot metadata lives in flat arrays
+ * indexed by slot number. Slots are evicted with the CLOCK algorithm and, when admission
+ * is enabled, a page only replaces a victim that was accessed less frequently.
+ * <p>
+ * Reading or writing slot contents happens outside this index. A slot's generation is
+ * bumped whenever the slot is given to another page, so a reader can tell whether the
+ * bytes it read still belong to the page it looked up.
+ * <p>
+ * Bytes reserved for a write count against the quota of the page's scope until the write is
+ * published or aborted, so concurrent writes cannot overshoot the quota. Accesses are recorded
+ * in a lock-free {@link FrequencySketch} before taking the index lock.
+ * <p>
+ * A page that is not read or written for longer than the TTL is released on its next lookup.
+ */
+@ThreadSafe
+class PageIndex
+{
+    private final int slotCount;
+    private final boolean admissionEnabled;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final CacheStats stats;
+
+    @GuardedBy("this")
+    private final Map<PageKey, Integer> slotsByPage = new HashMap<>();
+    @GuardedBy("this")
+    private final PageKey[] slotPages;
+    @GuardedBy("this")
+    private final long[] slotScopes;
+    @GuardedBy("this")
+    private final int[] validStarts;
+    @GuardedBy("this")
+    private final int[] validEnds;
+    @GuardedBy("this")
+    private final int[] reservedBytes;
+    @GuardedBy("this")
+    private final long[] generations;
+    @GuardedBy("this")
+    private final long[] lastAccessNanos;
+    @GuardedBy("this")
+    private final BitSet referenced;
+    @GuardedBy("this")
+    private final int[] freeSlots;
+    @GuardedBy("this")
+    private int freeSlotCount;
+    @GuardedBy("this")
+    private int clockHand;
+    @GuardedBy("this")
+    private final Map<Long, Long> scopeSizeInBytes = new HashMap<>();
+    private final FrequencySketch frequencySketch;
+
+    public PageIndex(int slotCount, boolean admissionEnabled, CacheStats stats)
+    {
+        this(slotCount, admissionEnabled, new Duration(Long.MAX_VALUE, NANOSECONDS), Ticker.systemTicker(), stats);
+    }
+
+    public PageIndex(int slotCount, boolean admissionEnabled, Duration ttl, Ticker ticker, CacheStats stats)
+    {
+        checkArgument(slotCount > 0, "slotCount must be positive");
+        this.slotCount = slotCount;
+        this.admissionEnabled = admissionEnabled;
+        this.ttlNanos = requireNonNull(ttl, "ttl is null").roundTo(NANOSECONDS);
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.slotPages = new PageKey[slotCount];
+        this.slotScopes = new long[slotCount];
+        this.validStarts = new int[slotCount];
+        this.validEnds = new int[slotCount];
+        this.reservedBytes = new int[slotCount];
+        this.generations = new long[slotCount];
+        this.lastAccessNanos = new long[slotCount];
+        this.referenced = new BitSet(slotCount);
+        this.freeSlots = new int[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            freeSlots[slot] = slotCount - slot - 1;
+        }
+        this.freeSlotCount = slotCount;
+        this.frequencySketch = new FrequencySketch(slotCount);
+    }
+
+    /**
+     * Records an access to the page and returns where it is cached, or null if it is not.
+     */
+    public PageLocation lookup(PageKey page)
+    {
+        frequencySketch.increment(page.hashCode());
+        return getLocation(page);
+    }
+
+    private synchronized PageLocation getLocation(PageKey page)
+    {
+        Integer slot = slotsByPage.get(page);
+        if (slot == null) {
+            return null;
+        }
+        long now = ticker.read();
+        if (now - lastAccessNanos[slot] > ttlNanos && reservedBytes[slot] == 0) {
+            release(slot);
+            stats.incrementEviction();
+            return null;
+        }
+        lastAccessNanos[slot] = now;
+        referenced.set(slot);
+        return location(slot);
+    }
+
+    public synchronized boolean isCurrent(PageLocation location)
+    {
+        return generations[location.getSlot()] == location.getGeneration();
+    }
+
+    /**
+     * Reserves a slot to write the range [start, end) of the page to, evicting another
+     * page if needed. Returns null if the range is already cached or the page is not admitted.
+     */
+    public synchronized PageLocation reserve(PageKey page, long scope, OptionalLong scopeQuotaInBytes, int start, int end)
+    {
+        int length = end - start;
+        Integer existingSlot = slotsByPage.get(page);
+        if (existingSlot != null) {
+            int slot = existingSlot;
+            if (validStarts[slot] <= start && end <= validEnds[slot]) {
+                return null;
+            }
+            if (isContiguous(slot, start, end)) {
+                // the new bytes extend the cached range in place, without disturbing readers of it
+                if (!makeRoomInScope(page, slotScopes[slot], scopeQuotaInBytes, length, slot)) {
+                    return null;
+                }
+                reserveBytes(slot, length);
+                return location(slot);
+            }
+            if (end - start <= validEnds[slot] - validStarts[slot]) {
+                return null;
+            }
+            // keep the larger of two disjoint ranges
+            release(slot);
+        }
+
+        if (!makeRoomInScope(page, scope, scopeQuotaInBytes, length, -1)) {
+            return null;
+        }
+        if (freeSlotCount == 0 && !evict(page, OptionalLong.empty(), -1)) {
+            return null;
+        }
+
+        int slot = freeSlots[--freeSlotCount];
+        slotsByPage.put(page, slot);
+        slotPages[slot] = page;
+        slotScopes[slot] = scope;
+        validStarts[slot] = start;
+        validEnds[slot] = start;
+        lastAccessNanos[slot] = ticker.read();
+        referenced.clear(slot);
+        reserveBytes(slot, length);
+        return location(slot);
+    }
+
+    /**
+     * Marks the range [start, end) written to the reserved slot as readable.
+     */
+    public synchronized void publish(PageKey page, PageLocation location, int start, int end)
+    {
+        int slot = location.getSlot();
+        if (generations[slot] != location.getGeneration() || !page.equals(slotPages[slot])) {
+            // the slot was evicted while writing, which already released its reservations
+            return;
+        }
+        unreserveBytes(slot, end - start);
+        if (!isContiguous(slot, start, end)) {
+            return;
+        }
+        int previousLength = validEnds[slot] - validStarts[slot];
+        if (previousLength == 0) {
+            validStarts[slot] = start;
+            validEnds[slot] = end;
+        }
+        else {
+            validStarts[slot] = Math.min(validStarts[slot], start);
+            validEnds[slot] = Math.max(validEnds[slot], end);
+        }
+        scopeSizeInBytes.merge(slotScopes[slot], (long) (validEnds[slot] - validStarts[slot] - previousLength), Long::sum);
+    }
+
+    /**
+     * Releases a reserved slot whose write failed.
+     */
+    public synchronized void abort(PageKey page, PageLocation location)
+    {
+        int slot = location.getSlot();
+        if (generations[slot] == location.getGeneration() && page.equals(slotPages[slot])) {
+            release(slot);
+        }
+    }
+
+    public synchronized int getCachedPageCount()
+    {
+        return slotsByPage.size();
+    }
+
+    /**
+     * Returns the bytes of the scope that are cached or reserved for writes in progress.
+     */
+    public synchronized long getScopeSizeInBytes(long scope)
+    {
+        return scopeSizeInBytes.getOrDefault(scope, 0L);
+    }
+
+    /**
+     * Returns the readable ranges of all cached pages.
+     */
+    public synchronized List<CachedPage> getCachedPages()
+    {
+        ImmutableList.Builder<CachedPage> pages = ImmutableList.builder();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotPages[slot] != null && validStarts[slot] < validEnds[slot]) {
+                pages.add(new CachedPage(slot, slotPages[slot], slotScopes[slot], validStarts[slot], validEnds[slot]));
+            }
+        }
+        return pages.build();
+    }
+
+    /**
+     * Adds pages whose contents are already in their slots, such as the pages cached before a restart.
+     * Their TTL starts again when they are restored. Must be called before the index is used.
+     */
+    public synchronized void restore(List<CachedPage> pages)
+    {
+        checkState(slotsByPage.isEmpty(), "index is not empty");
+        long now = ticker.read();
+        BitSet occupied = new BitSet(slotCount);
+        for (CachedPage page : pages) {
+            int slot = page.getSlot();
+            checkArgument(slot >= 0 && slot < slotCount && !occupied.get(slot), "invalid slot %s", slot);
+            checkArgument(0 <= page.getStart() && page.getStart() < page.getEnd(), "invalid range of slot %s", slot);
+            occupied.set(slot);
+            slotsByPage.put(page.getKey(), slot);
+            slotPages[slot] = page.getKey();
+            slotScopes[slot] = page.getScope();
+            validStarts[slot] = page.getStart();
+            validEnds[slot] = page.getEnd();
+            lastAccessNanos[slot] = now;
+            scopeSizeInBytes.merge(page.getScope(), (long) (page.getEnd() - page.getStart()), Long::sum);
+        }
+        freeSlotCount = 0;
+        for (int slot = slotCount - 1; slot >= 0; slot--) {
+            if (!occupied.get(slot)) {
+                freeSlots[freeSlotCount++] = slot;
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private boolean isContiguous(int slot, int start, int end)
+    {
+        if (validStarts[slot] == validEnds[slot]) {
+            return validStarts[slot] == start;
+        }
+        return start <= validEnds[slot] && validStarts[slot] <= end;
+    }
+
+    @GuardedBy("this")
+    private boolean makeRoomInScope(PageKey page, long scope, OptionalLong scopeQuotaInBytes, int length, int excludedSlot)
+    {
+        if (!scopeQuotaInBytes.isPresent()) {
+            return true;
+        }
+        // evict pages of the same scope, other than the one being extended, until the write fits in the quota
+        while (scopeSizeInBytes.getOrDefault(scope, 0L) + length > scopeQuotaInBytes.getAsLong()) {
+            if (!evict(page, OptionalLong.of(scope), excludedSlot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @GuardedBy("this")
+    private void reserveBytes(int slot, int length)
+    {
+        reservedBytes[slot] += length;
+        scopeSizeInBytes.merge(slotScopes[slot], (long) length, Long::sum);
+    }
+
+    @GuardedBy("this")
+    private void unreserveBytes(int slot, int length)
+    {
+        reservedBytes[slot] -= length;
+        if (scopeSizeInBytes.merge(slotScopes[slot], (long) -length, Long::sum) == 0) {
+            scopeSizeInBytes.remove(slotScopes[slot]);
+        }
+    }
+
+    @GuardedBy("this")
+    private boolean evict(PageKey candidate, OptionalLong scope, int excludedSlot)
+    {
+        int victim = findVictim(scope, excludedSlot);
+        if (victim < 0) {
+            return false;
+        }
+        if (admissionEnabled && frequencySketch.frequency(candidate.hashCode()) <= frequencySketch.frequency(slotPages[victim].hashCode())) {
+            stats.incrementAdmissionRejected();
+            return false;
+        }
+        release(victim);
+        stats.incrementEviction();
+        return true;
+    }
+
+    @GuardedBy("this")
+    private int findVictim(OptionalLong scope, int excludedSlot)
+    {
+        // two rounds: the first may only clear reference bits
+        for (int i = 0; i < slotCount * 2; i++) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) % slotCount;
+            if (slotPages[slot] == null || slot == excludedSlot || (scope.isPresent() && slotScopes[slot] != scope.getAsLong())) {
+                continue;
+            }
+            if (referenced.get(slot)) {
+                referenced.clear(slot);
+                continue;
+            }
+            return slot;
+        }
+        return -1;
+    }
+
+    @GuardedBy("this")
+    private void release(int slot)
+    {
+        slotsByPage.remove(slotPages[slot]);
+        long bytes = validEnds[slot] - validStarts[slot] + reservedBytes[slot];
+        if (scopeSizeInBytes.merge(slotScopes[slot], -bytes, Long::sum) == 0) {
+            scopeSizeInBytes.remove(slotScopes[slot]);
+        }
+        slotPages[slot] = null;
+        validStarts[slot] = 0;
+        validEnds[slot] = 0;
+        reservedBytes[slot] = 0;
+        generations[slot]++;
+        referenced.clear(slot);
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    @GuardedBy("this")
+    private PageLocation location(int slot)
+    {
+        return new PageLocation(slot, generations[slot], validStarts[slot], validEnds[slot]);
+    }
+
+    /**
+     * Identifies a page of one version of a file: a file rewritten in place has a different
+     * modification time or length, so the pages cached for its previous contents are never read.
+     */
+    public static class PageKey
+    {
+        private final Path path;
+        private final long fileModificationTime;
+        private final long fileLength;
+        private final long pageNumber;
+
+        public PageKey(Path path, long fileModificationTime, long fileLength, long pageNumber)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.fileModificationTime = fileModificationTime;
+            this.fileLength = fileLength;
+            this.pageNumber = pageNumber;
+        }
+
+        public Path getPath()
+        {
+            return path;
+        }
+
+        public long getFileModificationTime()
+        {
+            return fileModificationTime;
+        }
+
+        public long getFileLength()
+        {
+            return fileLength;
+        }
+
+        public long getPageNumber()
+        {
+            return pageNumber;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageKey that = (PageKey) o;
+            return fileModificationTime == that.fileModificationTime &&
+                    fileLength == that.fileLength &&
+                    pageNumber == that.pageNumber &&
+                    path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, fileModificationTime, fileLength, pageNumber);
+        }
+    }
+
+    public static class CachedPage
+    {
+        private final int slot;
+        private final PageKey key;
+        private final long scope;
+        private final int start;
+        private final int end;
+
+        public CachedPage(int slot, PageKey key, long scope, int start, int end)
+        {
+            this.slot = slot;
+            this.key = requireNonNull(key, "key is null");
+            this.scope = scope;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getSlot()
+        {
+            return slot;
+        }
+
+        public PageKey getKey()
+        {
+            return key;
+        }
+
+        public long getScope()
+        {
+            return scope;
+        }
+
+        public int getStart()
+        {
+            return start;
+        }
+
+        public int getEnd()
+        {
+            return end;
+        }
+    }
+
+    public static class PageLocation
+    {
+        private final int slot;
+        private final long generation;
+        private final int validStart;
+        private final int validEnd;
+
+        public PageLocation(int slot, long generation, int validStart, int validEnd)
+        {
+            this.slot = slot;
+            this.generation = generation;
+            this.validStart = validStart;
+            this.validEnd = validEnd;
+        }
+
+        public int getSlot()
+        {
+            return slot;
+        }
+
+        public long getGeneration()
+        {
+            return generation;
+        }
+
+        public boolean covers(int start, int end)
+        {
+            return validStart <= start && end <= validEnd;
+        }
+    }
+}
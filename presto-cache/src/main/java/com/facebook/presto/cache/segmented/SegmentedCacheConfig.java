@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
+import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.MaxDataSize;
+import com.facebook.airlift.units.MinDataSize;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+
+import static com.facebook.airlift.units.DataSize.Unit.GIGABYTE;
+import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class SegmentedCacheConfig
+{
+    private DataSize pageSize = new DataSize(1, MEGABYTE);
+    private DataSize segmentSize = new DataSize(256, MEGABYTE);
+    private DataSize maxCacheSize = new DataSize(10, GIGABYTE);
+    private DataSize maxPendingWriteSize = new DataSize(512, MEGABYTE);
+    private int writerThreads = 4;
+    private boolean admissionEnabled = true;
+
+    @MinDataSize("4kB")
+    @MaxDataSize("64MB")
+    public DataSize getPageSize()
+    {
+        return pageSize;
+    }
+
+    @Config("cache.segmented.page-size")
+    @ConfigDescription("Size of the pages the cached data is stored in")
+    public SegmentedCacheConfig setPageSize(DataSize pageSize)
+    {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    @MinDataSize("4kB")
+    public DataSize getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    @Config("cache.segmented.segment-size")
+    @ConfigDescription("Size of each preallocated cache file; must be a multiple of the page size")
+    public SegmentedCacheConfig setSegmentSize(DataSize segmentSize)
+    {
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    @MinDataSize("4kB")
+    public DataSize getMaxCacheSize()
+    {
+        return maxCacheSize;
+    }
+
+    @Config("cache.segmented.max-cache-size")
+    @ConfigDescription("Maximum local disk space used by the cache")
+    public SegmentedCacheConfig setMaxCacheSize(DataSize maxCacheSize)
+    {
+        this.maxCacheSize = maxCacheSize;
+        return this;
+    }
+
+    public DataSize getMaxPendingWriteSize()
+    {
+        return maxPendingWriteSize;
+    }
+
+    @Config("cache.segmented.max-pending-write-size")
+    @ConfigDescription("Maximum size of data held in memory waiting to be written to the cache")
+    public SegmentedCacheConfig setMaxPendingWriteSize(DataSize maxPendingWriteSize)
+    {
+        this.maxPendingWriteSize = maxPendingWriteSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getWriterThreads()
+    {
+        return writerThreads;
+    }
+
+    @Config("cache.segmented.writer-threads")
+    @ConfigDescription("Number of threads writing data to the cache")
+    public SegmentedCacheConfig setWriterThreads(int writerThreads)
+    {
+        this.writerThreads = writerThreads;
+        return this;
+    }
+
+    public boolean isAdmissionEnabled()
+    {
+        return admissionEnabled;
+    }
+
+    @Config("cache.segmented.admission-enabled")
+    @ConfigDescription("Only replace cached pages with pages that are accessed more frequently, so one-off scans do not evict hot data")
+    public SegmentedCacheConfig setAdmissionEnabled(boolean admissionEnabled)
+    {
+        this.admissionEnabled = admissionEnabled;
+        return this;
+    }
+
+    @AssertTrue(message = "cache.segmented.segment-size must be a multiple of cache.segmented.page-size")
+    public boolean isSegmentSizeMultipleOfPageSize()
+    {
+        return segmentSize.toBytes() % pageSize.toBytes() == 0;
+    }
+}
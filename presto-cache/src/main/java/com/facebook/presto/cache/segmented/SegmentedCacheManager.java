@@ -0,0 +1,492 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.cache.CacheConfig;
+import com.facebook.presto.cache.CacheManager;
+import com.facebook.presto.cache.CacheResult;
+import com.facebook.presto.cache.CacheStats;
+import com.facebook.presto.cache.FileReadRequest;
+import com.facebook.presto.cache.segmented.PageIndex.CachedPage;
+import com.facebook.presto.cache.segmented.PageIndex.PageKey;
+import com.facebook.presto.cache.segmented.PageIndex.PageLocation;
+import com.facebook.presto.hive.CacheQuota;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.slice.Slice;
+import jakarta.annotation.PreDestroy;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.toIntExact;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Caches file ranges in fixed-size pages stored in large files preallocated on local disk.
+ * <p>
+ * Unlike {@link com.facebook.presto.cache.filemerge.FileMergeCacheManager}, cached data is never
+ * copied to merge ranges: a page is written in place into its slot, reads are positional
+ * reads on files that stay open, and writes happen asynchronously. See {@link PageIndex} for
+ * how pages are admitted and evicted.
+ * <p>
+ * On shutdown the index of cached pages is written next to the segments, and loaded again on
+ * startup if the page layout did not change, so cached data survives a restart. The index file is
+ * deleted once loaded: after a crash the segments are reused as empty space.
+ * <p>
+ * Interrupting a thread blocked on a {@link FileChannel} closes the channel for every thread,
+ * so a segment whose channel was closed by an interrupt is reopened and the I/O is retried.
+ */
+public class SegmentedCacheManager
+        implements CacheManager
+{
+    private static final Logger log = Logger.get(SegmentedCacheManager.class);
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String EXTENSION = ".cache";
+    private static final String INDEX_FILE_NAME = "index" + EXTENSION;
+    private static final int INDEX_MAGIC = 0x50434958;
+    private static final int INDEX_VERSION = 2;
+
+    private final File directory;
+    private final int pageSize;
+    private final int slotsPerSegment;
+    private final int slotCount;
+    private final long maxPendingWriteBytes;
+    private final List<File> segmentFiles;
+    private final AtomicReferenceArray<FileChannel> segments;
+    private final PageIndex pageIndex;
+    private final CacheStats stats;
+    private final ExecutorService cacheWriteExecutor;
+    private final AtomicLong pendingWriteBytes = new AtomicLong();
+    @GuardedBy("segments")
+    private boolean closed;
+
+    public SegmentedCacheManager(
+            CacheConfig cacheConfig,
+            SegmentedCacheConfig segmentedCacheConfig,
+            Duration cacheTtl,
+            CacheStats stats,
+            ExecutorService cacheWriteExecutor)
+    {
+        this(cacheConfig, segmentedCacheConfig, cacheTtl, Ticker.systemTicker(), stats, cacheWriteExecutor);
+    }
+
+    @VisibleForTesting
+    SegmentedCacheManager(
+            CacheConfig cacheConfig,
+            SegmentedCacheConfig segmentedCacheConfig,
+            Duration cacheTtl,
+            Ticker ticker,
+            CacheStats stats,
+            ExecutorService cacheWriteExecutor)
+    {
+        requireNonNull(cacheConfig, "cacheConfig is null");
+        requireNonNull(cacheConfig.getBaseDirectory(), "cache base directory is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.cacheWriteExecutor = requireNonNull(cacheWriteExecutor, "cacheWriteExecutor is null");
+
+        this.pageSize = toIntExact(segmentedCacheConfig.getPageSize().toBytes());
+        long segmentSize = segmentedCacheConfig.getSegmentSize().toBytes();
+        checkArgument(segmentSize % pageSize == 0, "segment size must be a multiple of the page size");
+        this.slotsPerSegment = toIntExact(segmentSize / pageSize);
+        int segmentCount = toIntExact(Math.max(segmentedCacheConfig.getMaxCacheSize().toBytes() / segmentSize, 1));
+        this.maxPendingWriteBytes = segmentedCacheConfig.getMaxPendingWriteSize().toBytes();
+        this.slotCount = toIntExact((long) segmentCount * slotsPerSegment);
+        this.pageIndex = new PageIndex(slotCount, segmentedCacheConfig.isAdmissionEnabled(), cacheTtl, ticker, stats);
+        this.directory = new File(cacheConfig.getBaseDirectory());
+        this.segmentFiles = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segmentFiles.add(new File(directory, SEGMENT_FILE_PREFIX + i + EXTENSION));
+        }
+        this.segments = createSegments(directory, segmentFiles, segmentSize);
+        loadIndex();
+    }
+
+    private static AtomicReferenceArray<FileChannel> createSegments(File directory, List<File> segmentFiles, long segmentSize)
+    {
+        AtomicReferenceArray<FileChannel> segments = new AtomicReferenceArray<>(segmentFiles.size());
+        try {
+            Files.createDirectories(directory.toPath());
+            for (int i = 0; i < segmentFiles.size(); i++) {
+                File file = segmentFiles.get(i);
+                // the contents of a previous run are only used if its index is loaded
+                try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                    randomAccessFile.setLength(segmentSize);
+                }
+                segments.set(i, FileChannel.open(file.toPath(), READ, WRITE));
+            }
+        }
+        catch (IOException e) {
+            closeSegments(segments);
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "cannot create cache segments in " + directory, e);
+        }
+        return segments;
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        cacheWriteExecutor.shutdownNow();
+        try {
+            // pages whose write is still running are not published, so they are not indexed either
+            cacheWriteExecutor.awaitTermination(1, SECONDS);
+            for (int i = 0; i < segments.length(); i++) {
+                segments.get(i).force(false);
+            }
+            writeIndex();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to write cache index to %s", directory);
+        }
+        finally {
+            synchronized (segments) {
+                closed = true;
+                closeSegments(segments);
+            }
+        }
+    }
+
+    private void writeIndex()
+            throws IOException
+    {
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        File temporaryFile = new File(directory, INDEX_FILE_NAME + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            List<CachedPage> pages = pageIndex.getCachedPages();
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(INDEX_VERSION);
+            output.writeInt(pageSize);
+            output.writeInt(slotCount);
+            output.writeInt(pages.size());
+            for (CachedPage page : pages) {
+                output.writeInt(page.getSlot());
+                output.writeUTF(page.getKey().getPath().toString());
+                output.writeLong(page.getKey().getFileModificationTime());
+                output.writeLong(page.getKey().getFileLength());
+                output.writeLong(page.getKey().getPageNumber());
+                output.writeLong(page.getScope());
+                output.writeInt(page.getStart());
+                output.writeInt(page.getEnd());
+            }
+        }
+        Files.move(temporaryFile.toPath(), indexFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private void loadIndex()
+    {
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != INDEX_VERSION || input.readInt() != pageSize || input.readInt() != slotCount) {
+                log.info("Ignoring cache index of a different cache layout in %s", directory);
+                return;
+            }
+            int pageCount = input.readInt();
+            List<CachedPage> pages = new ArrayList<>(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                int slot = input.readInt();
+                PageKey key = new PageKey(new Path(input.readUTF()), input.readLong(), input.readLong(), input.readLong());
+                pages.add(new CachedPage(slot, key, input.readLong(), input.readInt(), input.readInt()));
+            }
+            pageIndex.restore(pages);
+            log.info("Loaded %s cached pages from %s", pageCount, directory);
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn(e, "Failed to load cache index from %s", directory);
+        }
+        finally {
+            // the segments change as soon as the cache is used, so the index must not be loaded twice
+            try {
+                Files.deleteIfExists(indexFile.toPath());
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to delete cache index %s", indexFile);
+            }
+        }
+    }
+
+    @Override
+    public CacheResult get(FileReadRequest request, byte[] buffer, int offset, CacheQuota cacheQuota)
+    {
+        if (request.getLength() <= 0) {
+            return CacheResult.HIT;
+        }
+
+        // record the access of every page, so frequently read pages are admitted on later writes
+        List<PageLocation> locations = new ArrayList<>();
+        boolean cached = true;
+        long end = request.getOffset() + request.getLength();
+        for (long pageNumber = request.getOffset() / pageSize; pageNumber * pageSize < end; pageNumber++) {
+            PageLocation location = pageIndex.lookup(pageKey(request, pageNumber));
+            long pageStart = pageNumber * pageSize;
+            if (location == null || !location.covers(toIntExact(Math.max(request.getOffset(), pageStart) - pageStart), toIntExact(Math.min(end, pageStart + pageSize) - pageStart))) {
+                cached = false;
+            }
+            locations.add(location);
+        }
+
+        if (cached && read(request, locations, buffer, offset)) {
+            stats.incrementCacheHit();
+            return CacheResult.HIT;
+        }
+
+        // other pages of the scope are evicted to stay within the quota, unless the request can never fit
+        if (cacheQuota.getQuota().map(quota -> request.getLength() > quota.toBytes()).orElse(false)) {
+            stats.incrementQuotaExceed();
+            return CacheResult.CACHE_QUOTA_EXCEED;
+        }
+
+        stats.incrementCacheMiss();
+        return CacheResult.MISS;
+    }
+
+    private boolean read(FileReadRequest request, List<PageLocation> locations, byte[] buffer, int offset)
+    {
+        long end = request.getOffset() + request.getLength();
+        long position = request.getOffset();
+        int bufferOffset = offset;
+        try {
+            for (PageLocation location : locations) {
+                long pageStart = position - position % pageSize;
+                int length = toIntExact(Math.min(end, pageStart + pageSize) - position);
+                readSlot(location, ByteBuffer.wrap(buffer, bufferOffset, length), slotPosition(location) + position - pageStart);
+                position += length;
+                bufferOffset += length;
+            }
+        }
+        catch (ClosedByInterruptException e) {
+            // the caller reads from the file instead; the segment was reopened for other readers
+            return false;
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to read cached data of %s", request.getPath());
+            return false;
+        }
+
+        // the bytes read are only valid if no page was evicted in the meantime
+        for (PageLocation location : locations) {
+            if (!pageIndex.isCurrent(location)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void put(FileReadRequest request, Slice data, CacheQuota cacheQuota)
+    {
+        if (pendingWriteBytes.addAndGet(data.length()) > maxPendingWriteBytes) {
+            // cannot accept more requests
+            pendingWriteBytes.addAndGet(-data.length());
+            return;
+        }
+
+        // make a copy given the input data could be a reusable buffer
+        stats.addInMemoryRetainedBytes(data.length());
+        byte[] copy = data.getBytes();
+        try {
+            cacheWriteExecutor.execute(() -> {
+                try {
+                    write(request, copy, cacheQuota);
+                }
+                finally {
+                    pendingWriteBytes.addAndGet(-copy.length);
+                    stats.addInMemoryRetainedBytes(-copy.length);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            pendingWriteBytes.addAndGet(-copy.length);
+            stats.addInMemoryRetainedBytes(-copy.length);
+        }
+    }
+
+    private void write(FileReadRequest request, byte[] data, CacheQuota cacheQuota)
+    {
+        OptionalLong quotaInBytes = cacheQuota.getQuota().map(quota -> OptionalLong.of(quota.toBytes())).orElse(OptionalLong.empty());
+        long end = request.getOffset() + data.length;
+        long position = request.getOffset();
+        while (position < end) {
+            long pageNumber = position / pageSize;
+            long pageStart = pageNumber * pageSize;
+            int start = toIntExact(position - pageStart);
+            int length = toIntExact(Math.min(end, pageStart + pageSize) - position);
+
+            PageKey page = pageKey(request, pageNumber);
+            PageLocation location = pageIndex.reserve(page, cacheQuota.getIdentifier(), quotaInBytes, start, start + length);
+            if (location != null) {
+                try {
+                    writeSlot(location, ByteBuffer.wrap(data, toIntExact(position - request.getOffset()), length), slotPosition(location) + start);
+                    pageIndex.publish(page, location, start, start + length);
+                }
+                catch (IOException e) {
+                    log.warn(e, "Failed to write cached data of %s", request.getPath());
+                    pageIndex.abort(page, location);
+                }
+            }
+            position += length;
+        }
+    }
+
+    @VisibleForTesting
+    int getCachedPageCount()
+    {
+        return pageIndex.getCachedPageCount();
+    }
+
+    @VisibleForTesting
+    long getCacheScopeSizeInBytes(CacheQuota cacheQuota)
+    {
+        return pageIndex.getScopeSizeInBytes(cacheQuota.getIdentifier());
+    }
+
+    private static PageKey pageKey(FileReadRequest request, long pageNumber)
+    {
+        return new PageKey(request.getPath(), request.getFileModificationTime(), request.getFileLength().orElse(-1), pageNumber);
+    }
+
+    private long slotPosition(PageLocation location)
+    {
+        return (long) (location.getSlot() % slotsPerSegment) * pageSize;
+    }
+
+    private void readSlot(PageLocation location, ByteBuffer buffer, long position)
+            throws IOException
+    {
+        int segment = location.getSlot() / slotsPerSegment;
+        FileChannel channel = segments.get(segment);
+        int start = buffer.position();
+        try {
+            readFully(channel, buffer, position);
+        }
+        catch (ClosedChannelException e) {
+            FileChannel reopened = reopenSegment(segment, channel, e);
+            buffer.position(start);
+            readFully(reopened, buffer, position);
+        }
+    }
+
+    private void writeSlot(PageLocation location, ByteBuffer buffer, long position)
+            throws IOException
+    {
+        int segment = location.getSlot() / slotsPerSegment;
+        FileChannel channel = segments.get(segment);
+        int start = buffer.position();
+        try {
+            writeFully(channel, buffer, position);
+        }
+        catch (ClosedChannelException e) {
+            FileChannel reopened = reopenSegment(segment, channel, e);
+            buffer.position(start);
+            writeFully(reopened, buffer, position);
+        }
+    }
+
+    /**
+     * Replaces a segment channel closed by an interrupt, unless another thread already did.
+     * The interrupted thread itself gives up, since it would be interrupted again.
+     */
+    private FileChannel reopenSegment(int segment, FileChannel closedChannel, ClosedChannelException cause)
+            throws IOException
+    {
+        synchronized (segments) {
+            if (closed) {
+                throw cause;
+            }
+            FileChannel channel = segments.get(segment);
+            if (channel == closedChannel) {
+                channel = FileChannel.open(segmentFiles.get(segment).toPath(), READ, WRITE);
+                segments.set(segment, channel);
+            }
+            if (cause instanceof ClosedByInterruptException) {
+                throw cause;
+            }
+            return channel;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            int bytesRead = channel.read(buffer, position);
+            if (bytesRead < 0) {
+                throw new EOFException("unexpected end of cache segment");
+            }
+            position += bytesRead;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void closeSegments(AtomicReferenceArray<FileChannel> segments)
+    {
+        for (int i = 0; i < segments.length(); i++) {
+            FileChannel segment = segments.get(i);
+            if (segment == null) {
+                continue;
+            }
+            try {
+                segment.close();
+            }
+            catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.facebook.presto.cache.CacheStats;
+import com.facebook.presto.cache.segmented.PageIndex.CachedPage;
+import com.facebook.presto.cache.segmented.PageIndex.PageKey;
+import com.facebook.presto.cache.segmented.PageIndex.PageLocation;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestPageIndex
+{
+    private static final int PAGE_SIZE = 100;
+    private static final long SCOPE = 1;
+    private static final OptionalLong QUOTA = OptionalLong.of(PAGE_SIZE * 2);
+
+    @Test
+    public void testReservationsCountAgainstQuota()
+    {
+        CacheStats stats = new CacheStats();
+        PageIndex index = new PageIndex(8, false, stats);
+
+        // two writes in progress fill the quota before either is published
+        PageLocation first = index.reserve(page(0), SCOPE, QUOTA, 0, PAGE_SIZE);
+        PageLocation second = index.reserve(page(1), SCOPE, QUOTA, 0, PAGE_SIZE);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(index.getScopeSizeInBytes(SCOPE), PAGE_SIZE * 2);
+
+        // a third write evicts a pending one instead of overshooting the quota
+        PageLocation third = index.reserve(page(2), SCOPE, QUOTA, 0, PAGE_SIZE);
+        assertNotNull(third);
+        assertEquals(index.getScopeSizeInBytes(SCOPE), PAGE_SIZE * 2);
+        assertEquals(stats.getEviction(), 1);
+
+        index.publish(page(0), first, 0, PAGE_SIZE);
+        index.publish(page(1), second, 0, PAGE_SIZE);
+        index.publish(page(2), third, 0, PAGE_SIZE);
+        assertEquals(index.getCachedPageCount(), 2);
+        assertEquals(index.getScopeSizeInBytes(SCOPE), PAGE_SIZE * 2);
+    }
+
+    @Test
+    public void testExtensionCountsAgainstQuota()
+    {
+        CacheStats stats = new CacheStats();
+        PageIndex index = new PageIndex(8, false, stats);
+
+        OptionalLong quota = OptionalLong.of(PAGE_SIZE * 3 / 2);
+
+        PageLocation first = index.reserve(page(0), SCOPE, quota, 0, PAGE_SIZE / 2);
+        index.publish(page(0), first, 0, PAGE_SIZE / 2);
+        PageLocation second = index.reserve(page(1), SCOPE, quota, 0, PAGE_SIZE);
+        index.publish(page(1), second, 0, PAGE_SIZE);
+
+        // extending the first page evicts the other page of the scope, not the page being extended
+        PageLocation extension = index.reserve(page(0), SCOPE, quota, PAGE_SIZE / 2, PAGE_SIZE);
+        assertNotNull(extension);
+        assertEquals(extension.getSlot(), first.getSlot());
+        assertEquals(stats.getEviction(), 1);
+        assertNull(index.lookup(page(1)));
+        index.publish(page(0), extension, PAGE_SIZE / 2, PAGE_SIZE);
+        assertEquals(index.getScopeSizeInBytes(SCOPE), PAGE_SIZE);
+        assertTrue(index.lookup(page(0)).covers(0, PAGE_SIZE));
+    }
+
+    @Test
+    public void testAbortReleasesReservation()
+    {
+        PageIndex index = new PageIndex(8, false, new CacheStats());
+
+        PageLocation location = index.reserve(page(0), SCOPE, QUOTA, 0, PAGE_SIZE);
+        assertEquals(index.getScopeSizeInBytes(SCOPE), PAGE_SIZE);
+        index.abort(page(0), location);
+        assertEquals(index.getScopeSizeInBytes(SCOPE), 0);
+        assertEquals(index.getCachedPageCount(), 0);
+        assertFalse(index.isCurrent(location));
+    }
+
+    @Test
+    public void testRestore()
+    {
+        PageIndex index = new PageIndex(8, false, new CacheStats());
+        PageLocation location = index.reserve(page(0), SCOPE, QUOTA, 10, 60);
+        index.publish(page(0), location, 10, 60);
+        // unpublished writes are not part of the cached pages
+        index.reserve(page(1), SCOPE, QUOTA, 0, PAGE_SIZE);
+
+        List<CachedPage> pages = index.getCachedPages();
+        assertEquals(pages.size(), 1);
+
+        CacheStats stats = new CacheStats();
+        PageIndex restored = new PageIndex(8, false, stats);
+        restored.restore(pages);
+        assertEquals(restored.getCachedPageCount(), 1);
+        assertEquals(restored.getScopeSizeInBytes(SCOPE), 50);
+        PageLocation restoredLocation = restored.lookup(page(0));
+        assertEquals(restoredLocation.getSlot(), location.getSlot());
+        assertTrue(restoredLocation.covers(10, 60));
+        assertFalse(restoredLocation.covers(0, 60));
+
+        // all other slots are free
+        for (int i = 1; i < 8; i++) {
+            assertNotNull(restored.reserve(page(i), SCOPE, OptionalLong.empty(), 0, PAGE_SIZE));
+        }
+        assertEquals(stats.getEviction(), 0);
+        assertNotNull(restored.reserve(page(8), SCOPE, OptionalLong.empty(), 0, PAGE_SIZE));
+        assertEquals(stats.getEviction(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRestoreDuplicateSlot()
+    {
+        PageIndex index = new PageIndex(8, false, new CacheStats());
+        index.restore(ImmutableList.of(
+                new CachedPage(3, page(0), SCOPE, 0, 10),
+                new CachedPage(3, page(1), SCOPE, 0, 10)));
+    }
+
+    private static PageKey page(long pageNumber)
+    {
+        return new PageKey(new Path("/data"), 0, -1, pageNumber);
+    }
+}
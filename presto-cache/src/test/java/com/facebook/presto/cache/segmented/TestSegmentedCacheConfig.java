@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.facebook.airlift.units.DataSize;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
+import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static com.facebook.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static com.facebook.airlift.units.DataSize.Unit.GIGABYTE;
+import static com.facebook.airlift.units.DataSize.Unit.KILOBYTE;
+import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSegmentedCacheConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        assertRecordedDefaults(recordDefaults(SegmentedCacheConfig.class)
+                .setPageSize(new DataSize(1, MEGABYTE))
+                .setSegmentSize(new DataSize(256, MEGABYTE))
+                .setMaxCacheSize(new DataSize(10, GIGABYTE))
+                .setMaxPendingWriteSize(new DataSize(512, MEGABYTE))
+                .setWriterThreads(4)
+                .setAdmissionEnabled(true));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("cache.segmented.page-size", "256kB")
+                .put("cache.segmented.segment-size", "64MB")
+                .put("cache.segmented.max-cache-size", "100GB")
+                .put("cache.segmented.max-pending-write-size", "1GB")
+                .put("cache.segmented.writer-threads", "8")
+                .put("cache.segmented.admission-enabled", "false")
+                .build();
+
+        SegmentedCacheConfig expected = new SegmentedCacheConfig()
+                .setPageSize(new DataSize(256, KILOBYTE))
+                .setSegmentSize(new DataSize(64, MEGABYTE))
+                .setMaxCacheSize(new DataSize(100, GIGABYTE))
+                .setMaxPendingWriteSize(new DataSize(1, GIGABYTE))
+                .setWriterThreads(8)
+                .setAdmissionEnabled(false);
+        assertFullMapping(properties, expected);
+    }
+
+    @Test
+    public void testSegmentSizeMultipleOfPageSize()
+    {
+        assertTrue(new SegmentedCacheConfig().isSegmentSizeMultipleOfPageSize());
+        assertFalse(new SegmentedCacheConfig()
+                .setPageSize(new DataSize(3, MEGABYTE))
+                .isSegmentSizeMultipleOfPageSize());
+    }
+}
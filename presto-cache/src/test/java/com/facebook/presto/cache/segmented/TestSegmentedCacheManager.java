@@ -0,0 +1,401 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.segmented;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.cache.CacheConfig;
+import com.facebook.presto.cache.CacheResult;
+import com.facebook.presto.cache.CacheStats;
+import com.facebook.presto.cache.FileReadRequest;
+import com.facebook.presto.hive.CacheQuota;
+import com.google.common.base.Ticker;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.airlift.units.DataSize.Unit.KILOBYTE;
+import static com.facebook.presto.cache.TestingCacheUtils.stressTest;
+import static com.facebook.presto.cache.TestingCacheUtils.validateBuffer;
+import static com.facebook.presto.hive.CacheQuota.NO_CACHE_CONSTRAINTS;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSegmentedCacheManager
+{
+    private static final int PAGE_SIZE = (int) new DataSize(4, KILOBYTE).toBytes();
+    private static final int DATA_LENGTH = PAGE_SIZE * 8;
+    private final byte[] data = new byte[DATA_LENGTH];
+
+    private URI cacheDirectory;
+    private URI fileDirectory;
+    private File dataFile;
+
+    @BeforeClass
+    public void setup()
+            throws IOException
+    {
+        new Random().nextBytes(data);
+
+        this.cacheDirectory = createTempDirectory("cache").toUri();
+        this.fileDirectory = createTempDirectory("file").toUri();
+        this.dataFile = new File(fileDirectory.getPath() + "/data");
+
+        Files.write(dataFile.toPath(), data, CREATE_NEW);
+    }
+
+    @AfterClass
+    public void close()
+            throws IOException
+    {
+        checkState(cacheDirectory != null);
+        checkState(fileDirectory != null);
+
+        Files.deleteIfExists(dataFile.toPath());
+        deleteRecursively(Paths.get(cacheDirectory), ALLOW_INSECURE);
+        Files.deleteIfExists(new File(fileDirectory).toPath());
+    }
+
+    @Test
+    public void testBasic()
+            throws IOException
+    {
+        CacheStats stats = new CacheStats();
+        SegmentedCacheManager cacheManager = segmentedCacheManager(stats, true, newDirectExecutorService());
+        byte[] buffer = new byte[DATA_LENGTH];
+
+        // new read
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 42, buffer, 0, 100));
+        assertEquals(stats.getCacheMiss(), 1);
+        assertEquals(stats.getCacheHit(), 0);
+        validateBuffer(data, 42, buffer, 0, 100);
+
+        // within the cached range
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 47, buffer, 0, 90));
+        assertEquals(stats.getCacheMiss(), 1);
+        assertEquals(stats.getCacheHit(), 1);
+        validateBuffer(data, 47, buffer, 0, 90);
+
+        // extends the cached range of the first page and caches the start of the second one
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 100, buffer, 10, PAGE_SIZE));
+        assertEquals(stats.getCacheMiss(), 2);
+        assertEquals(cacheManager.getCachedPageCount(), 2);
+        validateBuffer(data, 100, buffer, 10, PAGE_SIZE);
+
+        // spans both pages
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 50, buffer, 20, PAGE_SIZE));
+        assertEquals(stats.getCacheHit(), 2);
+        validateBuffer(data, 50, buffer, 20, PAGE_SIZE);
+
+        // not cached past the end of the second page's range
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, PAGE_SIZE + 200, buffer, 0, 100));
+        assertEquals(stats.getCacheMiss(), 3);
+        assertEquals(stats.getInMemoryRetainedBytes(), 0);
+
+        cacheManager.destroy();
+    }
+
+    @Test
+    public void testQuota()
+            throws IOException
+    {
+        CacheStats stats = new CacheStats();
+        SegmentedCacheManager cacheManager = segmentedCacheManager(stats, false, newDirectExecutorService());
+        byte[] buffer = new byte[DATA_LENGTH];
+        CacheQuota cacheQuota = new CacheQuota("test.table", Optional.of(DataSize.succinctBytes(PAGE_SIZE * 2)));
+
+        // reads larger than the quota are never cached
+        assertFalse(readFully(cacheManager, cacheQuota, 0, buffer, 0, PAGE_SIZE * 3));
+        assertEquals(stats.getQuotaExceed(), 1);
+        assertEquals(cacheManager.getCachedPageCount(), 0);
+
+        // the scope evicts its own pages to stay within the quota
+        for (int page = 0; page < 3; page++) {
+            assertFalse(readFully(cacheManager, cacheQuota, page * PAGE_SIZE, buffer, 0, PAGE_SIZE));
+        }
+        assertEquals(stats.getCacheMiss(), 3);
+        assertEquals(stats.getEviction(), 1);
+        assertEquals(cacheManager.getCachedPageCount(), 2);
+        assertEquals(cacheManager.getCacheScopeSizeInBytes(cacheQuota), PAGE_SIZE * 2);
+
+        assertTrue(readFully(cacheManager, cacheQuota, PAGE_SIZE * 2, buffer, 0, PAGE_SIZE));
+        validateBuffer(data, PAGE_SIZE * 2, buffer, 0, PAGE_SIZE);
+
+        cacheManager.destroy();
+    }
+
+    @Test
+    public void testAdmission()
+            throws IOException
+    {
+        CacheStats stats = new CacheStats();
+        SegmentedCacheManager cacheManager = segmentedCacheManager(stats, true, newDirectExecutorService());
+        byte[] buffer = new byte[DATA_LENGTH];
+        Path hotFile = new Path(dataFile.getAbsolutePath());
+        Path scannedFile = new Path(dataFile.getAbsolutePath() + ".scanned");
+
+        // fill the cache with frequently read pages
+        for (int i = 0; i < 5; i++) {
+            for (int page = 0; page < 8; page++) {
+                readFully(cacheManager, hotFile, NO_CACHE_CONSTRAINTS, page * PAGE_SIZE, buffer, 0, PAGE_SIZE);
+            }
+        }
+        assertEquals(cacheManager.getCachedPageCount(), 8);
+
+        // a one-off scan of another file does not evict them
+        for (int page = 0; page < 8; page++) {
+            assertFalse(readFully(cacheManager, scannedFile, NO_CACHE_CONSTRAINTS, page * PAGE_SIZE, buffer, 0, PAGE_SIZE));
+        }
+        assertEquals(stats.getAdmissionRejected(), 8);
+        assertEquals(stats.getEviction(), 0);
+        for (int page = 0; page < 8; page++) {
+            assertTrue(readFully(cacheManager, hotFile, NO_CACHE_CONSTRAINTS, page * PAGE_SIZE, buffer, 0, PAGE_SIZE));
+            validateBuffer(data, page * PAGE_SIZE, buffer, 0, PAGE_SIZE);
+        }
+
+        cacheManager.destroy();
+    }
+
+    @Test
+    public void testRestart()
+            throws IOException
+    {
+        URI directory = createTempDirectory(Paths.get(cacheDirectory), "restart").toUri();
+        byte[] buffer = new byte[DATA_LENGTH];
+
+        CacheStats stats = new CacheStats();
+        SegmentedCacheManager cacheManager = segmentedCacheManager(directory, stats, false, newDirectExecutorService());
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE * 2));
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, PAGE_SIZE * 5 + 10, buffer, 0, 100));
+        cacheManager.destroy();
+
+        // the pages cached before the restart are read from the segments
+        stats = new CacheStats();
+        cacheManager = segmentedCacheManager(directory, stats, false, newDirectExecutorService());
+        assertEquals(cacheManager.getCachedPageCount(), 3);
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE * 2));
+        validateBuffer(data, 0, buffer, 0, PAGE_SIZE * 2);
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, PAGE_SIZE * 5 + 20, buffer, 0, 80));
+        validateBuffer(data, PAGE_SIZE * 5 + 20, buffer, 0, 80);
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, PAGE_SIZE * 5 + 200, buffer, 0, 10));
+        assertEquals(stats.getCacheHit(), 2);
+        assertEquals(stats.getCacheMiss(), 1);
+
+        // the index is only loaded once, so nothing is cached after a crash
+        cacheManager = segmentedCacheManager(directory, new CacheStats(), false, newDirectExecutorService());
+        assertEquals(cacheManager.getCachedPageCount(), 0);
+        cacheManager.destroy();
+    }
+
+    @Test
+    public void testInterruptedRead()
+            throws IOException
+    {
+        CacheStats stats = new CacheStats();
+        SegmentedCacheManager cacheManager = segmentedCacheManager(stats, false, newDirectExecutorService());
+        byte[] buffer = new byte[DATA_LENGTH];
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+
+        // the interrupted reader closes the channel of the segment shared by all readers
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(cacheManager.get(new FileReadRequest(new Path(dataFile.getAbsolutePath()), 0, PAGE_SIZE), buffer, 0, NO_CACHE_CONSTRAINTS), CacheResult.MISS);
+        }
+        finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        // later reads use the reopened segment
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+        validateBuffer(data, 0, buffer, 0, PAGE_SIZE);
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, PAGE_SIZE, buffer, 0, PAGE_SIZE));
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, PAGE_SIZE, buffer, 0, PAGE_SIZE));
+        validateBuffer(data, PAGE_SIZE, buffer, 0, PAGE_SIZE);
+        assertEquals(stats.getCacheHit(), 2);
+
+        cacheManager.destroy();
+    }
+
+    @Test
+    public void testRewrittenFile()
+            throws IOException
+    {
+        URI directory = createTempDirectory(Paths.get(cacheDirectory), "rewritten").toUri();
+        Path path = new Path(dataFile.getAbsolutePath());
+        FileReadRequest original = new FileReadRequest(path, 0, PAGE_SIZE, 1000, OptionalLong.of(DATA_LENGTH));
+        byte[] buffer = new byte[DATA_LENGTH];
+
+        SegmentedCacheManager cacheManager = segmentedCacheManager(directory, new CacheStats(), false, newDirectExecutorService());
+        assertFalse(readFully(cacheManager, original, NO_CACHE_CONSTRAINTS, buffer, 0));
+        assertTrue(readFully(cacheManager, original, NO_CACHE_CONSTRAINTS, buffer, 0));
+        cacheManager.destroy();
+
+        // the version of the file is part of the index kept across restarts
+        cacheManager = segmentedCacheManager(directory, new CacheStats(), false, newDirectExecutorService());
+        assertTrue(readFully(cacheManager, original, NO_CACHE_CONSTRAINTS, buffer, 0));
+        assertFalse(readFully(cacheManager, new FileReadRequest(path, 0, PAGE_SIZE, 2000, OptionalLong.of(DATA_LENGTH)), NO_CACHE_CONSTRAINTS, buffer, 0));
+        assertFalse(readFully(cacheManager, new FileReadRequest(path, 0, PAGE_SIZE, 1000, OptionalLong.of(DATA_LENGTH * 2)), NO_CACHE_CONSTRAINTS, buffer, 0));
+        assertFalse(readFully(cacheManager, new FileReadRequest(path, 0, PAGE_SIZE), NO_CACHE_CONSTRAINTS, buffer, 0));
+        cacheManager.destroy();
+    }
+
+    @Test
+    public void testTtl()
+            throws IOException
+    {
+        CacheStats stats = new CacheStats();
+        TestingTicker ticker = new TestingTicker();
+        SegmentedCacheManager cacheManager = new SegmentedCacheManager(
+                new CacheConfig().setBaseDirectory(createTempDirectory(Paths.get(cacheDirectory), "ttl").toUri()),
+                segmentedCacheConfig(false),
+                new Duration(1, MINUTES),
+                ticker,
+                stats,
+                newDirectExecutorService());
+        byte[] buffer = new byte[DATA_LENGTH];
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+
+        // every read extends the life of the page
+        ticker.increment(50, SECONDS);
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+        ticker.increment(50, SECONDS);
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+
+        ticker.increment(61, SECONDS);
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+        assertEquals(stats.getEviction(), 1);
+        assertEquals(stats.getCacheHit(), 2);
+
+        // the page is cached again after it expired
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 0, buffer, 0, PAGE_SIZE));
+        validateBuffer(data, 0, buffer, 0, PAGE_SIZE);
+
+        cacheManager.destroy();
+    }
+
+    @Test(invocationCount = 10)
+    public void testStress()
+            throws ExecutionException, InterruptedException
+    {
+        // a cache smaller than the data, so pages are evicted and rewritten while being read
+        SegmentedCacheManager cacheManager = segmentedCacheManager(new CacheStats(), false, newScheduledThreadPool(5, daemonThreadsNamed("test-cache-writer-%s")));
+        try {
+            stressTest(data, (position, buffer, offset, length) -> readFully(cacheManager, NO_CACHE_CONSTRAINTS, position, buffer, offset, length));
+        }
+        finally {
+            cacheManager.destroy();
+        }
+    }
+
+    private SegmentedCacheManager segmentedCacheManager(CacheStats cacheStats, boolean admissionEnabled, ExecutorService cacheWriteExecutor)
+    {
+        try {
+            return segmentedCacheManager(createTempDirectory(Paths.get(cacheDirectory), "manager").toUri(), cacheStats, admissionEnabled, cacheWriteExecutor);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SegmentedCacheManager segmentedCacheManager(URI directory, CacheStats cacheStats, boolean admissionEnabled, ExecutorService cacheWriteExecutor)
+    {
+        CacheConfig cacheConfig = new CacheConfig().setBaseDirectory(directory);
+        return new SegmentedCacheManager(cacheConfig, segmentedCacheConfig(admissionEnabled), new Duration(2, DAYS), cacheStats, cacheWriteExecutor);
+    }
+
+    private static SegmentedCacheConfig segmentedCacheConfig(boolean admissionEnabled)
+    {
+        return new SegmentedCacheConfig()
+                .setPageSize(DataSize.succinctBytes(PAGE_SIZE))
+                .setSegmentSize(DataSize.succinctBytes(PAGE_SIZE * 4))
+                .setMaxCacheSize(DataSize.succinctBytes(PAGE_SIZE * 8))
+                .setAdmissionEnabled(admissionEnabled);
+    }
+
+    private boolean readFully(SegmentedCacheManager cacheManager, CacheQuota cacheQuota, long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        return readFully(cacheManager, new Path(dataFile.getAbsolutePath()), cacheQuota, position, buffer, offset, length);
+    }
+
+    private boolean readFully(SegmentedCacheManager cacheManager, Path path, CacheQuota cacheQuota, long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        return readFully(cacheManager, new FileReadRequest(path, position, length), cacheQuota, buffer, offset);
+    }
+
+    private boolean readFully(SegmentedCacheManager cacheManager, FileReadRequest key, CacheQuota cacheQuota, byte[] buffer, int offset)
+            throws IOException
+    {
+        CacheResult result = cacheManager.get(key, buffer, offset, cacheQuota);
+        if (result == CacheResult.HIT) {
+            return true;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(dataFile.getAbsolutePath(), "r")) {
+            file.seek(key.getOffset());
+            file.readFully(buffer, offset, key.getLength());
+        }
+        if (result == CacheResult.MISS) {
+            cacheManager.put(key, wrappedBuffer(buffer, offset, key.getLength()), cacheQuota);
+        }
+        return false;
+    }
+
+    private static class TestingTicker
+            extends Ticker
+    {
+        private final AtomicLong time = new AtomicLong();
+
+        @Override
+        public long read()
+        {
+            return time.get();
+        }
+
+        public void increment(long delta, TimeUnit unit)
+        {
+            time.addAndGet(unit.toNanos(delta));
+        }
+    }
+}
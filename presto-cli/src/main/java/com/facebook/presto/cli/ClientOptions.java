@@ -160,6 +160,9 @@ public class ClientOptions
     @Option(name = "--validate-nexturi-source", title = "validate nextUri source", description = "Validate nextUri server host and port does not change during query execution")
     public boolean validateNextUriSource;
 
+    @Option(name = "--binary-results", title = "binary results", description = "Fetch results in the binary page format when the result types allow it")
+    public boolean binaryResults;
+
     @Option(name = "--disable-redirects", title = "disable redirects", description = "Disable client following redirects from server")
     public boolean disableRedirects;
 
@@ -204,7 +207,8 @@ public class ClientOptions
                 disableCompression,
                 emptyMap(),
                 emptyMap(),
-                validateNextUriSource);
+                validateNextUriSource,
+                binaryResults);
     }
 
     public static URI parseServer(String server)
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockEncodingManager;
+import com.facebook.presto.common.type.NamedTypeSignature;
+import com.facebook.presto.common.type.StandardTypes;
+import com.facebook.presto.common.type.TypeSignature;
+import com.facebook.presto.common.type.TypeSignatureParameter;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.BasicSliceInput;
+import io.airlift.slice.Slices;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.StandardTypes.ARRAY;
+import static com.facebook.presto.common.type.StandardTypes.MAP;
+import static com.facebook.presto.common.type.StandardTypes.ROW;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPage;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Decodes {@link QueryResults#getBinaryData()}, which carries result pages in the
+ * serialized {@link Page} format, into the same row values {@link FixJsonDataUtils}
+ * produces for JSON results. Only types whose values do not depend on the session
+ * (such as time zone) are supported, see {@link #isBinaryDataSupported(List)}.
+ */
+public final class BinaryDataUtils
+{
+    private static final Set<String> SUPPORTED_TYPES = ImmutableSet.of(
+            StandardTypes.BIGINT,
+            StandardTypes.INTEGER,
+            StandardTypes.SMALLINT,
+            StandardTypes.TINYINT,
+            StandardTypes.DOUBLE,
+            StandardTypes.REAL,
+            StandardTypes.BOOLEAN,
+            StandardTypes.VARCHAR,
+            StandardTypes.JSON,
+            StandardTypes.VARBINARY,
+            StandardTypes.DATE);
+
+    private static final PagesSerde PAGES_SERDE = new PagesSerde(new BlockEncodingManager(), Optional.empty(), Optional.empty(), Optional.empty());
+
+    private BinaryDataUtils() {}
+
+    /**
+     * Returns true if results with the given columns can be decoded from binary data.
+     */
+    public static boolean isBinaryDataSupported(List<Column> columns)
+    {
+        requireNonNull(columns, "columns is null");
+        return columns.stream()
+                .map(column -> parseTypeSignature(column.getType()))
+                .allMatch(BinaryDataUtils::isSupported);
+    }
+
+    public static Iterable<List<Object>> decodeBinaryData(List<Column> columns, Iterable<String> binaryData)
+    {
+        if (binaryData == null) {
+            return null;
+        }
+        requireNonNull(columns, "columns is null");
+        List<TypeSignature> signatures = columns.stream()
+                .map(column -> parseTypeSignature(column.getType()))
+                .collect(toList());
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        for (String encodedPage : binaryData) {
+            byte[] bytes = Base64.getDecoder().decode(encodedPage);
+            SerializedPage serializedPage = readSerializedPage(new BasicSliceInput(Slices.wrappedBuffer(bytes)));
+            Page page = PAGES_SERDE.deserialize(serializedPage);
+            checkArgument(page.getChannelCount() == columns.size(), "page/column size mismatch");
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                List<Object> row = new ArrayList<>(columns.size());
+                for (int channel = 0; channel < columns.size(); channel++) {
+                    row.add(getValue(signatures.get(channel), page.getBlock(channel), position));
+                }
+                rows.add(unmodifiableList(row)); // allow nulls in list
+            }
+        }
+        return rows.build();
+    }
+
+    private static boolean isSupported(TypeSignature signature)
+    {
+        String base = signature.getBase();
+        if (base.equals(ARRAY) || base.equals(MAP) || base.equals(ROW)) {
+            return signature.getTypeOrNamedTypeParametersAsTypeSignatures().stream().allMatch(BinaryDataUtils::isSupported);
+        }
+        return SUPPORTED_TYPES.contains(base);
+    }
+
+    private static Object getValue(TypeSignature signature, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+        switch (signature.getBase()) {
+            case ARRAY: {
+                TypeSignature elementSignature = signature.getTypeOrNamedTypeParametersAsTypeSignatures().get(0);
+                Block arrayBlock = block.getBlock(position);
+                List<Object> values = new ArrayList<>(arrayBlock.getPositionCount());
+                for (int i = 0; i < arrayBlock.getPositionCount(); i++) {
+                    values.add(getValue(elementSignature, arrayBlock, i));
+                }
+                return values;
+            }
+            case MAP: {
+                TypeSignature keySignature = signature.getTypeOrNamedTypeParametersAsTypeSignatures().get(0);
+                TypeSignature valueSignature = signature.getTypeOrNamedTypeParametersAsTypeSignatures().get(1);
+                Block mapBlock = block.getBlock(position);
+                Map<Object, Object> values = new HashMap<>();
+                for (int i = 0; i < mapBlock.getPositionCount(); i += 2) {
+                    values.put(getValue(keySignature, mapBlock, i), getValue(valueSignature, mapBlock, i + 1));
+                }
+                return values;
+            }
+            case ROW: {
+                Block rowBlock = block.getBlock(position);
+                List<TypeSignatureParameter> parameters = signature.getParameters();
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (int i = 0; i < parameters.size(); i++) {
+                    NamedTypeSignature namedTypeSignature = parameters.get(i).getNamedTypeSignature();
+                    String key = namedTypeSignature.getName().orElse("field" + i);
+                    values.put(key, getValue(namedTypeSignature.getTypeSignature(), rowBlock, i));
+                }
+                return values;
+            }
+            case StandardTypes.BIGINT:
+                return BIGINT.getLong(block, position);
+            case StandardTypes.INTEGER:
+                return toIntExact(INTEGER.getLong(block, position));
+            case StandardTypes.SMALLINT:
+                return (short) SMALLINT.getLong(block, position);
+            case StandardTypes.TINYINT:
+                return (byte) TINYINT.getLong(block, position);
+            case StandardTypes.DOUBLE:
+                return DOUBLE.getDouble(block, position);
+            case StandardTypes.REAL:
+                return intBitsToFloat(toIntExact(REAL.getLong(block, position)));
+            case StandardTypes.BOOLEAN:
+                return BOOLEAN.getBoolean(block, position);
+            case StandardTypes.VARCHAR:
+            case StandardTypes.JSON:
+                return VARCHAR.getSlice(block, position).toStringUtf8();
+            case StandardTypes.VARBINARY:
+                return VARBINARY.getSlice(block, position).getBytes();
+            case StandardTypes.DATE:
+                return LocalDate.ofEpochDay(DATE.getLong(block, position)).toString();
+            default:
+                throw new IllegalArgumentException("Unsupported type for binary data: " + signature);
+        }
+    }
+}
@@ -55,6 +55,7 @@ public class ClientSession
     private final boolean compressionDisabled;
     private final Map<String, String> sessionFunctions;
     private final boolean validateNextUriSource;
+    private final boolean binaryResults;
 
     public static Builder builder(ClientSession clientSession)
     {
@@ -90,6 +91,55 @@ public class ClientSession
             Map<String, String> sessionFunctions,
             Map<String, String> customHeaders,
             boolean validateNextUriSource)
+    {
+        this(
+                server,
+                user,
+                source,
+                traceToken,
+                clientTags,
+                clientInfo,
+                catalog,
+                schema,
+                timeZoneId,
+                locale,
+                resourceEstimates,
+                properties,
+                preparedStatements,
+                roles,
+                extraCredentials,
+                transactionId,
+                clientRequestTimeout,
+                compressionDisabled,
+                sessionFunctions,
+                customHeaders,
+                validateNextUriSource,
+                false);
+    }
+
+    public ClientSession(
+            URI server,
+            String user,
+            String source,
+            Optional<String> traceToken,
+            Set<String> clientTags,
+            String clientInfo,
+            String catalog,
+            String schema,
+            String timeZoneId,
+            Locale locale,
+            Map<String, String> resourceEstimates,
+            Map<String, String> properties,
+            Map<String, String> preparedStatements,
+            Map<String, SelectedRole> roles,
+            Map<String, String> extraCredentials,
+            String transactionId,
+            Duration clientRequestTimeout,
+            boolean compressionDisabled,
+            Map<String, String> sessionFunctions,
+            Map<String, String> customHeaders,
+            boolean validateNextUriSource,
+            boolean binaryResults)
     {
         this.server = requireNonNull(server, "server is null");
         this.user = user;
@@ -112,6 +162,7 @@ public class ClientSession
         this.compressionDisabled = compressionDisabled;
         this.sessionFunctions = ImmutableMap.copyOf(requireNonNull(sessionFunctions, "sessionFunctions is null"));
         this.validateNextUriSource = validateNextUriSource;
+        this.binaryResults = binaryResults;
 
         for (String clientTag : clientTags) {
             checkArgument(!clientTag.contains(","), "client tag cannot contain ','");
@@ -263,6 +314,14 @@ public class ClientSession
         return validateNextUriSource;
     }
 
+    /**
+     * Request results in the binary page format when the result types allow it
+     */
+    public boolean isBinaryResults()
+    {
+        return binaryResults;
+    }
+
     @Override
     public String toString()
     {
@@ -305,6 +364,7 @@ public class ClientSession
         private boolean compressionDisabled;
         private Map<String, String> sessionFunctions;
         private boolean validateNextUriSource;
+        private boolean binaryResults;
 
         private Builder(ClientSession clientSession)
         {
@@ -330,6 +390,7 @@ public class ClientSession
             compressionDisabled = clientSession.isCompressionDisabled();
             sessionFunctions = clientSession.getSessionFunctions();
             validateNextUriSource = clientSession.validateNextUriSource();
+            binaryResults = clientSession.isBinaryResults();
         }
 
         public Builder withCatalog(String catalog)
@@ -404,6 +465,12 @@ public class ClientSession
             return this;
         }
 
+        public Builder withBinaryResults(boolean binaryResults)
+        {
+            this.binaryResults = binaryResults;
+            return this;
+        }
+
         public ClientSession build()
         {
             return new ClientSession(
@@ -427,7 +494,8 @@ public class ClientSession
                     compressionDisabled,
                     sessionFunctions,
                     customHeaders,
-                    validateNextUriSource);
+                    validateNextUriSource,
+                    binaryResults);
         }
     }
 }
@@ -46,6 +46,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.client.BinaryDataUtils.decodeBinaryData;
+import static com.facebook.presto.client.BinaryDataUtils.isBinaryDataSupported;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_SESSION_FUNCTION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
@@ -115,6 +117,7 @@ class StatementClientV1
     private final Map<String, String> addedSessionFunctions = new ConcurrentHashMap<>();
     private final Set<String> removedSessionFunctions = newConcurrentHashSet();
     private final boolean validateNextUriSource;
+    private final boolean binaryResults;
     private final Map<String, List<String>> responseHeaders;
     private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
 
@@ -131,6 +134,7 @@ class StatementClientV1
         this.user = session.getUser();
         this.compressionDisabled = session.isCompressionDisabled();
         this.validateNextUriSource = session.validateNextUriSource();
+        this.binaryResults = session.isBinaryResults();
 
         Request request = buildQueryRequest(session, query);
 
@@ -375,7 +379,7 @@ class StatementClientV1
         }
         validateNextUriSource(nextUri, currentStatusInfo().getInfoUri());
 
-        Request request = prepareRequest(HttpUrl.get(nextUri)).build();
+        Request request = prepareRequest(getNextResultsUrl(nextUri)).build();
 
         Exception cause = null;
         long start = System.nanoTime();
@@ -431,6 +435,24 @@ class StatementClientV1
         }
     }
 
+    private HttpUrl getNextResultsUrl(URI nextUri)
+    {
+        HttpUrl url = HttpUrl.get(nextUri);
+        // Switch to binary results once the result columns are known and can all be decoded.
+        // Update counts are extracted by the server from JSON data, so those queries stay on JSON.
+        QueryResults results = currentResults.get();
+        if (binaryResults &&
+                results.getColumns() != null &&
+                results.getUpdateType() == null &&
+                url.queryParameter("binaryResults") == null &&
+                isBinaryDataSupported(results.getColumns())) {
+            return url.newBuilder()
+                    .addQueryParameter("binaryResults", "true")
+                    .build();
+        }
+        return url;
+    }
+
     private void validateNextUriSource(final URI nextUri, final URI infoUri)
     {
         if (!validateNextUriSource) {
@@ -506,6 +528,21 @@ class StatementClientV1
             removedSessionFunctions.add(urlDecode(signature));
         }
 
+        if (results.getBinaryData() != null) {
+            results = new QueryResults(
+                    results.getId(),
+                    results.getInfoUri(),
+                    results.getPartialCancelUri(),
+                    results.getNextUri(),
+                    results.getColumns(),
+                    decodeBinaryData(results.getColumns(), results.getBinaryData()),
+                    null,
+                    results.getStats(),
+                    results.getError(),
+                    results.getWarnings(),
+                    results.getUpdateType(),
+                    results.getUpdateCount());
+        }
         currentResults.set(results);
     }
 
@@ -0,0 +1,341 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.BlockEncodingManager;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.MethodHandleUtil;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.type.ArrayType;
+import com.facebook.presto.common.type.MapType;
+import com.facebook.presto.common.type.RowType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.client.BinaryDataUtils.decodeBinaryData;
+import static com.facebook.presto.client.BinaryDataUtils.isBinaryDataSupported;
+import static com.facebook.presto.client.FixJsonDataUtils.fixData;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.common.type.VarcharType.createVarcharType;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
+import static com.google.common.collect.Lists.newArrayList;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Float.floatToRawIntBits;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestBinaryDataUtils
+{
+    private static final PagesSerde PAGES_SERDE = new PagesSerde(new BlockEncodingManager(), Optional.empty(), Optional.empty(), Optional.empty());
+
+    private static final MapType BIGINT_MAP = mapType(BIGINT, BIGINT);
+    private static final MapType VARCHAR_ARRAY_MAP = mapType(VARCHAR, new ArrayType(BIGINT));
+    private static final RowType NAMED_ROW = RowType.from(ImmutableList.of(RowType.field("foo", BIGINT), RowType.field("bar", VARCHAR)));
+    private static final RowType ANONYMOUS_ROW = RowType.anonymous(ImmutableList.of(BIGINT, DOUBLE));
+
+    @Test
+    public void testPrimitiveTypes()
+    {
+        assertRoundTrip(BIGINT, 1000, 1000L);
+        assertRoundTrip(INTEGER, 100, 100);
+        assertRoundTrip(SMALLINT, 10, (short) 10);
+        assertRoundTrip(TINYINT, 1, (byte) 1);
+        assertRoundTrip(BOOLEAN, true, true);
+        assertRoundTrip(DATE, "2017-07-01", "2017-07-01");
+        assertRoundTrip(REAL, 100.23456, (float) 100.23456);
+        assertRoundTrip(DOUBLE, 100.23456D, 100.23456);
+        assertRoundTrip(VARCHAR, "test string", "test string");
+        assertRoundTrip(createVarcharType(20), "bounded string", "bounded string");
+        assertRoundTrip(new Column("test", parseTypeSignature("json")), VARCHAR, "{\"json\": {\"a\": 1}}", "{\"json\": {\"a\": 1}}");
+        assertRoundTrip(VARBINARY, Base64.getEncoder().encodeToString("garbage".getBytes(UTF_8)), "garbage".getBytes(UTF_8));
+    }
+
+    @Test
+    public void testNulls()
+    {
+        for (Type type : ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, BOOLEAN, DATE, REAL, DOUBLE, VARCHAR, VARBINARY, new ArrayType(BIGINT), BIGINT_MAP, NAMED_ROW)) {
+            assertRoundTrip(type, null, null);
+        }
+    }
+
+    @Test
+    public void testStructuralTypes()
+    {
+        assertRoundTrip(new ArrayType(BIGINT), ImmutableList.of(1, 2, 4), ImmutableList.of(1L, 2L, 4L));
+        assertRoundTrip(BIGINT_MAP, ImmutableMap.of("1", 3, "2", 4), ImmutableMap.of(1L, 3L, 2L, 4L));
+        assertRoundTrip(NAMED_ROW, ImmutableList.of(1, "a"), ImmutableMap.of("foo", 1L, "bar", "a"));
+        // fields of anonymous rows are named by position
+        assertRoundTrip(ANONYMOUS_ROW, ImmutableList.of(1, 2.0), ImmutableMap.of("field0", 1L, "field1", 2.0));
+        assertRoundTrip(new ArrayType(new ArrayType(BIGINT)), ImmutableList.of(ImmutableList.of(1, 2), ImmutableList.of()), ImmutableList.of(ImmutableList.of(1L, 2L), ImmutableList.of()));
+        assertRoundTrip(new ArrayType(NAMED_ROW), ImmutableList.of(ImmutableList.of(1, "a")), ImmutableList.of(ImmutableMap.of("foo", 1L, "bar", "a")));
+        assertRoundTrip(VARCHAR_ARRAY_MAP, ImmutableMap.of("a", ImmutableList.of(1, 2)), ImmutableMap.of("a", ImmutableList.of(1L, 2L)));
+        assertRoundTrip(
+                RowType.from(ImmutableList.of(RowType.field("foo", new ArrayType(SMALLINT)), RowType.field("bar", RowType.from(ImmutableList.of(RowType.field("x", TINYINT), RowType.field("y", REAL)))))),
+                ImmutableList.of(ImmutableList.of(1, 2), ImmutableList.of(3, 4.5)),
+                ImmutableMap.of("foo", ImmutableList.of((short) 1, (short) 2), "bar", ImmutableMap.of("x", (byte) 3, "y", 4.5f)));
+    }
+
+    @Test
+    public void testNestedNulls()
+    {
+        assertRoundTrip(new ArrayType(BIGINT), Arrays.asList(1, null, 4), Arrays.asList(1L, null, 4L));
+        assertRoundTrip(BIGINT_MAP, mapOf("1", null), mapOf(1L, null));
+        assertRoundTrip(NAMED_ROW, Arrays.asList(null, "a"), rowOf("foo", null, "bar", "a"));
+        assertRoundTrip(ANONYMOUS_ROW, Arrays.asList(1, null), rowOf("field0", 1L, "field1", null));
+        assertRoundTrip(new ArrayType(NAMED_ROW), Arrays.asList(null, Arrays.asList(2, null)), Arrays.asList(null, rowOf("foo", 2L, "bar", null)));
+        assertRoundTrip(VARCHAR_ARRAY_MAP, mapOf("a", Arrays.asList(null, 2)), mapOf("a", Arrays.asList(null, 2L)));
+    }
+
+    @Test
+    public void testMultiplePagesAndColumns()
+    {
+        List<Column> columns = ImmutableList.of(new Column("a", BIGINT), new Column("b", VARCHAR));
+        String first = encode(new Page(createBlock(BIGINT, 1L, 2L), createBlock(VARCHAR, "x", null)));
+        String second = encode(new Page(createBlock(BIGINT, 3L), createBlock(VARCHAR, "z")));
+
+        List<List<Object>> rows = newArrayList(decodeBinaryData(columns, ImmutableList.of(first, second)));
+        assertEquals(rows, ImmutableList.of(
+                ImmutableList.of(1L, "x"),
+                Arrays.asList(2L, null),
+                ImmutableList.of(3L, "z")));
+        assertEquals(rows, newArrayList(fixData(columns, ImmutableList.of(
+                ImmutableList.of(1, "x"),
+                Arrays.asList(2, null),
+                ImmutableList.of(3, "z")))));
+    }
+
+    @Test
+    public void testDictionaryBlock()
+    {
+        Block dictionary = createBlock(NAMED_ROW, ImmutableMap.of("foo", 1L, "bar", "a"), rowOf("foo", null, "bar", "b"));
+        Block block = new DictionaryBlock(dictionary, new int[] {1, 0, 1});
+        assertEquals(decode(NAMED_ROW, block), ImmutableList.of(
+                rowOf("foo", null, "bar", "b"),
+                ImmutableMap.of("foo", 1L, "bar", "a"),
+                rowOf("foo", null, "bar", "b")));
+    }
+
+    @Test
+    public void testRunLengthEncodedBlock()
+    {
+        assertEquals(decode(INTEGER, new RunLengthEncodedBlock(createBlock(INTEGER, 7), 3)), ImmutableList.of(7, 7, 7));
+        assertEquals(decode(VARCHAR, new RunLengthEncodedBlock(createBlock(VARCHAR, (Object) null), 2)), Arrays.asList(null, null));
+        assertEquals(
+                decode(new ArrayType(BIGINT), new RunLengthEncodedBlock(createBlock(new ArrayType(BIGINT), ImmutableList.of(1L, 2L)), 2)),
+                ImmutableList.of(ImmutableList.of(1L, 2L), ImmutableList.of(1L, 2L)));
+    }
+
+    @Test
+    public void testNullData()
+    {
+        assertNull(decodeBinaryData(ImmutableList.of(new Column("a", BIGINT)), null));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "page/column size mismatch")
+    public void testColumnCountMismatch()
+    {
+        String page = encode(new Page(createBlock(BIGINT, 1L)));
+        decodeBinaryData(ImmutableList.of(new Column("a", BIGINT), new Column("b", BIGINT)), ImmutableList.of(page));
+    }
+
+    @Test
+    public void testIsBinaryDataSupported()
+    {
+        assertTrue(isBinaryDataSupported(ImmutableList.of()));
+        assertTrue(isBinaryDataSupported(columns("bigint", "varchar(10)", "array(map(varchar,row(foo date,bar varbinary)))")));
+        assertFalse(isBinaryDataSupported(columns("bigint", "timestamp")));
+        assertFalse(isBinaryDataSupported(columns("decimal(10,2)")));
+        assertFalse(isBinaryDataSupported(columns("time with time zone")));
+        assertFalse(isBinaryDataSupported(columns("array(interval day to second)")));
+        assertFalse(isBinaryDataSupported(columns("map(varchar,ipaddress)")));
+        assertFalse(isBinaryDataSupported(columns("row(foo bigint,bar decimal(38,0))")));
+        // user defined types are rendered by the server
+        assertFalse(isBinaryDataSupported(columns("example.test.type_alt:bigint")));
+    }
+
+    private static void assertRoundTrip(Type type, Object jsonValue, Object expected)
+    {
+        assertRoundTrip(new Column("test", type), type, jsonValue, expected);
+    }
+
+    private static void assertRoundTrip(Column column, Type blockType, Object jsonValue, Object expected)
+    {
+        List<Column> columns = ImmutableList.of(column);
+        List<List<Object>> rows = newArrayList(decodeBinaryData(columns, ImmutableList.of(encode(new Page(createBlock(blockType, expected))))));
+        assertEquals(rows.size(), 1);
+        Object value = rows.get(0).get(0);
+        assertEquals(value, expected);
+        if (expected != null && !(expected instanceof List) && !(expected instanceof Map)) {
+            // values are boxed the same way as for JSON results
+            assertEquals(value.getClass(), expected.getClass());
+        }
+
+        // binary results decode to the same values as JSON results
+        List<List<Object>> jsonRows = newArrayList(fixData(columns, ImmutableList.of(Arrays.asList(jsonValue))));
+        assertEquals(value, jsonRows.get(0).get(0));
+    }
+
+    private static List<Object> decode(Type type, Block block)
+    {
+        List<List<Object>> rows = newArrayList(decodeBinaryData(ImmutableList.of(new Column("test", type)), ImmutableList.of(encode(new Page(block)))));
+        assertEquals(rows.size(), block.getPositionCount());
+        List<Object> values = newArrayList();
+        for (List<Object> row : rows) {
+            assertEquals(row.size(), 1);
+            values.add(row.get(0));
+        }
+        return values;
+    }
+
+    private static String encode(Page page)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        writeSerializedPage(output, PAGES_SERDE.serialize(page));
+        return Base64.getEncoder().encodeToString(output.slice().getBytes());
+    }
+
+    private static Block createBlock(Type type, Object... values)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, values.length);
+        for (Object value : values) {
+            writeValue(type, blockBuilder, value);
+        }
+        return blockBuilder.build();
+    }
+
+    /**
+     * Writes a value in the form the client returns it for the type.
+     */
+    private static void writeValue(Type type, BlockBuilder blockBuilder, Object value)
+    {
+        if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else if (type instanceof ArrayType) {
+            BlockBuilder entryBuilder = blockBuilder.beginBlockEntry();
+            for (Object element : (List<?>) value) {
+                writeValue(((ArrayType) type).getElementType(), entryBuilder, element);
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (type instanceof MapType) {
+            BlockBuilder entryBuilder = blockBuilder.beginBlockEntry();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(((MapType) type).getKeyType(), entryBuilder, entry.getKey());
+                writeValue(((MapType) type).getValueType(), entryBuilder, entry.getValue());
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (type instanceof RowType) {
+            List<Type> fieldTypes = type.getTypeParameters();
+            List<Object> fieldValues = newArrayList(((Map<?, ?>) value).values());
+            BlockBuilder entryBuilder = blockBuilder.beginBlockEntry();
+            for (int i = 0; i < fieldTypes.size(); i++) {
+                writeValue(fieldTypes.get(i), entryBuilder, fieldValues.get(i));
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (type.equals(DATE)) {
+            DATE.writeLong(blockBuilder, LocalDate.parse((String) value).toEpochDay());
+        }
+        else if (type.equals(REAL)) {
+            REAL.writeLong(blockBuilder, floatToRawIntBits((Float) value));
+        }
+        else if (value instanceof String) {
+            type.writeSlice(blockBuilder, utf8Slice((String) value));
+        }
+        else if (value instanceof byte[]) {
+            type.writeSlice(blockBuilder, wrappedBuffer((byte[]) value));
+        }
+        else if (value instanceof Boolean) {
+            type.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (value instanceof Double) {
+            type.writeDouble(blockBuilder, (Double) value);
+        }
+        else {
+            type.writeLong(blockBuilder, ((Number) value).longValue());
+        }
+    }
+
+    private static List<Column> columns(String... types)
+    {
+        ImmutableList.Builder<Column> columns = ImmutableList.builder();
+        for (int i = 0; i < types.length; i++) {
+            columns.add(new Column("col" + i, parseTypeSignature(types[i])));
+        }
+        return columns.build();
+    }
+
+    private static Map<Object, Object> mapOf(Object key, Object value)
+    {
+        // allow null values
+        Map<Object, Object> map = new HashMap<>();
+        map.put(key, value);
+        return map;
+    }
+
+    private static Map<String, Object> rowOf(String firstName, Object firstValue, String secondName, Object secondValue)
+    {
+        // allow null values, keeping the field order
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(firstName, firstValue);
+        row.put(secondName, secondValue);
+        return row;
+    }
+
+    private static MapType mapType(Type keyType, Type valueType)
+    {
+        return new MapType(
+                keyType,
+                valueType,
+                MethodHandleUtil.methodHandle(TestBinaryDataUtils.class, "throwUnsupportedOperation"),
+                MethodHandleUtil.methodHandle(TestBinaryDataUtils.class, "throwUnsupportedOperation"));
+    }
+
+    public static void throwUnsupportedOperation()
+    {
+        throw new UnsupportedOperationException();
+    }
+}
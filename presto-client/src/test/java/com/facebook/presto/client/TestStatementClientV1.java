@@ -0,0 +1,238 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.BlockEncodingManager;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.DynamicSliceOutput;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.OkHttpClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.client.StatementClientFactory.newStatementClient;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestStatementClientV1
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+    private static final PagesSerde PAGES_SERDE = new PagesSerde(new BlockEncodingManager(), Optional.empty(), Optional.empty(), Optional.empty());
+    private static final String QUERY_ID = "20160128_214710_00012_rk68b";
+
+    private MockWebServer server;
+    private OkHttpClient httpClient;
+
+    @BeforeMethod(alwaysRun = true)
+    public void setup()
+            throws IOException
+    {
+        server = new MockWebServer();
+        server.start();
+        httpClient = new OkHttpClient();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void teardown()
+            throws IOException
+    {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+        httpClient = null;
+        server.close();
+        server = null;
+    }
+
+    @Test
+    public void testBinaryResultsForSupportedColumns()
+            throws Exception
+    {
+        List<Column> columns = ImmutableList.of(new Column("_col0", BIGINT));
+        server.enqueue(response(queryResults(nextUri(1), null, null, null)));
+        server.enqueue(response(queryResults(nextUri(2), columns, null, null)));
+        server.enqueue(response(queryResults(null, columns, ImmutableList.of(encode(BIGINT, 123L)), null)));
+
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(true), "SELECT 123")) {
+            // the columns are not known yet
+            assertTrue(client.advance());
+            // every column can be decoded
+            assertTrue(client.advance());
+            assertEquals(newArrayList(client.currentData().getData()), ImmutableList.of(ImmutableList.of(123L)));
+            assertFalse(client.advance());
+            assertTrue(client.isFinished());
+        }
+
+        assertBinaryResultsRequested(false, false, true);
+    }
+
+    @Test
+    public void testJsonResultsForUnsupportedColumns()
+            throws Exception
+    {
+        List<Column> columns = ImmutableList.of(new Column("_col0", BIGINT), new Column("_col1", TIMESTAMP));
+        server.enqueue(response(queryResults(nextUri(1), columns, null, null)));
+        server.enqueue(response(queryResults(null, columns, null, null)));
+
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(true), "SELECT 123, now()")) {
+            assertTrue(client.advance());
+            assertFalse(client.advance());
+        }
+
+        assertBinaryResultsRequested(false, false);
+    }
+
+    @Test
+    public void testJsonResultsForUpdates()
+            throws Exception
+    {
+        List<Column> columns = ImmutableList.of(new Column("rows", BIGINT));
+        server.enqueue(response(queryResults(nextUri(1), columns, null, "INSERT")));
+        server.enqueue(response(queryResults(null, columns, null, "INSERT")));
+
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(true), "INSERT INTO t VALUES 1")) {
+            assertTrue(client.advance());
+            assertFalse(client.advance());
+        }
+
+        // the server reads the update count from the JSON data
+        assertBinaryResultsRequested(false, false);
+    }
+
+    @Test
+    public void testJsonResultsWhenDisabled()
+            throws Exception
+    {
+        List<Column> columns = ImmutableList.of(new Column("_col0", BIGINT));
+        server.enqueue(response(queryResults(nextUri(1), columns, null, null)));
+        server.enqueue(response(queryResults(null, columns, null, null)));
+
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(false), "SELECT 123")) {
+            assertTrue(client.advance());
+            assertFalse(client.advance());
+        }
+
+        assertBinaryResultsRequested(false, false);
+    }
+
+    private void assertBinaryResultsRequested(boolean... expected)
+            throws InterruptedException
+    {
+        assertEquals(server.getRequestCount(), expected.length);
+        for (boolean binaryResults : expected) {
+            RecordedRequest request = server.takeRequest();
+            if (binaryResults) {
+                assertEquals(request.getUrl().queryParameter("binaryResults"), "true");
+            }
+            else {
+                assertNull(request.getUrl().queryParameter("binaryResults"));
+            }
+        }
+    }
+
+    private URI nextUri(int token)
+    {
+        return server.url("/v1/statement/executing/" + QUERY_ID + "/" + token).uri();
+    }
+
+    private QueryResults queryResults(URI nextUri, List<Column> columns, List<String> binaryData, String updateType)
+    {
+        return new QueryResults(
+                QUERY_ID,
+                server.url("/query.html?" + QUERY_ID).uri(),
+                null,
+                nextUri,
+                columns,
+                null,
+                binaryData,
+                StatementStats.builder().setState(nextUri == null ? "FINISHED" : "RUNNING").build(),
+                null,
+                ImmutableList.of(),
+                updateType,
+                null);
+    }
+
+    private static MockResponse response(QueryResults queryResults)
+    {
+        return new MockResponse.Builder()
+                .addHeader(CONTENT_TYPE, "application/json")
+                .body(QUERY_RESULTS_CODEC.toJson(queryResults))
+                .build();
+    }
+
+    private static String encode(Type type, long value)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, 1);
+        type.writeLong(blockBuilder, value);
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        writeSerializedPage(output, PAGES_SERDE.serialize(new Page(blockBuilder.build())));
+        return Base64.getEncoder().encodeToString(output.slice().getBytes());
+    }
+
+    private ClientSession createClientSession(boolean binaryResults)
+    {
+        ClientSession session = new ClientSession(
+                server.url("/").uri(),
+                "user",
+                "source",
+                Optional.empty(),
+                ImmutableSet.of(),
+                "clientInfo",
+                "catalog",
+                "schema",
+                "America/Los_Angeles",
+                Locale.ENGLISH,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                null,
+                new Duration(2, MINUTES),
+                true,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                false);
+        return ClientSession.builder(session)
+                .withBinaryResults(binaryResults)
+                .build();
+    }
+}
@@ -32,6 +32,10 @@ public class RuntimeMetricName
     public static final String SKIP_READING_FROM_MATERIALIZED_VIEW_COUNT = "skipReadingFromMaterializedViewCount";
     public static final String FRAGMENT_RESULT_CACHE_HIT = "fragmentResultCacheHitCount";
     public static final String FRAGMENT_RESULT_CACHE_MISS = "fragmentResultCacheMissCount";
+    // Fragment results that were not cached, by reason
+    public static final String FRAGMENT_RESULT_CACHE_REJECTED_TOO_LARGE = "fragmentResultCacheRejectedTooLargeCount";
+    public static final String FRAGMENT_RESULT_CACHE_REJECTED_CACHE_FULL = "fragmentResultCacheRejectedCacheFullCount";
+    public static final String FRAGMENT_RESULT_CACHE_REJECTED_LOW_REDUCTION = "fragmentResultCacheRejectedLowReductionCount";
     public static final String GET_VIEW_TIME_NANOS = "getViewTimeNanos";
     public static final String GET_MATERIALIZED_VIEW_TIME_NANOS = "getMaterializedViewTimeNanos";
     public static final String GET_MATERIALIZED_VIEW_STATUS_TIME_NANOS = "getMaterializedViewStatusTimeNanos";
@@ -51,6 +55,22 @@ public class RuntimeMetricName
     public static final String SCAN_STAGE_SCHEDULER_CPU_TIME_NANOS = "scanStageSchedulerCpuTimeNanos";
     public static final String SCAN_STAGE_SCHEDULER_WALL_TIME_NANOS = "scanStageSchedulerWallTimeNanos";
     public static final String SCAN_STAGE_SCHEDULER_BLOCKED_TIME_NANOS = "scanStageSchedulerBlockedTimeNanos";
+    // Soft affinity splits scheduled, and how many of them were scheduled on one of their preferred (cache owner) nodes
+    public static final String SOFT_AFFINITY_SCHEDULED_SPLITS = "softAffinityScheduledSplits";
+    public static final String SOFT_AFFINITY_PREFERRED_NODE_SPLITS = "softAffinityPreferredNodeSplits";
+    // Number of partitions chosen for a hash partitioned stage
+    public static final String HASH_PARTITION_COUNT = "hashPartitionCount";
+    // Leaf tasks still running long after most tasks of their stage finished
+    public static final String STRAGGLING_TASKS = "stragglingTasks";
+    // Straggling lifespans started a second time on another task, and how many of them the second attempt finished first
+    public static final String SPECULATIVE_LIFESPANS = "speculativeLifespans";
+    public static final String SPECULATIVE_LIFESPAN_HITS = "speculativeLifespanHits";
+    // Memory of a query killed because the cluster ran out of memory, the revocable part of it, the revocable memory the
+    // cluster released since it ran out of memory, and how long it was out of memory before the kill
+    public static final String OUT_OF_MEMORY_KILL_MEMORY_BYTES = "outOfMemoryKillMemoryBytes";
+    public static final String OUT_OF_MEMORY_KILL_REVOCABLE_BYTES = "outOfMemoryKillRevocableBytes";
+    public static final String OUT_OF_MEMORY_RECLAIMED_REVOCABLE_BYTES = "outOfMemoryReclaimedRevocableBytes";
+    public static final String OUT_OF_MEMORY_KILL_DELAY_NANOS = "outOfMemoryKillDelayNanos";
     public static final String ANALYZE_TIME_NANOS = "analyzeTimeNanos";
     public static final String PLAN_AND_OPTIMIZE_TIME_NANOS = "planAndOptimizeTimeNanos";
     public static final String CREATE_SCHEDULER_TIME_NANOS = "createSchedulerTimeNanos";
@@ -87,7 +107,16 @@ public class RuntimeMetricName
     public static final String DIRECTORY_LISTING_CACHE_HIT = "directoryListingCacheHit";
     public static final String DIRECTORY_LISTING_CACHE_MISS = "directoryListingCacheMiss";
     public static final String DIRECTORY_LISTING_TIME_NANOS = "directoryListingTimeNanos";
+    // Time the split loader waited for a prefetched directory listing to return its first file
+    public static final String DIRECTORY_LISTING_PREFETCH_WAIT_TIME_NANOS = "directoryListingPrefetchWaitTimeNanos";
     public static final String FILES_READ_COUNT = "filesReadCount";
+    // Number of files read by a split that combines several small files
+    public static final String COMBINED_SPLIT_FILES_COUNT = "combinedSplitFilesCount";
+    // Row groups of the selective ORC reader in which no lazily loaded column was read
+    public static final String ORC_LATE_MATERIALIZATION_SKIPPED_ROW_GROUPS = "orcLateMaterializationSkippedRowGroups";
+    public static final String ORC_LATE_MATERIALIZATION_SKIPPED_BYTES = "orcLateMaterializationSkippedBytes";
+    // Time spent encoding and compressing the columns of a stripe in the ORC writer, one value per column and stripe
+    public static final String ORC_COLUMN_ENCODE_TIME_NANOS = "orcColumnEncodeTimeNanos";
     public static final String METASTORE_ADD_PARTITIONS_TIME_NANOS = "metastoreAddPartitionsTimeNanos";
     public static final String METASTORE_ALTER_PARTITION_TIME_NANOS = "metastoreAlterPartitionTimeNanos";
     public static final String METASTORE_ALTER_PARTITIONS_TIME_NANOS = "metastoreAlterPartitionsTimeNanos";
@@ -14,40 +14,57 @@
 package com.facebook.presto.hive;
 
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
 import org.weakref.jmx.Managed;
 
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
 import static java.util.Objects.requireNonNull;
 
 public class CacheStatsMBean
 {
-    private final Cache<?, ?> cache;
+    private final LongSupplier size;
+    private final Supplier<CacheStats> stats;
 
     public CacheStatsMBean(Cache<?, ?> cache)
     {
-        this.cache = requireNonNull(cache, "cache is null");
+        this(requireNonNull(cache, "cache is null")::size, cache::stats);
+    }
+
+    public CacheStatsMBean(LongSupplier size, Supplier<CacheStats> stats)
+    {
+        this.size = requireNonNull(size, "size is null");
+        this.stats = requireNonNull(stats, "stats is null");
     }
 
     @Managed
     public long getSize()
     {
-        return cache.size();
+        return size.getAsLong();
     }
 
     @Managed
     public long getHitCount()
     {
-        return cache.stats().hitCount();
+        return stats.get().hitCount();
     }
 
     @Managed
     public long getMissCount()
     {
-        return cache.stats().missCount();
+        return stats.get().missCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return stats.get().evictionCount();
     }
 
     @Managed
     public double getHitRate()
     {
-        return cache.stats().hitRate();
+        return stats.get().hitRate();
     }
 }
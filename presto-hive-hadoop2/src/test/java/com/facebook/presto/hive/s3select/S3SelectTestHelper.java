@@ -179,7 +179,8 @@ public class S3SelectTestHelper
                 new HivePartitionStats(),
                 columnConverterProvider,
                 new QuickStatsProvider(metastoreClient, hdfsEnvironment, DO_NOTHING_DIRECTORY_LISTER, new HiveClientConfig(), new NamenodeStats(), ImmutableList.of()),
-                new HiveTableWritabilityChecker(config));
+                new HiveTableWritabilityChecker(config),
+                new HadoopDirectoryLister());
         transactionManager = new HiveTransactionManager();
         splitManager = new HiveSplitManager(
                 config.getDateTimeZone(),
@@ -199,7 +200,8 @@ public class S3SelectTestHelper
                 config.getRecursiveDirWalkerEnabled(),
                 new ConfigBasedCacheQuotaRequirementProvider(cacheConfig),
                 new HiveEncryptionInformationProvider(ImmutableSet.of()),
-                new HivePartitionSkippabilityChecker());
+                new HivePartitionSkippabilityChecker(),
+                false);
         pageSourceProvider = new HivePageSourceProvider(
                 config,
                 hdfsEnvironment,
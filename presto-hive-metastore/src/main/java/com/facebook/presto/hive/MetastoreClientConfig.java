@@ -58,6 +58,8 @@ public class MetastoreClientConfig
     private Map<MetastoreCacheType, Duration> metastoreCacheTtlByType = ImmutableMap.of();
     private Duration defaultMetastoreCacheRefreshInterval = new Duration(0, TimeUnit.SECONDS);
     private Map<MetastoreCacheType, Duration> metastoreCacheRefreshIntervalByType = ImmutableMap.of();
+    private Duration defaultMetastoreCacheMaxStaleness = new Duration(0, TimeUnit.SECONDS);
+    private Map<MetastoreCacheType, Duration> metastoreCacheMaxStalenessByType = ImmutableMap.of();
     private long metastoreCacheMaximumSize = 10000;
     private long perTransactionMetastoreCacheMaximumSize = 1000;
     private int maxMetastoreRefreshThreads = 100;
@@ -243,6 +245,55 @@ public class MetastoreClientConfig
         return this;
     }
 
+    @NotNull
+    public Duration getDefaultMetastoreCacheMaxStaleness()
+    {
+        return defaultMetastoreCacheMaxStaleness;
+    }
+
+    @MinDuration("0ms")
+    @Config("hive.metastore.cache.max-staleness.default")
+    @ConfigDescription("Default time an expired Hive metastore cache entry is still served while it is refreshed in the background.\n" +
+            "A value of 0ms blocks on expired entries.")
+    public MetastoreClientConfig setDefaultMetastoreCacheMaxStaleness(Duration defaultMetastoreCacheMaxStaleness)
+    {
+        this.defaultMetastoreCacheMaxStaleness = defaultMetastoreCacheMaxStaleness;
+        return this;
+    }
+
+    public Map<MetastoreCacheType, Duration> getMetastoreCacheMaxStalenessByType()
+    {
+        return metastoreCacheMaxStalenessByType;
+    }
+
+    @Config("hive.metastore.cache.max-staleness-by-type")
+    @ConfigDescription("Per-cache maximum staleness overrides for Hive metastore caches.\n" +
+            "The value is a comma-separated list of <CACHE_TYPE>:<DURATION> pairs.")
+    public MetastoreClientConfig setMetastoreCacheMaxStalenessByType(String metastoreCacheMaxStalenessByTypeValues)
+    {
+        if (metastoreCacheMaxStalenessByTypeValues == null || metastoreCacheMaxStalenessByTypeValues.isEmpty()) {
+            return this;
+        }
+
+        ImmutableMap.Builder<MetastoreCacheType, Duration> maxStalenessByType = ImmutableMap.builder();
+        for (String entry : metastoreCacheMaxStalenessByTypeValues.split(",")) {
+            String[] parts = entry.split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("expected <CACHE_TYPE>:<DURATION>");
+                }
+                maxStalenessByType.put(MetastoreCacheType.valueOf(parts[0].trim().toUpperCase(ENGLISH)), Duration.valueOf(parts[1].trim()));
+            }
+            catch (IllegalArgumentException e) {
+                throw new ConfigurationException(ImmutableList.of(new Message(
+                        "Invalid entry '" + entry + "' in 'hive.metastore.cache.max-staleness-by-type': " + e.getMessage())));
+            }
+        }
+        this.metastoreCacheMaxStalenessByType = maxStalenessByType.build();
+
+        return this;
+    }
+
     public long getMetastoreCacheMaximumSize()
     {
         return metastoreCacheMaximumSize;
@@ -14,14 +14,20 @@
 package com.facebook.presto.hive.metastore;
 
 import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
 import com.google.common.cache.LoadingCache;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 public class HiveMetastoreCacheStats
         implements MetastoreCacheStats
 {
     private final CounterStat partitionsWithColumnCountGreaterThanThreshold = new CounterStat();
+    private final TimeStat partitionsByNamesLoadTime = new TimeStat(MILLISECONDS);
+    private final CounterStat coalescedPartitionLoads = new CounterStat();
     private LoadingCache<?, ?> databaseCache;
     private LoadingCache<?, ?> databaseNamesCache;
     private LoadingCache<?, ?> tableCache;
@@ -127,6 +133,18 @@ public class HiveMetastoreCacheStats
         partitionsWithColumnCountGreaterThanThreshold.update(1);
     }
 
+    @Override
+    public void recordPartitionsByNamesLoadTime(long nanos)
+    {
+        partitionsByNamesLoadTime.add(nanos, NANOSECONDS);
+    }
+
+    @Override
+    public void incrementCoalescedPartitionLoads(long count)
+    {
+        coalescedPartitionLoads.update(count);
+    }
+
     @Managed
     @Override
     public long getDatabaseCacheHit()
@@ -526,4 +544,20 @@ public class HiveMetastoreCacheStats
     {
         return partitionsWithColumnCountGreaterThanThreshold;
     }
+
+    @Managed
+    @Nested
+    @Override
+    public TimeStat getPartitionsByNamesLoadTime()
+    {
+        return partitionsByNamesLoadTime;
+    }
+
+    @Managed
+    @Nested
+    @Override
+    public CounterStat getCoalescedPartitionLoads()
+    {
+        return coalescedPartitionLoads;
+    }
 }
@@ -18,6 +18,7 @@ import com.facebook.presto.hive.ForCachingHiveMetastore;
 import com.facebook.presto.hive.HiveTableHandle;
 import com.facebook.presto.hive.MetastoreClientConfig;
 import com.facebook.presto.hive.PartitionNameWithVersion;
+import com.facebook.presto.hive.metastore.MetastoreCacheEntryTracker.MetastoreCacheEntry;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.constraints.TableConstraint;
 import com.facebook.presto.spi.security.PrestoPrincipal;
@@ -29,12 +30,15 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.errorprone.annotations.ThreadSafe;
 import jakarta.inject.Inject;
 import org.weakref.jmx.Managed;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +47,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
@@ -50,6 +56,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CORRUPTED_PARTITION_CACHE;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_DROPPED_DURING_QUERY;
 import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.DATABASE;
@@ -113,6 +120,11 @@ public class InMemoryCachingHiveMetastore
     private final boolean partitionVersioningEnabled;
     private final double partitionCacheValidationPercentage;
     private final int partitionCacheColumnCountLimit;
+    private final Map<MetastoreCacheType, MetastoreCacheEntryTracker<?, ?>> entryTrackers = new EnumMap<>(MetastoreCacheType.class);
+
+    // bulk partition loads in flight, keyed like the partition cache, so queries missing
+    // overlapping partitions share one metastore call instead of each fetching all of them
+    private final ConcurrentMap<KeyAndContext<HivePartitionName>, ListenableFuture<Map<KeyAndContext<HivePartitionName>, Optional<Partition>>>> partitionLoadsInFlight = new ConcurrentHashMap<>();
 
     @Inject
     public InMemoryCachingHiveMetastore(
@@ -301,7 +313,7 @@ public class InMemoryCachingHiveMetastore
                     @Override
                     public Map<KeyAndContext<HivePartitionName>, Optional<Partition>> loadAll(Iterable<? extends KeyAndContext<HivePartitionName>> partitionNames)
                     {
-                        return loadPartitionsByNames(partitionNames);
+                        return coalescePartitionLoads(partitionNames);
                     }
                 },
                 perTransactionCache,
@@ -339,6 +351,16 @@ public class InMemoryCachingHiveMetastore
         return delegate;
     }
 
+    /**
+     * Returns the entries of the caches running in stale-while-revalidate mode.
+     */
+    public List<MetastoreCacheEntry> getCacheEntries()
+    {
+        return entryTrackers.values().stream()
+                .flatMap(entryTracker -> entryTracker.getEntries().stream())
+                .collect(toImmutableList());
+    }
+
     @Managed
     @Override
     public void invalidateAll()
@@ -733,6 +755,52 @@ public class InMemoryCachingHiveMetastore
                 partitionName.getKey().getPartitionValues());
     }
 
+    private Map<KeyAndContext<HivePartitionName>, Optional<Partition>> coalescePartitionLoads(Iterable<? extends KeyAndContext<HivePartitionName>> partitionNamesKey)
+    {
+        SettableFuture<Map<KeyAndContext<HivePartitionName>, Optional<Partition>>> load = SettableFuture.create();
+        List<KeyAndContext<HivePartitionName>> ownedKeys = new ArrayList<>();
+        Map<KeyAndContext<HivePartitionName>, ListenableFuture<Map<KeyAndContext<HivePartitionName>, Optional<Partition>>>> sharedLoads = new HashMap<>();
+        for (KeyAndContext<HivePartitionName> partitionNameKey : partitionNamesKey) {
+            ListenableFuture<Map<KeyAndContext<HivePartitionName>, Optional<Partition>>> existingLoad = partitionLoadsInFlight.putIfAbsent(partitionNameKey, load);
+            if (existingLoad == null) {
+                ownedKeys.add(partitionNameKey);
+            }
+            else {
+                sharedLoads.put(partitionNameKey, existingLoad);
+            }
+        }
+
+        ImmutableMap.Builder<KeyAndContext<HivePartitionName>, Optional<Partition>> partitions = ImmutableMap.builder();
+        // the owned keys are always loaded before waiting on other loads, so two loads waiting on each other both make progress
+        if (!ownedKeys.isEmpty()) {
+            try {
+                long start = System.nanoTime();
+                Map<KeyAndContext<HivePartitionName>, Optional<Partition>> loaded = loadPartitionsByNames(ownedKeys);
+                metastoreCacheStats.recordPartitionsByNamesLoadTime(System.nanoTime() - start);
+                load.set(loaded);
+                partitions.putAll(loaded);
+            }
+            catch (Throwable t) {
+                load.setException(t);
+                throw t;
+            }
+            finally {
+                ownedKeys.forEach(partitionNameKey -> partitionLoadsInFlight.remove(partitionNameKey, load));
+            }
+        }
+
+        if (!sharedLoads.isEmpty()) {
+            metastoreCacheStats.incrementCoalescedPartitionLoads(sharedLoads.size());
+            for (Entry<KeyAndContext<HivePartitionName>, ListenableFuture<Map<KeyAndContext<HivePartitionName>, Optional<Partition>>>> entry : sharedLoads.entrySet()) {
+                Optional<Partition> partition = getFutureValue(entry.getValue()).get(entry.getKey());
+                if (partition != null) {
+                    partitions.put(entry.getKey(), partition);
+                }
+            }
+        }
+        return partitions.build();
+    }
+
     private Map<KeyAndContext<HivePartitionName>, Optional<Partition>> loadPartitionsByNames(Iterable<? extends KeyAndContext<HivePartitionName>> partitionNamesKey)
     {
         requireNonNull(partitionNamesKey, "partitionNames is null");
@@ -1121,6 +1189,22 @@ public class InMemoryCachingHiveMetastore
         long cacheTtlMillis = spec.getCacheTtlMillis();
         long refreshMillis = spec.getRefreshIntervalMillis();
 
+        if (spec.isStaleWhileRevalidate()) {
+            // entries are refreshed in the background once they reach the TTL, and served
+            // while the refresh runs until they are older than the TTL plus the staleness bound
+            MetastoreCacheEntryTracker<K, V> entryTracker = new MetastoreCacheEntryTracker<>(
+                    cacheType,
+                    cacheTtlMillis,
+                    key -> String.valueOf(((KeyAndContext<?>) key).getKey()));
+            entryTrackers.put(cacheType, entryTracker);
+            return newCacheBuilder(
+                    OptionalLong.of(cacheTtlMillis + spec.getMaxStalenessMillis()),
+                    OptionalLong.of(refreshMillis > 0 ? Math.min(refreshMillis, cacheTtlMillis) : cacheTtlMillis),
+                    spec.getMaximumSize())
+                    .removalListener(entryTracker)
+                    .build(entryTracker.track(asyncReloading(loader, executor)));
+        }
+
         return newCacheBuilder(
                 OptionalLong.of(cacheTtlMillis),
                 refreshMillis >= cacheTtlMillis ? OptionalLong.empty() : OptionalLong.of(refreshMillis),
@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static com.google.common.cache.RemovalCause.REPLACED;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Records when each entry of a stale-while-revalidate metastore cache was last loaded and
+ * how many background refreshes of it failed since, so served entries can be inspected.
+ */
+public class MetastoreCacheEntryTracker<K, V>
+        implements RemovalListener<K, V>
+{
+    private final MetastoreCacheType cacheType;
+    private final long cacheTtlMillis;
+    private final Function<K, String> keyFormatter;
+    private final Ticker ticker;
+    private final ConcurrentMap<K, EntryState> entries = new ConcurrentHashMap<>();
+
+    public MetastoreCacheEntryTracker(MetastoreCacheType cacheType, long cacheTtlMillis, Function<K, String> keyFormatter)
+    {
+        this(cacheType, cacheTtlMillis, keyFormatter, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    MetastoreCacheEntryTracker(MetastoreCacheType cacheType, long cacheTtlMillis, Function<K, String> keyFormatter, Ticker ticker)
+    {
+        this.cacheType = requireNonNull(cacheType, "cacheType is null");
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.keyFormatter = requireNonNull(keyFormatter, "keyFormatter is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    public CacheLoader<K, V> track(CacheLoader<K, V> loader)
+    {
+        return new TrackingCacheLoader(requireNonNull(loader, "loader is null"));
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<K, V> notification)
+    {
+        // replaced entries are reloaded entries, whose state was already updated by the loader
+        if (notification.getCause() != REPLACED && notification.getKey() != null) {
+            entries.remove(notification.getKey());
+        }
+    }
+
+    public List<MetastoreCacheEntry> getEntries()
+    {
+        long now = ticker.read();
+        ImmutableList.Builder<MetastoreCacheEntry> result = ImmutableList.builder();
+        for (Map.Entry<K, EntryState> entry : entries.entrySet()) {
+            EntryState state = entry.getValue();
+            long ageMillis = NANOSECONDS.toMillis(now - state.getLoadedAtNanos());
+            result.add(new MetastoreCacheEntry(
+                    cacheType,
+                    keyFormatter.apply(entry.getKey()),
+                    ageMillis,
+                    ageMillis > cacheTtlMillis,
+                    state.getRefreshFailures(),
+                    state.getLastRefreshFailure()));
+        }
+        return result.build();
+    }
+
+    private void recordLoad(K key)
+    {
+        entries.put(key, new EntryState(ticker.read(), 0, Optional.empty()));
+    }
+
+    private void recordRefreshFailure(K key, Throwable failure)
+    {
+        // the entry keeps its load time, so its age keeps growing until a refresh succeeds
+        entries.computeIfPresent(key, (ignored, state) -> new EntryState(
+                state.getLoadedAtNanos(),
+                state.getRefreshFailures() + 1,
+                Optional.of(String.valueOf(failure.getMessage()))));
+    }
+
+    private class TrackingCacheLoader
+            extends CacheLoader<K, V>
+    {
+        private final CacheLoader<K, V> delegate;
+
+        public TrackingCacheLoader(CacheLoader<K, V> delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public V load(K key)
+                throws Exception
+        {
+            V value = delegate.load(key);
+            recordLoad(key);
+            return value;
+        }
+
+        @Override
+        public Map<K, V> loadAll(Iterable<? extends K> keys)
+                throws Exception
+        {
+            Map<K, V> values = delegate.loadAll(keys);
+            values.keySet().forEach(MetastoreCacheEntryTracker.this::recordLoad);
+            return values;
+        }
+
+        @Override
+        public ListenableFuture<V> reload(K key, V oldValue)
+                throws Exception
+        {
+            ListenableFuture<V> future = delegate.reload(key, oldValue);
+            addCallback(future, new FutureCallback<V>()
+            {
+                @Override
+                public void onSuccess(V value)
+                {
+                    recordLoad(key);
+                }
+
+                @Override
+                public void onFailure(Throwable t)
+                {
+                    recordRefreshFailure(key, t);
+                }
+            }, directExecutor());
+            return future;
+        }
+    }
+
+    private static class EntryState
+    {
+        private final long loadedAtNanos;
+        private final long refreshFailures;
+        private final Optional<String> lastRefreshFailure;
+
+        public EntryState(long loadedAtNanos, long refreshFailures, Optional<String> lastRefreshFailure)
+        {
+            this.loadedAtNanos = loadedAtNanos;
+            this.refreshFailures = refreshFailures;
+            this.lastRefreshFailure = lastRefreshFailure;
+        }
+
+        public long getLoadedAtNanos()
+        {
+            return loadedAtNanos;
+        }
+
+        public long getRefreshFailures()
+        {
+            return refreshFailures;
+        }
+
+        public Optional<String> getLastRefreshFailure()
+        {
+            return lastRefreshFailure;
+        }
+    }
+
+    public static class MetastoreCacheEntry
+    {
+        private final MetastoreCacheType cacheType;
+        private final String key;
+        private final long ageMillis;
+        private final boolean stale;
+        private final long refreshFailures;
+        private final Optional<String> lastRefreshFailure;
+
+        public MetastoreCacheEntry(MetastoreCacheType cacheType, String key, long ageMillis, boolean stale, long refreshFailures, Optional<String> lastRefreshFailure)
+        {
+            this.cacheType = requireNonNull(cacheType, "cacheType is null");
+            this.key = requireNonNull(key, "key is null");
+            this.ageMillis = ageMillis;
+            this.stale = stale;
+            this.refreshFailures = refreshFailures;
+            this.lastRefreshFailure = requireNonNull(lastRefreshFailure, "lastRefreshFailure is null");
+        }
+
+        public MetastoreCacheType getCacheType()
+        {
+            return cacheType;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public long getAgeMillis()
+        {
+            return ageMillis;
+        }
+
+        /**
+         * Whether the entry is older than the cache TTL and is being served while it is refreshed.
+         */
+        public boolean isStale()
+        {
+            return stale;
+        }
+
+        public long getRefreshFailures()
+        {
+            return refreshFailures;
+        }
+
+        public Optional<String> getLastRefreshFailure()
+        {
+            return lastRefreshFailure;
+        }
+    }
+}
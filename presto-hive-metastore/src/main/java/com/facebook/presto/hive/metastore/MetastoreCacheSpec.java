@@ -15,10 +15,11 @@ package com.facebook.presto.hive.metastore;
 
 public class MetastoreCacheSpec
 {
-    private static final MetastoreCacheSpec DISABLED = new MetastoreCacheSpec(0, 0, 0);
+    private static final MetastoreCacheSpec DISABLED = new MetastoreCacheSpec(0, 0, 0, 0);
     private final long cacheTtlMillis;
     private final long refreshIntervalMillis;
     private final long maximumSize;
+    private final long maxStalenessMillis;
 
     public static MetastoreCacheSpec disabled()
     {
@@ -27,14 +28,20 @@ public class MetastoreCacheSpec
 
     public static MetastoreCacheSpec enabled(long cacheTtlMillis, long refreshIntervalMillis, long maximumSize)
     {
-        return new MetastoreCacheSpec(cacheTtlMillis, refreshIntervalMillis, maximumSize);
+        return enabled(cacheTtlMillis, refreshIntervalMillis, maximumSize, 0);
     }
 
-    private MetastoreCacheSpec(long cacheTtlMillis, long refreshIntervalMillis, long maximumSize)
+    public static MetastoreCacheSpec enabled(long cacheTtlMillis, long refreshIntervalMillis, long maximumSize, long maxStalenessMillis)
+    {
+        return new MetastoreCacheSpec(cacheTtlMillis, refreshIntervalMillis, maximumSize, maxStalenessMillis);
+    }
+
+    private MetastoreCacheSpec(long cacheTtlMillis, long refreshIntervalMillis, long maximumSize, long maxStalenessMillis)
     {
         this.cacheTtlMillis = cacheTtlMillis;
         this.refreshIntervalMillis = refreshIntervalMillis;
         this.maximumSize = maximumSize;
+        this.maxStalenessMillis = maxStalenessMillis;
     }
 
     public long getCacheTtlMillis()
@@ -51,4 +58,17 @@ public class MetastoreCacheSpec
     {
         return maximumSize;
     }
+
+    /**
+     * Time after the TTL during which an entry is still served while it is refreshed in the background.
+     */
+    public long getMaxStalenessMillis()
+    {
+        return maxStalenessMillis;
+    }
+
+    public boolean isStaleWhileRevalidate()
+    {
+        return cacheTtlMillis > 0 && maxStalenessMillis > 0;
+    }
 }
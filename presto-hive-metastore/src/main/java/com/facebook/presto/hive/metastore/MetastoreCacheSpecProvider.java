@@ -41,11 +41,14 @@ public class MetastoreCacheSpecProvider
                 type, clientConfig.getDefaultMetastoreCacheTtl()).toMillis();
         long refreshIntervalMillis = clientConfig.getMetastoreCacheRefreshIntervalByType().getOrDefault(
                 type, clientConfig.getDefaultMetastoreCacheRefreshInterval()).toMillis();
+        long maxStalenessMillis = clientConfig.getMetastoreCacheMaxStalenessByType().getOrDefault(
+                type, clientConfig.getDefaultMetastoreCacheMaxStaleness()).toMillis();
 
         return MetastoreCacheSpec.enabled(
                 cacheTtlMillis,
                 refreshIntervalMillis,
-                clientConfig.getMetastoreCacheMaximumSize());
+                clientConfig.getMetastoreCacheMaximumSize(),
+                maxStalenessMillis);
     }
 
     private boolean isEnabled(MetastoreCacheType type)
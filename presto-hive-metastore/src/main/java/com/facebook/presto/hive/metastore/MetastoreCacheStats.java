@@ -14,6 +14,7 @@
 package com.facebook.presto.hive.metastore;
 
 import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
 import com.google.common.cache.LoadingCache;
 
 public interface MetastoreCacheStats
@@ -48,6 +49,10 @@ public interface MetastoreCacheStats
 
     void incrementPartitionsWithColumnCountGreaterThanThreshold();
 
+    void recordPartitionsByNamesLoadTime(long nanos);
+
+    void incrementCoalescedPartitionLoads(long count);
+
     long getDatabaseCacheHit();
 
     long getDatabaseCacheMiss();
@@ -161,4 +166,8 @@ public interface MetastoreCacheStats
     long getRoleGrantsCacheSize();
 
     CounterStat getPartitionsWithColumnCountGreaterThanThreshold();
+
+    TimeStat getPartitionsByNamesLoadTime();
+
+    CounterStat getCoalescedPartitionLoads();
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.metastore.MetastoreCacheEntryTracker.MetastoreCacheEntry;
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.SystemTable;
+import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.google.common.collect.ImmutableList;
+import jakarta.inject.Inject;
+
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.spi.SystemTable.Distribution.SINGLE_COORDINATOR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lists the entries of the metastore caches that serve stale entries while refreshing them,
+ * with their age and failed background refreshes.
+ */
+public class MetastoreCacheSystemTable
+        implements SystemTable
+{
+    public static final SchemaTableName METASTORE_CACHE_TABLE_NAME = new SchemaTableName("system", "metastore_cache");
+
+    private static final ConnectorTableMetadata METASTORE_CACHE_TABLE = new ConnectorTableMetadata(
+            METASTORE_CACHE_TABLE_NAME,
+            ImmutableList.of(
+                    column("cache_type", VARCHAR),
+                    column("entry_key", VARCHAR),
+                    column("age_millis", BIGINT),
+                    column("stale", BOOLEAN),
+                    column("refresh_failures", BIGINT),
+                    column("last_refresh_failure", VARCHAR)));
+
+    private final Optional<InMemoryCachingHiveMetastore> inMemoryCachingHiveMetastore;
+
+    @Inject
+    public MetastoreCacheSystemTable(ExtendedHiveMetastore extendedHiveMetastore)
+    {
+        requireNonNull(extendedHiveMetastore, "extendedHiveMetastore is null");
+        if (extendedHiveMetastore instanceof InMemoryCachingHiveMetastore) {
+            this.inMemoryCachingHiveMetastore = Optional.of((InMemoryCachingHiveMetastore) extendedHiveMetastore);
+        }
+        else {
+            this.inMemoryCachingHiveMetastore = Optional.empty();
+        }
+    }
+
+    @Override
+    public Distribution getDistribution()
+    {
+        return SINGLE_COORDINATOR;
+    }
+
+    @Override
+    public ConnectorTableMetadata getTableMetadata()
+    {
+        return METASTORE_CACHE_TABLE;
+    }
+
+    @Override
+    public RecordCursor cursor(ConnectorTransactionHandle transactionHandle, ConnectorSession session, TupleDomain<Integer> constraint)
+    {
+        InMemoryRecordSet.Builder table = InMemoryRecordSet.builder(METASTORE_CACHE_TABLE);
+        if (inMemoryCachingHiveMetastore.isPresent()) {
+            for (MetastoreCacheEntry entry : inMemoryCachingHiveMetastore.get().getCacheEntries()) {
+                table.addRow(
+                        entry.getCacheType().name(),
+                        entry.getKey(),
+                        entry.getAgeMillis(),
+                        entry.isStale(),
+                        entry.getRefreshFailures(),
+                        entry.getLastRefreshFailure().orElse(null));
+            }
+        }
+        return table.build().cursor();
+    }
+
+    private static ColumnMetadata column(String name, Type type)
+    {
+        return ColumnMetadata.builder().setName(name).setType(type).build();
+    }
+}
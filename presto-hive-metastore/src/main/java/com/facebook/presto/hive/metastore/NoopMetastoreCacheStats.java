@@ -14,6 +14,7 @@
 package com.facebook.presto.hive.metastore;
 
 import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
 import com.google.common.cache.LoadingCache;
 
 public class NoopMetastoreCacheStats
@@ -96,6 +97,16 @@ public class NoopMetastoreCacheStats
     {
     }
 
+    @Override
+    public void recordPartitionsByNamesLoadTime(long nanos)
+    {
+    }
+
+    @Override
+    public void incrementCoalescedPartitionLoads(long count)
+    {
+    }
+
     @Override
     public long getDatabaseCacheHit()
     {
@@ -437,4 +448,16 @@ public class NoopMetastoreCacheStats
     {
         return null;
     }
+
+    @Override
+    public TimeStat getPartitionsByNamesLoadTime()
+    {
+        return null;
+    }
+
+    @Override
+    public CounterStat getCoalescedPartitionLoads()
+    {
+        return null;
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.airlift.testing.TestingTicker;
+import com.facebook.presto.hive.metastore.MetastoreCacheEntryTracker.MetastoreCacheEntry;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.TABLE;
+import static com.google.common.cache.CacheLoader.asyncReloading;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMetastoreCacheEntryTracker
+{
+    private static final long TTL_SECONDS = 10;
+    private static final long MAX_STALENESS_SECONDS = 20;
+
+    private TestingTicker ticker;
+    private AtomicInteger loads;
+    private AtomicBoolean failLoads;
+    private MetastoreCacheEntryTracker<String, Integer> tracker;
+    private LoadingCache<String, Integer> cache;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        ticker = new TestingTicker();
+        loads = new AtomicInteger();
+        failLoads = new AtomicBoolean();
+        tracker = new MetastoreCacheEntryTracker<>(TABLE, SECONDS.toMillis(TTL_SECONDS), key -> key, ticker);
+        CacheLoader<String, Integer> loader = CacheLoader.from(key -> {
+            if (failLoads.get()) {
+                throw new IllegalStateException("metastore unavailable");
+            }
+            return loads.incrementAndGet();
+        });
+        // same configuration the caching metastore uses for a stale-while-revalidate cache
+        cache = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(TTL_SECONDS + MAX_STALENESS_SECONDS, SECONDS)
+                .refreshAfterWrite(TTL_SECONDS, SECONDS)
+                .removalListener(tracker)
+                .build(tracker.track(asyncReloading(loader, directExecutor())));
+    }
+
+    @Test
+    public void testStaleEntryServedWhileRefreshFails()
+    {
+        assertEquals(cache.getUnchecked("orders"), (Integer) 1);
+        MetastoreCacheEntry entry = getOnlyElement(tracker.getEntries());
+        assertEquals(entry.getKey(), "orders");
+        assertEquals(entry.getAgeMillis(), 0);
+        assertFalse(entry.isStale());
+
+        // past the TTL the entry is still served and a failed refresh is recorded
+        ticker.increment(15, SECONDS);
+        failLoads.set(true);
+        assertEquals(cache.getUnchecked("orders"), (Integer) 1);
+        entry = getOnlyElement(tracker.getEntries());
+        assertEquals(entry.getAgeMillis(), SECONDS.toMillis(15));
+        assertTrue(entry.isStale());
+        assertEquals(entry.getRefreshFailures(), 1);
+        assertEquals(entry.getLastRefreshFailure(), Optional.of("metastore unavailable"));
+
+        // a successful refresh resets the age and the failures
+        failLoads.set(false);
+        assertEquals(cache.getUnchecked("orders"), (Integer) 2);
+        entry = getOnlyElement(tracker.getEntries());
+        assertEquals(entry.getAgeMillis(), 0);
+        assertFalse(entry.isStale());
+        assertEquals(entry.getRefreshFailures(), 0);
+        assertEquals(entry.getLastRefreshFailure(), Optional.empty());
+    }
+
+    @Test
+    public void testEntryExpiresAfterMaxStaleness()
+    {
+        cache.getUnchecked("orders");
+        failLoads.set(true);
+        ticker.increment(TTL_SECONDS + 1, SECONDS);
+        cache.getUnchecked("orders");
+
+        // beyond the staleness bound the entry is dropped and must be loaded again
+        ticker.increment(MAX_STALENESS_SECONDS, SECONDS);
+        cache.cleanUp();
+        assertEquals(tracker.getEntries().size(), 0);
+
+        failLoads.set(false);
+        assertEquals(cache.getUnchecked("orders"), (Integer) 2);
+        assertEquals(getOnlyElement(tracker.getEntries()).getRefreshFailures(), 0);
+    }
+
+    @Test
+    public void testInvalidatedEntryIsRemoved()
+    {
+        cache.getUnchecked("orders");
+        cache.getUnchecked("lineitem");
+        assertEquals(tracker.getEntries().size(), 2);
+
+        cache.invalidate("orders");
+        assertEquals(getOnlyElement(tracker.getEntries()).getKey(), "lineitem");
+    }
+}
@@ -45,6 +45,8 @@ public class TestMetastoreClientConfig
                 .setDefaultMetastoreCacheRefreshInterval(new Duration(0, TimeUnit.SECONDS))
                 .setMetastoreCacheTtlByType(null)
                 .setMetastoreCacheRefreshIntervalByType(null)
+                .setDefaultMetastoreCacheMaxStaleness(new Duration(0, TimeUnit.SECONDS))
+                .setMetastoreCacheMaxStalenessByType(null)
                 .setMetastoreCacheMaximumSize(10000)
                 .setPerTransactionMetastoreCacheMaximumSize(1000)
                 .setMaxMetastoreRefreshThreads(100)
@@ -75,6 +77,8 @@ public class TestMetastoreClientConfig
                 .put("hive.metastore.cache.refresh-interval.default", "30m")
                 .put("hive.metastore.cache.ttl-by-type", "TABLE:10m")
                 .put("hive.metastore.cache.refresh-interval-by-type", "TABLE:5m")
+                .put("hive.metastore.cache.max-staleness.default", "1h")
+                .put("hive.metastore.cache.max-staleness-by-type", "PARTITION:15m")
                 .put("hive.metastore-cache-maximum-size", "5000")
                 .put("hive.per-transaction-metastore-cache-maximum-size", "500")
                 .put("hive.metastore-refresh-max-threads", "2500")
@@ -102,6 +106,8 @@ public class TestMetastoreClientConfig
                 .setDefaultMetastoreCacheRefreshInterval(new Duration(30, TimeUnit.MINUTES))
                 .setMetastoreCacheTtlByType("TABLE:10m")
                 .setMetastoreCacheRefreshIntervalByType("TABLE:5m")
+                .setDefaultMetastoreCacheMaxStaleness(new Duration(1, TimeUnit.HOURS))
+                .setMetastoreCacheMaxStalenessByType("PARTITION:15m")
                 .setMetastoreCacheMaximumSize(5000)
                 .setPerTransactionMetastoreCacheMaximumSize(500)
                 .setMaxMetastoreRefreshThreads(2500)
@@ -135,4 +141,22 @@ public class TestMetastoreClientConfig
                 "Only one of 'hive.metastore.cache.enabled-caches' or 'hive.metastore.cache.disabled-caches' can be set. " +
                         "These configs are mutually exclusive.");
     }
+
+    @Test
+    public void testInvalidMaxStalenessByType()
+    {
+        assertInvalidMaxStalenessByType("PARTITION", "Invalid entry 'PARTITION' in 'hive.metastore.cache.max-staleness-by-type': expected <CACHE_TYPE>:<DURATION>");
+        assertInvalidMaxStalenessByType("PARTITION:15m,TABLE", "Invalid entry 'TABLE' in 'hive.metastore.cache.max-staleness-by-type': expected <CACHE_TYPE>:<DURATION>");
+        assertInvalidMaxStalenessByType("UNKNOWN:15m", "Invalid entry 'UNKNOWN:15m' in 'hive.metastore.cache.max-staleness-by-type': " +
+                "No enum constant com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.UNKNOWN");
+        assertInvalidMaxStalenessByType("PARTITION:soon", "Invalid entry 'PARTITION:soon' in 'hive.metastore.cache.max-staleness-by-type': duration is not a valid data duration string: soon");
+    }
+
+    private static void assertInvalidMaxStalenessByType(String value, String expectedMessage)
+    {
+        ConfigurationException exception = expectThrows(
+                ConfigurationException.class,
+                () -> new MetastoreClientConfig().setMetastoreCacheMaxStalenessByType(value));
+        assertEquals(exception.getErrorMessages().iterator().next().getMessage(), expectedMessage);
+    }
 }
@@ -33,6 +33,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
+import static com.facebook.presto.hive.HiveSessionProperties.getSplitLoaderListingPrefetchCount;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
@@ -42,8 +43,11 @@ public class BackgroundHiveSplitLoader
         implements HiveSplitLoader
 {
     private static final ListenableFuture<?> COMPLETED_FUTURE = immediateFuture(null);
+    // stop listing partitions ahead once queued splits use this much of the split buffering limit
+    private static final double MAX_PREFETCH_BUFFERED_SPLIT_SIZE_RATIO = 0.5;
 
     private final int loaderConcurrency;
+    private final int listingPrefetchCount;
     private final Executor executor;
     private final ConcurrentLazyQueue<HivePartitionMetadata> partitions;
     private final Deque<Iterator<InternalHiveSplit>> fileIterators = new ConcurrentLinkedDeque<>();
@@ -88,6 +92,10 @@ public class BackgroundHiveSplitLoader
         checkArgument(loaderConcurrency > 0, "loaderConcurrency must be > 0, found: %s", loaderConcurrency);
         this.executor = requireNonNull(executor, "executor is null");
         this.partitions = new ConcurrentLazyQueue<>(requireNonNull(partitions, "partitions is null"));
+        this.listingPrefetchCount = getSplitLoaderListingPrefetchCount(session);
+        if (listingPrefetchCount > 0) {
+            directoryLister = new PrefetchingDirectoryLister(directoryLister, executor);
+        }
         this.delegatingPartitionLoader = new DelegatingPartitionLoader(table, infoColumnConstraints, tableBucketInfo, session, hdfsEnvironment, namenodeStats, directoryLister, fileIterators, recursiveDirWalkerEnabled, schedulerUsesHostAddresses, partialAggregationsPushedDown);
     }
 
@@ -104,6 +112,7 @@ public class BackgroundHiveSplitLoader
     public void stop()
     {
         stopped = true;
+        partitions.close();
     }
 
     private class HiveSplitLoaderTask
@@ -184,6 +193,19 @@ public class BackgroundHiveSplitLoader
     private ListenableFuture<?> loadSplits()
             throws IOException
     {
+        if (shouldPrefetchPartition()) {
+            // Load the next partition before draining the queued iterators so its directory listing
+            // runs in the background. Iterators are drained in partition order, so splits from the
+            // earliest partitions are still produced first.
+            HivePartitionMetadata partition = partitions.poll();
+            if (partition != null) {
+                ListenableFuture<?> future = delegatingPartitionLoader.loadPartition(partition, hiveSplitSource, stopped);
+                if (!future.isDone()) {
+                    return future;
+                }
+            }
+        }
+
         Iterator<InternalHiveSplit> splits = fileIterators.poll();
         if (splits == null) {
             HivePartitionMetadata partition = partitions.poll();
@@ -204,4 +226,12 @@ public class BackgroundHiveSplitLoader
         // No need to put the iterator back, since it's either empty or we've stopped
         return COMPLETED_FUTURE;
     }
+
+    private boolean shouldPrefetchPartition()
+    {
+        return listingPrefetchCount > 0
+                && !fileIterators.isEmpty()
+                && fileIterators.size() < listingPrefetchCount
+                && hiveSplitSource.getBufferedSplitSizeRatio() < MAX_PREFETCH_BUFFERED_SPLIT_SIZE_RATIO;
+    }
 }
@@ -21,6 +21,8 @@ import com.facebook.presto.hive.metastore.Partition;
 import com.facebook.presto.hive.metastore.Table;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
@@ -31,12 +33,15 @@ import org.apache.hadoop.fs.Path;
 import org.openjdk.jol.info.ClassLayout;
 import org.weakref.jmx.Managed;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.common.RuntimeMetricName.DIRECTORY_LISTING_CACHE_HIT;
 import static com.facebook.presto.common.RuntimeMetricName.DIRECTORY_LISTING_CACHE_MISS;
@@ -46,6 +51,7 @@ import static com.facebook.presto.common.RuntimeUnit.NANO;
 import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_PROCEDURE_ARGUMENT;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -53,9 +59,18 @@ import static java.util.Objects.requireNonNull;
 public class CachingDirectoryLister
         implements DirectoryLister
 {
+    private static final long UNKNOWN_MODIFICATION_TIME = 0;
+
     private final Cache<String, ValueHolder> cache;
     private final CachedTableChecker cachedTableChecker;
     private final DirectoryLister delegate;
+    private final long revalidateIntervalNanos;
+    private final Ticker ticker;
+
+    private final AtomicLong filesServedFromCache = new AtomicLong();
+    private final AtomicLong retainedBytesServedFromCache = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+    private final AtomicLong revalidationHitCount = new AtomicLong();
 
     @Inject
     public CachingDirectoryLister(@ForCachingDirectoryLister DirectoryLister delegate, HiveClientConfig hiveClientConfig)
@@ -64,16 +79,28 @@ public class CachingDirectoryLister
                 delegate,
                 hiveClientConfig.getFileStatusCacheExpireAfterWrite(),
                 hiveClientConfig.getFileStatusCacheMaxRetainedSize(),
-                hiveClientConfig.getFileStatusCacheTables());
+                hiveClientConfig.getFileStatusCacheTables(),
+                hiveClientConfig.getFileStatusCacheRevalidateInterval(),
+                Ticker.systemTicker());
     }
 
     public CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, DataSize maxSize, List<String> tables)
+    {
+        this(delegate, expireAfterWrite, maxSize, tables, new Duration(0, TimeUnit.SECONDS), Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, DataSize maxSize, List<String> tables, Duration revalidateInterval, Ticker ticker)
     {
         this.delegate = requireNonNull(delegate, "delegate is null");
+        this.revalidateIntervalNanos = requireNonNull(revalidateInterval, "revalidateInterval is null").roundTo(TimeUnit.NANOSECONDS);
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        // the weight of an entry grows with the number of files in the listing, so large directories are evicted first
         cache = CacheBuilder.newBuilder()
                 .maximumWeight(maxSize.toBytes())
                 .weigher((Weigher<String, ValueHolder>) (key, value) -> toIntExact(key.length() + value.getRetainedSizeInBytes()))
                 .expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
+                .ticker(ticker)
                 .recordStats()
                 .build();
         this.cachedTableChecker = new CachedTableChecker(requireNonNull(tables, "tables is null"));
@@ -94,8 +121,13 @@ public class CachingDirectoryLister
             // DO NOT USE Caching, when cache is disabled.
             // This is useful for debugging issues, when cache is explicitly disabled via session property.
             ValueHolder value = Optional.ofNullable(cache.getIfPresent(path.toString())).orElse(null);
+            if (value != null && needsRevalidation(value)) {
+                value = revalidate(fileSystem, path, value);
+            }
             if (value != null) {
                 List<HiveFileInfo> files = value.getFiles();
+                filesServedFromCache.addAndGet(files.size());
+                retainedBytesServedFromCache.addAndGet(value.getRetainedSizeInBytes());
                 runtimeStats.addMetricValue(DIRECTORY_LISTING_CACHE_HIT, NONE, 1);
                 runtimeStats.addMetricValue(DIRECTORY_LISTING_TIME_NANOS, NANO, System.nanoTime() - startTime);
                 runtimeStats.addMetricValue(FILES_READ_COUNT, NONE, files.size());
@@ -104,15 +136,48 @@ public class CachingDirectoryLister
         }
 
         runtimeStats.addMetricValue(DIRECTORY_LISTING_CACHE_MISS, NONE, 1);
+        boolean enableCaching = hiveDirectoryContext.isCacheable() && cachedTableChecker.isCachedTable(table.getSchemaTableName());
+        // capture the modification time before listing, so a file added during the listing makes the entry stale rather than lost
+        long directoryModificationTime = enableCaching && revalidateIntervalNanos > 0 ? getDirectoryModificationTime(fileSystem, path) : UNKNOWN_MODIFICATION_TIME;
         Iterator<HiveFileInfo> iterator = delegate.list(fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext);
         runtimeStats.addMetricValue(DIRECTORY_LISTING_TIME_NANOS, NANO, System.nanoTime() - startTime);
-        if (hiveDirectoryContext.isCacheable() && cachedTableChecker.isCachedTable(table.getSchemaTableName())) {
-            return fileCountTrackingIterator(iterator, path, runtimeStats, true);
+        return fileCountTrackingIterator(iterator, path, runtimeStats, enableCaching, directoryModificationTime);
+    }
+
+    private boolean needsRevalidation(ValueHolder value)
+    {
+        return revalidateIntervalNanos > 0 && ticker.read() - value.getValidatedTimeNanos() >= revalidateIntervalNanos;
+    }
+
+    private ValueHolder revalidate(ExtendedFileSystem fileSystem, Path path, ValueHolder value)
+    {
+        // Listing only the files added since the last listing is not possible through the Hadoop file system API,
+        // but adding or removing a file updates the directory modification time on file systems that track it.
+        // If it has not changed, the cached listing is still complete and is kept for another interval.
+        revalidationCount.incrementAndGet();
+        long directoryModificationTime = getDirectoryModificationTime(fileSystem, path);
+        if (directoryModificationTime != UNKNOWN_MODIFICATION_TIME && directoryModificationTime == value.getDirectoryModificationTime()) {
+            revalidationHitCount.incrementAndGet();
+            ValueHolder revalidated = new ValueHolder(value.getFiles(), directoryModificationTime, ticker.read());
+            cache.put(path.toString(), revalidated);
+            return revalidated;
+        }
+        cache.invalidate(path.toString());
+        return null;
+    }
+
+    private static long getDirectoryModificationTime(ExtendedFileSystem fileSystem, Path path)
+    {
+        try {
+            return fileSystem.getFileStatus(path).getModificationTime();
+        }
+        catch (IOException | RuntimeException e) {
+            // object stores may not have a status for directories, so fall back to a full listing
+            return UNKNOWN_MODIFICATION_TIME;
         }
-        return fileCountTrackingIterator(iterator, path, runtimeStats, false);
     }
 
-    private Iterator<HiveFileInfo> fileCountTrackingIterator(Iterator<HiveFileInfo> iterator, Path path, RuntimeStats runtimeStats, boolean enableCaching)
+    private Iterator<HiveFileInfo> fileCountTrackingIterator(Iterator<HiveFileInfo> iterator, Path path, RuntimeStats runtimeStats, boolean enableCaching, long directoryModificationTime)
     {
         return new Iterator<HiveFileInfo>()
         {
@@ -125,7 +190,7 @@ public class CachingDirectoryLister
                 if (!hasNext) {
                     runtimeStats.addMetricValue(FILES_READ_COUNT, NONE, files.size());
                     if (enableCaching) {
-                        cache.put(path.toString(), new ValueHolder(files));
+                        cache.put(path.toString(), new ValueHolder(files, directoryModificationTime, ticker.read()));
                     }
                 }
                 return hasNext;
@@ -154,17 +219,65 @@ public class CachingDirectoryLister
                 throw new PrestoException(INVALID_PROCEDURE_ARGUMENT, "Directory path can not be a empty string");
             }
 
-            ValueHolder value = cache.getIfPresent(directoryPath.get());
-            if (value == null) {
+            if (invalidate(directoryPath.get()) == 0) {
                 throw new PrestoException(INVALID_PROCEDURE_ARGUMENT, "Given directory path is not cached : " + directoryPath);
             }
-            cache.invalidate(directoryPath.get());
         }
         else {
             flushCache();
         }
     }
 
+    /**
+     * Invalidates the cached listing of the directory and of all cached directories below it,
+     * so invalidating a table location also drops the listings of its partitions.
+     *
+     * @return the number of invalidated entries
+     */
+    public int invalidate(String directoryPath)
+    {
+        return invalidate(ImmutableList.of(directoryPath));
+    }
+
+    /**
+     * Invalidates the cached listings of the directories and of all cached directories below them
+     * in a single pass over the cache.
+     *
+     * @return the number of invalidated entries
+     */
+    public int invalidate(Collection<String> directoryPaths)
+    {
+        if (directoryPaths.isEmpty()) {
+            return 0;
+        }
+        Set<String> directories = directoryPaths.stream()
+                .map(CachingDirectoryLister::removeTrailingSlash)
+                .collect(toImmutableSet());
+        List<String> keys = cache.asMap().keySet().stream()
+                .filter(key -> isSameOrChildDirectory(key, directories))
+                .collect(toImmutableList());
+        cache.invalidateAll(keys);
+        return keys.size();
+    }
+
+    private static boolean isSameOrChildDirectory(String key, Set<String> directories)
+    {
+        if (directories.contains(key)) {
+            return true;
+        }
+        for (int index = key.indexOf('/'); index >= 0; index = key.indexOf('/', index + 1)) {
+            if (directories.contains(key.substring(0, index))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String removeTrailingSlash(String directoryPath)
+    {
+        return directoryPath.endsWith("/") ? directoryPath.substring(0, directoryPath.length() - 1) : directoryPath;
+    }
+
     @Managed
     public void flushCache()
     {
@@ -213,15 +326,47 @@ public class CachingDirectoryLister
         return cache.size();
     }
 
+    @Managed
+    public long getFilesServedFromCache()
+    {
+        return filesServedFromCache.get();
+    }
+
+    /**
+     * Sum of the retained heap size of the cached listings that were served. This tracks how much
+     * cached state is being reused, not the number of bytes a file system listing would have returned.
+     */
+    @Managed
+    public long getRetainedBytesServedFromCache()
+    {
+        return retainedBytesServedFromCache.get();
+    }
+
+    @Managed
+    public long getRevalidationCount()
+    {
+        return revalidationCount.get();
+    }
+
+    @Managed
+    public long getRevalidationHitCount()
+    {
+        return revalidationHitCount.get();
+    }
+
     private static class ValueHolder
     {
         private static final long INSTANCE_SIZE = ClassLayout.parseClass(ValueHolder.class).instanceSize();
 
         private final List<HiveFileInfo> files;
+        private final long directoryModificationTime;
+        private final long validatedTimeNanos;
 
-        public ValueHolder(List<HiveFileInfo> files)
+        public ValueHolder(List<HiveFileInfo> files, long directoryModificationTime, long validatedTimeNanos)
         {
             this.files = ImmutableList.copyOf(requireNonNull(files, "files is null"));
+            this.directoryModificationTime = directoryModificationTime;
+            this.validatedTimeNanos = validatedTimeNanos;
         }
 
         public List<HiveFileInfo> getFiles()
@@ -229,6 +374,16 @@ public class CachingDirectoryLister
             return files;
         }
 
+        public long getDirectoryModificationTime()
+        {
+            return directoryModificationTime;
+        }
+
+        public long getValidatedTimeNanos()
+        {
+            return validatedTimeNanos;
+        }
+
         public long getRetainedSizeInBytes()
         {
             return INSTANCE_SIZE + files.stream().map(HiveFileInfo::getRetainedSizeInBytes).reduce(0L, Long::sum);
@@ -15,6 +15,9 @@ package com.facebook.presto.hive;
 
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
 
 public class ConcurrentLazyQueue<E>
@@ -39,4 +42,20 @@ public class ConcurrentLazyQueue<E>
         }
         return iterator.next();
     }
+
+    /**
+     * Closes the underlying iterator if it is {@link Closeable}. This does not take the queue lock,
+     * so a consumer blocked in {@link #poll()} does not delay closing.
+     */
+    public void close()
+    {
+        if (iterator instanceof Closeable) {
+            try {
+                ((Closeable) iterator).close();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
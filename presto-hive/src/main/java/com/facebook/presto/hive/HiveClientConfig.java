@@ -161,6 +161,7 @@ public class HiveClientConfig
     private boolean parquetPushdownFilterEnabled;
     private boolean adaptiveFilterReorderingEnabled = true;
     private Duration fileStatusCacheExpireAfterWrite = new Duration(0, TimeUnit.SECONDS);
+    private Duration fileStatusCacheRevalidateInterval = new Duration(0, TimeUnit.SECONDS);
     private DataSize fileStatusCacheMaxRetainedSize = new DataSize(0, KILOBYTE);
     private List<String> fileStatusCacheTables = ImmutableList.of();
 
@@ -221,6 +222,10 @@ public class HiveClientConfig
     private boolean optimizeParsingOfPartitionValues;
     private int optimizeParsingOfPartitionValuesThreshold = 500;
     private boolean symlinkOptimizedReaderEnabled = true;
+    private int splitLoaderListingPrefetchCount;
+    private int partitionBatchPrefetchCount;
+    private boolean splitCombiningEnabled;
+    private int maxFilesPerCombinedSplit = 100;
 
     @Min(0)
     public int getMaxInitialSplits()
@@ -838,6 +843,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public Duration getFileStatusCacheRevalidateInterval()
+    {
+        return fileStatusCacheRevalidateInterval;
+    }
+
+    @Config("hive.file-status-cache.revalidate-interval")
+    @ConfigDescription("Age after which a cached directory listing is checked against the directory modification time instead of being served as is. Zero disables revalidation")
+    public HiveClientConfig setFileStatusCacheRevalidateInterval(Duration fileStatusCacheRevalidateInterval)
+    {
+        this.fileStatusCacheRevalidateInterval = fileStatusCacheRevalidateInterval;
+        return this;
+    }
+
     public enum HdfsAuthenticationType
     {
         NONE,
@@ -1845,4 +1863,59 @@ public class HiveClientConfig
         this.symlinkOptimizedReaderEnabled = symlinkOptimizedReaderEnabled;
         return this;
     }
+
+    @Min(0)
+    public int getSplitLoaderListingPrefetchCount()
+    {
+        return splitLoaderListingPrefetchCount;
+    }
+
+    @Config("hive.split-loader-listing-prefetch-count")
+    @ConfigDescription("Number of partition directory listings each split loader starts ahead of split generation. Zero disables prefetching")
+    public HiveClientConfig setSplitLoaderListingPrefetchCount(int splitLoaderListingPrefetchCount)
+    {
+        this.splitLoaderListingPrefetchCount = splitLoaderListingPrefetchCount;
+        return this;
+    }
+
+    @Min(0)
+    public int getPartitionBatchPrefetchCount()
+    {
+        return partitionBatchPrefetchCount;
+    }
+
+    @Config("hive.partition-batch-prefetch-count")
+    @ConfigDescription("Number of partition metadata batches fetched from the metastore ahead of split generation. Zero fetches batches serially")
+    public HiveClientConfig setPartitionBatchPrefetchCount(int partitionBatchPrefetchCount)
+    {
+        this.partitionBatchPrefetchCount = partitionBatchPrefetchCount;
+        return this;
+    }
+
+    public boolean isSplitCombiningEnabled()
+    {
+        return splitCombiningEnabled;
+    }
+
+    @Config("hive.split-combining-enabled")
+    @ConfigDescription("Combine small files of the same partition into a single split, up to the maximum split size")
+    public HiveClientConfig setSplitCombiningEnabled(boolean splitCombiningEnabled)
+    {
+        this.splitCombiningEnabled = splitCombiningEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxFilesPerCombinedSplit()
+    {
+        return maxFilesPerCombinedSplit;
+    }
+
+    @Config("hive.max-files-per-combined-split")
+    @ConfigDescription("Maximum number of files combined into a single split")
+    public HiveClientConfig setMaxFilesPerCombinedSplit(int maxFilesPerCombinedSplit)
+    {
+        this.maxFilesPerCombinedSplit = maxFilesPerCombinedSplit;
+        return this;
+    }
 }
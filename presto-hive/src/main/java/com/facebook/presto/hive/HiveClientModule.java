@@ -28,6 +28,7 @@ import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
 import com.facebook.presto.hive.metastore.HiveMetastoreCacheStats;
 import com.facebook.presto.hive.metastore.HivePartitionMutator;
 import com.facebook.presto.hive.metastore.MetastoreCacheStats;
+import com.facebook.presto.hive.metastore.MetastoreCacheSystemTable;
 import com.facebook.presto.hive.orc.DwrfAggregatedPageSourceFactory;
 import com.facebook.presto.hive.orc.DwrfBatchPageSourceFactory;
 import com.facebook.presto.hive.orc.DwrfSelectivePageSourceFactory;
@@ -59,7 +60,9 @@ import com.facebook.presto.orc.StripeReader.StripeStreamId;
 import com.facebook.presto.orc.UnsupportedEncryptionLibrary;
 import com.facebook.presto.orc.cache.CachingOrcFileTailSource;
 import com.facebook.presto.orc.cache.OrcCacheConfig;
+import com.facebook.presto.orc.cache.OrcFileTailCacheWriterExecutor;
 import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.PersistentOrcFileTailSource;
 import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.OrcFileTail;
 import com.facebook.presto.orc.metadata.RowGroupIndex;
@@ -69,6 +72,7 @@ import com.facebook.presto.parquet.cache.MetadataReader;
 import com.facebook.presto.parquet.cache.ParquetCacheConfig;
 import com.facebook.presto.parquet.cache.ParquetFileMetadata;
 import com.facebook.presto.parquet.cache.ParquetMetadataSource;
+import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.connector.ConnectorNodePartitioningProvider;
 import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
@@ -87,6 +91,7 @@ import com.google.inject.multibindings.Multibinder;
 import jakarta.inject.Singleton;
 import org.weakref.jmx.MBeanExporter;
 
+import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
@@ -97,6 +102,7 @@ import static com.facebook.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static com.facebook.airlift.json.smile.SmileCodecBinder.smileCodecBinder;
 import static com.facebook.presto.orc.StripeMetadataSource.CacheableRowGroupIndices;
 import static com.facebook.presto.orc.StripeMetadataSource.CacheableSlice;
+import static com.facebook.presto.orc.cache.OrcFileTailCacheWriterExecutor.DEFAULT_MAX_QUEUED_WRITES;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static java.lang.Math.toIntExact;
@@ -149,6 +155,7 @@ public class HiveClientModule
         newExporter(binder).export(HiveWriterStats.class).as(generatedNameOf(HiveWriterStats.class, connectorId));
 
         newSetBinder(binder, EventClient.class).addBinding().to(HiveEventClient.class).in(Scopes.SINGLETON);
+        newSetBinder(binder, SystemTable.class).addBinding().to(MetastoreCacheSystemTable.class).in(Scopes.SINGLETON);
         binder.bind(HivePartitionManager.class).in(Scopes.SINGLETON);
         newExporter(binder).export(HivePartitionManager.class).withGeneratedName();
         binder.bind(LocationService.class).to(HiveLocationService.class).in(Scopes.SINGLETON);
@@ -277,11 +284,29 @@ public class HiveClientModule
 
     @Singleton
     @Provides
-    public OrcFileTailSource createOrcFileTailSource(OrcCacheConfig orcCacheConfig, MBeanExporter exporter)
+    public OrcFileTailCacheWriterExecutor createOrcFileTailCacheWriterExecutor()
+    {
+        return new OrcFileTailCacheWriterExecutor(
+                daemonThreadsNamed("orc-file-tail-cache-writer-" + connectorId + "-%s"),
+                DEFAULT_MAX_QUEUED_WRITES);
+    }
+
+    @Singleton
+    @Provides
+    public OrcFileTailSource createOrcFileTailSource(OrcCacheConfig orcCacheConfig, OrcFileTailCacheWriterExecutor orcFileTailCacheWriterExecutor, MBeanExporter exporter)
     {
         int expectedFileTailSizeInBytes = toIntExact(orcCacheConfig.getExpectedFileTailSize().toBytes());
         boolean dwrfStripeCacheEnabled = orcCacheConfig.isDwrfStripeCacheEnabled();
         OrcFileTailSource orcFileTailSource = new StorageOrcFileTailSource(expectedFileTailSizeInBytes, dwrfStripeCacheEnabled);
+        if (orcCacheConfig.isFileTailPersistentCacheEnabled()) {
+            PersistentOrcFileTailSource persistentOrcFileTailSource = new PersistentOrcFileTailSource(
+                    orcFileTailSource,
+                    Paths.get(orcCacheConfig.getFileTailPersistentCacheDirectory(), connectorId),
+                    orcCacheConfig.getFileTailPersistentCacheSize().toBytes(),
+                    orcFileTailCacheWriterExecutor);
+            orcFileTailSource = persistentOrcFileTailSource;
+            exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_OrcFileTailPersistent"), new CacheStatsMBean(persistentOrcFileTailSource::getSize, persistentOrcFileTailSource::getStats));
+        }
         if (orcCacheConfig.isFileTailCacheEnabled()) {
             Cache<OrcDataSourceId, OrcFileTail> cache = CacheBuilder.newBuilder()
                     .maximumWeight(orcCacheConfig.getFileTailCacheSize().toBytes())
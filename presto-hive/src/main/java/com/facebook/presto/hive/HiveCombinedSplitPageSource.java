@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the files of a combined split one after the other. The page source of a file
+ * is only created once the previous one is finished, so at most one file is open at a time.
+ */
+public class HiveCombinedSplitPageSource
+        implements ConnectorPageSource
+{
+    private final Iterator<Supplier<ConnectorPageSource>> remainingPageSources;
+
+    private ConnectorPageSource currentPageSource;
+    private long completedBytes;
+    private long completedPositions;
+    private long readTimeNanos;
+    private boolean closed;
+
+    public HiveCombinedSplitPageSource(List<Supplier<ConnectorPageSource>> pageSources)
+    {
+        this.remainingPageSources = ImmutableList.copyOf(requireNonNull(pageSources, "pageSources is null")).iterator();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes + (currentPageSource == null ? 0 : currentPageSource.getCompletedBytes());
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return completedPositions + (currentPageSource == null ? 0 : currentPageSource.getCompletedPositions());
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos + (currentPageSource == null ? 0 : currentPageSource.getReadTimeNanos());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed || (currentPageSource == null && !remainingPageSources.hasNext());
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (isFinished()) {
+            return null;
+        }
+        if (currentPageSource == null) {
+            currentPageSource = remainingPageSources.next().get();
+        }
+
+        Page page = currentPageSource.getNextPage();
+        if (currentPageSource.isFinished()) {
+            closeCurrentPageSource();
+        }
+        return page;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return currentPageSource == null ? 0 : currentPageSource.getSystemMemoryUsage();
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        return currentPageSource == null ? NOT_BLOCKED : currentPageSource.isBlocked();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (currentPageSource != null) {
+            ConnectorPageSource pageSource = currentPageSource;
+            currentPageSource = null;
+            pageSource.close();
+        }
+    }
+
+    private void closeCurrentPageSource()
+    {
+        ConnectorPageSource pageSource = currentPageSource;
+        completedBytes += pageSource.getCompletedBytes();
+        completedPositions += pageSource.getCompletedPositions();
+        readTimeNanos += pageSource.getReadTimeNanos();
+        currentPageSource = null;
+        try {
+            pageSource.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
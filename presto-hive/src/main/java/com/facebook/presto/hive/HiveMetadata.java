@@ -143,6 +143,7 @@ import java.util.OptionalLong;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -380,6 +381,7 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.not;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
@@ -462,6 +464,9 @@ public class HiveMetadata
     private final HiveEncryptionInformationProvider encryptionInformationProvider;
     private final HivePartitionStats hivePartitionStats;
     private final TableWritabilityChecker tableWritabilityChecker;
+    private final DirectoryLister directoryLister;
+    // directories written or deleted by this transaction, whose cached listings are dropped once it commits
+    private final Set<Path> modifiedDirectories = ConcurrentHashMap.newKeySet();
 
     public HiveMetadata(
             SemiTransactionalHiveMetastore metastore,
@@ -487,7 +492,8 @@ public class HiveMetadata
             PartitionObjectBuilder partitionObjectBuilder,
             HiveEncryptionInformationProvider encryptionInformationProvider,
             HivePartitionStats hivePartitionStats,
-            TableWritabilityChecker tableWritabilityChecker)
+            TableWritabilityChecker tableWritabilityChecker,
+            DirectoryLister directoryLister)
     {
         this.allowCorruptWritesForTesting = allowCorruptWritesForTesting;
 
@@ -514,6 +520,7 @@ public class HiveMetadata
         this.encryptionInformationProvider = requireNonNull(encryptionInformationProvider, "encryptionInformationProvider is null");
         this.hivePartitionStats = requireNonNull(hivePartitionStats, "hivePartitionStats is null");
         this.tableWritabilityChecker = requireNonNull(tableWritabilityChecker, "tableWritabilityChecker is null");
+        this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
     }
 
     public SemiTransactionalHiveMetastore getMetastore()
@@ -1599,6 +1606,7 @@ public class HiveMetadata
                 new HdfsContext(session, handle.getSchemaName(), handle.getTableName(), target.get().getStorage().getLocation(), false),
                 handle.getSchemaName(),
                 handle.getTableName());
+        recordModifiedDirectory(target.get().getStorage().getLocation());
     }
 
     @Override
@@ -1867,6 +1875,7 @@ public class HiveMetadata
         PrincipalPrivileges principalPrivileges = buildInitialPrivilegeSet(handle.getTableOwner());
 
         partitionUpdates = PartitionUpdate.mergePartitionUpdates(partitionUpdates);
+        recordModifiedDirectories(partitionUpdates);
 
         if (handle.getBucketProperty().isPresent() && isCreateEmptyBucketFiles(session)) {
             List<PartitionUpdate> partitionUpdatesForMissingBuckets = computePartitionUpdatesForMissingBuckets(
@@ -2209,6 +2218,7 @@ public class HiveMetadata
 
         HiveStorageFormat tableStorageFormat = handle.getTableStorageFormat();
         partitionUpdates = PartitionUpdate.mergePartitionUpdates(partitionUpdates);
+        recordModifiedDirectories(partitionUpdates);
 
         MetastoreContext metastoreContext = getMetastoreContext(session);
 
@@ -2757,6 +2767,8 @@ public class HiveMetadata
                 metastore.dropPartition(session, handle.getSchemaName(), handle.getTableName(), table.get().getStorage().getLocation(), toPartitionValues(hivePartition.getPartitionId().getPartitionName()));
             }
         }
+        // invalidating the table location also drops the cached listings of the partitions below it
+        recordModifiedDirectory(table.get().getStorage().getLocation());
         // it is too expensive to determine the exact number of deleted rows
         return OptionalLong.empty();
     }
@@ -3881,7 +3893,34 @@ public class HiveMetadata
     @Override
     public ConnectorCommitHandle commit()
     {
-        return metastore.commit();
+        ConnectorCommitHandle commitHandle = metastore.commit();
+        invalidateModifiedDirectories();
+        return commitHandle;
+    }
+
+    private void recordModifiedDirectories(List<PartitionUpdate> partitionUpdates)
+    {
+        // covers INSERT OVERWRITE as well, which replaces the files in the target path of the update
+        for (PartitionUpdate partitionUpdate : partitionUpdates) {
+            modifiedDirectories.add(partitionUpdate.getTargetPath());
+        }
+    }
+
+    private void recordModifiedDirectory(String location)
+    {
+        if (!isNullOrEmpty(location)) {
+            modifiedDirectories.add(new Path(location));
+        }
+    }
+
+    private void invalidateModifiedDirectories()
+    {
+        if (directoryLister instanceof CachingDirectoryLister && !modifiedDirectories.isEmpty()) {
+            ((CachingDirectoryLister) directoryLister).invalidate(modifiedDirectories.stream()
+                    .map(Path::toString)
+                    .collect(toImmutableList()));
+        }
+        modifiedDirectories.clear();
     }
 
     public static Optional<SchemaTableName> getSourceTableNameFromSystemTable(SchemaTableName tableName)
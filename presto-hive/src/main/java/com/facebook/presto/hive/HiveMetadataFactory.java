@@ -70,6 +70,7 @@ public class HiveMetadataFactory
     private final ColumnConverterProvider columnConverterProvider;
     private final QuickStatsProvider quickStatsProvider;
     private final TableWritabilityChecker tableWritabilityChecker;
+    private final DirectoryLister directoryLister;
 
     @Inject
     @SuppressWarnings("deprecation")
@@ -97,7 +98,8 @@ public class HiveMetadataFactory
             HivePartitionStats hivePartitionStats,
             ColumnConverterProvider columnConverterProvider,
             QuickStatsProvider quickStatsProvider,
-            TableWritabilityChecker tableWritabilityChecker)
+            TableWritabilityChecker tableWritabilityChecker,
+            DirectoryLister directoryLister)
     {
         this(
                 metastore,
@@ -131,7 +133,8 @@ public class HiveMetadataFactory
                 hivePartitionStats,
                 columnConverterProvider,
                 quickStatsProvider,
-                tableWritabilityChecker);
+                tableWritabilityChecker,
+                directoryLister);
     }
 
     public HiveMetadataFactory(
@@ -166,7 +169,8 @@ public class HiveMetadataFactory
             HivePartitionStats hivePartitionStats,
             ColumnConverterProvider columnConverterProvider,
             QuickStatsProvider quickStatsProvider,
-            TableWritabilityChecker tableWritabilityChecker)
+            TableWritabilityChecker tableWritabilityChecker,
+            DirectoryLister directoryLister)
     {
         this.allowCorruptWritesForTesting = allowCorruptWritesForTesting;
         this.skipDeletionForAlter = skipDeletionForAlter;
@@ -200,6 +204,7 @@ public class HiveMetadataFactory
         this.columnConverterProvider = requireNonNull(columnConverterProvider, "columnConverterProvider is null");
         this.quickStatsProvider = requireNonNull(quickStatsProvider, "quickStatsProvider is null");
         this.tableWritabilityChecker = requireNonNull(tableWritabilityChecker, "tableWritabilityChecker is null");
+        this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
 
         if (!allowCorruptWritesForTesting && !timeZone.equals(DateTimeZone.getDefault())) {
             log.warn("Hive writes are disabled. " +
@@ -245,6 +250,7 @@ public class HiveMetadataFactory
                 partitionObjectBuilder,
                 encryptionInformationProvider,
                 hivePartitionStats,
-                tableWritabilityChecker);
+                tableWritabilityChecker,
+                directoryLister);
     }
 }
@@ -60,7 +60,10 @@ import java.util.OptionalLong;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import static com.facebook.presto.common.RuntimeMetricName.COMBINED_SPLIT_FILES_COUNT;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.AGGREGATED;
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
@@ -148,6 +151,14 @@ public class HivePageSourceProvider
                 .collect(toList());
 
         HiveSplit hiveSplit = (HiveSplit) split;
+        if (!hiveSplit.getAdditionalFileSplits().isEmpty()) {
+            List<HiveFileSplit> fileSplits = hiveSplit.getFileSplits();
+            runtimeStats.addMetricValue(COMBINED_SPLIT_FILES_COUNT, NONE, fileSplits.size());
+            return new HiveCombinedSplitPageSource(fileSplits.stream()
+                    .map(fileSplit -> (Supplier<ConnectorPageSource>) () -> createPageSource(transaction, session, hiveSplit.withFileSplit(fileSplit), layout, columns, splitContext, runtimeStats))
+                    .collect(toImmutableList()));
+        }
+
         Path path = new Path(hiveSplit.getFileSplit().getPath());
 
         Configuration configuration = hdfsEnvironment.getConfiguration(
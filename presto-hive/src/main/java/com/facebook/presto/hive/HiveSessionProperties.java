@@ -70,6 +70,10 @@ public final class HiveSessionProperties
     private static final String MAX_SPLIT_SIZE = "max_split_size";
     private static final String MAX_INITIAL_SPLIT_SIZE = "max_initial_split_size";
     private static final String SYMLINK_OPTIMIZED_READER_ENABLED = "symlink_optimized_reader_enabled";
+    private static final String SPLIT_LOADER_LISTING_PREFETCH_COUNT = "split_loader_listing_prefetch_count";
+    private static final String PARTITION_BATCH_PREFETCH_COUNT = "partition_batch_prefetch_count";
+    private static final String SPLIT_COMBINING_ENABLED = "split_combining_enabled";
+    private static final String MAX_FILES_PER_COMBINED_SPLIT = "max_files_per_combined_split";
     public static final String RCFILE_OPTIMIZED_WRITER_ENABLED = "rcfile_optimized_writer_enabled";
     private static final String RCFILE_OPTIMIZED_WRITER_VALIDATE = "rcfile_optimized_writer_validate";
     private static final String SORTED_WRITING_ENABLED = "sorted_writing_enabled";
@@ -634,6 +638,26 @@ public final class HiveSessionProperties
                         "Experimental: Enable optimized SymlinkTextInputFormat reader",
                         hiveClientConfig.isSymlinkOptimizedReaderEnabled(),
                         false),
+                integerProperty(
+                        SPLIT_LOADER_LISTING_PREFETCH_COUNT,
+                        "Number of partition directory listings each split loader starts ahead of split generation. Zero disables prefetching",
+                        hiveClientConfig.getSplitLoaderListingPrefetchCount(),
+                        false),
+                integerProperty(
+                        PARTITION_BATCH_PREFETCH_COUNT,
+                        "Number of partition metadata batches fetched from the metastore ahead of split generation. Zero fetches batches serially",
+                        hiveClientConfig.getPartitionBatchPrefetchCount(),
+                        false),
+                booleanProperty(
+                        SPLIT_COMBINING_ENABLED,
+                        "Combine small files of the same partition into a single split, up to the maximum split size",
+                        hiveClientConfig.isSplitCombiningEnabled(),
+                        false),
+                integerProperty(
+                        MAX_FILES_PER_COMBINED_SPLIT,
+                        "Maximum number of files combined into a single split",
+                        hiveClientConfig.getMaxFilesPerCombinedSplit(),
+                        false),
                 new PropertyMetadata<>(
                         QUICK_STATS_INLINE_BUILD_TIMEOUT,
                         "Duration that the first query that initiated a quick stats call should wait before failing and returning EMPTY stats. " +
@@ -1186,4 +1210,24 @@ public final class HiveSessionProperties
     {
         return session.getProperty(SYMLINK_OPTIMIZED_READER_ENABLED, Boolean.class);
     }
+
+    public static int getSplitLoaderListingPrefetchCount(ConnectorSession session)
+    {
+        return session.getProperty(SPLIT_LOADER_LISTING_PREFETCH_COUNT, Integer.class);
+    }
+
+    public static int getPartitionBatchPrefetchCount(ConnectorSession session)
+    {
+        return session.getProperty(PARTITION_BATCH_PREFETCH_COUNT, Integer.class);
+    }
+
+    public static boolean isSplitCombiningEnabled(ConnectorSession session)
+    {
+        return session.getProperty(SPLIT_COMBINING_ENABLED, Boolean.class);
+    }
+
+    public static int getMaxFilesPerCombinedSplit(ConnectorSession session)
+    {
+        return session.getProperty(MAX_FILES_PER_COMBINED_SPLIT, Integer.class);
+    }
 }
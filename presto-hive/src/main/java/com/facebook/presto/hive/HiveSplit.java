@@ -36,6 +36,7 @@ import java.util.Set;
 
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.SOFT_AFFINITY;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class HiveSplit
@@ -60,6 +61,7 @@ public class HiveSplit
     private final Set<ColumnHandle> redundantColumnDomains;
     private final SplitWeight splitWeight;
     private final Optional<byte[]> rowIdPartitionComponent;
+    private final List<HiveFileSplit> additionalFileSplits;
 
     @JsonCreator
     public HiveSplit(
@@ -81,7 +83,8 @@ public class HiveSplit
             @JsonProperty("encryptionMetadata") Optional<EncryptionInformation> encryptionInformation,
             @JsonProperty("redundantColumnDomains") Set<ColumnHandle> redundantColumnDomains,
             @JsonProperty("splitWeight") SplitWeight splitWeight,
-            @JsonProperty("rowIdPartitionComponent") Optional<byte[]> rowIdPartitionComponent)
+            @JsonProperty("rowIdPartitionComponent") Optional<byte[]> rowIdPartitionComponent,
+            @JsonProperty("additionalFileSplits") List<HiveFileSplit> additionalFileSplits)
     {
         requireNonNull(fileSplit, "fileSplit is null");
         requireNonNull(database, "database is null");
@@ -119,6 +122,8 @@ public class HiveSplit
         this.redundantColumnDomains = ImmutableSet.copyOf(redundantColumnDomains);
         this.splitWeight = requireNonNull(splitWeight, "splitWeight is null");
         this.rowIdPartitionComponent = rowIdPartitionComponent;
+        // splits serialized before combining was added have no additional files
+        this.additionalFileSplits = additionalFileSplits == null ? ImmutableList.of() : ImmutableList.copyOf(additionalFileSplits);
     }
 
     @JsonProperty
@@ -167,6 +172,8 @@ public class HiveSplit
     public List<HostAddress> getPreferredNodes(NodeProvider nodeProvider)
     {
         if (getNodeSelectionStrategy() == SOFT_AFFINITY) {
+            // a combined split is placed by its first file only, so its other files may not be read
+            // on the node that cached them, as the files are not always combined in the same way
             return nodeProvider.get(fileSplit.getPath() + "#" + fileSplit.getAffinitySchedulingFileSectionIndex());
         }
         return addresses;
@@ -246,6 +253,53 @@ public class HiveSplit
         return rowIdPartitionComponent;
     }
 
+    /**
+     * Other small files of the same partition that are read after {@link #getFileSplit()},
+     * so that a single split covers all of them.
+     */
+    @JsonProperty
+    public List<HiveFileSplit> getAdditionalFileSplits()
+    {
+        return additionalFileSplits;
+    }
+
+    public List<HiveFileSplit> getFileSplits()
+    {
+        return ImmutableList.<HiveFileSplit>builder()
+                .add(fileSplit)
+                .addAll(additionalFileSplits)
+                .build();
+    }
+
+    /**
+     * Returns a split that reads only the given file, with the partition and table
+     * information of this split.
+     */
+    public HiveSplit withFileSplit(HiveFileSplit fileSplit)
+    {
+        return new HiveSplit(
+                fileSplit,
+                database,
+                table,
+                partitionName,
+                storage,
+                partitionKeys,
+                addresses,
+                readBucketNumber,
+                tableBucketNumber,
+                nodeSelectionStrategy,
+                partitionDataColumnCount,
+                tableToPartitionMapping,
+                bucketConversion,
+                s3SelectPushdownEnabled,
+                cacheQuotaRequirement,
+                encryptionInformation,
+                redundantColumnDomains,
+                splitWeight,
+                rowIdPartitionComponent,
+                ImmutableList.of());
+    }
+
     @Override
     public Object getInfo()
     {
@@ -262,6 +316,7 @@ public class HiveSplit
                 .put("partitionName", partitionName)
                 .put("s3SelectPushdownEnabled", s3SelectPushdownEnabled)
                 .put("cacheQuotaRequirement", cacheQuotaRequirement)
+                .put("additionalFileCount", additionalFileSplits.size())
                 .build();
     }
 
@@ -283,23 +338,43 @@ public class HiveSplit
                 .put("cacheQuotaRequirement", cacheQuotaRequirement.toString())
                 .put("readBucketNumber", readBucketNumber.toString())
                 .put("tableBucketNumber", tableBucketNumber.toString())
+                .put("additionalFileCount", Integer.toString(additionalFileSplits.size()))
                 .build();
     }
 
     @Override
     public Object getSplitIdentifier()
     {
-        return ImmutableMap.builder()
+        ImmutableMap.Builder<Object, Object> identifier = ImmutableMap.builder()
                 .put("path", fileSplit.getPath())
                 .put("start", fileSplit.getStart())
                 .put("length", fileSplit.getLength())
-                .build();
+                .putAll(getFileVersion(fileSplit));
+        if (!additionalFileSplits.isEmpty()) {
+            identifier.put("additionalFiles", additionalFileSplits.stream()
+                    .map(additionalFileSplit -> ImmutableMap.builder()
+                            .put("path", additionalFileSplit.getPath())
+                            .putAll(getFileVersion(additionalFileSplit))
+                            .build())
+                    .collect(toImmutableList()));
+        }
+        return identifier.build();
+    }
+
+    // A file rewritten in place keeps its path, so results cached for the split must also be keyed on the file version
+    private static Map<String, Long> getFileVersion(HiveFileSplit fileSplit)
+    {
+        return ImmutableMap.of(
+                "fileSize", fileSplit.getFileSize(),
+                "fileModifiedTime", fileSplit.getFileModifiedTime());
     }
 
     @Override
     public OptionalLong getSplitSizeInBytes()
     {
-        return OptionalLong.of(fileSplit.getLength());
+        return OptionalLong.of(fileSplit.getLength() + additionalFileSplits.stream()
+                .mapToLong(HiveFileSplit::getLength)
+                .sum());
     }
 
     @Override
@@ -310,6 +385,7 @@ public class HiveSplit
                 .addValue(fileSplit.getStart())
                 .addValue(fileSplit.getLength())
                 .addValue(fileSplit.getFileSize())
+                .addValue(additionalFileSplits.size())
                 .addValue(s3SelectPushdownEnabled)
                 .addValue(cacheQuotaRequirement)
                 .toString();
@@ -39,9 +39,11 @@ import com.facebook.presto.hive.metastore.PartitionStatistics;
 import com.facebook.presto.hive.metastore.SemiTransactionalHiveMetastore;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.hive.util.PrefetchingIterator;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.ConnectorSystemConfig;
 import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.PrestoException;
@@ -70,6 +72,7 @@ import org.joda.time.DateTimeZone;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import java.io.Closeable;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -97,9 +100,11 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_TRANSACTION_NOT_FOUND;
 import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
 import static com.facebook.presto.hive.HiveSessionProperties.getHiveMaxInitialSplitSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getLeaseDuration;
+import static com.facebook.presto.hive.HiveSessionProperties.getPartitionBatchPrefetchCount;
 import static com.facebook.presto.hive.HiveSessionProperties.isDynamicSplitSizesEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isOfflineDataDebugModeEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isPartitionStatisticsBasedOptimizationEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isSplitCombiningEnabled;
 import static com.facebook.presto.hive.HiveStorageFormat.PARQUET;
 import static com.facebook.presto.hive.HiveStorageFormat.getHiveStorageFormat;
 import static com.facebook.presto.hive.HiveType.getPrimitiveType;
@@ -112,6 +117,7 @@ import static com.facebook.presto.hive.metastore.MetastoreUtil.isUserDefinedType
 import static com.facebook.presto.hive.metastore.MetastoreUtil.makePartName;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.verifyOnline;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.StandardErrorCode.SERVER_SHUTTING_DOWN;
 import static com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.GROUPED_SCHEDULING;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -129,6 +135,7 @@ import static java.lang.Float.floatToIntBits;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Collections.emptyIterator;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
@@ -159,6 +166,7 @@ public class HiveSplitManager
     private final CacheQuotaRequirementProvider cacheQuotaRequirementProvider;
     private final HiveEncryptionInformationProvider encryptionInformationProvider;
     private final PartitionSkippabilityChecker partitionSkippabilityChecker;
+    private final boolean nativeExecution;
 
     @Inject
     public HiveSplitManager(
@@ -172,7 +180,8 @@ public class HiveSplitManager
             @ForHiveClient ExecutorService executorService,
             CoercionPolicy coercionPolicy,
             HiveEncryptionInformationProvider encryptionInformationProvider,
-            PartitionSkippabilityChecker partitionSkippabilityChecker)
+            PartitionSkippabilityChecker partitionSkippabilityChecker,
+            ConnectorSystemConfig connectorSystemConfig)
     {
         this(
                 hiveClientConfig.getDateTimeZone(),
@@ -192,7 +201,8 @@ public class HiveSplitManager
                 hiveClientConfig.getRecursiveDirWalkerEnabled(),
                 cacheQuotaRequirementProvider,
                 encryptionInformationProvider,
-                partitionSkippabilityChecker);
+                partitionSkippabilityChecker,
+                connectorSystemConfig.isNativeExecution());
     }
 
     public HiveSplitManager(
@@ -213,7 +223,8 @@ public class HiveSplitManager
             boolean recursiveDfsWalkerEnabled,
             CacheQuotaRequirementProvider cacheQuotaRequirementProvider,
             HiveEncryptionInformationProvider encryptionInformationProvider,
-            PartitionSkippabilityChecker partitionSkippabilityChecker)
+            PartitionSkippabilityChecker partitionSkippabilityChecker,
+            boolean nativeExecution)
     {
         this.timeZone = requireNonNull(timeZone, "timeZone is null");
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
@@ -234,6 +245,7 @@ public class HiveSplitManager
         this.cacheQuotaRequirementProvider = requireNonNull(cacheQuotaRequirementProvider, "cacheQuotaRequirementProvider is null");
         this.encryptionInformationProvider = requireNonNull(encryptionInformationProvider, "encryptionInformationProvider is null");
         this.partitionSkippabilityChecker = requireNonNull(partitionSkippabilityChecker, "partitionSkippabilityChecker is null");
+        this.nativeExecution = nativeExecution;
     }
 
     @Override
@@ -246,6 +258,11 @@ public class HiveSplitManager
         HiveTableLayoutHandle layout = (HiveTableLayoutHandle) layoutHandle;
         SchemaTableName tableName = layout.getSchemaTableName();
 
+        if (nativeExecution && isSplitCombiningEnabled(session)) {
+            // native workers read only the first file of a split, so the other files of a combined split would be skipped
+            throw new PrestoException(NOT_SUPPORTED, "Split combining is not supported with native execution");
+        }
+
         // get table metadata
         TransactionalMetadata metadata = hiveTransactionManager.get(transaction);
         if (metadata == null) {
@@ -555,12 +572,11 @@ public class HiveSplitManager
         }
 
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
-        Iterable<List<HivePartitionMetadata>> partitionBatches = computePartitionMetadata(partitionNameBatches, session, table, metastore,
+        return computePartitionMetadata(partitionNameBatches, session, table, metastore,
                 tableName, predicateColumns, domains, allRequestedColumns, hiveBucketHandle, resolvedHiveStorageFormat, warningCollector);
-        return concat(partitionBatches);
     }
 
-    private Iterable<List<HivePartitionMetadata>> computePartitionMetadata(Iterable<List<HivePartition>> partitionNameBatches,
+    private Iterable<HivePartitionMetadata> computePartitionMetadata(Iterable<List<HivePartition>> partitionNameBatches,
                                                                            ConnectorSession session,
                                                                            Table table,
                                                                            SemiTransactionalHiveMetastore metastore,
@@ -572,8 +588,13 @@ public class HiveSplitManager
                                                                            Optional<HiveStorageFormat> resolvedHiveStorageFormat,
                                                                            WarningCollector warningCollector)
     {
-        Iterable<List<HivePartitionMetadata>> partitionBatches = transform(partitionNameBatches, partitionBatch -> {
-            Map<String, PartitionSplitInfo> partitionSplitInfo = getPartitionSplitInfo(session, metastore, tableName, partitionBatch, predicateColumns, domains);
+        // only the metastore calls, which go through the synchronized transactional metastore, may run on the prefetch threads
+        Function<List<HivePartition>, FetchedPartitionBatch> fetchPartitionBatch = partitionBatch ->
+                new FetchedPartitionBatch(partitionBatch, getPartitionSplitInfo(session, metastore, tableName, partitionBatch, predicateColumns, domains));
+
+        Function<FetchedPartitionBatch, List<HivePartitionMetadata>> buildPartitionBatch = fetchedBatch -> {
+            List<HivePartition> partitionBatch = fetchedBatch.getPartitions();
+            Map<String, PartitionSplitInfo> partitionSplitInfo = fetchedBatch.getPartitionSplitInfo();
             if (partitionBatch.size() != partitionSplitInfo.size()) {
                 throw new PrestoException(GENERIC_INTERNAL_ERROR, format("Expected %s partitions but found %s", partitionBatch.size(), partitionSplitInfo.size()));
             }
@@ -677,8 +698,16 @@ public class HiveSplitManager
                 warningCollector.add(new PrestoWarning(PARTITION_NOT_READABLE, warningMessage.toString()));
             }
             return results.build();
-        });
-        return partitionBatches;
+        };
+
+        // fetch the partitions and statistics of the next batches concurrently while the current batch is turned into splits
+        int prefetchCount = getPartitionBatchPrefetchCount(session);
+        if (prefetchCount > 0) {
+            return () -> new PrefetchedPartitionMetadataIterator(
+                    new PrefetchingIterator<>(partitionNameBatches.iterator(), fetchPartitionBatch, prefetchCount, executor),
+                    buildPartitionBatch);
+        }
+        return concat(transform(partitionNameBatches, partitionBatch -> buildPartitionBatch.apply(fetchPartitionBatch.apply(partitionBatch))));
     }
 
     /**
@@ -1025,6 +1054,67 @@ public class HiveSplitManager
         }
     }
 
+    private static class FetchedPartitionBatch
+    {
+        private final List<HivePartition> partitions;
+        private final Map<String, PartitionSplitInfo> partitionSplitInfo;
+
+        public FetchedPartitionBatch(List<HivePartition> partitions, Map<String, PartitionSplitInfo> partitionSplitInfo)
+        {
+            this.partitions = requireNonNull(partitions, "partitions is null");
+            this.partitionSplitInfo = requireNonNull(partitionSplitInfo, "partitionSplitInfo is null");
+        }
+
+        public List<HivePartition> getPartitions()
+        {
+            return partitions;
+        }
+
+        public Map<String, PartitionSplitInfo> getPartitionSplitInfo()
+        {
+            return partitionSplitInfo;
+        }
+    }
+
+    /**
+     * Builds the partition metadata of the prefetched batches on the consumer thread, and cancels
+     * the outstanding prefetches when the split loader stops.
+     */
+    private static class PrefetchedPartitionMetadataIterator
+            extends AbstractIterator<HivePartitionMetadata>
+            implements Closeable
+    {
+        private final PrefetchingIterator<List<HivePartition>, FetchedPartitionBatch> batches;
+        private final Function<FetchedPartitionBatch, List<HivePartitionMetadata>> buildPartitionBatch;
+        private Iterator<HivePartitionMetadata> currentBatch = emptyIterator();
+
+        public PrefetchedPartitionMetadataIterator(
+                PrefetchingIterator<List<HivePartition>, FetchedPartitionBatch> batches,
+                Function<FetchedPartitionBatch, List<HivePartitionMetadata>> buildPartitionBatch)
+        {
+            this.batches = requireNonNull(batches, "batches is null");
+            this.buildPartitionBatch = requireNonNull(buildPartitionBatch, "buildPartitionBatch is null");
+        }
+
+        @Override
+        protected HivePartitionMetadata computeNext()
+        {
+            while (!currentBatch.hasNext()) {
+                if (!batches.hasNext()) {
+                    return endOfData();
+                }
+                currentBatch = buildPartitionBatch.apply(batches.next()).iterator();
+            }
+            return currentBatch.next();
+        }
+
+        @Override
+        public void close()
+        {
+            batches.close();
+        }
+    }
+
     @VisibleForTesting
     static Optional<Set<HiveColumnHandle>> mergeRequestedAndPredicateColumns(Optional<Set<HiveColumnHandle>> requestedColumns, Set<HiveColumnHandle> predicateColumns)
     {
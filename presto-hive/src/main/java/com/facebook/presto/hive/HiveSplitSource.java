@@ -23,8 +23,10 @@ import com.facebook.presto.hive.util.SizeBasedSplitWeightProvider;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
+import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FluentFuture;
@@ -37,8 +39,10 @@ import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
@@ -58,15 +62,18 @@ import static com.facebook.presto.hive.HiveCommonSessionProperties.getAffinitySc
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_EXCEEDED_SPLIT_BUFFERING_LIMIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILE_NOT_FOUND;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
+import static com.facebook.presto.hive.HiveSessionProperties.getMaxFilesPerCombinedSplit;
 import static com.facebook.presto.hive.HiveSessionProperties.getMaxInitialSplitSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getMaxSplitSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getMinimumAssignedSplitWeight;
 import static com.facebook.presto.hive.HiveSessionProperties.isSizeBasedSplitWeightsEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isSplitCombiningEnabled;
 import static com.facebook.presto.hive.HiveSplitSource.StateKind.CLOSED;
 import static com.facebook.presto.hive.HiveSplitSource.StateKind.FAILED;
 import static com.facebook.presto.hive.HiveSplitSource.StateKind.INITIAL;
 import static com.facebook.presto.hive.HiveSplitSource.StateKind.NO_MORE_SPLITS;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.HARD_AFFINITY;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -105,6 +112,8 @@ class HiveSplitSource
     private final HiveSplitWeightProvider splitWeightProvider;
     private final double splitScanRatio;
     private final long affinitySchedulingFileSectionSizeInBytes;
+    private final boolean splitCombiningEnabled;
+    private final int maxFilesPerCombinedSplit;
 
     private HiveSplitSource(
             ConnectorSession session,
@@ -145,6 +154,8 @@ class HiveSplitSource
         }
         this.splitScanRatio = max(min(splitScanRatio, 1.0), 0.1);
         affinitySchedulingFileSectionSizeInBytes = getAffinitySchedulingFileSectionSize(session).toBytes();
+        this.maxFilesPerCombinedSplit = getMaxFilesPerCombinedSplit(session);
+        this.splitCombiningEnabled = isSplitCombiningEnabled(session) && maxFilesPerCombinedSplit > 1;
     }
 
     public static HiveSplitSource allAtOnce(
@@ -495,6 +506,14 @@ class HiveSplitSource
         return bufferedInternalSplitCount.get();
     }
 
+    /**
+     * Fraction of the split buffering memory limit currently used by queued splits.
+     */
+    double getBufferedSplitSizeRatio()
+    {
+        return (double) estimatedSplitSizeInBytes.get() / maxOutstandingSplitsBytes;
+    }
+
     ListenableFuture<?> addToQueue(List<? extends InternalHiveSplit> splits)
     {
         ListenableFuture<?> lastResult = immediateFuture(null);
@@ -585,6 +604,10 @@ class HiveSplitSource
         Function<List<InternalHiveSplit>, AsyncQueue.BorrowResult<InternalHiveSplit, List<ConnectorSplit>>> borrowFunction = internalSplits -> {
             ImmutableList.Builder<InternalHiveSplit> splitsToInsertBuilder = ImmutableList.builder();
             ImmutableList.Builder<ConnectorSplit> resultBuilder = ImmutableList.builder();
+            // whole small files of a partition, waiting to be combined into a single split.
+            // Files are only combined within a borrowed batch: leftovers are sent as a smaller
+            // combined split instead of waiting for more files of the partition.
+            Map<CombinedSplitKey, CombinedSplit> combinedSplits = new LinkedHashMap<>();
             int removedEstimatedSizeInBytes = 0;
             for (InternalHiveSplit internalSplit : internalSplits) {
                 long maxSplitBytes = maxSplitSize.toBytes();
@@ -624,26 +647,22 @@ class HiveSplitSource
                         internalSplit.getCustomSplitInfo(),
                         internalSplit.getStart() / affinitySchedulingFileSectionSizeInBytes);
 
-                resultBuilder.add(new HiveSplit(
-                        fileSplit,
-                        databaseName,
-                        tableName,
-                        internalSplit.getPartitionName(),
-                        internalSplit.getPartitionInfo().getStorage(),
-                        internalSplit.getPartitionKeys(),
-                        block.getAddresses(),
-                        internalSplit.getReadBucketNumber(),
-                        internalSplit.getTableBucketNumber(),
-                        internalSplit.getNodeSelectionStrategy(),
-                        internalSplit.getPartitionInfo().getPartitionDataColumnCount(),
-                        internalSplit.getTableToPartitionMapping(),
-                        internalSplit.getBucketConversion(),
-                        internalSplit.isS3SelectPushdownEnabled(),
-                        cacheQuotaRequirement,
-                        internalSplit.getEncryptionInformation(),
-                        internalSplit.getPartitionInfo().getRedundantColumnDomains(),
-                        splitWeightProvider.weightForSplitSizeInBytes((long) (splitBytes * splitScanRatio)),
-                        internalSplit.getPartitionInfo().getRowIdPartitionComponent()));
+                if (isCombinable(internalSplit, splitBytes, maxSplitBytes)) {
+                    CombinedSplitKey key = new CombinedSplitKey(internalSplit);
+                    CombinedSplit combinedSplit = combinedSplits.get(key);
+                    if (combinedSplit != null && !combinedSplit.canAdd(splitBytes, maxSplitBytes)) {
+                        resultBuilder.add(combinedSplit.build());
+                        combinedSplit = null;
+                    }
+                    if (combinedSplit == null) {
+                        combinedSplit = new CombinedSplit(internalSplit, block.getAddresses());
+                        combinedSplits.put(key, combinedSplit);
+                    }
+                    combinedSplit.add(fileSplit);
+                }
+                else {
+                    resultBuilder.add(createHiveSplit(internalSplit, block.getAddresses(), fileSplit, ImmutableList.of(), splitBytes));
+                }
 
                 internalSplit.increaseStart(splitBytes);
 
@@ -659,6 +678,7 @@ class HiveSplitSource
                     splitsToInsertBuilder.add(internalSplit);
                 }
             }
+            combinedSplits.values().forEach(combinedSplit -> resultBuilder.add(combinedSplit.build()));
 
             // For rewindable split source, we keep all the splits in memory.
             if (!useRewindableSplitSource) {
@@ -667,7 +687,7 @@ class HiveSplitSource
 
             List<InternalHiveSplit> splitsToInsert = splitsToInsertBuilder.build();
             List<ConnectorSplit> result = resultBuilder.build();
-            bufferedInternalSplitCount.addAndGet(splitsToInsert.size() - result.size());
+            bufferedInternalSplitCount.addAndGet(splitsToInsert.size() - internalSplits.size());
 
             return new AsyncQueue.BorrowResult<>(splitsToInsert, result);
         };
@@ -707,6 +727,44 @@ class HiveSplitSource
         return toCompletableFuture(transform);
     }
 
+    private boolean isCombinable(InternalHiveSplit internalSplit, long splitBytes, long maxSplitBytes)
+    {
+        // only whole files are combined, and only if nothing but the file itself differs between their splits
+        return splitCombiningEnabled &&
+                internalSplit.getStart() == 0 &&
+                splitBytes == internalSplit.getFileSize() &&
+                splitBytes < maxSplitBytes &&
+                internalSplit.getNodeSelectionStrategy() != HARD_AFFINITY &&
+                !internalSplit.isS3SelectPushdownEnabled() &&
+                !internalSplit.getEncryptionInformation().isPresent() &&
+                internalSplit.getCustomSplitInfo().isEmpty();
+    }
+
+    private HiveSplit createHiveSplit(InternalHiveSplit internalSplit, List<HostAddress> addresses, HiveFileSplit fileSplit, List<HiveFileSplit> additionalFileSplits, long splitBytes)
+    {
+        return new HiveSplit(
+                fileSplit,
+                databaseName,
+                tableName,
+                internalSplit.getPartitionName(),
+                internalSplit.getPartitionInfo().getStorage(),
+                internalSplit.getPartitionKeys(),
+                addresses,
+                internalSplit.getReadBucketNumber(),
+                internalSplit.getTableBucketNumber(),
+                internalSplit.getNodeSelectionStrategy(),
+                internalSplit.getPartitionInfo().getPartitionDataColumnCount(),
+                internalSplit.getTableToPartitionMapping(),
+                internalSplit.getBucketConversion(),
+                internalSplit.isS3SelectPushdownEnabled(),
+                cacheQuotaRequirement,
+                internalSplit.getEncryptionInformation(),
+                internalSplit.getPartitionInfo().getRedundantColumnDomains(),
+                splitWeightProvider.weightForSplitSizeInBytes((long) (splitBytes * splitScanRatio)),
+                internalSplit.getPartitionInfo().getRowIdPartitionComponent(),
+                additionalFileSplits);
+    }
+
     @Override
     public void rewind(ConnectorPartitionHandle partitionHandle)
     {
@@ -862,6 +920,75 @@ class HiveSplitSource
         }
     }
 
+    private static class CombinedSplitKey
+    {
+        // partition info is shared by all splits of a partition, so identity is enough to tell partitions apart
+        private final HiveSplitPartitionInfo partitionInfo;
+        private final OptionalInt readBucketNumber;
+        private final OptionalInt tableBucketNumber;
+        private final NodeSelectionStrategy nodeSelectionStrategy;
+
+        public CombinedSplitKey(InternalHiveSplit internalSplit)
+        {
+            this.partitionInfo = internalSplit.getPartitionInfo();
+            this.readBucketNumber = internalSplit.getReadBucketNumber();
+            this.tableBucketNumber = internalSplit.getTableBucketNumber();
+            this.nodeSelectionStrategy = internalSplit.getNodeSelectionStrategy();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CombinedSplitKey that = (CombinedSplitKey) o;
+            return partitionInfo == that.partitionInfo &&
+                    readBucketNumber.equals(that.readBucketNumber) &&
+                    tableBucketNumber.equals(that.tableBucketNumber) &&
+                    nodeSelectionStrategy == that.nodeSelectionStrategy;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(System.identityHashCode(partitionInfo), readBucketNumber, tableBucketNumber, nodeSelectionStrategy);
+        }
+    }
+
+    private class CombinedSplit
+    {
+        private final InternalHiveSplit firstSplit;
+        private final List<HostAddress> addresses;
+        private final List<HiveFileSplit> fileSplits = new ArrayList<>();
+        private long totalBytes;
+
+        public CombinedSplit(InternalHiveSplit firstSplit, List<HostAddress> addresses)
+        {
+            this.firstSplit = requireNonNull(firstSplit, "firstSplit is null");
+            this.addresses = requireNonNull(addresses, "addresses is null");
+        }
+
+        public boolean canAdd(long splitBytes, long maxSplitBytes)
+        {
+            return fileSplits.size() < maxFilesPerCombinedSplit && totalBytes + splitBytes <= maxSplitBytes;
+        }
+
+        public void add(HiveFileSplit fileSplit)
+        {
+            fileSplits.add(fileSplit);
+            totalBytes += fileSplit.getLength();
+        }
+
+        public HiveSplit build()
+        {
+            return createHiveSplit(firstSplit, addresses, fileSplits.get(0), fileSplits.subList(1, fileSplits.size()), totalBytes);
+        }
+    }
+
     static class State
     {
         private final StateKind kind;
@@ -293,7 +293,8 @@ public class HiveWriterFactory
                     pageSorter,
                     orcFileWriterFactory,
                     isSortedWriteToTempPathEnabled(session),
-                    getSortedWriteTempPathSubdirectoryCount(session)));
+                    getSortedWriteTempPathSubdirectoryCount(session),
+                    hiveWriterStats));
         }
         else {
             this.sortingFileWriterFactory = Optional.empty();
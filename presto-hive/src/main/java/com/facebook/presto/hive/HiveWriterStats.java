@@ -13,13 +13,21 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.airlift.stats.CounterStat;
 import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.airlift.stats.TimeStat;
+import com.facebook.airlift.units.Duration;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 public class HiveWriterStats
 {
     private final DistributionStat inputPageSizeInBytes = new DistributionStat();
+    private final CounterStat sortTempFileBytes = new CounterStat();
+    private final TimeStat sortMergeTime = new TimeStat(MILLISECONDS);
+    private final CounterStat sortedInputWrites = new CounterStat();
 
     @Managed
     @Nested
@@ -28,8 +36,44 @@ public class HiveWriterStats
         return inputPageSizeInBytes;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getSortTempFileBytes()
+    {
+        return sortTempFileBytes;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getSortMergeTime()
+    {
+        return sortMergeTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSortedInputWrites()
+    {
+        return sortedInputWrites;
+    }
+
     public void addInputPageSizesInBytes(long bytes)
     {
         inputPageSizeInBytes.add(bytes);
     }
+
+    public void addSortTempFileBytes(long bytes)
+    {
+        sortTempFileBytes.update(bytes);
+    }
+
+    public void addSortMergeTime(Duration duration)
+    {
+        sortMergeTime.add(duration);
+    }
+
+    public void addSortedInputWrite()
+    {
+        sortedInputWrites.update(1);
+    }
 }
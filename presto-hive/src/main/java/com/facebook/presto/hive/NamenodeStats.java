@@ -25,6 +25,7 @@ public class NamenodeStats
 {
     private final CallStats listLocatedStatus = new CallStats();
     private final CallStats remoteIteratorNext = new CallStats();
+    private final TimeStat listingPrefetchWait = new TimeStat(TimeUnit.MILLISECONDS);
 
     @Managed
     @Nested
@@ -40,6 +41,18 @@ public class NamenodeStats
         return remoteIteratorNext;
     }
 
+    @Managed
+    @Nested
+    public TimeStat getListingPrefetchWait()
+    {
+        return listingPrefetchWait;
+    }
+
+    public void recordListingPrefetchWait(long nanos)
+    {
+        listingPrefetchWait.add(nanos, TimeUnit.NANOSECONDS);
+    }
+
     public static class CallStats
     {
         private final TimeStat time = new TimeStat(TimeUnit.MILLISECONDS);
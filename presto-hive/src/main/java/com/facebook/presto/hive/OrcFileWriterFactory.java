@@ -40,6 +40,7 @@ import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -59,9 +60,12 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxBufferSize;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcOptimizedWriterValidateMode;
@@ -97,6 +101,7 @@ import static java.lang.Boolean.parseBoolean;
 import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
@@ -144,6 +149,7 @@ public class OrcFileWriterFactory
     private final OrcWriterStats stats = new OrcWriterStats();
     private final OrcFileWriterConfig orcFileWriterConfig;
     private final DwrfEncryptionProvider dwrfEncryptionProvider;
+    private final Optional<ExecutorService> columnWriterExecutor;
 
     @Inject
     public OrcFileWriterFactory(
@@ -185,6 +191,16 @@ public class OrcFileWriterFactory
         this.readStats = requireNonNull(readStats, "stats is null");
         this.orcFileWriterConfig = requireNonNull(orcFileWriterConfig, "orcFileWriterConfig is null");
         this.dwrfEncryptionProvider = requireNonNull(dwrfEncryptionProvider, "DwrfEncryptionProvider is null").toDwrfEncryptionProvider();
+        int columnEncodingThreads = orcFileWriterConfig.getColumnEncodingThreads();
+        this.columnWriterExecutor = columnEncodingThreads > 0
+                ? Optional.of(newFixedThreadPool(columnEncodingThreads, daemonThreadsNamed("hive-orc-column-writer-%s")))
+                : Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        columnWriterExecutor.ifPresent(ExecutorService::shutdownNow);
     }
 
     @Managed
@@ -287,7 +303,8 @@ public class OrcFileWriterFactory
                     session.getSqlFunctionProperties().isLegacyTimestamp() ? hiveStorageTimeZone : UTC,
                     validationInputFactory,
                     getOrcOptimizedWriterValidateMode(session),
-                    stats,
+                    // per column encode times are only reported for writers that encode columns in parallel
+                    orcWriterOptions.getColumnWriterExecutor().isPresent() ? new QueryOrcWriterStats(stats, session.getRuntimeStats()) : stats,
                     dwrfEncryptionProvider,
                     dwrfWriterEncryption));
         }
@@ -322,6 +339,7 @@ public class OrcFileWriterFactory
                 .withMaxFlattenedMapKeyCount(flatMapKeyLimit)
                 .withMapStatisticsEnabled(mapStatisticsEnabled)
                 .withCompressionLevel(getCompressionLevel(session))
+                .withColumnWriterExecutor(columnWriterExecutor.map(Executor.class::cast))
                 .build();
     }
 
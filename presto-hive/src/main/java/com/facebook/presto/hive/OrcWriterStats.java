@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.airlift.stats.TimeDistribution;
 import com.facebook.presto.orc.FlushReason;
 import com.facebook.presto.orc.WriterStats;
 import com.facebook.presto.orc.metadata.StripeInformation;
@@ -26,6 +27,7 @@ import static com.facebook.presto.orc.FlushReason.DICTIONARY_FULL;
 import static com.facebook.presto.orc.FlushReason.MAX_BYTES;
 import static com.facebook.presto.orc.FlushReason.MAX_ROWS;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
 public class OrcWriterStats
         implements WriterStats
@@ -36,6 +38,7 @@ public class OrcWriterStats
     private final OrcWriterFlushStats dictionaryFullFlush = new OrcWriterFlushStats(DICTIONARY_FULL.name());
     private final OrcWriterFlushStats closedFlush = new OrcWriterFlushStats(CLOSED.name());
     private final AtomicLong writerSizeInBytes = new AtomicLong();
+    private final TimeDistribution columnEncodeTime = new TimeDistribution(MICROSECONDS);
 
     @Override
     public void recordStripeWritten(
@@ -58,6 +61,12 @@ public class OrcWriterStats
         writerSizeInBytes.addAndGet(deltaInBytes);
     }
 
+    @Override
+    public void recordColumnEncodeTime(String columnName, long encodeTimeNanos)
+    {
+        columnEncodeTime.add(encodeTimeNanos);
+    }
+
     @Managed
     @Nested
     public OrcWriterFlushStats getAllFlush()
@@ -99,6 +108,13 @@ public class OrcWriterStats
         return writerSizeInBytes.get();
     }
 
+    @Managed
+    @Nested
+    public TimeDistribution getColumnEncodeTime()
+    {
+        return columnEncodeTime;
+    }
+
     private OrcWriterFlushStats getFlushStats(FlushReason flushReason)
     {
         switch (flushReason) {
@@ -125,6 +141,7 @@ public class OrcWriterStats
                 .add("dictionaryFullFlush", dictionaryFullFlush)
                 .add("closedFlush", closedFlush)
                 .add("writerSizeInBytes", writerSizeInBytes.get())
+                .add("columnEncodeTime", columnEncodeTime)
                 .toString();
     }
 }
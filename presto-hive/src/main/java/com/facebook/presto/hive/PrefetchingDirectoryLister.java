@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.hive.filesystem.ExtendedFileSystem;
+import com.facebook.presto.hive.metastore.Partition;
+import com.facebook.presto.hive.metastore.Table;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.hadoop.fs.Path;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.facebook.presto.common.RuntimeMetricName.DIRECTORY_LISTING_PREFETCH_WAIT_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeUnit.NANO;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Starts every directory listing on the executor as soon as it is requested,
+ * so listings of partitions queued in the split loader run concurrently with
+ * split generation for the partitions ahead of them. Only the first call to the
+ * underlying iterator is moved to the executor; that call issues the initial
+ * listing request, which dominates the latency for most partitions.
+ */
+public class PrefetchingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final Executor executor;
+
+    public PrefetchingDirectoryLister(DirectoryLister delegate, Executor executor)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    @Override
+    public Iterator<HiveFileInfo> list(
+            ExtendedFileSystem fileSystem,
+            Table table,
+            Path path,
+            Optional<Partition> partition,
+            NamenodeStats namenodeStats,
+            HiveDirectoryContext hiveDirectoryContext)
+    {
+        Iterator<HiveFileInfo> iterator = delegate.list(fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext);
+        PrefetchingIterator prefetchingIterator = new PrefetchingIterator(iterator, namenodeStats, hiveDirectoryContext.getRuntimeStats());
+        try {
+            executor.execute(prefetchingIterator::prefetch);
+        }
+        catch (RejectedExecutionException ignored) {
+            // the listing will be started by the consumer instead
+        }
+        return prefetchingIterator;
+    }
+
+    @Override
+    public boolean isPathCached(Path path)
+    {
+        return delegate.isPathCached(path);
+    }
+
+    private static class PrefetchingIterator
+            implements Iterator<HiveFileInfo>
+    {
+        private final Iterator<HiveFileInfo> delegate;
+        private final NamenodeStats namenodeStats;
+        private final RuntimeStats runtimeStats;
+        // whoever claims the first call runs it; the other side waits for the result
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final SettableFuture<Boolean> firstHasNext = SettableFuture.create();
+        private boolean prefetchConsumed;
+
+        public PrefetchingIterator(Iterator<HiveFileInfo> delegate, NamenodeStats namenodeStats, RuntimeStats runtimeStats)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+            this.namenodeStats = requireNonNull(namenodeStats, "namenodeStats is null");
+            this.runtimeStats = requireNonNull(runtimeStats, "runtimeStats is null");
+        }
+
+        public void prefetch()
+        {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                firstHasNext.set(delegate.hasNext());
+            }
+            catch (Throwable t) {
+                firstHasNext.setException(t);
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (prefetchConsumed) {
+                return delegate.hasNext();
+            }
+            prefetchConsumed = true;
+
+            // if the prefetch has not been picked up by the executor yet, run it on this thread
+            // rather than waiting for it, so a saturated executor cannot block the split loader
+            long start = System.nanoTime();
+            prefetch();
+            try {
+                return getUnchecked(firstHasNext);
+            }
+            catch (RuntimeException e) {
+                Throwable cause = e.getCause();
+                throwIfUnchecked(cause);
+                throw e;
+            }
+            finally {
+                long waitNanos = System.nanoTime() - start;
+                namenodeStats.recordListingPrefetchWait(waitNanos);
+                runtimeStats.addMetricValue(DIRECTORY_LISTING_PREFETCH_WAIT_TIME_NANOS, NANO, waitNanos);
+            }
+        }
+
+        @Override
+        public HiveFileInfo next()
+        {
+            if (!prefetchConsumed) {
+                hasNext();
+            }
+            return delegate.next();
+        }
+    }
+}
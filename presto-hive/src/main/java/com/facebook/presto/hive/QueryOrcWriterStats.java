@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.orc.FlushReason;
+import com.facebook.presto.orc.WriterStats;
+import com.facebook.presto.orc.metadata.StripeInformation;
+
+import static com.facebook.presto.common.RuntimeMetricName.ORC_COLUMN_ENCODE_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeUnit.NANO;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writer stats of a single query. Everything is forwarded to the connector wide
+ * {@link OrcWriterStats}, and the encode time of the columns is also added to a single
+ * runtime metric of the query. The time of each column is only logged at debug level,
+ * so the number of runtime metrics does not grow with the number of columns.
+ */
+class QueryOrcWriterStats
+        implements WriterStats
+{
+    private static final Logger log = Logger.get(QueryOrcWriterStats.class);
+
+    private final WriterStats delegate;
+    private final RuntimeStats runtimeStats;
+
+    public QueryOrcWriterStats(WriterStats delegate, RuntimeStats runtimeStats)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.runtimeStats = requireNonNull(runtimeStats, "runtimeStats is null");
+    }
+
+    @Override
+    public void recordStripeWritten(
+            int stripeMinBytes,
+            int stripeMaxBytes,
+            int dictionaryMaxMemoryBytes,
+            FlushReason flushReason,
+            int dictionaryBytes,
+            StripeInformation stripeInformation)
+    {
+        delegate.recordStripeWritten(stripeMinBytes, stripeMaxBytes, dictionaryMaxMemoryBytes, flushReason, dictionaryBytes, stripeInformation);
+    }
+
+    @Override
+    public void updateSizeInBytes(long deltaInBytes)
+    {
+        delegate.updateSizeInBytes(deltaInBytes);
+    }
+
+    @Override
+    public void recordColumnEncodeTime(String columnName, long encodeTimeNanos)
+    {
+        delegate.recordColumnEncodeTime(columnName, encodeTimeNanos);
+        runtimeStats.addMetricValue(ORC_COLUMN_ENCODE_TIME_NANOS, NANO, encodeTimeNanos);
+        log.debug("Encoded ORC column %s in %sns", columnName, encodeTimeNanos);
+    }
+}
@@ -15,6 +15,8 @@ package com.facebook.presto.hive;
 
 import com.facebook.airlift.log.Logger;
 import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.common.NotSupportedException;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.io.DataSink;
@@ -49,6 +51,7 @@ import java.util.stream.IntStream;
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -56,6 +59,7 @@ import static java.lang.Math.min;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class SortingFileWriter
         implements HiveFileWriter
@@ -75,6 +79,13 @@ public class SortingFileWriter
     private final TempFileSinkFactory tempFileSinkFactory;
     private final boolean sortedWriteToTempPathEnabled;
     private final Queue<TempFile> tempFiles = new PriorityQueue<>(comparing(TempFile::getSize));
+    private final HiveWriterStats stats;
+
+    // While the rows arrive in sort order, the buffer is written out as is, and the temp files
+    // are consecutive runs that only need to be concatenated instead of merged.
+    private boolean inputSorted = true;
+    private Page lastRow;
+    private int tempFileCount;
 
     public SortingFileWriter(
             FileSystem fileSystem,
@@ -87,7 +98,8 @@ public class SortingFileWriter
             List<SortOrder> sortOrders,
             PageSorter pageSorter,
             TempFileSinkFactory tempFileSinkFactory,
-            boolean sortedWriteToTempPathEnabled)
+            boolean sortedWriteToTempPathEnabled,
+            HiveWriterStats stats)
     {
         checkArgument(maxOpenTempFiles >= 2, "maxOpenTempFiles must be at least two");
         this.fileSystem = requireNonNull(fileSystem, "fileSystem is null");
@@ -100,6 +112,7 @@ public class SortingFileWriter
         this.sortBuffer = new SortBuffer(maxMemory, types, sortFields, sortOrders, pageSorter);
         this.tempFileSinkFactory = tempFileSinkFactory;
         this.sortedWriteToTempPathEnabled = sortedWriteToTempPathEnabled;
+        this.stats = requireNonNull(stats, "stats is null");
     }
 
     @Override
@@ -111,12 +124,15 @@ public class SortingFileWriter
     @Override
     public long getSystemMemoryUsage()
     {
-        return INSTANCE_SIZE + sortBuffer.getRetainedBytes();
+        return INSTANCE_SIZE + sortBuffer.getRetainedBytes() + (lastRow == null ? 0 : lastRow.getRetainedSizeInBytes());
     }
 
     @Override
     public void appendRows(Page page)
     {
+        if (inputSorted) {
+            inputSorted = isInOrder(page);
+        }
         if (!sortBuffer.canAdd(page)) {
             flushToTempFile();
         }
@@ -129,7 +145,7 @@ public class SortingFileWriter
         if (!sortBuffer.isEmpty()) {
             // skip temporary files entirely if the total output size is small
             if (tempFiles.isEmpty()) {
-                sortBuffer.flushTo(outputWriter::appendRows);
+                flushBuffer(outputWriter::appendRows);
                 return outputWriter.commit();
             }
 
@@ -184,17 +200,78 @@ public class SortingFileWriter
         return getWrittenBytes();
     }
 
+    private boolean isInOrder(Page page)
+    {
+        if (page.getPositionCount() == 0) {
+            return true;
+        }
+        if (lastRow != null && compare(lastRow, 0, page, 0) > 0) {
+            lastRow = null;
+            return false;
+        }
+        for (int position = 1; position < page.getPositionCount(); position++) {
+            if (compare(page, position - 1, page, position) > 0) {
+                lastRow = null;
+                return false;
+            }
+        }
+        lastRow = page.getSingleValuePage(page.getPositionCount() - 1);
+        return true;
+    }
+
+    private int compare(Page left, int leftPosition, Page right, int rightPosition)
+    {
+        for (int i = 0; i < sortFields.size(); i++) {
+            int channel = sortFields.get(i);
+            int result;
+            try {
+                result = sortOrders.get(i).compareBlockValue(types.get(channel), left.getBlock(channel), leftPosition, right.getBlock(channel), rightPosition);
+            }
+            catch (NotSupportedException e) {
+                throw new PrestoException(NOT_SUPPORTED, e.getMessage(), e);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private void flushBuffer(Consumer<Page> consumer)
+    {
+        if (inputSorted) {
+            sortBuffer.flushInInputOrderTo(consumer);
+        }
+        else {
+            sortBuffer.flushTo(consumer);
+        }
+    }
+
     private void flushToTempFile()
     {
-        writeTempFile(writer -> sortBuffer.flushTo(writer::writePage));
+        writeTempFile(writer -> flushBuffer(writer::writePage));
     }
 
     // TODO: change connector SPI to make this resumable and have memory tracking
     private void writeSorted()
     {
-        combineFiles();
+        long start = System.nanoTime();
+        if (inputSorted) {
+            stats.addSortedInputWrite();
+            List<TempFile> runs = tempFiles.stream()
+                    .sorted(comparing(TempFile::getSequence))
+                    .collect(toImmutableList());
+            tempFiles.clear();
+            for (TempFile run : runs) {
+                mergeFiles(ImmutableList.of(run), outputWriter::appendRows);
+            }
+        }
+        else {
+            combineFiles();
 
-        mergeFiles(tempFiles, outputWriter::appendRows);
+            mergeFiles(tempFiles, outputWriter::appendRows);
+        }
+        stats.addSortMergeTime(new Duration(System.nanoTime() - start, NANOSECONDS));
     }
 
     private void combineFiles()
@@ -255,7 +332,8 @@ public class SortingFileWriter
         try (TempFileWriter writer = new TempFileWriter(types, tempFileSinkFactory.createSink(fileSystem, tempFile))) {
             consumer.accept(writer);
             writer.close();
-            tempFiles.add(new TempFile(tempFile, writer.getWrittenBytes()));
+            tempFiles.add(new TempFile(tempFile, writer.getWrittenBytes(), tempFileCount++));
+            stats.addSortTempFileBytes(writer.getWrittenBytes());
         }
         catch (IOException | UncheckedIOException e) {
             if (!sortedWriteToTempPathEnabled) {
@@ -287,12 +365,14 @@ public class SortingFileWriter
     {
         private final Path path;
         private final long size;
+        private final int sequence;
 
-        public TempFile(Path path, long size)
+        public TempFile(Path path, long size, int sequence)
         {
             checkArgument(size >= 0, "size is negative");
             this.path = requireNonNull(path, "path is null");
             this.size = size;
+            this.sequence = sequence;
         }
 
         public Path getPath()
@@ -305,6 +385,11 @@ public class SortingFileWriter
             return size;
         }
 
+        public int getSequence()
+        {
+            return sequence;
+        }
+
         @Override
         public String toString()
         {
@@ -48,6 +48,7 @@ public class SortingFileWriterFactory
     private final OrcFileWriterFactory orcFileWriterFactory;
     private final boolean sortedWriteToTempPathEnabled;
     private final int sortedWriteTempFileSubdirectoryCount;
+    private final HiveWriterStats hiveWriterStats;
 
     public SortingFileWriterFactory(
             HdfsEnvironment hdfsEnvironment,
@@ -61,7 +62,8 @@ public class SortingFileWriterFactory
             PageSorter pageSorter,
             OrcFileWriterFactory orcFileWriterFactory,
             boolean sortedWriteToTempPathEnabled,
-            int sortedWriteTempFileSubdirectoryCount)
+            int sortedWriteTempFileSubdirectoryCount,
+            HiveWriterStats hiveWriterStats)
     {
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.session = requireNonNull(session, "session is null");
@@ -75,6 +77,7 @@ public class SortingFileWriterFactory
         this.orcFileWriterFactory = requireNonNull(orcFileWriterFactory, "orcFileWriterFactory is null");
         this.sortedWriteToTempPathEnabled = sortedWriteToTempPathEnabled;
         this.sortedWriteTempFileSubdirectoryCount = sortedWriteTempFileSubdirectoryCount;
+        this.hiveWriterStats = requireNonNull(hiveWriterStats, "hiveWriterStats is null");
     }
 
     public SortingFileWriter createSortingFileWriter(Path path, HiveFileWriter outputWriter, int fileNumber, Optional<Path> tempPath)
@@ -103,6 +106,7 @@ public class SortingFileWriterFactory
                 sortOrders,
                 pageSorter,
                 (fs, p) -> orcFileWriterFactory.createDataSink(session, fs, p),
-                sortedWriteToTempPathEnabled);
+                sortedWriteToTempPathEnabled,
+                hiveWriterStats);
     }
 }
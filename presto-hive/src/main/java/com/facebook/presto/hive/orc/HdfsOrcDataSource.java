@@ -16,17 +16,26 @@ package com.facebook.presto.hive.orc;
 import com.facebook.airlift.units.DataSize;
 import com.facebook.presto.hive.FileFormatDataSourceStats;
 import com.facebook.presto.orc.AbstractOrcDataSource;
+import com.facebook.presto.orc.DiskRange;
 import com.facebook.presto.orc.OrcDataSourceId;
 import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableMap;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileRange;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
+import static org.apache.hadoop.util.functional.FutureIO.awaitFuture;
 
 public class HdfsOrcDataSource
         extends AbstractOrcDataSource
@@ -64,19 +73,68 @@ public class HdfsOrcDataSource
             inputStream.readFully(position, buffer, bufferOffset, bufferLength);
             stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - readStart);
         }
-        catch (PrestoException e) {
-            // just in case there is a Presto wrapper or hook
-            throw e;
-        }
         catch (Exception e) {
-            String message = format("Error reading from %s at position %s. ", this, position);
-            if (e.getClass().getSimpleName().equals("BlockMissingException")) {
-                throw new PrestoException(HIVE_MISSING_DATA, message, e);
-            }
-            if (e instanceof IOException) {
-                throw new PrestoException(HIVE_FILESYSTEM_ERROR, message + e.getMessage(), e);
+            throw propagate(e, position);
+        }
+    }
+
+    @Override
+    protected Map<DiskRange, byte[]> readInternal(List<DiskRange> diskRanges)
+    {
+        if (diskRanges.size() == 1) {
+            DiskRange diskRange = diskRanges.get(0);
+            byte[] buffer = new byte[diskRange.getLength()];
+            readInternal(diskRange.getOffset(), buffer, 0, buffer.length);
+            return ImmutableMap.of(diskRange, buffer);
+        }
+
+        // file systems that support it fetch the ranges concurrently, others read them one by one
+        List<FileRange> fileRanges = new ArrayList<>(diskRanges.size());
+        long length = 0;
+        for (DiskRange diskRange : diskRanges) {
+            fileRanges.add(FileRange.createFileRange(diskRange.getOffset(), diskRange.getLength(), diskRange));
+            length += diskRange.getLength();
+        }
+        FileRange currentRange = fileRanges.get(0);
+        try {
+            long readStart = System.nanoTime();
+            inputStream.readVectored(fileRanges, ByteBuffer::allocate);
+            Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
+            for (FileRange fileRange : fileRanges) {
+                currentRange = fileRange;
+                buffers.put((DiskRange) fileRange.getReference(), toByteArray(awaitFuture(fileRange.getData())));
             }
-            throw new PrestoException(HIVE_UNKNOWN_ERROR, message, e);
+            stats.readDataBytesPerSecond(length, System.nanoTime() - readStart);
+            return buffers;
+        }
+        catch (Exception e) {
+            throw propagate(e, currentRange.getOffset());
+        }
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer)
+    {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private PrestoException propagate(Exception e, long position)
+    {
+        if (e instanceof PrestoException) {
+            // just in case there is a Presto wrapper or hook
+            return (PrestoException) e;
+        }
+        String message = format("Error reading from %s at position %s. ", this, position);
+        if (e.getClass().getSimpleName().equals("BlockMissingException")) {
+            return new PrestoException(HIVE_MISSING_DATA, message, e);
+        }
+        if (e instanceof IOException) {
+            return new PrestoException(HIVE_FILESYSTEM_ERROR, message + e.getMessage(), e);
         }
+        return new PrestoException(HIVE_UNKNOWN_ERROR, message, e);
     }
 }
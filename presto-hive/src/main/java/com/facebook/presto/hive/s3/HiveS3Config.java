@@ -61,6 +61,9 @@ public class HiveS3Config
     private PrestoS3AclType s3AclType = PrestoS3AclType.PRIVATE;
     private boolean skipGlacierObjects;
     private boolean s3WebIdentityEnabled;
+    private DataSize s3VectoredReadMinSeekSize = new DataSize(1, MEGABYTE);
+    private DataSize s3VectoredReadMaxMergedSize = new DataSize(8, MEGABYTE);
+    private int s3VectoredReadMaxConcurrency = 8;
 
     public boolean isS3WebIdentityEnabled()
     {
@@ -461,4 +464,47 @@ public class HiveS3Config
         this.skipGlacierObjects = skipGlacierObjects;
         return this;
     }
+
+    @NotNull
+    public DataSize getS3VectoredReadMinSeekSize()
+    {
+        return s3VectoredReadMinSeekSize;
+    }
+
+    @Config("hive.s3.vectored-read.min-seek-size")
+    @ConfigDescription("Ranges of a multi-range read closer than this are fetched with a single GET request")
+    public HiveS3Config setS3VectoredReadMinSeekSize(DataSize s3VectoredReadMinSeekSize)
+    {
+        this.s3VectoredReadMinSeekSize = s3VectoredReadMinSeekSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1kB")
+    public DataSize getS3VectoredReadMaxMergedSize()
+    {
+        return s3VectoredReadMaxMergedSize;
+    }
+
+    @Config("hive.s3.vectored-read.max-merged-size")
+    @ConfigDescription("Maximum size of a single GET request that serves several ranges of a multi-range read")
+    public HiveS3Config setS3VectoredReadMaxMergedSize(DataSize s3VectoredReadMaxMergedSize)
+    {
+        this.s3VectoredReadMaxMergedSize = s3VectoredReadMaxMergedSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getS3VectoredReadMaxConcurrency()
+    {
+        return s3VectoredReadMaxConcurrency;
+    }
+
+    @Config("hive.s3.vectored-read.max-concurrency")
+    @ConfigDescription("Maximum number of concurrent GET requests of a multi-range read of one file")
+    public HiveS3Config setS3VectoredReadMaxConcurrency(int s3VectoredReadMaxConcurrency)
+    {
+        this.s3VectoredReadMaxConcurrency = s3VectoredReadMaxConcurrency;
+        return this;
+    }
 }
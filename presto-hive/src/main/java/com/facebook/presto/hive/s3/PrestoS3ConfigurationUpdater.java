@@ -52,6 +52,9 @@ public class PrestoS3ConfigurationUpdater
     private final PrestoS3AclType aclType;
     private boolean skipGlacierObjects;
     private final boolean webIdentityEnabled;
+    private final DataSize vectoredReadMinSeekSize;
+    private final DataSize vectoredReadMaxMergedSize;
+    private final int vectoredReadMaxConcurrency;
 
     @Inject
     public PrestoS3ConfigurationUpdater(HiveS3Config config)
@@ -85,6 +88,9 @@ public class PrestoS3ConfigurationUpdater
         this.aclType = config.getS3AclType();
         this.skipGlacierObjects = config.isSkipGlacierObjects();
         this.webIdentityEnabled = config.isS3WebIdentityEnabled();
+        this.vectoredReadMinSeekSize = config.getS3VectoredReadMinSeekSize();
+        this.vectoredReadMaxMergedSize = config.getS3VectoredReadMaxMergedSize();
+        this.vectoredReadMaxConcurrency = config.getS3VectoredReadMaxConcurrency();
     }
 
     @Override
@@ -140,5 +146,8 @@ public class PrestoS3ConfigurationUpdater
         config.set(S3_USER_AGENT_PREFIX, userAgentPrefix);
         config.set(S3_ACL_TYPE, aclType.name());
         config.setBoolean(S3_SKIP_GLACIER_OBJECTS, skipGlacierObjects);
+        config.setLong(S3_VECTORED_READ_MIN_SEEK_SIZE, vectoredReadMinSeekSize.toBytes());
+        config.setLong(S3_VECTORED_READ_MAX_MERGED_SIZE, vectoredReadMaxMergedSize.toBytes());
+        config.setInt(S3_VECTORED_READ_MAX_CONCURRENCY, vectoredReadMaxConcurrency);
     }
 }
@@ -53,6 +53,7 @@ import com.amazonaws.services.s3.transfer.Transfer;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.s3.transfer.Upload;
+import com.facebook.airlift.concurrent.BoundedExecutor;
 import com.facebook.airlift.log.Logger;
 import com.facebook.airlift.units.DataSize;
 import com.facebook.airlift.units.Duration;
@@ -70,10 +71,12 @@ import org.apache.hadoop.fs.BufferedFSInputStream;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.fs.impl.CombinedFileRange;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.util.Progressable;
 
@@ -89,6 +92,7 @@ import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Date;
@@ -98,13 +102,18 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
 
 import static com.amazonaws.regions.Regions.US_EAST_1;
 import static com.amazonaws.services.s3.Headers.SERVER_SIDE_ENCRYPTION;
 import static com.amazonaws.services.s3.Headers.UNENCRYPTED_CONTENT_LENGTH;
 import static com.amazonaws.services.s3.model.StorageClass.DeepArchive;
 import static com.amazonaws.services.s3.model.StorageClass.Glacier;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
 import static com.facebook.presto.hive.RetryDriver.retry;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_ACCESS_KEY;
@@ -138,6 +147,9 @@ import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STORAGE_CLAS
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_PREFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_SUFFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USE_INSTANCE_CREDENTIALS;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_VECTORED_READ_MAX_CONCURRENCY;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_VECTORED_READ_MAX_MERGED_SIZE;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_VECTORED_READ_MIN_SEEK_SIZE;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_WEB_IDENTITY_ENABLED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndexes;
@@ -156,10 +168,14 @@ import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.createTempFile;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.hadoop.fs.FSExceptionMessages.CANNOT_SEEK_PAST_EOF;
 import static org.apache.hadoop.fs.FSExceptionMessages.NEGATIVE_SEEK;
 import static org.apache.hadoop.fs.FSExceptionMessages.STREAM_IS_CLOSED;
+import static org.apache.hadoop.fs.VectoredReadUtils.mergeSortedRanges;
+import static org.apache.hadoop.fs.VectoredReadUtils.sliceTo;
+import static org.apache.hadoop.fs.VectoredReadUtils.validateAndSortRanges;
 
 public class PrestoS3FileSystem
         extends ExtendedFileSystem
@@ -199,6 +215,10 @@ public class PrestoS3FileSystem
     private boolean skipGlacierObjects;
     private PrestoS3StorageClass s3StorageClass;
     private boolean webIdentityEnabled;
+    private int vectoredReadMinSeekSize;
+    private int vectoredReadMaxMergedSize;
+    private int vectoredReadMaxConcurrency;
+    private ExecutorService vectoredReadExecutor;
 
     @Override
     public void initialize(URI uri, Configuration conf)
@@ -241,6 +261,9 @@ public class PrestoS3FileSystem
         this.skipGlacierObjects = conf.getBoolean(S3_SKIP_GLACIER_OBJECTS, defaults.isSkipGlacierObjects());
         this.s3StorageClass = conf.getEnum(S3_STORAGE_CLASS, defaults.getS3StorageClass());
         this.webIdentityEnabled = conf.getBoolean(S3_WEB_IDENTITY_ENABLED, false);
+        this.vectoredReadMinSeekSize = toIntExact(conf.getLong(S3_VECTORED_READ_MIN_SEEK_SIZE, defaults.getS3VectoredReadMinSeekSize().toBytes()));
+        this.vectoredReadMaxMergedSize = toIntExact(conf.getLong(S3_VECTORED_READ_MAX_MERGED_SIZE, defaults.getS3VectoredReadMaxMergedSize().toBytes()));
+        this.vectoredReadMaxConcurrency = conf.getInt(S3_VECTORED_READ_MAX_CONCURRENCY, defaults.getS3VectoredReadMaxConcurrency());
         checkArgument(!(webIdentityEnabled && isNullOrEmpty(s3IamRole)), "Invalid configuration: hive.s3.iam-role must be provided when hive.s3.web.identity.auth.enabled is set to true");
         ClientConfiguration configuration = new ClientConfiguration()
                 .withMaxErrorRetry(maxErrorRetries)
@@ -253,6 +276,7 @@ public class PrestoS3FileSystem
 
         this.credentialsProvider = createAwsCredentialsProvider(uri, conf);
         this.s3 = createAmazonS3Client(conf, configuration);
+        this.vectoredReadExecutor = newCachedThreadPool(daemonThreadsNamed("s3-vectored-read-%s"));
     }
 
     @Override
@@ -265,6 +289,7 @@ public class PrestoS3FileSystem
                 closer.register((Closeable) credentialsProvider);
             }
             closer.register(s3::shutdown);
+            closer.register(vectoredReadExecutor::shutdownNow);
         }
     }
 
@@ -421,7 +446,16 @@ public class PrestoS3FileSystem
     {
         return new FSDataInputStream(
                 new BufferedFSInputStream(
-                        new PrestoS3InputStream(s3, getBucketName(uri), path, maxAttempts, maxBackoffTime, maxRetryTime),
+                        new PrestoS3InputStream(
+                                s3,
+                                getBucketName(uri),
+                                path,
+                                maxAttempts,
+                                maxBackoffTime,
+                                maxRetryTime,
+                                vectoredReadMinSeekSize,
+                                vectoredReadMaxMergedSize,
+                                new BoundedExecutor(vectoredReadExecutor, vectoredReadMaxConcurrency)),
                         bufferSize));
     }
 
@@ -953,6 +987,9 @@ public class PrestoS3FileSystem
         private final int maxAttempts;
         private final Duration maxBackoffTime;
         private final Duration maxRetryTime;
+        private final int vectoredReadMinSeekSize;
+        private final int vectoredReadMaxMergedSize;
+        private final Executor vectoredReadExecutor;
 
         private final AtomicBoolean closed = new AtomicBoolean();
 
@@ -960,7 +997,16 @@ public class PrestoS3FileSystem
         private long streamPosition;
         private long nextReadPosition;
 
-        public PrestoS3InputStream(AmazonS3 s3, String host, Path path, int maxAttempts, Duration maxBackoffTime, Duration maxRetryTime)
+        public PrestoS3InputStream(
+                AmazonS3 s3,
+                String host,
+                Path path,
+                int maxAttempts,
+                Duration maxBackoffTime,
+                Duration maxRetryTime,
+                int vectoredReadMinSeekSize,
+                int vectoredReadMaxMergedSize,
+                Executor vectoredReadExecutor)
         {
             this.s3 = requireNonNull(s3, "s3 is null");
             this.host = requireNonNull(host, "host is null");
@@ -970,6 +1016,9 @@ public class PrestoS3FileSystem
             this.maxAttempts = maxAttempts;
             this.maxBackoffTime = requireNonNull(maxBackoffTime, "maxBackoffTime is null");
             this.maxRetryTime = requireNonNull(maxRetryTime, "maxRetryTime is null");
+            this.vectoredReadMinSeekSize = vectoredReadMinSeekSize;
+            this.vectoredReadMaxMergedSize = vectoredReadMaxMergedSize;
+            this.vectoredReadExecutor = requireNonNull(vectoredReadExecutor, "vectoredReadExecutor is null");
         }
 
         @Override
@@ -1052,6 +1101,70 @@ public class PrestoS3FileSystem
             }
         }
 
+        @Override
+        public int minSeekForVectorReads()
+        {
+            return vectoredReadMinSeekSize;
+        }
+
+        @Override
+        public int maxReadSizeForVectorReads()
+        {
+            return vectoredReadMaxMergedSize;
+        }
+
+        /**
+         * Coalesces ranges that are close to each other into a single GET request and issues the
+         * requests concurrently. Each range is handed back as a slice of the buffer of its request.
+         */
+        @Override
+        public void readVectored(List<? extends FileRange> ranges, IntFunction<ByteBuffer> allocate)
+                throws IOException
+        {
+            checkClosed();
+            List<? extends FileRange> sortedRanges = validateAndSortRanges(ranges, Optional.empty());
+            List<CombinedFileRange> mergedRanges = mergeSortedRanges(sortedRanges, 1, vectoredReadMinSeekSize, vectoredReadMaxMergedSize);
+
+            long overReadBytes = 0;
+            for (CombinedFileRange mergedRange : mergedRanges) {
+                overReadBytes += mergedRange.getLength() - mergedRange.getDataSize();
+            }
+            STATS.newVectoredRead(sortedRanges.size(), mergedRanges.size(), overReadBytes);
+
+            for (CombinedFileRange mergedRange : mergedRanges) {
+                CompletableFuture<ByteBuffer> data = new CompletableFuture<>();
+                for (FileRange range : mergedRange.getUnderlying()) {
+                    range.setData(data.thenApply(buffer -> sliceTo(buffer, mergedRange.getOffset(), range)));
+                }
+                vectoredReadExecutor.execute(() -> {
+                    try {
+                        data.complete(readRange(mergedRange, allocate));
+                    }
+                    catch (Throwable t) {
+                        data.completeExceptionally(t);
+                    }
+                });
+            }
+        }
+
+        private ByteBuffer readRange(FileRange range, IntFunction<ByteBuffer> allocate)
+                throws IOException
+        {
+            long start = System.nanoTime();
+            ByteBuffer buffer = allocate.apply(range.getLength());
+            if (buffer.hasArray()) {
+                readFully(range.getOffset(), buffer.array(), buffer.arrayOffset() + buffer.position(), range.getLength());
+            }
+            else {
+                byte[] bytes = new byte[range.getLength()];
+                readFully(range.getOffset(), bytes, 0, bytes.length);
+                buffer.put(bytes);
+                buffer.flip();
+            }
+            STATS.addVectoredReadRequestTime(Duration.nanosSince(start));
+            return buffer;
+        }
+
         @Override
         public void seek(long pos)
                 throws IOException
@@ -44,6 +44,11 @@ public class PrestoS3FileSystemStats
     private final CounterStat getObjectRetries = new CounterStat();
     private final CounterStat getMetadataRetries = new CounterStat();
     private final CounterStat readRetries = new CounterStat();
+    private final CounterStat vectoredReads = new CounterStat();
+    private final CounterStat vectoredReadRanges = new CounterStat();
+    private final CounterStat vectoredReadRequests = new CounterStat();
+    private final CounterStat vectoredReadOverReadBytes = new CounterStat();
+    private final TimeStat vectoredReadRequestTime = new TimeStat(MILLISECONDS);
 
     // see AWSRequestMetrics
     private final CounterStat awsRequestCount = new CounterStat();
@@ -214,6 +219,41 @@ public class PrestoS3FileSystemStats
         return readRetries;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getVectoredReads()
+    {
+        return vectoredReads;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getVectoredReadRanges()
+    {
+        return vectoredReadRanges;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getVectoredReadRequests()
+    {
+        return vectoredReadRequests;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getVectoredReadOverReadBytes()
+    {
+        return vectoredReadOverReadBytes;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getVectoredReadRequestTime()
+    {
+        return vectoredReadRequestTime;
+    }
+
     public void connectionOpened()
     {
         activeConnections.update(1);
@@ -329,4 +369,17 @@ public class PrestoS3FileSystemStats
     {
         readRetries.update(1);
     }
+
+    public void newVectoredRead(int ranges, int requests, long overReadBytes)
+    {
+        vectoredReads.update(1);
+        vectoredReadRanges.update(ranges);
+        vectoredReadRequests.update(requests);
+        vectoredReadOverReadBytes.update(overReadBytes);
+    }
+
+    public void addVectoredReadRequestTime(Duration duration)
+    {
+        vectoredReadRequestTime.add(duration);
+    }
 }
@@ -49,6 +49,9 @@ public interface S3ConfigurationUpdater
     String S3_ACL_TYPE = "presto.s3.upload-acl-type";
     String S3_SKIP_GLACIER_OBJECTS = "presto.s3.skip-glacier-objects";
     String S3_STORAGE_CLASS = "presto.s3.storage-class";
+    String S3_VECTORED_READ_MIN_SEEK_SIZE = "presto.s3.vectored-read.min-seek-size";
+    String S3_VECTORED_READ_MAX_MERGED_SIZE = "presto.s3.vectored-read.max-merged-size";
+    String S3_VECTORED_READ_MAX_CONCURRENCY = "presto.s3.vectored-read.max-concurrency";
 
     void updateConfiguration(Configuration config);
 }
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.Closeable;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applies the loader to up to {@code prefetchCount} source elements ahead of the consumer
+ * on the executor, and returns the results in source order. An element whose load has not
+ * started by the time the consumer reaches it is loaded on the consumer thread, so the
+ * consumer never waits on work queued behind itself in a saturated executor.
+ * <p>
+ * The loader runs on executor threads, so it must only touch thread-safe state.
+ * Closing the iterator cancels the loads that have not started yet.
+ */
+public class PrefetchingIterator<S, T>
+        extends AbstractIterator<T>
+        implements Closeable
+{
+    private final Iterator<S> source;
+    private final Function<S, T> loader;
+    private final int prefetchCount;
+    private final Executor executor;
+    // closing may race with the consumer, so the loads in flight are kept in a concurrent deque
+    private final Deque<Load> loads = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    public PrefetchingIterator(Iterator<S> source, Function<S, T> loader, int prefetchCount, Executor executor)
+    {
+        checkArgument(prefetchCount > 0, "prefetchCount must be positive");
+        this.source = requireNonNull(source, "source is null");
+        this.loader = requireNonNull(loader, "loader is null");
+        this.prefetchCount = prefetchCount;
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    public static <S, T> Iterable<T> prefetch(Iterable<S> source, Function<S, T> loader, int prefetchCount, Executor executor)
+    {
+        return () -> new PrefetchingIterator<>(source.iterator(), loader, prefetchCount, executor);
+    }
+
+    @Override
+    protected T computeNext()
+    {
+        if (closed) {
+            return endOfData();
+        }
+        // keep the current element and up to prefetchCount elements after it in flight
+        while (loads.size() <= prefetchCount && source.hasNext()) {
+            Load load = new Load(source.next());
+            loads.addLast(load);
+            try {
+                executor.execute(load::run);
+            }
+            catch (RejectedExecutionException ignored) {
+                // the consumer loads the element itself
+            }
+        }
+        if (closed) {
+            // cancel the loads submitted while the iterator was being closed
+            close();
+            return endOfData();
+        }
+
+        Load load = loads.pollFirst();
+        if (load == null) {
+            return endOfData();
+        }
+        return load.getResult();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        Load load;
+        while ((load = loads.pollFirst()) != null) {
+            load.cancel();
+        }
+    }
+
+    private class Load
+    {
+        private final S element;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final SettableFuture<T> result = SettableFuture.create();
+
+        public Load(S element)
+        {
+            this.element = element;
+        }
+
+        public void run()
+        {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.set(loader.apply(element));
+            }
+            catch (Throwable t) {
+                result.setException(t);
+            }
+        }
+
+        public void cancel()
+        {
+            // a load that has already started is left to finish, and its result is dropped
+            if (started.compareAndSet(false, true)) {
+                result.cancel(false);
+            }
+        }
+
+        public T getResult()
+        {
+            run();
+            try {
+                return getUnchecked(result);
+            }
+            catch (RuntimeException e) {
+                throwIfUnchecked(e.getCause());
+                throw e;
+            }
+        }
+    }
+}
@@ -135,4 +135,18 @@ public class SortBuffer
         rowCount = 0;
         usedMemoryBytes = 0;
     }
+
+    /**
+     * Flushes the buffered pages in the order they were added, for input that is already sorted.
+     */
+    public void flushInInputOrderTo(Consumer<Page> consumer)
+    {
+        checkState(!pages.isEmpty(), "page buffer is empty");
+
+        pages.forEach(consumer);
+
+        pages.clear();
+        rowCount = 0;
+        usedMemoryBytes = 0;
+    }
 }
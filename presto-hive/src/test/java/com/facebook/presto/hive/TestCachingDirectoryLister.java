@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.testing.TestingTicker;
+import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.hive.filesystem.ExtendedFileSystem;
+import com.facebook.presto.hive.metastore.Partition;
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.security.ConnectorIdentity;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.HadoopExtendedFileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.airlift.units.DataSize.Unit.KILOBYTE;
+import static com.facebook.presto.hive.HiveFileInfo.createHiveFileInfo;
+import static com.facebook.presto.hive.NestedDirectoryPolicy.IGNORED;
+import static com.facebook.presto.hive.TestBackgroundHiveSplitLoader.SIMPLE_TABLE;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestCachingDirectoryLister
+{
+    private static final Path TABLE_PATH = new Path("hdfs://hadoop:9000/db_name/table_name");
+    private static final Path PARTITION_PATH = new Path(TABLE_PATH, "ds=2024-01-01");
+
+    private TestingTicker ticker;
+    private CountingDirectoryLister delegate;
+    private TestingFileSystem fileSystem;
+    private CachingDirectoryLister cachingDirectoryLister;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        ticker = new TestingTicker();
+        delegate = new CountingDirectoryLister();
+        fileSystem = new TestingFileSystem();
+        cachingDirectoryLister = new CachingDirectoryLister(
+                delegate,
+                new Duration(1, HOURS),
+                new DataSize(100, KILOBYTE),
+                ImmutableList.of("*"),
+                new Duration(1, MINUTES),
+                ticker);
+    }
+
+    @Test
+    public void testUnchangedDirectoryIsRevalidated()
+    {
+        fileSystem.setModificationTime(100);
+        assertEquals(list(PARTITION_PATH).size(), 2);
+        assertEquals(delegate.getListCount(), 1);
+
+        // served from the cache without checking the directory
+        ticker.increment(30, SECONDS);
+        assertEquals(list(PARTITION_PATH).size(), 2);
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(cachingDirectoryLister.getRevalidationCount(), 0);
+
+        // past the revalidation interval the directory is checked and the listing kept
+        ticker.increment(1, MINUTES);
+        assertEquals(list(PARTITION_PATH).size(), 2);
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(cachingDirectoryLister.getRevalidationCount(), 1);
+        assertEquals(cachingDirectoryLister.getRevalidationHitCount(), 1);
+        assertEquals(cachingDirectoryLister.getFilesServedFromCache(), 4);
+        assertTrue(cachingDirectoryLister.getRetainedBytesServedFromCache() > 0);
+    }
+
+    @Test
+    public void testModifiedDirectoryIsListedAgain()
+    {
+        fileSystem.setModificationTime(100);
+        list(PARTITION_PATH);
+
+        fileSystem.setModificationTime(200);
+        ticker.increment(2, MINUTES);
+        list(PARTITION_PATH);
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(cachingDirectoryLister.getRevalidationHitCount(), 0);
+
+        // the new listing is cached again
+        list(PARTITION_PATH);
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testUnknownModificationTimeIsListedAgain()
+    {
+        fileSystem.setModificationTime(0);
+        list(PARTITION_PATH);
+
+        ticker.increment(2, MINUTES);
+        list(PARTITION_PATH);
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testInvalidateSubdirectories()
+    {
+        Path otherTablePath = new Path("hdfs://hadoop:9000/db_name/table_name_2");
+        list(PARTITION_PATH);
+        list(new Path(TABLE_PATH, "ds=2024-01-02"));
+        list(otherTablePath);
+        assertEquals(cachingDirectoryLister.getSize(), 3);
+
+        assertEquals(cachingDirectoryLister.invalidate(TABLE_PATH.toString()), 2);
+        assertFalse(cachingDirectoryLister.isPathCached(PARTITION_PATH));
+        assertTrue(cachingDirectoryLister.isPathCached(otherTablePath));
+
+        assertThrows(PrestoException.class, () -> cachingDirectoryLister.invalidateDirectoryListCache(Optional.of(TABLE_PATH.toString())));
+        cachingDirectoryLister.invalidateDirectoryListCache(Optional.of(otherTablePath.toString()));
+        assertEquals(cachingDirectoryLister.getSize(), 0);
+    }
+
+    @Test
+    public void testInvalidateMultipleDirectories()
+    {
+        Path otherPartitionPath = new Path(TABLE_PATH, "ds=2024-01-02");
+        Path otherTablePath = new Path("hdfs://hadoop:9000/db_name/table_name_2");
+        Path prefixedTablePath = new Path("hdfs://hadoop:9000/db_name/table_name_3");
+        list(PARTITION_PATH);
+        list(otherPartitionPath);
+        list(otherTablePath);
+        list(prefixedTablePath);
+
+        // a trailing slash matches the same directory, and a sibling sharing the name prefix is kept
+        assertEquals(cachingDirectoryLister.invalidate(ImmutableList.of(PARTITION_PATH.toString(), otherTablePath + "/", "hdfs://hadoop:9000/db_name/table")), 2);
+        assertFalse(cachingDirectoryLister.isPathCached(PARTITION_PATH));
+        assertFalse(cachingDirectoryLister.isPathCached(otherTablePath));
+        assertTrue(cachingDirectoryLister.isPathCached(otherPartitionPath));
+        assertTrue(cachingDirectoryLister.isPathCached(prefixedTablePath));
+
+        assertEquals(cachingDirectoryLister.invalidate(ImmutableList.of()), 0);
+        assertEquals(cachingDirectoryLister.getSize(), 2);
+    }
+
+    private List<HiveFileInfo> list(Path path)
+    {
+        Iterator<HiveFileInfo> iterator = cachingDirectoryLister.list(
+                fileSystem,
+                SIMPLE_TABLE,
+                path,
+                Optional.empty(),
+                new NamenodeStats(),
+                new HiveDirectoryContext(
+                        IGNORED,
+                        true,
+                        false,
+                        new ConnectorIdentity("test", Optional.empty(), Optional.empty()),
+                        ImmutableMap.of(),
+                        new RuntimeStats()));
+        return ImmutableList.copyOf(iterator);
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private int listCount;
+
+        @Override
+        public Iterator<HiveFileInfo> list(ExtendedFileSystem fileSystem, Table table, Path path, Optional<Partition> partition, NamenodeStats namenodeStats, HiveDirectoryContext hiveDirectoryContext)
+        {
+            listCount++;
+            return ImmutableList.of("file_1", "file_2").stream()
+                    .map(name -> createFileInfo(new Path(path, name)))
+                    .collect(toImmutableList())
+                    .iterator();
+        }
+
+        public int getListCount()
+        {
+            return listCount;
+        }
+
+        private static HiveFileInfo createFileInfo(Path path)
+        {
+            try {
+                return createHiveFileInfo(new LocatedFileStatus(new FileStatus(0, false, 1, 0, 0, path), new BlockLocation[] {}), Optional.empty());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class TestingFileSystem
+            extends HadoopExtendedFileSystem
+    {
+        private long modificationTime;
+
+        public TestingFileSystem()
+        {
+            super(new LocalFileSystem());
+        }
+
+        public void setModificationTime(long modificationTime)
+        {
+            this.modificationTime = modificationTime;
+        }
+
+        @Override
+        public FileStatus getFileStatus(Path path)
+        {
+            return new FileStatus(0, true, 1, 0, modificationTime, path);
+        }
+    }
+}
@@ -163,7 +163,8 @@ public class TestDynamicPruning
                 Optional.empty(),
                 ImmutableSet.of(),
                 SplitWeight.standard(),
-                Optional.empty());
+                Optional.empty(),
+                ImmutableList.of());
 
         HiveTableHandle hiveTableHandle = new HiveTableHandle(SCHEMA_NAME, TABLE_NAME);
         HiveTableLayoutHandle tableLayoutHandle = new HiveTableLayoutHandle.Builder()
@@ -121,6 +121,7 @@ public class TestHiveClientConfig
                 .setParquetPushdownFilterEnabled(false)
                 .setAdaptiveFilterReorderingEnabled(true)
                 .setFileStatusCacheExpireAfterWrite(new Duration(0, TimeUnit.SECONDS))
+                .setFileStatusCacheRevalidateInterval(new Duration(0, TimeUnit.SECONDS))
                 .setFileStatusCacheMaxRetainedSize(new DataSize(0, KILOBYTE))
                 .setFileStatusCacheTables("")
                 .setPageFileStripeMaxSize(new DataSize(24, Unit.MEGABYTE))
@@ -167,7 +168,11 @@ public class TestHiveClientConfig
                 .setOptimizeParsingOfPartitionValues(false)
                 .setOptimizeParsingOfPartitionValuesThreshold(500)
                 .setLegacyTimestampBucketing(false)
-                .setSymlinkOptimizedReaderEnabled(true));
+                .setSymlinkOptimizedReaderEnabled(true)
+                .setSplitLoaderListingPrefetchCount(0)
+                .setPartitionBatchPrefetchCount(0)
+                .setSplitCombiningEnabled(false)
+                .setMaxFilesPerCombinedSplit(100));
     }
 
     @Test
@@ -250,6 +255,7 @@ public class TestHiveClientConfig
                 .put("hive.file-status-cache-tables", "foo.bar1, foo.bar2")
                 .put("hive.file-status-cache.max-retained-size", "500MB")
                 .put("hive.file-status-cache-expire-time", "30m")
+                .put("hive.file-status-cache.revalidate-interval", "1m")
                 .put("hive.pagefile.writer.stripe-max-size", "1kB")
                 .put("hive.bucket-function-type-for-exchange", "PRESTO_NATIVE")
                 .put("hive.bucket-function-type-for-cte-materialization", "HIVE_COMPATIBLE")
@@ -295,6 +301,10 @@ public class TestHiveClientConfig
                 .put("hive.optimize-parsing-of-partition-values-threshold", "100")
                 .put("hive.legacy-timestamp-bucketing", "true")
                 .put("hive.experimental.symlink.optimized-reader.enabled", "false")
+                .put("hive.split-loader-listing-prefetch-count", "8")
+                .put("hive.partition-batch-prefetch-count", "4")
+                .put("hive.split-combining-enabled", "true")
+                .put("hive.max-files-per-combined-split", "20")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -373,6 +383,7 @@ public class TestHiveClientConfig
                 .setFileStatusCacheTables("foo.bar1,foo.bar2")
                 .setFileStatusCacheMaxRetainedSize((new DataSize(500, MEGABYTE)))
                 .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES))
+                .setFileStatusCacheRevalidateInterval(new Duration(1, TimeUnit.MINUTES))
                 .setPageFileStripeMaxSize(new DataSize(1, Unit.KILOBYTE))
                 .setBucketFunctionTypeForExchange(PRESTO_NATIVE)
                 .setBucketFunctionTypeForCteMaterialization(HIVE_COMPATIBLE)
@@ -417,7 +428,11 @@ public class TestHiveClientConfig
                 .setOptimizeParsingOfPartitionValues(true)
                 .setOptimizeParsingOfPartitionValuesThreshold(100)
                 .setLegacyTimestampBucketing(true)
-                .setSymlinkOptimizedReaderEnabled(false);
+                .setSymlinkOptimizedReaderEnabled(false)
+                .setSplitLoaderListingPrefetchCount(8)
+                .setPartitionBatchPrefetchCount(4)
+                .setSplitCombiningEnabled(true)
+                .setMaxFilesPerCombinedSplit(20);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -13,7 +13,10 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.Duration;
 import com.facebook.presto.cache.CacheConfig;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.hive.authentication.NoHdfsAuthentication;
 import com.facebook.presto.hive.datasink.OutputStreamDataSinkFactory;
 import com.facebook.presto.hive.filesystem.ExtendedFileSystem;
@@ -26,6 +29,7 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.connector.ConnectorCommitHandle;
+import com.facebook.presto.spi.security.ConnectorIdentity;
 import com.facebook.presto.testing.TestingConnectorSession;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -53,6 +57,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.hive.AbstractTestHiveClient.TEST_SERVER_VERSION;
 import static com.facebook.presto.hive.HiveStorageFormat.ORC;
@@ -68,11 +73,15 @@ import static com.facebook.presto.hive.HiveTestUtils.FUNCTION_AND_TYPE_MANAGER;
 import static com.facebook.presto.hive.HiveTestUtils.FUNCTION_RESOLUTION;
 import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
 import static com.facebook.presto.hive.HiveTestUtils.ROW_EXPRESSION_SERVICE;
+import static com.facebook.presto.hive.NestedDirectoryPolicy.IGNORED;
+import static com.facebook.presto.hive.TestBackgroundHiveSplitLoader.SIMPLE_TABLE;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.PRESTO_QUERY_ID_NAME;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.toPartitionValues;
 import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
 import static java.nio.file.Files.createTempDirectory;
+import static java.util.Collections.emptyIterator;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -248,7 +257,60 @@ public class TestHiveCommitHandleOutput
         assertTrue(Long.parseLong(handle.getSerializedCommitOutputForWrite(new SchemaTableName(TEST_SCHEMA, TEST_TABLE))) > Long.parseLong(serializedCommitOutput));
     }
 
+    @Test
+    public void testCommitInvalidatesDirectoryListCache()
+    {
+        TestingExtendedHiveMetastore metastore = new TestingExtendedHiveMetastore();
+        HiveClientConfig hiveClientConfig = new HiveClientConfig();
+        ListeningExecutorService listeningExecutor = MoreExecutors.listeningDecorator(newFixedThreadPool(10, daemonThreadsNamed("test-hive-commit-handle-%s")));
+        ConnectorSession connectorSession = new TestingConnectorSession(
+                new HiveSessionProperties(hiveClientConfig, new OrcFileWriterConfig(), new ParquetFileWriterConfig(), new CacheConfig()).getSessionProperties());
+        CachingDirectoryLister directoryLister = new CachingDirectoryLister(
+                (fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext) -> emptyIterator(),
+                new Duration(1, HOURS),
+                new DataSize(1, MEGABYTE),
+                ImmutableList.of("*"));
+
+        HiveMetadata hiveMeta = getHiveMetadata(metastore, hiveClientConfig, listeningExecutor, directoryLister);
+        hiveMeta.createTable(connectorSession, testTableMetadata, false);
+        hiveMeta.commit();
+
+        Path tableLocation = new Path(testTableProperties.get(EXTERNAL_LOCATION_PROPERTY).toString());
+        Path partitionLocation = new Path(tableLocation, "a=1");
+        Path otherLocation = new Path("/other_table");
+        for (Path path : ImmutableList.of(tableLocation, partitionLocation, otherLocation)) {
+            ImmutableList.copyOf(directoryLister.list(null, SIMPLE_TABLE, path, Optional.empty(), new NamenodeStats(), createDirectoryContext()));
+        }
+        assertEquals(directoryLister.getSize(), 3);
+
+        // the listings are kept until the transaction commits
+        hiveMeta = getHiveMetadata(metastore, hiveClientConfig, listeningExecutor, directoryLister);
+        hiveMeta.dropTable(connectorSession, new HiveTableHandle(TEST_SCHEMA, TEST_TABLE, Optional.empty()));
+        assertEquals(directoryLister.getSize(), 3);
+
+        hiveMeta.commit();
+        assertFalse(directoryLister.isPathCached(tableLocation));
+        assertFalse(directoryLister.isPathCached(partitionLocation));
+        assertTrue(directoryLister.isPathCached(otherLocation));
+    }
+
+    private static HiveDirectoryContext createDirectoryContext()
+    {
+        return new HiveDirectoryContext(
+                IGNORED,
+                true,
+                false,
+                new ConnectorIdentity("test", Optional.empty(), Optional.empty()),
+                ImmutableMap.of(),
+                new RuntimeStats());
+    }
+
     private HiveMetadata getHiveMetadata(TestingExtendedHiveMetastore metastore, HiveClientConfig hiveClientConfig, ListeningExecutorService listeningExecutor)
+    {
+        return getHiveMetadata(metastore, hiveClientConfig, listeningExecutor, new HadoopDirectoryLister());
+    }
+
+    private HiveMetadata getHiveMetadata(TestingExtendedHiveMetastore metastore, HiveClientConfig hiveClientConfig, ListeningExecutorService listeningExecutor, DirectoryLister directoryLister)
     {
         HdfsEnvironment hdfsEnvironment = new TestingHdfsEnvironment(ImmutableList.of());
         HiveMetadataFactory hiveMetadataFactory = new HiveMetadataFactory(
@@ -283,7 +345,8 @@ public class TestHiveCommitHandleOutput
                 new HivePartitionStats(),
                 HiveColumnConverterProvider.DEFAULT_COLUMN_CONVERTER_PROVIDER,
                 new QuickStatsProvider(metastore, HDFS_ENVIRONMENT, DO_NOTHING_DIRECTORY_LISTER, new HiveClientConfig(), new NamenodeStats(), ImmutableList.of()),
-                new HiveTableWritabilityChecker(false));
+                new HiveTableWritabilityChecker(false),
+                directoryLister);
         return hiveMetadataFactory.get();
     }
 
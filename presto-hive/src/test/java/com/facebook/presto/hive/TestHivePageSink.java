@@ -270,7 +270,8 @@ public class TestHivePageSink
                 Optional.empty(),
                 ImmutableSet.of(),
                 SplitWeight.standard(),
-                Optional.empty());
+                Optional.empty(),
+                ImmutableList.of());
 
         HiveTableLayoutHandle layoutHandle = new HiveTableLayoutHandle.Builder()
                 .setSchemaTableName(new SchemaTableName(SCHEMA_NAME, TABLE_NAME))
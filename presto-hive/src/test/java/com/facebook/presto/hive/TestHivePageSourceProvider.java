@@ -18,6 +18,8 @@ import com.facebook.presto.cache.CacheConfig;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LongArrayBlock;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.TestingTypeManager;
 import com.facebook.presto.common.type.Type;
@@ -29,6 +31,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableLayoutHandle;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
@@ -53,19 +56,27 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
 
+import static com.facebook.presto.common.RuntimeMetricName.COMBINED_SPLIT_FILES_COUNT;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.AGGREGATED;
+import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.CacheQuotaRequirement.NO_CACHE_REQUIREMENT;
 import static com.facebook.presto.hive.CacheQuotaScope.PARTITION;
 import static com.facebook.presto.hive.HiveStorageFormat.ORC;
 import static com.facebook.presto.hive.HiveStorageFormat.RCBINARY;
+import static com.facebook.presto.hive.HiveColumnHandle.MAX_PARTITION_KEY_COLUMN_INDEX;
+import static com.facebook.presto.hive.HiveColumnHandle.pathColumnHandle;
 import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
 import static com.facebook.presto.hive.HiveTestUtils.HIVE_CLIENT_CONFIG;
 import static com.facebook.presto.hive.HiveTestUtils.METADATA;
@@ -74,6 +85,7 @@ import static com.facebook.presto.hive.HiveTestUtils.ROW_EXPRESSION_SERVICE;
 import static com.facebook.presto.hive.HiveTestUtils.SESSION;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultHiveRecordCursorProvider;
 import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.hive.HiveUtil.CUSTOM_FILE_SPLIT_CLASS_KEY;
 import static com.facebook.presto.hive.TestHivePageSink.getColumnHandles;
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_DATABASE;
@@ -83,6 +95,7 @@ import static com.facebook.presto.hive.util.HudiRealtimeSplitConverter.HUDI_DELT
 import static com.facebook.presto.hive.util.HudiRealtimeSplitConverter.HUDI_MAX_COMMIT_TIME_KEY;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
 import static com.facebook.presto.testing.assertions.Assert.assertEquals;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.String.format;
 import static org.testng.Assert.assertTrue;
 
@@ -102,6 +115,16 @@ public class TestHivePageSourceProvider
             ImmutableList.of(),
             Optional.empty());
 
+    private static final ColumnHandle PARTITION_COLUMN = new HiveColumnHandle(
+            "ds",
+            HIVE_STRING,
+            HIVE_STRING.getTypeSignature(),
+            MAX_PARTITION_KEY_COLUMN_INDEX,
+            PARTITION_KEY,
+            Optional.empty(),
+            ImmutableList.of(),
+            Optional.empty());
+
     private static final ColumnHandle LONG_AGGREGATED_COLUMN = new HiveColumnHandle(
             "test_column",
             HIVE_LONG,
@@ -164,7 +187,8 @@ public class TestHivePageSourceProvider
                 Optional.empty(),
                 ImmutableSet.of(),
                 SplitWeight.standard(),
-                Optional.empty());
+                Optional.empty(),
+                ImmutableList.of());
 
         CacheQuota cacheQuota = HivePageSourceProvider.generateCacheQuota(split);
         CacheQuota expectedCacheQuota = new CacheQuota(".", Optional.empty());
@@ -195,7 +219,8 @@ public class TestHivePageSourceProvider
                 Optional.empty(),
                 ImmutableSet.of(),
                 SplitWeight.standard(),
-                Optional.empty());
+                Optional.empty(),
+                ImmutableList.of());
 
         cacheQuota = HivePageSourceProvider.generateCacheQuota(split);
         expectedCacheQuota = new CacheQuota(SCHEMA_NAME + "." + TABLE_NAME + "." + PARTITION_NAME, Optional.of(DataSize.succinctDataSize(1, DataSize.Unit.MEGABYTE)));
@@ -354,6 +379,64 @@ public class TestHivePageSourceProvider
         assertTrue(pageSource instanceof MockOrcSelectivePageSource, format("pageSource  was %s", pageSource.getClass().getSimpleName()));
     }
 
+    @Test
+    public void testCombinedSplit()
+            throws IOException
+    {
+        // the files of a combined split, with the number of rows in each one
+        Map<String, Integer> fileRowCounts = ImmutableMap.of(
+                "file:///partition/file1", 3,
+                "file:///partition/file2", 0,
+                "file:///partition/file3", 5);
+        HivePageSourceProvider pageSourceProvider = new HivePageSourceProvider(
+                HIVE_CLIENT_CONFIG,
+                HDFS_ENVIRONMENT,
+                getDefaultHiveRecordCursorProvider(HIVE_CLIENT_CONFIG, METASTORE_CLIENT_CONFIG),
+                ImmutableSet.of(new FixedRowCountPageSourceFactory(fileRowCounts)),
+                ImmutableSet.of(),
+                ImmutableSet.of(),
+                METADATA.getFunctionAndTypeManager(),
+                ROW_EXPRESSION_SERVICE);
+        List<HiveFileSplit> fileSplits = fileRowCounts.keySet().stream()
+                .map(path -> new HiveFileSplit(path, 0, 10, 10, Instant.now().toEpochMilli(), Optional.empty(), ImmutableMap.of(), 0))
+                .collect(toImmutableList());
+        HiveSplit split = makeHiveSplit(
+                ORC,
+                fileSplits.get(0),
+                ImmutableList.of(new HivePartitionKey("ds", Optional.of("2024-01-01"))),
+                Optional.empty(),
+                fileSplits.subList(1, fileSplits.size()));
+
+        RuntimeStats runtimeStats = new RuntimeStats();
+        Map<String, Integer> actualRowCounts = new HashMap<>();
+        try (ConnectorPageSource pageSource = pageSourceProvider.createPageSource(
+                new HiveTransactionHandle(),
+                SESSION,
+                split,
+                getHiveTableLayout(false, false, false),
+                ImmutableList.of(LONG_COLUMN, pathColumnHandle(), PARTITION_COLUMN),
+                new SplitContext(false),
+                runtimeStats)) {
+            assertTrue(pageSource instanceof HiveCombinedSplitPageSource, format("pageSource was %s", pageSource.getClass().getSimpleName()));
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    String path = VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8();
+                    int row = actualRowCounts.merge(path, 1, Integer::sum) - 1;
+                    assertEquals(BIGINT.getLong(page.getBlock(0), position), row);
+                    assertEquals(VARCHAR.getSlice(page.getBlock(2), position).toStringUtf8(), "2024-01-01");
+                }
+            }
+            assertEquals(pageSource.getCompletedPositions(), 8);
+        }
+
+        assertEquals(actualRowCounts, ImmutableMap.of("file:///partition/file1", 3, "file:///partition/file3", 5));
+        assertEquals(runtimeStats.getMetric(COMBINED_SPLIT_FILES_COUNT).getSum(), 3);
+    }
+
     @Test
     public void testWrapsInFilteringPageSourceWhenNoSelectivePageSource()
     {
@@ -500,6 +583,16 @@ public class TestHivePageSourceProvider
                 ImmutableMap.of(),
                 0);
 
+        return makeHiveSplit(hiveStorageFormat, fileSplit, ImmutableList.of(), rowIDPartitionComponent, ImmutableList.of());
+    }
+
+    private static HiveSplit makeHiveSplit(
+            HiveStorageFormat hiveStorageFormat,
+            HiveFileSplit fileSplit,
+            List<HivePartitionKey> partitionKeys,
+            Optional<byte[]> rowIDPartitionComponent,
+            List<HiveFileSplit> additionalFileSplits)
+    {
         return new HiveSplit(
                 fileSplit,
                 SCHEMA_NAME,
@@ -513,7 +606,7 @@ public class TestHivePageSourceProvider
                         false,
                         ImmutableMap.of(),
                         ImmutableMap.of()),
-                ImmutableList.of(),
+                partitionKeys,
                 ImmutableList.of(),
                 OptionalInt.empty(),
                 OptionalInt.empty(),
@@ -526,7 +619,8 @@ public class TestHivePageSourceProvider
                 Optional.empty(),
                 ImmutableSet.of(),
                 SplitWeight.standard(),
-                rowIDPartitionComponent);
+                rowIDPartitionComponent,
+                additionalFileSplits);
     }
 
     static class MockHiveBatchPageSourceFactory
@@ -774,6 +868,45 @@ public class TestHivePageSourceProvider
         }
     }
 
+    private static class FixedRowCountPageSourceFactory
+            implements HiveBatchPageSourceFactory
+    {
+        private final Map<String, Integer> fileRowCounts;
+
+        public FixedRowCountPageSourceFactory(Map<String, Integer> fileRowCounts)
+        {
+            this.fileRowCounts = ImmutableMap.copyOf(fileRowCounts);
+        }
+
+        @Override
+        public Optional<? extends ConnectorPageSource> createPageSource(Configuration configuration,
+                ConnectorSession session,
+                HiveFileSplit fileSplit,
+                Storage storage,
+                SchemaTableName tableName,
+                Map<String, String> tableParameters,
+                List<HiveColumnHandle> columns,
+                TupleDomain<HiveColumnHandle> effectivePredicate,
+                DateTimeZone hiveStorageTimeZone,
+                HiveFileContext hiveFileContext,
+                Optional<EncryptionInformation> encryptionInformation,
+                Optional<byte[]> rowIdPartitionComponent)
+        {
+            // every column holds the row number within the file
+            int rowCount = fileRowCounts.get(fileSplit.getPath());
+            if (rowCount == 0) {
+                return Optional.of(new FixedPageSource(ImmutableList.of()));
+            }
+            long[] values = new long[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = i;
+            }
+            Block[] blocks = new Block[columns.size()];
+            Arrays.fill(blocks, new LongArrayBlock(rowCount, Optional.empty(), values));
+            return Optional.of(new FixedPageSource(ImmutableList.of(new Page(rowCount, blocks))));
+        }
+    }
+
     private static class MockOrcBatchPageSource
             extends MockPageSource {}
 
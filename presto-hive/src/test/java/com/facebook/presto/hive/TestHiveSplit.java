@@ -16,6 +16,7 @@ package com.facebook.presto.hive;
 import com.facebook.airlift.bootstrap.Bootstrap;
 import com.facebook.airlift.json.JsonCodec;
 import com.facebook.airlift.json.JsonModule;
+import com.facebook.airlift.json.JsonObjectMapperProvider;
 import com.facebook.drift.codec.guice.ThriftCodecModule;
 import com.facebook.presto.block.BlockJsonSerde;
 import com.facebook.presto.common.block.Block;
@@ -36,6 +37,8 @@ import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.SplitWeight;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.type.TypeDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -63,6 +66,7 @@ import static com.facebook.presto.metadata.FunctionAndTypeManager.createTestFunc
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
 public class TestHiveSplit
 {
@@ -125,7 +129,8 @@ public class TestHiveSplit
                         "test_provider"))),
                 redundantColumnDomains,
                 SplitWeight.fromProportion(2.0), // some non-standard value
-                Optional.of(rowIdPartitionComponent));
+                Optional.of(rowIdPartitionComponent),
+                ImmutableList.of(new HiveFileSplit("other_path", 0, 12, 12, Instant.now().toEpochMilli(), Optional.empty(), ImmutableMap.of(), 0)));
 
         JsonCodec<HiveSplit> codec = getJsonCodec();
         String json = codec.toJson(expected);
@@ -148,6 +153,67 @@ public class TestHiveSplit
         assertEquals(actual.getEncryptionInformation(), expected.getEncryptionInformation());
         assertEquals(actual.getSplitWeight(), expected.getSplitWeight());
         assertEquals(actual.getRowIdPartitionComponent().get(), expected.getRowIdPartitionComponent().get());
+        assertEquals(actual.getAdditionalFileSplits(), expected.getAdditionalFileSplits());
+    }
+
+    @Test
+    public void testJsonWithoutAdditionalFileSplits()
+            throws Exception
+    {
+        HiveSplit expected = createSplit(new HiveFileSplit("path", 0, 100, 100, 1000, Optional.empty(), ImmutableMap.of(), 0));
+        JsonCodec<HiveSplit> codec = getJsonCodec();
+
+        // splits serialized by a coordinator that does not combine files
+        ObjectMapper mapper = new JsonObjectMapperProvider().get();
+        ObjectNode json = (ObjectNode) mapper.readTree(codec.toJson(expected));
+        json.remove("additionalFileSplits");
+        HiveSplit actual = codec.fromJson(mapper.writeValueAsString(json));
+
+        assertEquals(actual.getFileSplit(), expected.getFileSplit());
+        assertEquals(actual.getAdditionalFileSplits(), ImmutableList.of());
+    }
+
+    @Test
+    public void testSplitIdentifierIncludesFileVersion()
+    {
+        HiveFileSplit fileSplit = new HiveFileSplit("path", 0, 100, 100, 1000, Optional.empty(), ImmutableMap.of(), 0);
+        HiveSplit split = createSplit(fileSplit);
+
+        assertEquals(split.getSplitIdentifier(), createSplit(fileSplit).getSplitIdentifier());
+        // the same file rewritten in place
+        assertNotEquals(split.getSplitIdentifier(), createSplit(new HiveFileSplit("path", 0, 100, 100, 2000, Optional.empty(), ImmutableMap.of(), 0)).getSplitIdentifier());
+        assertNotEquals(split.getSplitIdentifier(), createSplit(new HiveFileSplit("path", 0, 100, 120, 1000, Optional.empty(), ImmutableMap.of(), 0)).getSplitIdentifier());
+    }
+
+    private static HiveSplit createSplit(HiveFileSplit fileSplit)
+    {
+        return new HiveSplit(
+                fileSplit,
+                "db",
+                "table",
+                "partitionId",
+                new Storage(
+                        StorageFormat.create("serde", "input", "output"),
+                        "location",
+                        Optional.empty(),
+                        false,
+                        ImmutableMap.of(),
+                        ImmutableMap.of()),
+                ImmutableList.of(),
+                ImmutableList.of(),
+                OptionalInt.empty(),
+                OptionalInt.empty(),
+                NO_PREFERENCE,
+                10,
+                TableToPartitionMapping.empty(),
+                Optional.empty(),
+                false,
+                NO_CACHE_REQUIREMENT,
+                Optional.empty(),
+                ImmutableSet.of(),
+                SplitWeight.standard(),
+                Optional.empty(),
+                ImmutableList.of());
     }
 
     private JsonCodec<HiveSplit> getJsonCodec()
@@ -533,7 +533,8 @@ public class TestHiveSplitManager
                 new HivePartitionStats(),
                 HiveColumnConverterProvider.DEFAULT_COLUMN_CONVERTER_PROVIDER,
                 new QuickStatsProvider(metastore, HDFS_ENVIRONMENT, DO_NOTHING_DIRECTORY_LISTER, new HiveClientConfig(), new NamenodeStats(), ImmutableList.of()),
-                new HiveTableWritabilityChecker(false));
+                new HiveTableWritabilityChecker(false),
+                new HadoopDirectoryLister());
 
         HiveSplitManager splitManager = new HiveSplitManager(
                 hiveClientConfig.getDateTimeZone(),
@@ -553,7 +554,8 @@ public class TestHiveSplitManager
                 false,
                 new ConfigBasedCacheQuotaRequirementProvider(new CacheConfig()),
                 new HiveEncryptionInformationProvider(ImmutableList.of()),
-                new HivePartitionSkippabilityChecker());
+                new HivePartitionSkippabilityChecker(),
+                false);
 
         HiveColumnHandle partitionColumn = new HiveColumnHandle(
                 "ds",
@@ -682,7 +684,8 @@ public class TestHiveSplitManager
                 new HivePartitionStats(),
                 HiveColumnConverterProvider.DEFAULT_COLUMN_CONVERTER_PROVIDER,
                 new QuickStatsProvider(metastore, HDFS_ENVIRONMENT, DO_NOTHING_DIRECTORY_LISTER, new HiveClientConfig(), new NamenodeStats(), ImmutableList.of()),
-                new HiveTableWritabilityChecker(false));
+                new HiveTableWritabilityChecker(false),
+                new HadoopDirectoryLister());
 
         HiveSplitManager splitManager = new HiveSplitManager(
                 hiveClientConfig.getDateTimeZone(),
@@ -702,7 +705,8 @@ public class TestHiveSplitManager
                 false,
                 new ConfigBasedCacheQuotaRequirementProvider(new CacheConfig()),
                 encryptionInformationProvider,
-                new HivePartitionSkippabilityChecker());
+                new HivePartitionSkippabilityChecker(),
+                false);
 
         HiveColumnHandle partitionColumn = new HiveColumnHandle(
                 "ds",
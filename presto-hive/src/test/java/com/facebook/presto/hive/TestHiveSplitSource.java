@@ -17,10 +17,12 @@ import com.facebook.airlift.stats.CounterStat;
 import com.facebook.airlift.units.DataSize;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
+import com.facebook.presto.testing.TestingConnectorSession;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -48,9 +50,11 @@ import static com.facebook.presto.hive.CacheQuotaScope.TABLE;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getAffinitySchedulingFileSectionSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getMaxInitialSplitSize;
 import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static com.facebook.presto.hive.HiveTestUtils.getAllSessionProperties;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.SOFT_AFFINITY;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.Math.toIntExact;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -65,6 +69,7 @@ public class TestHiveSplitSource
 {
     private static final Executor EXECUTOR = Executors.newFixedThreadPool(5);
     private static final Optional<DataSize> DEFAULT_QUOTA_SIZE = Optional.of(DataSize.succinctDataSize(2, GIGABYTE));
+    private static final byte[] TEST_ROW_ID_PARTITION_COMPONENT = {9, 76, 32, 11};
 
     @Test
     public void testOutstandingSplitCount()
@@ -163,6 +168,60 @@ public class TestHiveSplitSource
         assertEquals(getAffinitySchedulingKey(splits.get(splits.size() - 1)), "path/test-relative-path#2");
     }
 
+    @Test
+    public void testCombineSmallFiles()
+    {
+        ConnectorSession session = new TestingConnectorSession(getAllSessionProperties(
+                new HiveClientConfig()
+                        .setSplitCombiningEnabled(true)
+                        .setMaxFilesPerCombinedSplit(3),
+                new HiveCommonClientConfig()));
+        HiveSplitSource hiveSplitSource = HiveSplitSource.allAtOnce(
+                session,
+                "database",
+                "table",
+                new CacheQuotaRequirement(TABLE, DEFAULT_QUOTA_SIZE),
+                10,
+                10,
+                new DataSize(1, MEGABYTE),
+                new TestingHiveSplitLoader(),
+                EXECUTOR,
+                new CounterStat(),
+                1);
+
+        HiveSplitPartitionInfo firstPartition = partitionInfo(1);
+        HiveSplitPartitionInfo secondPartition = partitionInfo(2);
+        for (int i = 0; i < 4; i++) {
+            hiveSplitSource.addToQueue(new TestSplit("/first-" + i, OptionalInt.empty(), new DataSize(100, BYTE), NO_PREFERENCE, firstPartition));
+        }
+        hiveSplitSource.addToQueue(new TestSplit("/second", OptionalInt.empty(), new DataSize(100, BYTE), NO_PREFERENCE, secondPartition));
+        // larger than the maximum initial split size, so it is split and never combined
+        DataSize largeFileSize = new DataSize(getMaxInitialSplitSize(session).toBytes() + 1, BYTE);
+        hiveSplitSource.addToQueue(new TestSplit("/large", OptionalInt.empty(), largeFileSize, NO_PREFERENCE, secondPartition));
+        assertEquals(hiveSplitSource.getBufferedInternalSplitCount(), 6);
+
+        List<ConnectorSplit> splits = getSplits(hiveSplitSource, 10);
+        // the remainder of the large file is still buffered
+        assertEquals(hiveSplitSource.getBufferedInternalSplitCount(), 1);
+        assertEquals(splits.size(), 4);
+
+        HiveSplit combined = (HiveSplit) splits.get(0);
+        assertEquals(combined.getFileSplits().stream().map(HiveFileSplit::getPath).collect(toImmutableList()), ImmutableList.of("path/first-0", "path/first-1", "path/first-2"));
+        assertEquals(combined.getSplitSizeInBytes().getAsLong(), 300);
+
+        HiveSplit large = (HiveSplit) splits.get(1);
+        assertEquals(large.getFileSplit().getPath(), "path/large");
+        assertTrue(large.getAdditionalFileSplits().isEmpty());
+
+        HiveSplit remainingFirst = (HiveSplit) splits.get(2);
+        assertEquals(remainingFirst.getFileSplit().getPath(), "path/first-3");
+        assertTrue(remainingFirst.getAdditionalFileSplits().isEmpty());
+
+        HiveSplit second = (HiveSplit) splits.get(3);
+        assertEquals(second.getFileSplit().getPath(), "path/second");
+        assertTrue(second.getAdditionalFileSplits().isEmpty());
+    }
+
     private static String getAffinitySchedulingKey(HiveSplit split)
     {
         AtomicReference<String> reference = new AtomicReference<>();
@@ -552,6 +611,26 @@ public class TestHiveSplitSource
         }
     }
 
+    private static HiveSplitPartitionInfo partitionInfo(int id)
+    {
+        return new HiveSplitPartitionInfo(
+                new Storage(
+                        StorageFormat.create("serde", "input", "output"),
+                        "location",
+                        Optional.empty(),
+                        false,
+                        ImmutableMap.of(),
+                        ImmutableMap.of()),
+                "path",
+                ImmutableList.of(),
+                "partition-name",
+                id,
+                TableToPartitionMapping.empty(),
+                Optional.empty(),
+                ImmutableSet.of(),
+                Optional.of(TEST_ROW_ID_PARTITION_COMPONENT));
+    }
+
     private static class TestingHiveSplitLoader
             implements HiveSplitLoader
     {
@@ -569,8 +648,6 @@ public class TestHiveSplitSource
     private static class TestSplit
             extends InternalHiveSplit
     {
-        private static final byte[] TEST_ROW_ID_PARTITION_COMPONENT = {9, 76, 32, 11};
-
         private TestSplit(int id)
         {
             this(id, OptionalInt.empty());
@@ -587,6 +664,11 @@ public class TestHiveSplitSource
         }
 
         private TestSplit(String path, int id, OptionalInt bucketNumber, DataSize fileSize, NodeSelectionStrategy nodeSelectionStrategy)
+        {
+            this(path, bucketNumber, fileSize, nodeSelectionStrategy, partitionInfo(id));
+        }
+
+        private TestSplit(String path, OptionalInt bucketNumber, DataSize fileSize, NodeSelectionStrategy nodeSelectionStrategy, HiveSplitPartitionInfo partitionInfo)
         {
             super(
                     path,
@@ -601,22 +683,7 @@ public class TestHiveSplitSource
                     true,
                     nodeSelectionStrategy,
                     false,
-                    new HiveSplitPartitionInfo(
-                            new Storage(
-                                    StorageFormat.create("serde", "input", "output"),
-                                    "location",
-                                    Optional.empty(),
-                                    false,
-                                    ImmutableMap.of(),
-                                    ImmutableMap.of()),
-                            "path",
-                            ImmutableList.of(),
-                            "partition-name",
-                            id,
-                            TableToPartitionMapping.empty(),
-                            Optional.empty(),
-                            ImmutableSet.of(),
-                            Optional.of(TEST_ROW_ID_PARTITION_COMPONENT)),
+                    partitionInfo,
                     Optional.empty(),
                     Optional.empty(),
                     ImmutableMap.of());
@@ -65,7 +65,8 @@ public class TestOrcFileWriterConfig
                 .setStringDictionaryEncodingEnabled(true)
                 .setStringDictionarySortingEnabled(true)
                 .setFlatMapWriterEnabled(false)
-                .setAddHostnameToFileMetadataEnabled(true));
+                .setAddHostnameToFileMetadataEnabled(true)
+                .setColumnEncodingThreads(0));
     }
 
     @Test
@@ -89,6 +90,7 @@ public class TestOrcFileWriterConfig
                 .put("hive.orc.writer.string-dictionary-sorting-enabled", "false")
                 .put("hive.orc.writer.flat-map-writer-enabled", "true")
                 .put("hive.orc.writer.add-hostname-to-file-metadata-enabled", "false")
+                .put("hive.orc.writer.column-encoding-threads", "8")
                 .build();
 
         OrcFileWriterConfig expected = new OrcFileWriterConfig()
@@ -108,7 +110,8 @@ public class TestOrcFileWriterConfig
                 .setStringDictionaryEncodingEnabled(false)
                 .setStringDictionarySortingEnabled(false)
                 .setFlatMapWriterEnabled(true)
-                .setAddHostnameToFileMetadataEnabled(false);
+                .setAddHostnameToFileMetadataEnabled(false)
+                .setColumnEncodingThreads(8);
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.hive.filesystem.ExtendedFileSystem;
+import com.facebook.presto.hive.metastore.Partition;
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.security.ConnectorIdentity;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static com.facebook.presto.common.RuntimeMetricName.DIRECTORY_LISTING_PREFETCH_WAIT_TIME_NANOS;
+import static com.facebook.presto.hive.HiveFileInfo.createHiveFileInfo;
+import static com.facebook.presto.hive.NestedDirectoryPolicy.IGNORED;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+public class TestPrefetchingDirectoryLister
+{
+    private static final Path PATH = new Path("hdfs://hadoop:9000/db_name/table_name/ds=2024-01-01");
+
+    @Test
+    public void testListingStartsOnExecutor()
+    {
+        TrackingDirectoryLister delegate = new TrackingDirectoryLister(createFiles(3), false);
+        RuntimeStats runtimeStats = new RuntimeStats();
+        NamenodeStats namenodeStats = new NamenodeStats();
+
+        Iterator<HiveFileInfo> iterator = new PrefetchingDirectoryLister(delegate, directExecutor())
+                .list(null, null, PATH, Optional.empty(), namenodeStats, createDirectoryContext(runtimeStats));
+
+        // the first listing call has already been made before the consumer touches the iterator
+        assertEquals(delegate.getHasNextCalls(), 1);
+        assertEquals(ImmutableList.copyOf(iterator), delegate.getFiles());
+        assertEquals(namenodeStats.getListingPrefetchWait().getAllTime().getCount(), 1.0);
+        assertEquals(runtimeStats.getMetric(DIRECTORY_LISTING_PREFETCH_WAIT_TIME_NANOS).getCount(), 1);
+    }
+
+    @Test
+    public void testConsumerRunsListingWhenExecutorIsBusy()
+    {
+        TrackingDirectoryLister delegate = new TrackingDirectoryLister(createFiles(2), false);
+        // an executor that never gets to the prefetch must not block the consumer
+        Executor stalledExecutor = command -> {};
+
+        Iterator<HiveFileInfo> iterator = new PrefetchingDirectoryLister(delegate, stalledExecutor)
+                .list(null, null, PATH, Optional.empty(), new NamenodeStats(), createDirectoryContext(new RuntimeStats()));
+
+        assertEquals(delegate.getHasNextCalls(), 0);
+        assertEquals(ImmutableList.copyOf(iterator), delegate.getFiles());
+    }
+
+    @Test
+    public void testEmptyListing()
+    {
+        TrackingDirectoryLister delegate = new TrackingDirectoryLister(ImmutableList.of(), false);
+        Iterator<HiveFileInfo> iterator = new PrefetchingDirectoryLister(delegate, directExecutor())
+                .list(null, null, PATH, Optional.empty(), new NamenodeStats(), createDirectoryContext(new RuntimeStats()));
+
+        assertFalse(iterator.hasNext());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testListingFailureIsRethrownToConsumer()
+    {
+        TrackingDirectoryLister delegate = new TrackingDirectoryLister(createFiles(1), true);
+        Iterator<HiveFileInfo> iterator = new PrefetchingDirectoryLister(delegate, directExecutor())
+                .list(null, null, PATH, Optional.empty(), new NamenodeStats(), createDirectoryContext(new RuntimeStats()));
+
+        assertThrows(UncheckedIOException.class, iterator::hasNext);
+    }
+
+    private static HiveDirectoryContext createDirectoryContext(RuntimeStats runtimeStats)
+    {
+        return new HiveDirectoryContext(
+                IGNORED,
+                false,
+                false,
+                new ConnectorIdentity("test", Optional.empty(), Optional.empty()),
+                ImmutableMap.of(),
+                runtimeStats);
+    }
+
+    private static List<HiveFileInfo> createFiles(int count)
+    {
+        ImmutableList.Builder<HiveFileInfo> files = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            try {
+                files.add(createHiveFileInfo(
+                        new LocatedFileStatus(new FileStatus(0, false, 1, 0, 0, new Path(PATH, "file_" + i)), new BlockLocation[] {}),
+                        Optional.empty()));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return files.build();
+    }
+
+    private static class TrackingDirectoryLister
+            implements DirectoryLister
+    {
+        private final List<HiveFileInfo> files;
+        private final boolean failListing;
+        private int hasNextCalls;
+
+        public TrackingDirectoryLister(List<HiveFileInfo> files, boolean failListing)
+        {
+            this.files = files;
+            this.failListing = failListing;
+        }
+
+        @Override
+        public Iterator<HiveFileInfo> list(ExtendedFileSystem fileSystem, Table table, Path path, Optional<Partition> partition, NamenodeStats namenodeStats, HiveDirectoryContext hiveDirectoryContext)
+        {
+            Iterator<HiveFileInfo> iterator = files.iterator();
+            return new Iterator<HiveFileInfo>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    hasNextCalls++;
+                    if (failListing) {
+                        throw new UncheckedIOException(new IOException("listing failed"));
+                    }
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public HiveFileInfo next()
+                {
+                    return iterator.next();
+                }
+            };
+        }
+
+        public List<HiveFileInfo> getFiles()
+        {
+            return files;
+        }
+
+        public int getHasNextCalls()
+        {
+            return hasNextCalls;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.io.OutputStreamDataSink;
+import com.facebook.presto.common.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.airlift.units.DataSize.Unit.BYTE;
+import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.hive.HiveTestUtils.PAGE_SORTER;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSortingFileWriter
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, BIGINT);
+
+    private File tempDir;
+    private FileSystem fileSystem;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        tempDir = Files.createTempDir();
+        fileSystem = FileSystem.getLocal(new Configuration()).getRawFileSystem();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testSortedInputSpilledToManyTempFiles()
+    {
+        // pages of different sizes, so the temp files are not ordered by size
+        List<Page> pages = ImmutableList.of(
+                createPage(keys(0, 30), 0),
+                createPage(keys(30, 35), 30),
+                createPage(keys(35, 55), 35),
+                createPage(keys(55, 57), 55),
+                createPage(keys(57, 100), 57));
+
+        HiveWriterStats stats = new HiveWriterStats();
+        CollectingFileWriter output = new CollectingFileWriter();
+        SortingFileWriter writer = createSortingFileWriter(output, stats);
+        pages.forEach(writer::appendRows);
+        writer.commit();
+
+        // every page was flushed to its own temp file, and the runs were concatenated in input order
+        assertTrue(stats.getSortTempFileBytes().getTotalCount() > 0);
+        assertEquals(stats.getSortedInputWrites().getTotalCount(), 1);
+        assertRows(output.getPages(), keys(0, 100), keys(0, 100));
+        assertTempFilesRemoved();
+    }
+
+    @Test
+    public void testInputUnsortedAfterFlush()
+    {
+        List<Page> pages = ImmutableList.of(
+                createPage(keys(0, 10), 0),
+                createPage(keys(10, 20), 10),
+                createPage(keys(20, 30), 20),
+                // out of order once three temp files were already written in input order
+                createPage(new long[] {25, 5, 15}, 30),
+                createPage(keys(30, 40), 33));
+
+        HiveWriterStats stats = new HiveWriterStats();
+        CollectingFileWriter output = new CollectingFileWriter();
+        SortingFileWriter writer = createSortingFileWriter(output, stats);
+        pages.forEach(writer::appendRows);
+        writer.commit();
+
+        assertEquals(stats.getSortedInputWrites().getTotalCount(), 0);
+        List<Long> keys = getColumn(output.getPages(), 0);
+        assertEquals(keys.size(), 43);
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1) <= keys.get(i), "output is not sorted at position " + i);
+        }
+        assertTempFilesRemoved();
+    }
+
+    @Test
+    public void testEqualKeysAtPageBoundaries()
+    {
+        List<Page> pages = ImmutableList.of(
+                createPage(new long[] {0, 1, 1}, 0),
+                createPage(new long[] {1, 1, 2}, 3),
+                createPage(new long[] {2, 2, 2}, 6),
+                createPage(new long[] {2, 3, 3}, 9));
+
+        HiveWriterStats stats = new HiveWriterStats();
+        CollectingFileWriter output = new CollectingFileWriter();
+        SortingFileWriter writer = createSortingFileWriter(output, stats);
+        pages.forEach(writer::appendRows);
+        writer.commit();
+
+        // equal keys do not break the sorted run, and rows with equal keys keep their input order
+        assertEquals(stats.getSortedInputWrites().getTotalCount(), 1);
+        assertRows(output.getPages(), new long[] {0, 1, 1, 1, 1, 2, 2, 2, 2, 2, 3, 3}, keys(0, 12));
+        assertTempFilesRemoved();
+    }
+
+    private SortingFileWriter createSortingFileWriter(HiveFileWriter outputWriter, HiveWriterStats stats)
+    {
+        // a one byte buffer spills every page to its own temp file
+        return new SortingFileWriter(
+                fileSystem,
+                new Path(new File(tempDir, "sorting").toURI()),
+                outputWriter,
+                new DataSize(1, BYTE),
+                2,
+                TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_FIRST),
+                PAGE_SORTER,
+                (fs, path) -> new OutputStreamDataSink(fs.create(path)),
+                false,
+                stats);
+    }
+
+    private void assertTempFilesRemoved()
+    {
+        String[] files = tempDir.list();
+        assertEquals(files == null ? 0 : files.length, 0);
+    }
+
+    private static void assertRows(List<Page> pages, long[] expectedKeys, long[] expectedValues)
+    {
+        assertEquals(getColumn(pages, 0), asList(expectedKeys));
+        assertEquals(getColumn(pages, 1), asList(expectedValues));
+    }
+
+    private static List<Long> getColumn(List<Page> pages, int channel)
+    {
+        List<Long> values = new ArrayList<>();
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                values.add(BIGINT.getLong(page.getBlock(channel), position));
+            }
+        }
+        return values;
+    }
+
+    private static List<Long> asList(long[] values)
+    {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static long[] keys(int start, int end)
+    {
+        long[] keys = new long[end - start];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = start + i;
+        }
+        return keys;
+    }
+
+    private static Page createPage(long[] keys, long firstValue)
+    {
+        BlockBuilder keyBuilder = BIGINT.createBlockBuilder(null, keys.length);
+        BlockBuilder valueBuilder = BIGINT.createBlockBuilder(null, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            BIGINT.writeLong(keyBuilder, keys[i]);
+            BIGINT.writeLong(valueBuilder, firstValue + i);
+        }
+        return new Page(keyBuilder.build(), valueBuilder.build());
+    }
+
+    private static class CollectingFileWriter
+            implements HiveFileWriter
+    {
+        private final List<Page> pages = new ArrayList<>();
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+
+        @Override
+        public long getWrittenBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return 0;
+        }
+
+        @Override
+        public void appendRows(Page dataPage)
+        {
+            pages.add(dataPage);
+        }
+
+        @Override
+        public Optional<Page> commit()
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public void rollback() {}
+
+        @Override
+        public long getValidationCpuNanos()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getFileSizeInBytes()
+        {
+            return 0;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.facebook.presto.hive.metastore.thrift.HiveCluster;
 import com.facebook.presto.hive.metastore.thrift.HiveMetastoreClient;
 import com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient;
 import com.facebook.presto.hive.metastore.thrift.ThriftHiveMetastore;
+import com.facebook.presto.hive.metastore.MetastoreCacheEntryTracker.MetastoreCacheEntry;
 import com.facebook.presto.hive.metastore.thrift.ThriftHiveMetastoreStats;
 import com.facebook.presto.spi.constraints.NotNullConstraint;
 import com.facebook.presto.spi.constraints.PrimaryKeyConstraint;
@@ -30,6 +31,7 @@ import com.facebook.presto.spi.constraints.TableConstraint;
 import com.facebook.presto.spi.constraints.UniqueConstraint;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import org.testng.annotations.BeforeMethod;
@@ -39,12 +41,17 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
 import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.ALL;
+import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.DATABASE_NAMES;
 import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.PARTITION;
 import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.PARTITION_STATISTICS;
 import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheType.TABLE;
@@ -65,6 +72,8 @@ import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_ROLES;
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_TABLE;
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_TABLE_WITH_CONSTRAINTS;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.function.UnaryOperator.identity;
@@ -77,6 +86,7 @@ import static org.testng.Assert.assertTrue;
 @Test(singleThreaded = true)
 public class TestInMemoryCachingHiveMetastore
 {
+    private static final long STALE_WHILE_REVALIDATE_TTL_MILLIS = 200;
     private static final ImmutableList<PartitionNameWithVersion> EXPECTED_PARTITIONS = ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1, TEST_PARTITION_NAME_WITH_VERSION2);
 
     private MockHiveMetastoreClient mockClient;
@@ -657,6 +667,226 @@ public class TestInMemoryCachingHiveMetastore
         assertEquals(mockClient.getAccessCount(), 9);
     }
 
+    @Test(timeOut = 60_000)
+    public void testConcurrentPartitionLoadsAreCoalesced()
+            throws Exception
+    {
+        MetastoreClientConfig metastoreClientConfig = new MetastoreClientConfig();
+        metastoreClientConfig.setDefaultMetastoreCacheTtl(new Duration(5, TimeUnit.MINUTES));
+        metastoreClientConfig.setMetastoreCacheMaximumSize(1000);
+        metastoreClientConfig.setEnabledCaches(PARTITION.name());
+
+        BlockingPartitionMetastore delegate = new BlockingPartitionMetastore();
+        HiveMetastoreCacheStats cacheStats = new HiveMetastoreCacheStats();
+        InMemoryCachingHiveMetastore cachingMetastore = new InMemoryCachingHiveMetastore(
+                delegate,
+                listeningDecorator(newCachedThreadPool(daemonThreadsNamed("test-%s"))),
+                false,
+                1000,
+                false,
+                0.0,
+                metastoreClientConfig.getPartitionCacheColumnCountLimit(),
+                cacheStats,
+                new MetastoreCacheSpecProvider(metastoreClientConfig));
+
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-coalescing-%s"));
+        try {
+            Future<Map<String, Optional<Partition>>> first = executor.submit(() -> cachingMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS));
+            delegate.awaitLoadStarted();
+
+            // the second request finds both partitions in flight and waits for the first load
+            Future<Map<String, Optional<Partition>>> second = executor.submit(() -> cachingMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS));
+            while (cacheStats.getCoalescedPartitionLoads().getTotalCount() < 2) {
+                Thread.sleep(10);
+            }
+            delegate.releaseLoads();
+
+            assertEquals(first.get().keySet(), ImmutableSet.of(TEST_PARTITION1, TEST_PARTITION2));
+            assertEquals(second.get().keySet(), ImmutableSet.of(TEST_PARTITION1, TEST_PARTITION2));
+            assertEquals(delegate.getLoadCount(), 1);
+            assertEquals(cacheStats.getPartitionsByNamesLoadTime().getAllTime().getCount(), 1.0);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 60_000)
+    public void testStaleEntryIsServedWhileRefreshing()
+            throws Exception
+    {
+        VersionedDatabaseMetastore delegate = new VersionedDatabaseMetastore();
+        InMemoryCachingHiveMetastore cachingMetastore = createStaleWhileRevalidateMetastore(delegate);
+
+        assertEquals(cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT), ImmutableList.of("database_1"));
+        assertEquals(delegate.getLoadCount(), 1);
+
+        // once the entry is older than the TTL, the next access starts a refresh that blocks in the metastore
+        Thread.sleep(STALE_WHILE_REVALIDATE_TTL_MILLIS * 2);
+        delegate.blockLoads();
+        assertEquals(cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT), ImmutableList.of("database_1"));
+        delegate.awaitLoadStarted();
+
+        // the stale entry keeps being served without another metastore call while the refresh runs
+        assertEquals(cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT), ImmutableList.of("database_1"));
+        assertEquals(delegate.getLoadCount(), 2);
+        MetastoreCacheEntry entry = getOnlyElement(cachingMetastore.getCacheEntries());
+        assertEquals(entry.getCacheType(), DATABASE_NAMES);
+        assertTrue(entry.isStale());
+
+        delegate.releaseLoads();
+        while (!cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT).equals(ImmutableList.of("database_2"))) {
+            Thread.sleep(10);
+        }
+        assertFalse(getOnlyElement(cachingMetastore.getCacheEntries()).isStale());
+    }
+
+    @Test(timeOut = 60_000)
+    public void testFailedRefreshDoesNotPoisonCache()
+            throws Exception
+    {
+        VersionedDatabaseMetastore delegate = new VersionedDatabaseMetastore();
+        InMemoryCachingHiveMetastore cachingMetastore = createStaleWhileRevalidateMetastore(delegate);
+
+        assertEquals(cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT), ImmutableList.of("database_1"));
+
+        Thread.sleep(STALE_WHILE_REVALIDATE_TTL_MILLIS * 2);
+        delegate.failLoads(true);
+        assertEquals(cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT), ImmutableList.of("database_1"));
+        while (getOnlyElement(cachingMetastore.getCacheEntries()).getRefreshFailures() == 0) {
+            Thread.sleep(10);
+        }
+
+        // the failure is recorded, but the previous value is still served instead of the error
+        MetastoreCacheEntry entry = getOnlyElement(cachingMetastore.getCacheEntries());
+        assertEquals(entry.getLastRefreshFailure(), Optional.of("metastore unavailable"));
+        assertEquals(cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT), ImmutableList.of("database_1"));
+
+        // the next access after the metastore recovers refreshes the entry again
+        delegate.failLoads(false);
+        while (cachingMetastore.getAllDatabases(TEST_METASTORE_CONTEXT).equals(ImmutableList.of("database_1"))) {
+            Thread.sleep(10);
+        }
+        assertEquals(getOnlyElement(cachingMetastore.getCacheEntries()).getRefreshFailures(), 0);
+    }
+
+    private static InMemoryCachingHiveMetastore createStaleWhileRevalidateMetastore(ExtendedHiveMetastore delegate)
+    {
+        MetastoreClientConfig metastoreClientConfig = new MetastoreClientConfig();
+        metastoreClientConfig.setDefaultMetastoreCacheTtl(new Duration(STALE_WHILE_REVALIDATE_TTL_MILLIS, TimeUnit.MILLISECONDS));
+        metastoreClientConfig.setDefaultMetastoreCacheMaxStaleness(new Duration(1, TimeUnit.HOURS));
+        metastoreClientConfig.setMetastoreCacheMaximumSize(1000);
+        metastoreClientConfig.setEnabledCaches(DATABASE_NAMES.name());
+
+        return new InMemoryCachingHiveMetastore(
+                delegate,
+                listeningDecorator(newCachedThreadPool(daemonThreadsNamed("test-%s"))),
+                false,
+                1000,
+                false,
+                0.0,
+                metastoreClientConfig.getPartitionCacheColumnCountLimit(),
+                NOOP_METASTORE_CACHE_STATS,
+                new MetastoreCacheSpecProvider(metastoreClientConfig));
+    }
+
+    private static class VersionedDatabaseMetastore
+            extends UnimplementedHiveMetastore
+    {
+        private final AtomicInteger loadCount = new AtomicInteger();
+        private final CountDownLatch loadStarted = new CountDownLatch(1);
+        private final CountDownLatch loadsReleased = new CountDownLatch(1);
+        private volatile boolean blockLoads;
+        private volatile boolean failLoads;
+
+        @Override
+        public List<String> getAllDatabases(MetastoreContext metastoreContext)
+        {
+            int version = loadCount.incrementAndGet();
+            if (blockLoads) {
+                loadStarted.countDown();
+                try {
+                    loadsReleased.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            if (failLoads) {
+                throw new IllegalStateException("metastore unavailable");
+            }
+            return ImmutableList.of("database_" + version);
+        }
+
+        public void blockLoads()
+        {
+            blockLoads = true;
+        }
+
+        public void awaitLoadStarted()
+                throws InterruptedException
+        {
+            loadStarted.await();
+        }
+
+        public void releaseLoads()
+        {
+            blockLoads = false;
+            loadsReleased.countDown();
+        }
+
+        public void failLoads(boolean failLoads)
+        {
+            this.failLoads = failLoads;
+        }
+
+        public int getLoadCount()
+        {
+            return loadCount.get();
+        }
+    }
+
+    private static class BlockingPartitionMetastore
+            extends UnimplementedHiveMetastore
+    {
+        private final CountDownLatch loadStarted = new CountDownLatch(1);
+        private final CountDownLatch loadsReleased = new CountDownLatch(1);
+        private final AtomicInteger loadCount = new AtomicInteger();
+
+        @Override
+        public Map<String, Optional<Partition>> getPartitionsByNames(MetastoreContext metastoreContext, String databaseName, String tableName, List<PartitionNameWithVersion> partitionNames)
+        {
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                loadsReleased.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            return partitionNames.stream()
+                    .collect(toImmutableMap(PartitionNameWithVersion::getPartitionName, partitionName -> Optional.empty()));
+        }
+
+        public void awaitLoadStarted()
+                throws InterruptedException
+        {
+            loadStarted.await();
+        }
+
+        public void releaseLoads()
+        {
+            loadsReleased.countDown();
+        }
+
+        public int getLoadCount()
+        {
+            return loadCount.get();
+        }
+    }
+
     public static class MockHiveCluster
             implements HiveCluster
     {
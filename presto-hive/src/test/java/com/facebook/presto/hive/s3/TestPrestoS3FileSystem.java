@@ -43,6 +43,7 @@ import com.google.common.base.VerifyException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
@@ -58,10 +59,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -87,6 +90,8 @@ import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_STAGING_DIRE
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_PREFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USER_AGENT_SUFFIX;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_USE_INSTANCE_CREDENTIALS;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_VECTORED_READ_MAX_MERGED_SIZE;
+import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_VECTORED_READ_MIN_SEEK_SIZE;
 import static com.facebook.presto.hive.s3.S3ConfigurationUpdater.S3_WEB_IDENTITY_ENABLED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.io.MoreFiles.deleteRecursively;
@@ -96,6 +101,7 @@ import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.nio.file.Files.createTempDirectory;
 import static java.nio.file.Files.createTempFile;
+import static org.apache.hadoop.fs.FileRange.createFileRange;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
@@ -788,6 +794,65 @@ public class TestPrestoS3FileSystem
         }
     }
 
+    @Test
+    public void testReadVectored()
+            throws Exception
+    {
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        List<long[]> requestedRanges = Collections.synchronizedList(new ArrayList<>());
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3()
+            {
+                @Override
+                public S3Object getObject(GetObjectRequest req)
+                {
+                    long[] range = req.getRange();
+                    requestedRanges.add(range);
+                    return new S3Object()
+                    {
+                        @Override
+                        public S3ObjectInputStream getObjectContent()
+                        {
+                            return new S3ObjectInputStream(new ByteArrayInputStream(data, (int) range[0], (int) (range[1] - range[0] + 1)), null);
+                        }
+                    };
+                }
+            };
+            Configuration configuration = new Configuration();
+            configuration.setLong(S3_VECTORED_READ_MIN_SEEK_SIZE, 100);
+            configuration.setLong(S3_VECTORED_READ_MAX_MERGED_SIZE, 1024);
+            fs.initialize(new URI("s3n://test-bucket/"), configuration);
+            fs.setS3Client(s3);
+
+            PrestoS3FileSystemStats stats = PrestoS3FileSystem.getFileSystemStats();
+            long requests = stats.getVectoredReadRequests().getTotalCount();
+            long overReadBytes = stats.getVectoredReadOverReadBytes().getTotalCount();
+
+            // the first two ranges are fetched together, the others are too far apart or would make the request too large
+            List<FileRange> ranges = Arrays.asList(
+                    createFileRange(1000, 100),
+                    createFileRange(0, 100),
+                    createFileRange(150, 100),
+                    createFileRange(1150, 1000));
+            try (FSDataInputStream inputStream = fs.open(new Path("s3n://test-bucket/test"))) {
+                inputStream.readVectored(ranges, ByteBuffer::allocate);
+                for (FileRange range : ranges) {
+                    ByteBuffer buffer = range.getData().get();
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    assertEquals(bytes, Arrays.copyOfRange(data, (int) range.getOffset(), (int) range.getOffset() + range.getLength()));
+                }
+            }
+
+            assertEquals(requestedRanges.size(), 3);
+            assertEquals(stats.getVectoredReadRequests().getTotalCount() - requests, 3);
+            assertEquals(stats.getVectoredReadOverReadBytes().getTotalCount() - overReadBytes, 50);
+        }
+    }
+
     @Test
     public void testListPrefixModes()
             throws Exception
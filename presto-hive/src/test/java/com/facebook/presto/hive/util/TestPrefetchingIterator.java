@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+public class TestPrefetchingIterator
+{
+    @Test
+    public void testResultsInSourceOrder()
+    {
+        Iterable<Integer> results = PrefetchingIterator.prefetch(ImmutableList.of(1, 2, 3, 4, 5), value -> value * 10, 2, directExecutor());
+        assertEquals(ImmutableList.copyOf(results), ImmutableList.of(10, 20, 30, 40, 50));
+    }
+
+    @Test
+    public void testLoadsAheadOfConsumer()
+    {
+        List<Integer> loaded = new ArrayList<>();
+        Iterator<Integer> iterator = new PrefetchingIterator<>(ImmutableList.of(1, 2, 3, 4, 5).iterator(), value -> {
+            loaded.add(value);
+            return value;
+        }, 2, directExecutor());
+
+        assertEquals(iterator.next(), (Integer) 1);
+        // the current element and the two after it have been loaded
+        assertEquals(loaded, ImmutableList.of(1, 2, 3));
+        assertEquals(iterator.next(), (Integer) 2);
+        assertEquals(loaded, ImmutableList.of(1, 2, 3, 4));
+    }
+
+    @Test
+    public void testConsumerLoadsWhenExecutorIsBusy()
+    {
+        // an executor that never gets to the loads must not block the consumer
+        Executor stalledExecutor = command -> {};
+        Iterable<Integer> results = PrefetchingIterator.prefetch(ImmutableList.of(1, 2, 3), value -> value + 1, 4, stalledExecutor);
+        assertEquals(ImmutableList.copyOf(results), ImmutableList.of(2, 3, 4));
+    }
+
+    @Test
+    public void testLoadFailureIsRethrownToConsumer()
+    {
+        Iterator<Integer> iterator = new PrefetchingIterator<>(ImmutableList.of(1, 2).iterator(), value -> {
+            if (value == 2) {
+                throw new IllegalStateException("load failed");
+            }
+            return value;
+        }, 1, directExecutor());
+
+        assertEquals(iterator.next(), (Integer) 1);
+        assertThrows(IllegalStateException.class, iterator::next);
+    }
+
+    @Test
+    public void testCloseCancelsPendingLoads()
+    {
+        List<Runnable> queued = new ArrayList<>();
+        List<Integer> loaded = new ArrayList<>();
+        PrefetchingIterator<Integer, Integer> iterator = new PrefetchingIterator<>(ImmutableList.of(1, 2, 3, 4).iterator(), value -> {
+            loaded.add(value);
+            return value;
+        }, 2, queued::add);
+
+        // the consumer loads the first element itself, the next two are left queued on the executor
+        assertEquals(iterator.next(), (Integer) 1);
+        assertEquals(loaded, ImmutableList.of(1));
+
+        iterator.close();
+        queued.forEach(Runnable::run);
+        assertEquals(loaded, ImmutableList.of(1));
+        assertFalse(iterator.hasNext());
+    }
+}
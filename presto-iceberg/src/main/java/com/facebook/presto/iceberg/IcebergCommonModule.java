@@ -30,6 +30,7 @@ import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveDwrfEncryptionProvider;
 import com.facebook.presto.hive.HiveHdfsConfiguration;
 import com.facebook.presto.hive.HiveNodePartitioningProvider;
+import com.facebook.presto.hive.HiveWriterStats;
 import com.facebook.presto.hive.MetastoreClientConfig;
 import com.facebook.presto.hive.OrcFileWriterConfig;
 import com.facebook.presto.hive.OrcFileWriterFactory;
@@ -71,7 +72,9 @@ import com.facebook.presto.orc.StripeReader;
 import com.facebook.presto.orc.UnsupportedEncryptionLibrary;
 import com.facebook.presto.orc.cache.CachingOrcFileTailSource;
 import com.facebook.presto.orc.cache.OrcCacheConfig;
+import com.facebook.presto.orc.cache.OrcFileTailCacheWriterExecutor;
 import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.PersistentOrcFileTailSource;
 import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.OrcFileTail;
 import com.facebook.presto.orc.metadata.RowGroupIndex;
@@ -101,6 +104,7 @@ import jakarta.inject.Singleton;
 import org.weakref.jmx.MBeanExporter;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -112,6 +116,7 @@ import static com.facebook.presto.common.Utils.checkArgument;
 import static com.facebook.presto.iceberg.CatalogType.HADOOP;
 import static com.facebook.presto.orc.StripeMetadataSource.CacheableRowGroupIndices;
 import static com.facebook.presto.orc.StripeMetadataSource.CacheableSlice;
+import static com.facebook.presto.orc.cache.OrcFileTailCacheWriterExecutor.DEFAULT_MAX_QUEUED_WRITES;
 import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static com.google.inject.multibindings.OptionalBinder.newOptionalBinder;
@@ -167,6 +172,8 @@ public class IcebergCommonModule
         binder.bind(ConnectorPageSourceProvider.class).to(IcebergPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(DataSinkFactory.class).to(OutputStreamDataSinkFactory.class).in(Scopes.SINGLETON);
         binder.bind(OrcFileWriterFactory.class).in(Scopes.SINGLETON);
+        binder.bind(HiveWriterStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(HiveWriterStats.class).as(generatedNameOf(HiveWriterStats.class, connectorId));
         binder.bind(SortParameters.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorPageSinkProvider.class).to(IcebergPageSinkProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorNodePartitioningProvider.class).to(HiveNodePartitioningProvider.class).in(Scopes.SINGLETON);
@@ -273,11 +280,29 @@ public class IcebergCommonModule
 
     @Singleton
     @Provides
-    public OrcFileTailSource createOrcFileTailSource(OrcCacheConfig orcCacheConfig, MBeanExporter exporter)
+    public OrcFileTailCacheWriterExecutor createOrcFileTailCacheWriterExecutor()
+    {
+        return new OrcFileTailCacheWriterExecutor(
+                daemonThreadsNamed("orc-file-tail-cache-writer-" + connectorId + "-%s"),
+                DEFAULT_MAX_QUEUED_WRITES);
+    }
+
+    @Singleton
+    @Provides
+    public OrcFileTailSource createOrcFileTailSource(OrcCacheConfig orcCacheConfig, OrcFileTailCacheWriterExecutor orcFileTailCacheWriterExecutor, MBeanExporter exporter)
     {
         int expectedFileTailSizeInBytes = toIntExact(orcCacheConfig.getExpectedFileTailSize().toBytes());
         boolean dwrfStripeCacheEnabled = orcCacheConfig.isDwrfStripeCacheEnabled();
         OrcFileTailSource orcFileTailSource = new StorageOrcFileTailSource(expectedFileTailSizeInBytes, dwrfStripeCacheEnabled);
+        if (orcCacheConfig.isFileTailPersistentCacheEnabled()) {
+            PersistentOrcFileTailSource persistentOrcFileTailSource = new PersistentOrcFileTailSource(
+                    orcFileTailSource,
+                    Paths.get(orcCacheConfig.getFileTailPersistentCacheDirectory(), connectorId),
+                    orcCacheConfig.getFileTailPersistentCacheSize().toBytes(),
+                    orcFileTailCacheWriterExecutor);
+            orcFileTailSource = persistentOrcFileTailSource;
+            exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_OrcFileTailPersistent"), new CacheStatsMBean(persistentOrcFileTailSource::getSize, persistentOrcFileTailSource::getStats));
+        }
         if (orcCacheConfig.isFileTailCacheEnabled()) {
             Cache<OrcDataSourceId, OrcFileTail> cache = CacheBuilder.newBuilder()
                     .maximumWeight(orcCacheConfig.getFileTailCacheSize().toBytes())
@@ -56,7 +56,8 @@ public class IcebergSortingFileWriter
                 sortOrders,
                 sortParameters.getPageSorter(),
                 (fs, p) -> sortParameters.getOrcFileWriterFactory().createDataSink(session, fs, p),
-                sortedWriteToTempPathEnabled);
+                sortedWriteToTempPathEnabled,
+                sortParameters.getHiveWriterStats());
     }
 
     @Override
@@ -15,6 +15,7 @@
 package com.facebook.presto.iceberg;
 
 import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.hive.HiveWriterStats;
 import com.facebook.presto.hive.OrcFileWriterFactory;
 import com.facebook.presto.hive.SortingFileWriterConfig;
 import com.facebook.presto.spi.PageSorter;
@@ -26,14 +27,16 @@ public class SortParameters
     private final PageSorter pageSorter;
     private final OrcFileWriterFactory orcFileWriterFactory;
     private final SortingFileWriterConfig sortingFileWriterConfig;
+    private final HiveWriterStats hiveWriterStats;
 
     @Inject
-    public SortParameters(SortingFileWriterConfig sortingFileWriterConfig, TypeManager typeManager, PageSorter pageSorter, OrcFileWriterFactory orcFileWriterFactory)
+    public SortParameters(SortingFileWriterConfig sortingFileWriterConfig, TypeManager typeManager, PageSorter pageSorter, OrcFileWriterFactory orcFileWriterFactory, HiveWriterStats hiveWriterStats)
     {
         this.sortingFileWriterConfig = sortingFileWriterConfig;
         this.typeManager = typeManager;
         this.pageSorter = pageSorter;
         this.orcFileWriterFactory = orcFileWriterFactory;
+        this.hiveWriterStats = hiveWriterStats;
     }
 
     public TypeManager getTypeManager()
@@ -55,4 +58,9 @@ public class SortParameters
     {
         return sortingFileWriterConfig;
     }
+
+    public HiveWriterStats getHiveWriterStats()
+    {
+        return hiveWriterStats;
+    }
 }
@@ -22,6 +22,7 @@ import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.Properties;
 
+import static com.facebook.presto.jdbc.ConnectionProperties.BINARY_RESULTS;
 import static com.facebook.presto.jdbc.ConnectionProperties.CLIENT_TAGS;
 import static com.facebook.presto.jdbc.ConnectionProperties.CUSTOM_HEADERS;
 import static com.facebook.presto.jdbc.ConnectionProperties.DISABLE_COMPRESSION;
@@ -348,6 +349,21 @@ public class TestPrestoDriverUri
         assertInvalid("presto://localhost:8080/blackhole?validateNextUriSource=ANOTHERVALUE", "Connection property 'validateNextUriSource' value is invalid: ANOTHERVALUE");
     }
 
+    @Test
+    public void testBinaryResults()
+            throws SQLException
+    {
+        PrestoDriverUri defaultParams = createDriverUri("presto://localhost:8080/blackhole");
+        assertFalse(defaultParams.isBinaryResults());
+        assertEquals(defaultParams.getProperties().getProperty(BINARY_RESULTS.getKey()), "false");
+
+        PrestoDriverUri parameters = createDriverUri("presto://localhost:8080/blackhole?binaryResults=true");
+        assertTrue(parameters.isBinaryResults());
+        assertEquals(parameters.getProperties().getProperty(BINARY_RESULTS.getKey()), "true");
+
+        assertInvalid("presto://localhost:8080/blackhole?binaryResults=ANOTHERVALUE", "Connection property 'binaryResults' value is invalid: ANOTHERVALUE");
+    }
+
     public static class TestForUriQueryInterceptor
             implements QueryInterceptor
     {}
@@ -107,6 +107,8 @@ public final class SystemSessionProperties
     public static final String DISTRIBUTED_JOIN = "distributed_join";
     public static final String DISTRIBUTED_INDEX_JOIN = "distributed_index_join";
     public static final String HASH_PARTITION_COUNT = "hash_partition_count";
+    public static final String ADAPTIVE_HASH_PARTITION_COUNT_ENABLED = "adaptive_hash_partition_count_enabled";
+    public static final String HASH_PARTITION_TARGET_DATA_SIZE = "hash_partition_target_data_size";
     public static final String CTE_HEURISTIC_REPLICATION_THRESHOLD = "cte_heuristic_replication_threshold";
 
     public static final String PARTITIONING_PROVIDER_CATALOG = "partitioning_provider_catalog";
@@ -119,6 +121,7 @@ public final class SystemSessionProperties
     public static final String PARTITION_AWARE_GROUPED_EXECUTION = "partition_aware_grouped_execution";
     public static final String GROUPED_EXECUTION_WHEN_CAPABLE = "grouped_execution_when_capable";
     public static final String MAX_FAILED_TASK_PERCENTAGE = "max_failed_task_percentage";
+    public static final String MAX_SPECULATIVE_LIFESPAN_PERCENTAGE = "max_speculative_lifespan_percentage";
     public static final String PREFER_STREAMING_OPERATORS = "prefer_streaming_operators";
     public static final String TASK_WRITER_COUNT = "task_writer_count";
     public static final String TASK_PARTITIONED_WRITER_COUNT = "task_partitioned_writer_count";
@@ -267,6 +270,7 @@ public final class SystemSessionProperties
     public static final String MAX_UNACKNOWLEDGED_SPLITS_PER_TASK = "max_unacknowledged_splits_per_task";
     public static final String OPTIMIZE_JOINS_WITH_EMPTY_SOURCES = "optimize_joins_with_empty_sources";
     public static final String SPOOLING_OUTPUT_BUFFER_ENABLED = "spooling_output_buffer_enabled";
+    public static final String QUERY_RESULT_SPOOLING_ENABLED = "query_result_spooling_enabled";
     public static final String SPARK_ASSIGN_BUCKET_TO_PARTITION_FOR_PARTITIONED_TABLE_WRITE_ENABLED = "spark_assign_bucket_to_partition_for_partitioned_table_write_enabled";
     public static final String LOG_FORMATTED_QUERY_ENABLED = "log_formatted_query_enabled";
     public static final String LOG_INVOKED_FUNCTION_NAMES_ENABLED = "log_invoked_function_names_enabled";
@@ -538,6 +542,16 @@ public final class SystemSessionProperties
                         "Number of partitions for distributed joins and aggregations",
                         queryManagerConfig.getHashPartitionCount(),
                         false),
+                booleanProperty(
+                        ADAPTIVE_HASH_PARTITION_COUNT_ENABLED,
+                        "Choose the number of partitions of each hash partitioned stage from the estimated size of its input",
+                        queryManagerConfig.isAdaptiveHashPartitionCountEnabled(),
+                        false),
+                dataSizeProperty(
+                        HASH_PARTITION_TARGET_DATA_SIZE,
+                        "Input data size per partition targeted when the number of partitions is chosen adaptively",
+                        queryManagerConfig.getHashPartitionTargetDataSize(),
+                        false),
                 stringProperty(
                         PARTITIONING_PROVIDER_CATALOG,
                         "Name of the catalog providing custom partitioning",
@@ -575,6 +589,11 @@ public final class SystemSessionProperties
                         "Max percentage of failed tasks that are retryable for recoverable dynamic scheduling",
                         featuresConfig.getMaxFailedTaskPercentage(),
                         false),
+                doubleProperty(
+                        MAX_SPECULATIVE_LIFESPAN_PERCENTAGE,
+                        "Max percentage of lifespans that may be executed speculatively a second time in recoverable dynamic scheduling",
+                        featuresConfig.getMaxSpeculativeLifespanPercentage(),
+                        false),
                 booleanProperty(
                         RECOVERABLE_GROUPED_EXECUTION,
                         "Experimental: Use recoverable grouped execution when possible",
@@ -1523,6 +1542,11 @@ public final class SystemSessionProperties
                         "Enable spooling output buffer for terminal task",
                         featuresConfig.isSpoolingOutputBufferEnabled(),
                         false),
+                booleanProperty(
+                        QUERY_RESULT_SPOOLING_ENABLED,
+                        "Spool query results on the coordinator to temp storage so the query can finish before the client drains them",
+                        featuresConfig.isQueryResultSpoolingEnabled(),
+                        false),
                 booleanProperty(
                         SPARK_ASSIGN_BUCKET_TO_PARTITION_FOR_PARTITIONED_TABLE_WRITE_ENABLED,
                         "Assign bucket to partition map for partitioned table write when adding an exchange",
@@ -2494,6 +2518,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(SPOOLING_OUTPUT_BUFFER_ENABLED, Boolean.class);
     }
 
+    public static boolean isQueryResultSpoolingEnabled(Session session)
+    {
+        return session.getSystemProperty(QUERY_RESULT_SPOOLING_ENABLED, Boolean.class);
+    }
+
     public static boolean isSkipRedundantSort(Session session)
     {
         return session.getSystemProperty(SKIP_REDUNDANT_SORT, Boolean.class);
@@ -2583,6 +2612,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(HASH_PARTITION_COUNT, Integer.class);
     }
 
+    public static boolean isAdaptiveHashPartitionCountEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_HASH_PARTITION_COUNT_ENABLED, Boolean.class);
+    }
+
+    public static DataSize getHashPartitionTargetDataSize(Session session)
+    {
+        return session.getSystemProperty(HASH_PARTITION_TARGET_DATA_SIZE, DataSize.class);
+    }
+
     public static int getCteHeuristicReplicationThreshold(Session session)
     {
         return session.getSystemProperty(CTE_HEURISTIC_REPLICATION_THRESHOLD, Integer.class);
@@ -2642,6 +2681,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MAX_FAILED_TASK_PERCENTAGE, Double.class);
     }
 
+    public static double getMaxSpeculativeLifespanPercentage(Session session)
+    {
+        return session.getSystemProperty(MAX_SPECULATIVE_LIFESPAN_PERCENTAGE, Double.class);
+    }
+
     public static boolean preferStreamingOperators(Session session)
     {
         return session.getSystemProperty(PREFER_STREAMING_OPERATORS, Boolean.class);
@@ -29,6 +29,7 @@ import jakarta.validation.constraints.NotNull;
 
 import java.util.concurrent.TimeUnit;
 
+import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
 import static com.facebook.airlift.units.DataSize.Unit.PETABYTE;
 import static com.facebook.airlift.units.DataSize.Unit.TERABYTE;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -48,6 +49,8 @@ public class QueryManagerConfig
     private int maxQueuedQueries = 5000;
 
     private int hashPartitionCount = 100;
+    private boolean adaptiveHashPartitionCountEnabled;
+    private DataSize hashPartitionTargetDataSize = new DataSize(256, MEGABYTE);
     private String partitioningProviderCatalog = GlobalSystemConnector.NAME;
     private String ctePartitioningProviderCatalog = GlobalSystemConnector.NAME;
     private ExchangeMaterializationStrategy exchangeMaterializationStrategy = ExchangeMaterializationStrategy.NONE;
@@ -106,6 +109,8 @@ public class QueryManagerConfig
 
     private int minRunningQueriesForPacing = 30;
 
+    private boolean memoryReservationAdmissionEnabled;
+
     @Min(1)
     public int getScheduleSplitBatchSize()
     {
@@ -176,6 +181,34 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isAdaptiveHashPartitionCountEnabled()
+    {
+        return adaptiveHashPartitionCountEnabled;
+    }
+
+    @Config("query.adaptive-hash-partition-count-enabled")
+    @ConfigDescription("Choose the number of partitions of each hash partitioned stage from the estimated size of its input, up to the maximum number of tasks per stage")
+    public QueryManagerConfig setAdaptiveHashPartitionCountEnabled(boolean adaptiveHashPartitionCountEnabled)
+    {
+        this.adaptiveHashPartitionCountEnabled = adaptiveHashPartitionCountEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getHashPartitionTargetDataSize()
+    {
+        return hashPartitionTargetDataSize;
+    }
+
+    @Config("query.hash-partition-target-data-size")
+    @ConfigDescription("Input data size per partition targeted when the number of partitions is chosen adaptively")
+    public QueryManagerConfig setHashPartitionTargetDataSize(DataSize hashPartitionTargetDataSize)
+    {
+        this.hashPartitionTargetDataSize = hashPartitionTargetDataSize;
+        return this;
+    }
+
     @NotNull
     public String getPartitioningProviderCatalog()
     {
@@ -799,6 +832,19 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isMemoryReservationAdmissionEnabled()
+    {
+        return memoryReservationAdmissionEnabled;
+    }
+
+    @Config("query-manager.memory-reservation-admission-enabled")
+    @ConfigDescription("Reserve the predicted peak memory of a query against the soft memory limits of its resource groups before starting it. The prediction is the peak memory of recently finished queries of the same group.")
+    public QueryManagerConfig setMemoryReservationAdmissionEnabled(boolean memoryReservationAdmissionEnabled)
+    {
+        this.memoryReservationAdmissionEnabled = memoryReservationAdmissionEnabled;
+        return this;
+    }
+
     public enum ExchangeMaterializationStrategy
     {
         NONE,
@@ -20,6 +20,7 @@ import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.scheduler.ScheduleResult;
 import com.facebook.presto.execution.scheduler.SplitSchedulerStats;
+import com.facebook.presto.execution.scheduler.StreamingMedian;
 import com.facebook.presto.execution.scheduler.TableWriteInfo;
 import com.facebook.presto.failureDetector.FailureDetector;
 import com.facebook.presto.metadata.InternalNode;
@@ -48,7 +49,9 @@ import com.google.errorprone.annotations.concurrent.GuardedBy;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -61,7 +64,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import static com.facebook.presto.SystemSessionProperties.getMaxFailedTaskPercentage;
@@ -81,9 +84,11 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.MoreCollectors.onlyElement;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.lang.Math.max;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @ThreadSafe
 public final class SqlStageExecution
@@ -97,6 +102,9 @@ public final class SqlStageExecution
 
     public static final int DEFAULT_TASK_ATTEMPT_NUMBER = 0;
 
+    private static final int STRAGGLING_TASK_AGE_FACTOR = 2;
+    private static final Duration MIN_STRAGGLING_TASK_AGE = new Duration(10, SECONDS);
+
     private final Session session;
     private final StageExecutionStateMachine stateMachine;
     private final PlanFragment planFragment;
@@ -123,6 +131,19 @@ public final class SqlStageExecution
     private final Set<TaskId> failedTasks = newConcurrentHashSet();
     @GuardedBy("this")
     private final Set<TaskId> runningTasks = newConcurrentHashSet();
+    @GuardedBy("this")
+    private final Set<TaskId> agedFinishedTasks = new HashSet<>();
+    @GuardedBy("this")
+    private final StreamingMedian finishedTaskAgesInMillis = new StreamingMedian();
+    @GuardedBy("this")
+    private final Set<TaskId> stragglingTasks = new HashSet<>();
+
+    private final AtomicBoolean speculationStarted = new AtomicBoolean();
+    @GuardedBy("this")
+    private final Map<Lifespan, SpeculativeAttempts> runningSpeculativeLifespans = new HashMap<>();
+    @GuardedBy("this")
+    private final Multimap<TaskId, Lifespan> losingAttempts = HashMultimap.create();
+    private final Set<TaskId> cancelledLosingTasks = newConcurrentHashSet();
 
     private final Set<Lifespan> finishedLifespans = ConcurrentHashMap.newKeySet();
     private final int totalLifespans;
@@ -222,7 +243,7 @@ public final class SqlStageExecution
                 checkAllTaskFinal();
             }
         });
-        completedLifespansChangeListeners.addListener(lifespans -> finishedLifespans.addAll(lifespans));
+        completedLifespansChangeListeners.addListener((taskId, lifespans) -> finishedLifespans.addAll(lifespans));
     }
 
     public StageExecutionId getStageExecutionId()
@@ -255,7 +276,11 @@ public final class SqlStageExecution
         stateMachine.addFinalStageInfoListener(stateChangeListener);
     }
 
-    public void addCompletedDriverGroupsChangedListener(Consumer<Set<Lifespan>> newlyCompletedDriverGroupConsumer)
+    /**
+     * Listener is notified with the task that completed the driver groups. A speculatively executed
+     * driver group is reported once by every attempt that completes it.
+     */
+    public void addCompletedDriverGroupsChangedListener(BiConsumer<TaskId, Set<Lifespan>> newlyCompletedDriverGroupConsumer)
     {
         completedLifespansChangeListeners.addListener(newlyCompletedDriverGroupConsumer);
     }
@@ -314,6 +339,20 @@ public final class SqlStageExecution
         completeSources.add(partitionedSource);
     }
 
+    /**
+     * Records that {@code lifespan}, still running on the task of {@code originalPartition}, was started
+     * a second time on the task of {@code speculativePartition}.
+     */
+    public synchronized void recordSpeculativeLifespan(Lifespan lifespan, int originalPartition, int speculativePartition)
+    {
+        SpeculativeAttempts attempts = new SpeculativeAttempts(
+                new TaskId(stateMachine.getStageExecutionId(), originalPartition, DEFAULT_TASK_ATTEMPT_NUMBER),
+                new TaskId(stateMachine.getStageExecutionId(), speculativePartition, DEFAULT_TASK_ATTEMPT_NUMBER));
+        checkState(runningSpeculativeLifespans.put(lifespan, attempts) == null, "lifespan %s is already executed speculatively", lifespan);
+        speculationStarted.set(true);
+        stateMachine.recordSpeculativeLifespan();
+    }
+
     public synchronized void cancel()
     {
         stateMachine.transitionToCanceled();
@@ -577,6 +616,16 @@ public final class SqlStageExecution
         stateMachine.recordSchedulerRunningTime(cpuTimeNanos, wallTimeNanos);
     }
 
+    public void recordSoftAffinitySplits(long scheduledSplits, long preferredNodeSplits)
+    {
+        stateMachine.recordSoftAffinitySplits(scheduledSplits, preferredNodeSplits);
+    }
+
+    public void recordHashPartitionCount(int partitionCount)
+    {
+        stateMachine.recordHashPartitionCount(partitionCount);
+    }
+
     public void recordSchedulerBlockedTime(ScheduleResult.BlockedReason reason, long nanos)
     {
         if (planFragment.isLeaf()) {
@@ -692,6 +741,16 @@ public final class SqlStageExecution
         else if (taskState == TaskState.FINISHED) {
             finishedTasks.add(taskId);
         }
+        else if (taskState == TaskState.CANCELED && cancelledLosingTasks.contains(taskId)) {
+            finishedTasks.add(taskId);
+        }
+
+        if (planFragment.isLeaf()) {
+            detectStragglingTask(taskId, taskStatus);
+        }
+        if (speculationStarted.get()) {
+            updateSpeculativeLifespans(taskId, taskStatus);
+        }
 
         // The finishedTasks.add(taskStatus.getTaskId()) must happen before the getState() (see schedulingComplete)
         stageExecutionState = getState();
@@ -705,6 +764,74 @@ public final class SqlStageExecution
         }
     }
 
+    /**
+     * Once all splits of a leaf stage are assigned and at least half of its tasks finished, a task
+     * still running after several times the median duration of the finished tasks is straggling,
+     * for example on a node that is slow because of garbage collection or a bad disk. Every running
+     * task reports its status regularly, so each task is only checked on its own status updates.
+     */
+    private synchronized void detectStragglingTask(TaskId taskId, TaskStatus taskStatus)
+    {
+        if (taskStatus.getState() == TaskState.FINISHED && agedFinishedTasks.add(taskId)) {
+            finishedTaskAgesInMillis.add(taskStatus.getTaskAgeInMillis());
+        }
+        if (taskStatus.getState().isDone() ||
+                stragglingTasks.contains(taskId) ||
+                finishedTaskAgesInMillis.size() == 0 ||
+                finishedTaskAgesInMillis.size() * 2 < allTasks.size() ||
+                !completeSources.containsAll(planFragment.getTableScanSchedulingOrder())) {
+            return;
+        }
+
+        long stragglingTaskAge = max(finishedTaskAgesInMillis.getMedian() * STRAGGLING_TASK_AGE_FACTOR, MIN_STRAGGLING_TASK_AGE.toMillis());
+        if (taskStatus.getTaskAgeInMillis() > stragglingTaskAge) {
+            stragglingTasks.add(taskId);
+            stateMachine.recordStragglingTask();
+        }
+    }
+
+    /**
+     * The first attempt of a speculatively executed lifespan to finish wins, and the table commit drops
+     * the output of the other attempt. Once every lifespan finished, a task still running a losing attempt
+     * is cancelled instead of finishing work nobody needs, but only after the output of the lifespans it
+     * won was consumed. Both are decided from the same status update of the task, so the output buffer
+     * utilization is not older than the lifespans the task reported as completed.
+     */
+    private synchronized void updateSpeculativeLifespans(TaskId taskId, TaskStatus taskStatus)
+    {
+        Iterator<Entry<Lifespan, SpeculativeAttempts>> iterator = runningSpeculativeLifespans.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Lifespan, SpeculativeAttempts> entry = iterator.next();
+            SpeculativeAttempts attempts = entry.getValue();
+            if (attempts.contains(taskId) && taskStatus.getCompletedDriverGroups().contains(entry.getKey())) {
+                stateMachine.recordSpeculativeLifespanFinished(taskId.equals(attempts.getSpeculativeTaskId()));
+                losingAttempts.put(attempts.getOtherAttempt(taskId), entry.getKey());
+                iterator.remove();
+            }
+        }
+
+        Collection<Lifespan> losingLifespans = losingAttempts.get(taskId);
+        if (losingLifespans.isEmpty()) {
+            return;
+        }
+        if (taskStatus.getState().isDone() || taskStatus.getCompletedDriverGroups().containsAll(losingLifespans)) {
+            losingAttempts.removeAll(taskId);
+            return;
+        }
+        if (finishedLifespans.size() < totalLifespans ||
+                !completeSources.containsAll(planFragment.getTableScanSchedulingOrder()) ||
+                taskStatus.getOutputBufferUtilization() > 0) {
+            return;
+        }
+        losingAttempts.removeAll(taskId);
+        // the stage counts the task as finished once it is cancelled
+        cancelledLosingTasks.add(taskId);
+        getAllTasks().stream()
+                .filter(task -> task.getTaskId().equals(taskId))
+                .findFirst()
+                .ifPresent(RemoteTask::cancel);
+    }
+
     private boolean isRecoverable(List<ExecutionFailureInfo> failures)
     {
         for (ExecutionFailureInfo failure : failures) {
@@ -812,13 +939,41 @@ public final class SqlStageExecution
             if (newlyCompletedDriverGroups.isEmpty()) {
                 return;
             }
-            completedLifespansChangeListeners.invoke(newlyCompletedDriverGroups, executor);
+            completedLifespansChangeListeners.invoke(taskId, newlyCompletedDriverGroups, executor);
             // newlyCompletedDriverGroups is a view.
             // Making changes to completedDriverGroups will change newlyCompletedDriverGroups.
             completedDriverGroups.addAll(newlyCompletedDriverGroups);
         }
     }
 
+    private static class SpeculativeAttempts
+    {
+        private final TaskId originalTaskId;
+        private final TaskId speculativeTaskId;
+
+        public SpeculativeAttempts(TaskId originalTaskId, TaskId speculativeTaskId)
+        {
+            this.originalTaskId = requireNonNull(originalTaskId, "originalTaskId is null");
+            this.speculativeTaskId = requireNonNull(speculativeTaskId, "speculativeTaskId is null");
+        }
+
+        public TaskId getSpeculativeTaskId()
+        {
+            return speculativeTaskId;
+        }
+
+        public boolean contains(TaskId taskId)
+        {
+            return originalTaskId.equals(taskId) || speculativeTaskId.equals(taskId);
+        }
+
+        public TaskId getOtherAttempt(TaskId taskId)
+        {
+            checkArgument(contains(taskId), "task %s is not an attempt", taskId);
+            return originalTaskId.equals(taskId) ? speculativeTaskId : originalTaskId;
+        }
+    }
+
     @FunctionalInterface
     public interface StageTaskRecoveryCallback
     {
@@ -827,20 +982,20 @@ public final class SqlStageExecution
 
     private static class ListenerManager<T>
     {
-        private final List<Consumer<T>> listeners = new ArrayList<>();
+        private final List<BiConsumer<TaskId, T>> listeners = new ArrayList<>();
         private boolean frozen;
 
-        public synchronized void addListener(Consumer<T> listener)
+        public synchronized void addListener(BiConsumer<TaskId, T> listener)
         {
             checkState(!frozen, "Listeners have been invoked");
             listeners.add(listener);
         }
 
-        public synchronized void invoke(T payload, Executor executor)
+        public synchronized void invoke(TaskId taskId, T payload, Executor executor)
         {
             frozen = true;
-            for (Consumer<T> listener : listeners) {
-                executor.execute(() -> listener.accept(payload));
+            for (BiConsumer<TaskId, T> listener : listeners) {
+                executor.execute(() -> listener.accept(taskId, payload));
             }
         }
     }
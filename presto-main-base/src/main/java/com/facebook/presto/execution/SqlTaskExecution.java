@@ -261,6 +261,7 @@ public class SqlTaskExecution
         TaskHandle taskHandle = taskExecutor.addTask(
                 taskStateMachine.getTaskId(),
                 outputBuffer::getUtilization,
+                () -> taskContext.getMemoryReservation().toBytes() + taskContext.getSystemMemoryReservation().toBytes(),
                 getInitialSplitsPerNode(taskContext.getSession()),
                 getSplitConcurrencyAdjustmentInterval(taskContext.getSession()),
                 getMaxDriversPerTask(taskContext.getSession()));
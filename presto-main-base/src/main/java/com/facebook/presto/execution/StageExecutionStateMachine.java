@@ -40,12 +40,18 @@ import java.util.function.Supplier;
 import static com.facebook.airlift.units.Duration.succinctNanos;
 import static com.facebook.presto.common.RuntimeMetricName.EVENT_LOOP_METHOD_EXECUTION_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.GET_SPLITS_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.HASH_PARTITION_COUNT;
 import static com.facebook.presto.common.RuntimeMetricName.SCAN_STAGE_SCHEDULER_BLOCKED_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCAN_STAGE_SCHEDULER_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCAN_STAGE_SCHEDULER_WALL_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCHEDULER_BLOCKED_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCHEDULER_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCHEDULER_WALL_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.SOFT_AFFINITY_PREFERRED_NODE_SPLITS;
+import static com.facebook.presto.common.RuntimeMetricName.SOFT_AFFINITY_SCHEDULED_SPLITS;
+import static com.facebook.presto.common.RuntimeMetricName.SPECULATIVE_LIFESPANS;
+import static com.facebook.presto.common.RuntimeMetricName.SPECULATIVE_LIFESPAN_HITS;
+import static com.facebook.presto.common.RuntimeMetricName.STRAGGLING_TASKS;
 import static com.facebook.presto.common.RuntimeMetricName.TASK_PLAN_SERIALIZED_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.TASK_START_WAIT_FOR_EVENT_LOOP;
 import static com.facebook.presto.common.RuntimeMetricName.TASK_UPDATE_DELIVERED_WALL_TIME_NANOS;
@@ -416,6 +422,41 @@ public class StageExecutionStateMachine
         runtimeStats.addMetricValue(SCHEDULER_BLOCKED_TIME_NANOS + "-" + reason, NANO, max(nanos, 0));
     }
 
+    public void recordSoftAffinitySplits(long scheduledSplits, long preferredNodeSplits)
+    {
+        scheduledStats.recordSoftAffinitySplits(scheduledSplits, preferredNodeSplits);
+        runtimeStats.addMetricValue(SOFT_AFFINITY_SCHEDULED_SPLITS, NONE, scheduledSplits);
+        runtimeStats.addMetricValue(SOFT_AFFINITY_PREFERRED_NODE_SPLITS, NONE, preferredNodeSplits);
+    }
+
+    public void recordHashPartitionCount(int partitionCount)
+    {
+        runtimeStats.addMetricValue(HASH_PARTITION_COUNT, NONE, partitionCount);
+    }
+
+    public void recordStragglingTask()
+    {
+        scheduledStats.getStragglingTasks().update(1);
+        runtimeStats.addMetricValue(STRAGGLING_TASKS, NONE, 1);
+    }
+
+    public void recordSpeculativeLifespan()
+    {
+        scheduledStats.getSpeculativeLifespans().update(1);
+        runtimeStats.addMetricValue(SPECULATIVE_LIFESPANS, NONE, 1);
+    }
+
+    public void recordSpeculativeLifespanFinished(boolean speculativeAttemptFinishedFirst)
+    {
+        if (speculativeAttemptFinishedFirst) {
+            scheduledStats.getSpeculationHits().update(1);
+            runtimeStats.addMetricValue(SPECULATIVE_LIFESPAN_HITS, NONE, 1);
+        }
+        else {
+            scheduledStats.getSpeculationLosses().update(1);
+        }
+    }
+
     public void recordLeafStageSchedulerRunningTime(long cpuTimeNanos, long wallTimeNanos)
     {
         runtimeStats.addMetricValue(SCAN_STAGE_SCHEDULER_CPU_TIME_NANOS, NANO, max(cpuTimeNanos, 0));
@@ -92,6 +92,7 @@ public class TaskManagerConfig
     private Duration interruptRunawaySplitsTimeout = new Duration(600, SECONDS);
 
     private double memoryBasedSlowDownThreshold = 1.0;
+    private double memoryPoolSplitThrottlingThreshold = 1.0;
 
     private HighMemoryTaskKillerStrategy highMemoryTaskKillerStrategy = HighMemoryTaskKillerStrategy.FREE_MEMORY_ON_FULL_GC;
 
@@ -616,6 +617,21 @@ public class TaskManagerConfig
         return this;
     }
 
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryPoolSplitThrottlingThreshold()
+    {
+        return memoryPoolSplitThrottlingThreshold;
+    }
+
+    @Config("experimental.task.memory-pool-split-throttling-threshold")
+    @ConfigDescription("Hold back new leaf splits of tasks with growing memory reservation, and prefer tasks close to completion, once non-revocable reservations in the general memory pool cross this fraction of the pool size")
+    public TaskManagerConfig setMemoryPoolSplitThrottlingThreshold(double memoryPoolSplitThrottlingThreshold)
+    {
+        this.memoryPoolSplitThrottlingThreshold = memoryPoolSplitThrottlingThreshold;
+        return this;
+    }
+
     public boolean isHighMemoryTaskKillerEnabled()
     {
         return highMemoryTaskKillerEnabled;
@@ -64,6 +64,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.DoubleSupplier;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
@@ -173,6 +174,7 @@ public class TaskExecutor
     private final CounterStat globalCpuTimeMicros = new CounterStat();
     private final CounterStat globalScheduledTimeMicros = new CounterStat();
     private final CounterStat splitSkippedDueToMemoryPressure = new CounterStat();
+    private final CounterStat splitThrottledDueToMemoryGrowth = new CounterStat();
 
     private final TimeStat blockedQuantaWallTime = new TimeStat(MICROSECONDS);
     private final TimeStat unblockedQuantaWallTime = new TimeStat(MICROSECONDS);
@@ -181,6 +183,8 @@ public class TaskExecutor
 
     private volatile boolean lowMemory;
 
+    private volatile boolean memoryPoolPressure;
+
     @Inject
     public TaskExecutor(TaskManagerConfig config, EmbedVersion embedVersion, MultilevelSplitQueue splitQueue)
     {
@@ -346,9 +350,21 @@ public class TaskExecutor
             int initialSplitConcurrency,
             Duration splitConcurrencyAdjustFrequency,
             OptionalInt maxDriversPerTask)
+    {
+        return addTask(taskId, utilizationSupplier, () -> 0, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask);
+    }
+
+    public synchronized TaskHandle addTask(
+            TaskId taskId,
+            DoubleSupplier utilizationSupplier,
+            LongSupplier memoryReservationSupplier,
+            int initialSplitConcurrency,
+            Duration splitConcurrencyAdjustFrequency,
+            OptionalInt maxDriversPerTask)
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(utilizationSupplier, "utilizationSupplier is null");
+        requireNonNull(memoryReservationSupplier, "memoryReservationSupplier is null");
         checkArgument(!maxDriversPerTask.isPresent() || maxDriversPerTask.getAsInt() <= maximumNumberOfDriversPerTask,
                 "maxDriversPerTask cannot be greater than the configured value");
 
@@ -358,6 +374,7 @@ public class TaskExecutor
                 taskId,
                 taskPriorityTrackerFactory.apply(taskId.getQueryId()),
                 utilizationSupplier,
+                memoryReservationSupplier,
                 initialSplitConcurrency,
                 splitConcurrencyAdjustFrequency,
                 maxDriversPerTask);
@@ -496,6 +513,10 @@ public class TaskExecutor
         // that a task gets its fair amount of consideration (you have to
         // have splits to be considered for running on a thread).
         if (taskHandle.getRunningLeafSplits() < min(guaranteedNumberOfDriversPerTask, taskHandle.getMaxDriversPerTask().orElse(Integer.MAX_VALUE))) {
+            if (isThrottledForMemory(taskHandle)) {
+                splitThrottledDueToMemoryGrowth.update(1);
+                return;
+            }
             PrioritizedSplitRunner split = taskHandle.pollNextSplit();
             if (split != null) {
                 startSplit(split);
@@ -546,6 +567,10 @@ public class TaskExecutor
 
     private synchronized PrioritizedSplitRunner pollNextSplitWorker()
     {
+        if (memoryPoolPressure) {
+            return pollNextSplitWorkerUnderMemoryPressure();
+        }
+
         // todo find a better algorithm for this
         // find the first task that produces a split, then move that task to the
         // end of the task list, so we get round robin
@@ -569,6 +594,52 @@ public class TaskExecutor
         return null;
     }
 
+    private synchronized PrioritizedSplitRunner pollNextSplitWorkerUnderMemoryPressure()
+    {
+        // While the memory pool is short on memory, splits of tasks whose reservation keeps growing
+        // are held back, and tasks with the fewest queued splits go first, since finishing them
+        // releases their memory soonest.
+        TaskHandle nextTask = null;
+        int nextTaskQueuedLeafSplits = Integer.MAX_VALUE;
+        boolean throttled = false;
+        for (TaskHandle task : tasks) {
+            if (task.getRunningLeafSplits() >= task.getMaxDriversPerTask().orElse(maximumNumberOfDriversPerTask) || !task.canStartLeafSplit()) {
+                continue;
+            }
+            if (isThrottledForMemory(task)) {
+                throttled = true;
+                continue;
+            }
+            // ties go to the task that comes first, to keep the round robin order
+            int queuedLeafSplits = task.getQueuedLeafSplits();
+            if (queuedLeafSplits < nextTaskQueuedLeafSplits) {
+                nextTask = task;
+                nextTaskQueuedLeafSplits = queuedLeafSplits;
+            }
+        }
+        if (nextTask == null) {
+            // counted once per skipped dispatch rather than once per throttled task
+            if (throttled) {
+                splitThrottledDueToMemoryGrowth.update(1);
+            }
+            return null;
+        }
+
+        PrioritizedSplitRunner split = nextTask.pollNextSplit();
+        if (split != null) {
+            // move task to end of list
+            tasks.remove(nextTask);
+            tasks.add(nextTask);
+        }
+        return split;
+    }
+
+    // a task always keeps one running leaf split, so it can make progress and release its memory
+    private boolean isThrottledForMemory(TaskHandle task)
+    {
+        return memoryPoolPressure && task.getRunningLeafSplits() > 0 && task.isMemoryReservationGrowing();
+    }
+
     private void interruptRunawaySplits()
     {
         for (RunningSplitInfo splitInfo : runningSplitInfos) {
@@ -927,6 +998,13 @@ public class TaskExecutor
         return splitSkippedDueToMemoryPressure;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getSplitThrottledDueToMemoryGrowth()
+    {
+        return splitThrottledDueToMemoryGrowth;
+    }
+
     private synchronized int getRunningTasksForLevel(int level)
     {
         int count = 0;
@@ -1065,4 +1143,15 @@ public class TaskExecutor
     {
         return this.lowMemory;
     }
+
+    public void setMemoryPoolPressure(boolean memoryPoolPressure)
+    {
+        this.memoryPoolPressure = memoryPoolPressure;
+    }
+
+    @Managed
+    public boolean isMemoryPoolPressure()
+    {
+        return this.memoryPoolPressure;
+    }
 }
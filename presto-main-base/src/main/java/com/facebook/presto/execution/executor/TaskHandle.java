@@ -24,9 +24,11 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
@@ -37,6 +39,7 @@ public class TaskHandle
     private volatile boolean destroyed;
     private final TaskId taskId;
     private final DoubleSupplier utilizationSupplier;
+    private final LongSupplier memoryReservationSupplier;
     private final TaskPriorityTracker priorityTracker;
     private final OptionalInt maxDriversPerTask;
 
@@ -48,6 +51,10 @@ public class TaskHandle
     protected final List<PrioritizedSplitRunner> runningIntermediateSplits = new ArrayList<>(10);
     @GuardedBy("this")
     protected final SplitConcurrencyController concurrencyController;
+    @GuardedBy("this")
+    private OptionalLong lastMemoryReservation = OptionalLong.empty();
+    @GuardedBy("this")
+    private long memoryReservationGrowth;
 
     private final AtomicInteger nextSplitId = new AtomicInteger();
 
@@ -58,9 +65,22 @@ public class TaskHandle
             int initialSplitConcurrency,
             Duration splitConcurrencyAdjustFrequency,
             OptionalInt maxDriversPerTask)
+    {
+        this(taskId, priorityTracker, utilizationSupplier, () -> 0, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask);
+    }
+
+    public TaskHandle(
+            TaskId taskId,
+            TaskPriorityTracker priorityTracker,
+            DoubleSupplier utilizationSupplier,
+            LongSupplier memoryReservationSupplier,
+            int initialSplitConcurrency,
+            Duration splitConcurrencyAdjustFrequency,
+            OptionalInt maxDriversPerTask)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.utilizationSupplier = requireNonNull(utilizationSupplier, "utilizationSupplier is null");
+        this.memoryReservationSupplier = requireNonNull(memoryReservationSupplier, "memoryReservationSupplier is null");
         this.priorityTracker = requireNonNull(priorityTracker, "queryPriorityTracker is null");
         this.maxDriversPerTask = requireNonNull(maxDriversPerTask, "maxDriversPerTask is null");
         this.concurrencyController = new SplitConcurrencyController(
@@ -137,6 +157,23 @@ public class TaskHandle
         return runningLeafSplits.size();
     }
 
+    synchronized int getQueuedLeafSplits()
+    {
+        return queuedLeafSplits.size();
+    }
+
+    // true if pollNextSplit would return a split
+    synchronized boolean canStartLeafSplit()
+    {
+        return !destroyed && !queuedLeafSplits.isEmpty() && runningLeafSplits.size() < concurrencyController.getTargetConcurrency();
+    }
+
+    // true if the memory reservation of the task grew between the last two completed splits
+    synchronized boolean isMemoryReservationGrowing()
+    {
+        return memoryReservationGrowth > 0;
+    }
+
     public synchronized long getScheduledNanos()
     {
         return priorityTracker.getScheduledNanos();
@@ -164,6 +201,13 @@ public class TaskHandle
         concurrencyController.splitFinished(split.getScheduledNanos(), utilizationSupplier.getAsDouble(), runningLeafSplits.size());
         runningIntermediateSplits.remove(split);
         runningLeafSplits.remove(split);
+
+        // the first completed split only records the reservation, since the task may have reserved memory before any split ran
+        long memoryReservation = memoryReservationSupplier.getAsLong();
+        if (lastMemoryReservation.isPresent()) {
+            memoryReservationGrowth = memoryReservation - lastMemoryReservation.getAsLong();
+        }
+        lastMemoryReservation = OptionalLong.of(memoryReservation);
     }
 
     public int getNextSplitId()
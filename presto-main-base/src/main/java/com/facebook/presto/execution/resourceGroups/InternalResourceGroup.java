@@ -20,6 +20,7 @@ import com.facebook.presto.execution.ManagedQueryExecution;
 import com.facebook.presto.execution.resourceGroups.WeightedFairQueue.Usage;
 import com.facebook.presto.execution.scheduler.clusterOverload.ClusterResourceChecker;
 import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.server.BasicQueryInfo;
 import com.facebook.presto.server.QueryStateInfo;
 import com.facebook.presto.server.ResourceGroupInfo;
 import com.facebook.presto.spi.PrestoException;
@@ -53,6 +54,7 @@ import java.util.function.Predicate;
 import static com.facebook.airlift.units.DataSize.Unit.BYTE;
 import static com.facebook.presto.SystemSessionProperties.getQueryPriority;
 import static com.facebook.presto.common.ErrorType.USER_ERROR;
+import static com.facebook.presto.execution.QueryState.FINISHED;
 import static com.facebook.presto.server.QueryStateInfo.createQueryStateInfo;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_RESOURCE_GROUP;
 import static com.facebook.presto.spi.resourceGroups.ResourceGroupQueryLimits.NO_LIMITS;
@@ -155,6 +157,15 @@ public class InternalResourceGroup
     private long lastStartMillis;
     @GuardedBy("root")
     private final CounterStat timeBetweenStartsSec = new CounterStat();
+    // Memory reserved for running queries of this group when memory reservation admission is enabled.
+    // A query accounts for the larger of its reservation and its actual usage, until its usage is seen to drop.
+    @GuardedBy("root")
+    private final Map<ManagedQueryExecution, MemoryReservation> memoryReservations = new HashMap<>();
+    // Moving average of the peak memory of finished queries, used as the reservation of the next query
+    @GuardedBy("root")
+    private long predictedPeakMemoryBytes;
+    private final CounterStat overestimatedPeakMemoryBytes = new CounterStat();
+    private final CounterStat underestimatedPeakMemoryBytes = new CounterStat();
 
     @GuardedBy("root")
     private AtomicLong lastRunningQueryStartTime = new AtomicLong(currentTimeMillis());
@@ -546,6 +557,28 @@ public class InternalResourceGroup
         return timeBetweenStartsSec;
     }
 
+    @Managed
+    public long getPredictedPeakMemoryBytes()
+    {
+        synchronized (root) {
+            return predictedPeakMemoryBytes;
+        }
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getOverestimatedPeakMemoryBytes()
+    {
+        return overestimatedPeakMemoryBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getUnderestimatedPeakMemoryBytes()
+    {
+        return underestimatedPeakMemoryBytes;
+    }
+
     @Override
     public int getSchedulingWeight()
     {
@@ -817,6 +850,9 @@ public class InternalResourceGroup
         checkState(Thread.holdsLock(root), "Must hold lock to start a query");
         synchronized (root) {
             runningQueries.add(query);
+            if (isMemoryReservationAdmissionEnabled()) {
+                reserveMemory(query);
+            }
             InternalResourceGroup group = this;
             while (group.parent.isPresent()) {
                 group.parent.get().descendantRunningQueries++;
@@ -854,6 +890,9 @@ public class InternalResourceGroup
             }
             if (runningQueries.contains(query)) {
                 runningQueries.remove(query);
+                if (isMemoryReservationAdmissionEnabled()) {
+                    recordPeakMemory(query);
+                }
                 InternalResourceGroup group = this;
                 while (group.parent.isPresent()) {
                     group.parent.get().descendantRunningQueries--;
@@ -874,6 +913,50 @@ public class InternalResourceGroup
         }
     }
 
+    private void reserveMemory(ManagedQueryExecution query)
+    {
+        checkState(Thread.holdsLock(root), "Must hold lock to reserve memory");
+        synchronized (root) {
+            // account for the reservation right away, so that a burst of queries cannot all start before the next stats refresh
+            memoryReservations.put(query, new MemoryReservation(predictedPeakMemoryBytes));
+            InternalResourceGroup group = this;
+            while (group != null) {
+                group.cachedMemoryUsageBytes = saturatedAdd(group.cachedMemoryUsageBytes, predictedPeakMemoryBytes);
+                group = group.parent.orElse(null);
+            }
+        }
+    }
+
+    private void recordPeakMemory(ManagedQueryExecution query)
+    {
+        checkState(Thread.holdsLock(root), "Must hold lock to record peak memory");
+        synchronized (root) {
+            // the unused part of the reservation is released with the next stats refresh
+            MemoryReservation reservation = memoryReservations.remove(query);
+            BasicQueryInfo queryInfo = query.getBasicQueryInfo();
+            if (queryInfo.getState() != FINISHED) {
+                // failed and canceled queries stop before their peak, so they would pull the prediction down
+                return;
+            }
+            long peakMemoryBytes = queryInfo.getQueryStats().getPeakUserMemoryReservation().toBytes();
+            if (reservation != null) {
+                long predictedBytes = reservation.getPredictedBytes();
+                if (predictedBytes > peakMemoryBytes) {
+                    overestimatedPeakMemoryBytes.update(predictedBytes - peakMemoryBytes);
+                }
+                else {
+                    underestimatedPeakMemoryBytes.update(peakMemoryBytes - predictedBytes);
+                }
+            }
+            predictedPeakMemoryBytes = predictedPeakMemoryBytes == 0 ? peakMemoryBytes : (predictedPeakMemoryBytes + peakMemoryBytes) / 2;
+        }
+    }
+
+    private boolean isMemoryReservationAdmissionEnabled()
+    {
+        return ((RootInternalResourceGroup) root).isMemoryReservationAdmissionEnabled();
+    }
+
     // Memory usage stats are expensive to maintain, so this method must be called periodically to update them
     protected void internalRefreshStats()
     {
@@ -882,7 +965,9 @@ public class InternalResourceGroup
             if (subGroups.isEmpty()) {
                 cachedMemoryUsageBytes = 0;
                 for (ManagedQueryExecution query : runningQueries) {
-                    cachedMemoryUsageBytes += query.getUserMemoryReservationInBytes();
+                    long usageBytes = query.getUserMemoryReservationInBytes();
+                    MemoryReservation reservation = memoryReservations.get(query);
+                    cachedMemoryUsageBytes += reservation == null ? usageBytes : reservation.update(usageBytes);
                 }
                 Optional<ResourceGroupRuntimeInfo> resourceGroupRuntimeInfo = getAdditionalRuntimeInfo();
                 resourceGroupRuntimeInfo.ifPresent(groupRuntimeInfo -> cachedMemoryUsageBytes += groupRuntimeInfo.getMemoryUsageBytes());
@@ -1078,6 +1163,11 @@ public class InternalResourceGroup
             }
             int activeWorkerCount = nodeManager.getAllNodes().getActiveWorkerCount();
 
+            // the next query must fit its predicted peak memory, unless nothing is running and it could never fit
+            if (isMemoryReservationAdmissionEnabled() && totalRunningQueries > 0 && saturatedAdd(cachedMemoryUsageBytes, predictedPeakMemoryBytes) > softMemoryLimitBytes) {
+                return false;
+            }
+
             return totalRunningQueries < hardConcurrencyLimit && cachedMemoryUsageBytes <= softMemoryLimitBytes && totalRunningQueries * workersPerQueryLimit <= activeWorkerCount;
         }
     }
@@ -1161,10 +1251,42 @@ public class InternalResourceGroup
     }
 
     @ThreadSafe
+    private static final class MemoryReservation
+    {
+        private final long predictedBytes;
+        private long observedPeakBytes;
+        private boolean released;
+
+        private MemoryReservation(long predictedBytes)
+        {
+            this.predictedBytes = predictedBytes;
+        }
+
+        public long getPredictedBytes()
+        {
+            return predictedBytes;
+        }
+
+        /**
+         * Returns the memory to account for the query, given its current usage. Once the usage drops
+         * below the highest usage observed, the query is past its peak and the part of the predicted
+         * peak it has not used is released.
+         */
+        public long update(long usageBytes)
+        {
+            if (usageBytes < observedPeakBytes) {
+                released = true;
+            }
+            observedPeakBytes = Math.max(observedPeakBytes, usageBytes);
+            return released ? usageBytes : Math.max(usageBytes, predictedBytes);
+        }
+    }
+
     public static final class RootInternalResourceGroup
             extends InternalResourceGroup
     {
         private AtomicBoolean taskLimitExceeded = new AtomicBoolean();
+        private volatile boolean memoryReservationAdmissionEnabled;
 
         public RootInternalResourceGroup(
                 String name,
@@ -1221,5 +1343,15 @@ public class InternalResourceGroup
         {
             return taskLimitExceeded.get();
         }
+
+        public void setMemoryReservationAdmissionEnabled(boolean memoryReservationAdmissionEnabled)
+        {
+            this.memoryReservationAdmissionEnabled = memoryReservationAdmissionEnabled;
+        }
+
+        private boolean isMemoryReservationAdmissionEnabled()
+        {
+            return memoryReservationAdmissionEnabled;
+        }
     }
 }
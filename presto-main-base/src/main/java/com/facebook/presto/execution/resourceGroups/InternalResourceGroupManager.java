@@ -541,6 +541,7 @@ public final class InternalResourceGroupManager<C>
                             clusterResourceChecker,
                             queryPacingContext);
                 }
+                root.setMemoryReservationAdmissionEnabled(queryManagerConfig.isMemoryReservationAdmissionEnabled());
                 group = root;
                 rootGroups.add(root);
             }
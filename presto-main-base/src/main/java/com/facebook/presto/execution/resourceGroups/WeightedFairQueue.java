@@ -13,12 +13,9 @@
  */
 package com.facebook.presto.execution.resourceGroups;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeSet;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -27,7 +24,9 @@ import static java.util.Objects.requireNonNull;
 final class WeightedFairQueue<E>
         implements Queue<E>
 {
-    private final Map<E, Node<E>> index = new LinkedHashMap<>();
+    private final Map<E, Node<E>> index = new HashMap<>();
+    // Nodes ordered by how far below their fair share they are, so the next winner is found in logarithmic time
+    private final TreeSet<Node<E>> nodes = new TreeSet<>();
 
     private long currentLogicalTime;
 
@@ -35,12 +34,15 @@ final class WeightedFairQueue<E>
     {
         Node<E> node = index.get(element);
         if (node != null) {
+            nodes.remove(node);
             node.update(usage);
+            nodes.add(node);
             return false;
         }
 
         node = new Node<>(element, usage, currentLogicalTime++);
         index.put(element, node);
+        nodes.add(node);
         return true;
     }
 
@@ -60,46 +62,24 @@ final class WeightedFairQueue<E>
     public boolean remove(E element)
     {
         Node<E> node = index.remove(element);
-        return node != null;
+        if (node == null) {
+            return false;
+        }
+        nodes.remove(node);
+        return true;
     }
 
     @Override
     public E poll()
     {
-        Collection<Node<E>> candidates = index.values();
-        long totalShare = 0;
-        long totalUtilization = 1; // prevent / by zero
-
-        for (Node<E> candidate : candidates) {
-            totalShare += candidate.getShare();
-            totalUtilization += candidate.getUtilization();
-        }
-
-        List<Node<E>> winners = new ArrayList<>();
-        double winnerDelta = 1;
-
-        for (Node<E> candidate : candidates) {
-            double actualFraction = 1.0 * candidate.getUtilization() / totalUtilization;
-            double expectedFraction = 1.0 * candidate.getShare() / totalShare;
-            double delta = actualFraction / expectedFraction;
-
-            if (delta <= winnerDelta) {
-                if (delta < winnerDelta) {
-                    winnerDelta = delta;
-                    winners.clear();
-                }
-
-                // if multiple candidates have the same delta, picking deterministically could cause starvation
-                // we use a stochastic method (weighted by share) to pick amongst these candidates
-                winners.add(candidate);
-            }
-        }
-
-        if (winners.isEmpty()) {
+        // The winner is the candidate whose actual fraction of the total utilization is the smallest
+        // relative to its expected fraction of the total share. Both totals are the same for every
+        // candidate, so this is the candidate with the smallest utilization per share.
+        // Among equal candidates, the one that has been waiting the longest wins.
+        Node<E> winner = nodes.pollFirst();
+        if (winner == null) {
             return null;
         }
-
-        Node<E> winner = Collections.min(winners);
         E value = winner.getValue();
         index.remove(value);
         return value;
@@ -194,6 +174,11 @@ final class WeightedFairQueue<E>
         @Override
         public int compareTo(Node<E> o)
         {
+            // compare utilization / share of both nodes without dividing
+            int result = Long.compare((long) getUtilization() * o.getShare(), (long) o.getUtilization() * getShare());
+            if (result != 0) {
+                return result;
+            }
             return Long.compare(logicalCreateTime, o.logicalCreateTime);
         }
 
@@ -22,6 +22,7 @@ import com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReason;
 import com.facebook.presto.execution.scheduler.group.DynamicLifespanScheduler;
 import com.facebook.presto.execution.scheduler.group.FixedLifespanScheduler;
 import com.facebook.presto.execution.scheduler.group.LifespanScheduler;
+import com.facebook.presto.execution.scheduler.group.SpeculativeLifespan;
 import com.facebook.presto.execution.scheduler.nodeSelection.NodeSelector;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.Split;
@@ -29,6 +30,7 @@ import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.plan.StageExecutionDescriptor;
 import com.facebook.presto.split.SplitSource;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
@@ -70,6 +72,7 @@ public class FixedSourcePartitionedScheduler
     private boolean scheduledTasks;
     private boolean anySourceSchedulingFinished;
     private final Optional<LifespanScheduler> groupedLifespanScheduler;
+    private final boolean speculationEnabled;
 
     private final Queue<Integer> tasksToRecover = new ConcurrentLinkedQueue<>();
 
@@ -87,6 +90,7 @@ public class FixedSourcePartitionedScheduler
             BucketNodeMap bucketNodeMap,
             int splitBatchSize,
             OptionalInt concurrentLifespansPerTask,
+            int maxSpeculativeLifespans,
             NodeSelector nodeSelector,
             List<ConnectorPartitionHandle> partitionHandles,
             CTEMaterializationTracker cteMaterializationTracker)
@@ -96,6 +100,8 @@ public class FixedSourcePartitionedScheduler
         requireNonNull(bucketNodeMap, "bucketNodeMap is null");
         checkArgument(!requireNonNull(nodes, "nodes is null").isEmpty(), "nodes is empty");
         requireNonNull(partitionHandles, "partitionHandles is null");
+        checkArgument(maxSpeculativeLifespans >= 0, "maxSpeculativeLifespans is negative");
+        checkArgument(maxSpeculativeLifespans == 0 || bucketNodeMap.isDynamic(), "speculative lifespans require a dynamic bucket node map");
         this.cteMaterializationTracker = cteMaterializationTracker;
 
         this.stage = stage;
@@ -154,7 +160,7 @@ public class FixedSourcePartitionedScheduler
                         // Caller of the constructor guarantees dynamic bucket node map will only be
                         // used when the stage has no non-replicated remote sources and all scans use grouped
                         // execution.
-                        lifespanScheduler = new DynamicLifespanScheduler(bucketNodeMap, nodes, partitionHandles, concurrentLifespansPerTask);
+                        lifespanScheduler = new DynamicLifespanScheduler(bucketNodeMap, nodes, partitionHandles, concurrentLifespansPerTask, maxSpeculativeLifespans, Ticker.systemTicker());
                     }
                     else {
                         lifespanScheduler = new FixedLifespanScheduler(bucketNodeMap, partitionHandles, concurrentLifespansPerTask);
@@ -163,12 +169,13 @@ public class FixedSourcePartitionedScheduler
                     // Schedule the first few lifespans
                     lifespanScheduler.scheduleInitial(sourceScheduler);
                     // Schedule new lifespans for finished ones
-                    stage.addCompletedDriverGroupsChangedListener(lifespanScheduler::onLifespanExecutionFinished);
+                    stage.addCompletedDriverGroupsChangedListener((taskId, driverGroups) -> lifespanScheduler.onLifespanExecutionFinished(taskId.getId(), driverGroups));
                     groupedLifespanScheduler = Optional.of(lifespanScheduler);
                 }
             }
         }
         this.groupedLifespanScheduler = groupedLifespanScheduler;
+        this.speculationEnabled = maxSpeculativeLifespans > 0;
 
         // use a CopyOnWriteArrayList to prevent ConcurrentModificationExceptions
         // if close() is called while the main thread is in the scheduling loop
@@ -235,6 +242,13 @@ public class FixedSourcePartitionedScheduler
                 // Invoke schedule method to get a new SettableFuture every time.
                 // Reusing previously returned SettableFuture could lead to the ListenableFuture retaining too many listeners.
                 blocked.add(groupedLifespanScheduler.get().schedule(sourceSchedulers.get(0)));
+
+                // Rewinding a lifespan is only possible until the first source scheduler finished
+                if (speculationEnabled && !anySourceSchedulingFinished) {
+                    for (SpeculativeLifespan speculativeLifespan : groupedLifespanScheduler.get().speculateStragglingLifespans(sourceSchedulers)) {
+                        stage.recordSpeculativeLifespan(speculativeLifespan.getLifespan(), speculativeLifespan.getOriginalTaskId(), speculativeLifespan.getSpeculativeTaskId());
+                    }
+                }
             }
         }
 
@@ -279,6 +293,15 @@ public class FixedSourcePartitionedScheduler
             }
         }
 
+        if (speculationEnabled) {
+            synchronized (this) {
+                // lifespans drained from the last source scheduler have all their splits assigned
+                if (!closed) {
+                    groupedLifespanScheduler.get().onLifespansCompletelyScheduled(driverGroupsToStart);
+                }
+            }
+        }
+
         if (allBlocked) {
             return ScheduleResult.blocked(sourceSchedulers.isEmpty(), newTasks, whenAnyComplete(blocked), blockedReason, splitsScheduled);
         }
@@ -34,6 +34,7 @@ public class NodeMap
     private final SetMultimap<InetAddress, InternalNode> allNodesByHost;
     private final SetMultimap<HostAddress, InternalNode> allNodesByHostAndPort;
     private final Optional<ConsistentHashingNodeProvider> consistentHashingNodeProvider;
+    private final Optional<RendezvousHashingNodeProvider> rendezvousHashingNodeProvider;
 
     public NodeMap(
             Map<String, InternalNode> activeNodesByNodeId,
@@ -43,7 +44,8 @@ public class NodeMap
             List<InternalNode> allNodes,
             SetMultimap<InetAddress, InternalNode> allNodesByHost,
             SetMultimap<HostAddress, InternalNode> allNodesByHostAndPort,
-            Optional<ConsistentHashingNodeProvider> consistentHashingNodeProvider)
+            Optional<ConsistentHashingNodeProvider> consistentHashingNodeProvider,
+            Optional<RendezvousHashingNodeProvider> rendezvousHashingNodeProvider)
     {
         this.activeNodesByNodeId = activeNodesByNodeId;
         this.activeWorkersByNetworkPath = activeWorkersByNetworkPath;
@@ -53,6 +55,7 @@ public class NodeMap
         this.allNodesByHost = allNodesByHost;
         this.allNodesByHostAndPort = allNodesByHostAndPort;
         this.consistentHashingNodeProvider = consistentHashingNodeProvider;
+        this.rendezvousHashingNodeProvider = rendezvousHashingNodeProvider;
     }
 
     public Map<String, InternalNode> getActiveNodesByNodeId()
@@ -95,6 +98,9 @@ public class NodeMap
         if (consistentHashingNodeProvider.isPresent()) {
             return (key) -> consistentHashingNodeProvider.get().get(key, nodeCount);
         }
+        if (rendezvousHashingNodeProvider.isPresent()) {
+            return (key) -> rendezvousHashingNodeProvider.get().get(key, nodeCount);
+        }
         ModularHashingNodeProvider modularHashingNodeProvider = new ModularHashingNodeProvider(allNodes);
         return (key) -> modularHashingNodeProvider.get(key, nodeCount);
     }
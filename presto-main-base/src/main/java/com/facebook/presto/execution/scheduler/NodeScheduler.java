@@ -66,6 +66,7 @@ import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.Networ
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.ResourceAwareSchedulingStrategy;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.ResourceAwareSchedulingStrategy.TTL;
 import static com.facebook.presto.execution.scheduler.NodeSelectionHashStrategy.CONSISTENT_HASHING;
+import static com.facebook.presto.execution.scheduler.NodeSelectionHashStrategy.RENDEZVOUS_HASHING;
 import static com.facebook.presto.metadata.InternalNode.NodeStatus.ALIVE;
 import static com.facebook.presto.spi.NodeState.ACTIVE;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
@@ -292,6 +293,10 @@ public class NodeScheduler
                 int weight = (int) ceil(1.0 * minVirtualNodeCount / activeNodes.size());
                 consistentHashingNodeProvider = Optional.of(ConsistentHashingNodeProvider.create(activeNodes, weight));
             }
+            Optional<RendezvousHashingNodeProvider> rendezvousHashingNodeProvider = Optional.empty();
+            if (nodeSelectionHashStrategy == RENDEZVOUS_HASHING) {
+                rendezvousHashingNodeProvider = Optional.of(RendezvousHashingNodeProvider.create(activeNodes));
+            }
 
             for (InternalNode node : allNodes) {
                 if (node.getNodeStatus() == ALIVE) {
@@ -321,7 +326,8 @@ public class NodeScheduler
                     allNodes,
                     allNodesByHost.build(),
                     allNodesByHostAndPort.build(),
-                    consistentHashingNodeProvider);
+                    consistentHashingNodeProvider,
+                    rendezvousHashingNodeProvider);
         };
     }
 
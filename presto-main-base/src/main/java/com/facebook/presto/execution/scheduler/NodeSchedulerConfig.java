@@ -155,7 +155,7 @@ public class NodeSchedulerConfig
     }
 
     @Config("node-scheduler.node-selection-hash-strategy")
-    @ConfigDescription("Hashing strategy used for node selection when scheduling splits to nodes. Options are MODULAR_HASHING, CONSISTENT_HASHING")
+    @ConfigDescription("Hashing strategy used for node selection when scheduling splits to nodes. Options are MODULAR_HASHING, CONSISTENT_HASHING, RENDEZVOUS_HASHING")
     public NodeSchedulerConfig setNodeSelectionHashStrategy(NodeSelectionHashStrategy nodeSelectionHashStrategy)
     {
         this.nodeSelectionHashStrategy = nodeSelectionHashStrategy;
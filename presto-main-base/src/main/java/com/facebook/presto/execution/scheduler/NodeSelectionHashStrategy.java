@@ -16,5 +16,6 @@ package com.facebook.presto.execution.scheduler;
 public enum NodeSelectionHashStrategy
 {
     MODULAR_HASHING,
-    CONSISTENT_HASHING
+    CONSISTENT_HASHING,
+    RENDEZVOUS_HASHING
 }
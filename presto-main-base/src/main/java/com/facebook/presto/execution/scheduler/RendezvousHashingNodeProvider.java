@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.hash.Hashing.murmur3_128;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Highest random weight (rendezvous) hashing: every node gets a score for a key, and the
+ * nodes with the highest scores are chosen, in order. Removing a node only moves the keys
+ * it owned, each to the node that was already its next choice, and adding a node only takes
+ * over keys it scores highest for, without the virtual nodes consistent hashing needs to
+ * balance keys across few nodes.
+ */
+public class RendezvousHashingNodeProvider
+{
+    private static final HashFunction HASH_FUNCTION = murmur3_128();
+
+    private final List<InternalNode> nodes;
+    private final long[] nodeHashes;
+
+    static RendezvousHashingNodeProvider create(Collection<InternalNode> nodes)
+    {
+        return new RendezvousHashingNodeProvider(ImmutableList.copyOf(requireNonNull(nodes, "nodes is null")));
+    }
+
+    private RendezvousHashingNodeProvider(List<InternalNode> nodes)
+    {
+        this.nodes = nodes;
+        this.nodeHashes = new long[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeHashes[i] = HASH_FUNCTION.hashString(nodes.get(i).getNodeIdentifier(), UTF_8).asLong();
+        }
+    }
+
+    public List<HostAddress> get(String key, int count)
+    {
+        count = Math.min(count, nodes.size());
+        long keyHash = HASH_FUNCTION.hashString(key, UTF_8).asLong();
+
+        long[] scores = new long[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            scores[i] = mix(keyHash ^ nodeHashes[i]);
+        }
+
+        // only a few preferred nodes are requested, so repeated selection beats sorting all nodes
+        ImmutableList.Builder<HostAddress> chosenNodes = ImmutableList.builderWithExpectedSize(count);
+        boolean[] chosen = new boolean[nodes.size()];
+        for (int selected = 0; selected < count; selected++) {
+            int best = -1;
+            for (int i = 0; i < nodes.size(); i++) {
+                if (!chosen[i] && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            chosen[best] = true;
+            chosenNodes.add(nodes.get(best).getHostAndPort());
+        }
+        return chosenNodes.build();
+    }
+
+    private static long mix(long value)
+    {
+        // finalization step of 64-bit murmur3, so every input bit affects the score
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
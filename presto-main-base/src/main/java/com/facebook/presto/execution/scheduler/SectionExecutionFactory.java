@@ -14,6 +14,8 @@
 package com.facebook.presto.execution.scheduler;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsAndCosts;
 import com.facebook.presto.execution.ForQueryExecution;
 import com.facebook.presto.execution.NodeTaskMap;
 import com.facebook.presto.execution.QueryManagerConfig;
@@ -43,11 +45,14 @@ import com.facebook.presto.spi.plan.TableScanNode;
 import com.facebook.presto.split.SplitSource;
 import com.facebook.presto.sql.planner.NodePartitionMap;
 import com.facebook.presto.sql.planner.NodePartitioningManager;
+import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.PlanFragmenterUtils;
 import com.facebook.presto.sql.planner.SplitSourceFactory;
 import com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -67,8 +72,12 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static com.facebook.presto.SystemSessionProperties.getConcurrentLifespansPerNode;
+import static com.facebook.presto.SystemSessionProperties.getHashPartitionCount;
+import static com.facebook.presto.SystemSessionProperties.getHashPartitionTargetDataSize;
+import static com.facebook.presto.SystemSessionProperties.getMaxSpeculativeLifespanPercentage;
 import static com.facebook.presto.SystemSessionProperties.getMaxTasksPerStage;
 import static com.facebook.presto.SystemSessionProperties.getWriterMinSize;
+import static com.facebook.presto.SystemSessionProperties.isAdaptiveHashPartitionCountEnabled;
 import static com.facebook.presto.SystemSessionProperties.isOptimizedScaleWriterProducerBuffer;
 import static com.facebook.presto.execution.SqlStageExecution.createSqlStageExecution;
 import static com.facebook.presto.execution.scheduler.SourcePartitionedScheduler.newSourcePartitionedSchedulerAsStageScheduler;
@@ -78,9 +87,13 @@ import static com.facebook.presto.spi.NodePoolType.INTERMEDIATE;
 import static com.facebook.presto.spi.NodePoolType.LEAF;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SystemPartitionFunction.HASH;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SystemPartitioning.FIXED;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.createSystemPartitioning;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPLICATE;
 import static com.facebook.presto.util.Failures.checkCondition;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -90,6 +103,11 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.MoreCollectors.onlyElement;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -224,7 +242,7 @@ public class SectionExecutionFactory
                 schedulerStats,
                 tableWriteInfo);
 
-        PartitioningHandle partitioningHandle = plan.getFragment().getPartitioning();
+        PartitioningHandle partitioningHandle = getStagePartitioning(session, plan.getFragment());
         List<RemoteSourceNode> remoteSourceNodes = plan.getFragment().getRemoteSourceNodes();
         Optional<int[]> bucketToPartition = getBucketToPartition(partitioningHandle, partitioningCache, plan.getFragment().getRoot(), remoteSourceNodes);
 
@@ -344,6 +362,7 @@ public class SectionExecutionFactory
                         new DynamicBucketNodeMap((split) -> 0, 1, nodes),
                         splitBatchSize,
                         getConcurrentLifespansPerNode(session),
+                        0,
                         nodeSelector,
                         ImmutableList.of(NOT_PARTITIONED),
                         cteMaterializationTracker);
@@ -414,6 +433,11 @@ public class SectionExecutionFactory
                     bucketNodeMap = nodePartitionMap.asBucketNodeMap();
                 }
 
+                // a straggling lifespan can only be executed a second time when the table commit drops the output of the slower attempt
+                int maxSpeculativeLifespans = 0;
+                if (plan.getFragment().getStageExecutionDescriptor().isRecoverableGroupedExecution() && bucketNodeMap.isDynamic()) {
+                    maxSpeculativeLifespans = (int) (connectorPartitionHandles.size() * getMaxSpeculativeLifespanPercentage(session));
+                }
                 FixedSourcePartitionedScheduler fixedSourcePartitionedScheduler = new FixedSourcePartitionedScheduler(
                         stageExecution,
                         splitSources,
@@ -423,6 +447,7 @@ public class SectionExecutionFactory
                         bucketNodeMap,
                         splitBatchSize,
                         getConcurrentLifespansPerNode(session),
+                        maxSpeculativeLifespans,
                         nodeScheduler.createNodeSelector(session, connectorId, nodePredicate),
                         connectorPartitionHandles,
                         cteMaterializationTracker);
@@ -441,15 +466,52 @@ public class SectionExecutionFactory
 
             else {
                 // all sources are remote
-                NodePartitionMap nodePartitionMap = partitioningCache.apply(plan.getFragment().getPartitioning());
+                NodePartitionMap nodePartitionMap = partitioningCache.apply(partitioningHandle);
                 List<InternalNode> partitionToNode = nodePartitionMap.getPartitionToNode();
                 // todo this should asynchronously wait a standard timeout period before failing
                 checkCondition(!partitionToNode.isEmpty(), NO_NODES_AVAILABLE, "No worker nodes available");
+                if (plan.getFragment().getPartitioning().equals(FIXED_HASH_DISTRIBUTION)) {
+                    stageExecution.recordHashPartitionCount(partitionToNode.size());
+                }
                 return new FixedCountScheduler(stageExecution, partitionToNode);
             }
         }
     }
 
+    /**
+     * Hash partitioned stages get as many partitions as the configured hash partition count. When the
+     * partition count is adaptive, a stage reading only remote sources gets one partition per target
+     * data size of its estimated input instead, bounded by the hash partition count, so stages with
+     * little input are coalesced into fewer tasks. Estimates include history based statistics when
+     * those are enabled.
+     */
+    @VisibleForTesting
+    static PartitioningHandle getStagePartitioning(Session session, PlanFragment fragment)
+    {
+        PartitioningHandle partitioning = fragment.getPartitioning();
+        if (!isAdaptiveHashPartitionCountEnabled(session) || !partitioning.equals(FIXED_HASH_DISTRIBUTION) || !fragment.getTableScanSchedulingOrder().isEmpty()) {
+            return partitioning;
+        }
+
+        Map<PlanNodeId, PlanNodeStatsEstimate> estimates = fragment.getStatsAndCosts().map(StatsAndCosts::getStats).orElse(ImmutableMap.of());
+        double inputSizeInBytes = 0;
+        for (RemoteSourceNode remoteSource : fragment.getRemoteSourceNodes()) {
+            PlanNodeStatsEstimate estimate = estimates.get(remoteSource.getId());
+            if (estimate == null) {
+                return partitioning;
+            }
+            double outputSizeInBytes = estimate.getOutputSizeInBytes(remoteSource);
+            if (isNaN(outputSizeInBytes)) {
+                return partitioning;
+            }
+            inputSizeInBytes += outputSizeInBytes;
+        }
+
+        long partitionCount = (long) ceil(inputSizeInBytes / getHashPartitionTargetDataSize(session).toBytes());
+        int maxPartitionCount = min(getHashPartitionCount(session), getMaxTasksPerStage(session));
+        return createSystemPartitioning(FIXED, HASH, toIntExact(max(1, min(partitionCount, maxPartitionCount))));
+    }
+
     private Optional<Predicate<Node>> getNodePoolSelectionPredicate(StreamingSubPlan plan)
     {
         if (!isEnableWorkerIsolation || plan.getFragment().getStageExecutionDescriptor().isStageGroupedExecution()) {
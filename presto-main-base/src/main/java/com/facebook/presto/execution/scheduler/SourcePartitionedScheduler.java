@@ -33,6 +33,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -50,6 +51,7 @@ import static com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReas
 import static com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReason.WAITING_FOR_SOURCE;
 import static com.facebook.presto.spi.SplitContext.NON_CACHEABLE;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.SOFT_AFFINITY;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
@@ -288,6 +290,7 @@ public class SourcePartitionedScheduler
                 // remove splits with successful placements
                 splitAssignment.values().forEach(scheduleGroup.pendingSplits::remove); // AbstractSet.removeAll performs terribly here.
                 overallSplitAssignmentCount += splitAssignment.size();
+                recordSoftAffinitySplits(splitAssignment.values());
 
                 // if not completed placed, mark scheduleGroup as blocked on placement
                 if (!scheduleGroup.pendingSplits.isEmpty()) {
@@ -460,6 +463,24 @@ public class SourcePartitionedScheduler
         whenFinishedOrNewLifespanAdded.set(null);
     }
 
+    private void recordSoftAffinitySplits(Collection<Split> splits)
+    {
+        // the node selector only marks splits cacheable when they are placed on one of their preferred nodes
+        long scheduledSplits = 0;
+        long preferredNodeSplits = 0;
+        for (Split split : splits) {
+            if (split.getNodeSelectionStrategy() == SOFT_AFFINITY) {
+                scheduledSplits++;
+                if (split.getSplitContext().isCacheable()) {
+                    preferredNodeSplits++;
+                }
+            }
+        }
+        if (scheduledSplits > 0) {
+            stage.recordSoftAffinitySplits(scheduledSplits, preferredNodeSplits);
+        }
+    }
+
     private Set<RemoteTask> assignSplits(Multimap<InternalNode, Split> splitAssignment, Multimap<InternalNode, Lifespan> noMoreSplitsNotification)
     {
         ImmutableSet.Builder<RemoteTask> newTasks = ImmutableSet.builder();
@@ -35,6 +35,19 @@ public class SplitSchedulerStats
     private final CounterStat waitingForCTEMaterialization = new CounterStat();
     private final DistributionStat splitsPerIteration = new DistributionStat();
 
+    private final CounterStat softAffinityScheduledSplits = new CounterStat();
+    private final CounterStat softAffinityPreferredNodeSplits = new CounterStat();
+    private final CounterStat stragglingTasks = new CounterStat();
+    private final CounterStat speculativeLifespans = new CounterStat();
+    private final CounterStat speculationHits = new CounterStat();
+    private final CounterStat speculationLosses = new CounterStat();
+
+    public void recordSoftAffinitySplits(long scheduledSplits, long preferredNodeSplits)
+    {
+        softAffinityScheduledSplits.update(scheduledSplits);
+        softAffinityPreferredNodeSplits.update(preferredNodeSplits);
+    }
+
     @Managed
     @Nested
     public TimeStat getSleepTime()
@@ -90,4 +103,65 @@ public class SplitSchedulerStats
     {
         return noActiveDriverGroup;
     }
+
+    @Managed
+    @Nested
+    public CounterStat getSoftAffinityScheduledSplits()
+    {
+        return softAffinityScheduledSplits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSoftAffinityPreferredNodeSplits()
+    {
+        return softAffinityPreferredNodeSplits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStragglingTasks()
+    {
+        return stragglingTasks;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSpeculativeLifespans()
+    {
+        return speculativeLifespans;
+    }
+
+    /**
+     * Speculatively executed lifespans whose speculative attempt finished before the original one.
+     */
+    @Managed
+    @Nested
+    public CounterStat getSpeculationHits()
+    {
+        return speculationHits;
+    }
+
+    /**
+     * Speculatively executed lifespans whose original attempt finished first, so the speculative attempt was wasted.
+     */
+    @Managed
+    @Nested
+    public CounterStat getSpeculationLosses()
+    {
+        return speculationLosses;
+    }
+
+    /**
+     * Fraction of soft affinity splits scheduled on one of their preferred nodes, where they can be served from the node's cache.
+     */
+    @Managed
+    public double getCacheAffinityHitRatio()
+    {
+        long scheduledSplits = softAffinityScheduledSplits.getTotalCount();
+        if (scheduledSplits == 0) {
+            return 0;
+        }
+        return (double) softAffinityPreferredNodeSplits.getTotalCount() / scheduledSplits;
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.airlift.concurrent.NotThreadSafe;
+import it.unimi.dsi.fastutil.longs.LongComparators;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Median of a growing set of values. The values are kept in two heaps, so adding
+ * a value takes logarithmic time and reading the median takes constant time.
+ * For an even number of values, the larger of the two middle values is returned.
+ */
+@NotThreadSafe
+public class StreamingMedian
+{
+    // the smaller half of the values, largest first
+    private final LongHeapPriorityQueue lower = new LongHeapPriorityQueue(LongComparators.OPPOSITE_COMPARATOR);
+    // the larger half of the values, smallest first; holds the same number of values as lower, or one more
+    private final LongHeapPriorityQueue upper = new LongHeapPriorityQueue();
+
+    public void add(long value)
+    {
+        if (upper.isEmpty() || value >= upper.firstLong()) {
+            upper.enqueue(value);
+        }
+        else {
+            lower.enqueue(value);
+        }
+
+        if (upper.size() > lower.size() + 1) {
+            lower.enqueue(upper.dequeueLong());
+        }
+        else if (lower.size() > upper.size()) {
+            upper.enqueue(lower.dequeueLong());
+        }
+    }
+
+    public int size()
+    {
+        return lower.size() + upper.size();
+    }
+
+    public long getMedian()
+    {
+        checkState(!upper.isEmpty(), "no values added");
+        return upper.firstLong();
+    }
+}
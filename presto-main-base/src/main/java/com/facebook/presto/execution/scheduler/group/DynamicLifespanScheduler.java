@@ -13,11 +13,15 @@
  */
 package com.facebook.presto.execution.scheduler.group;
 
+import com.facebook.airlift.units.Duration;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.execution.scheduler.BucketNodeMap;
 import com.facebook.presto.execution.scheduler.SourceScheduler;
+import com.facebook.presto.execution.scheduler.StreamingMedian;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
@@ -26,6 +30,8 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,8 +41,11 @@ import java.util.Set;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static java.lang.Math.max;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * See {@link LifespanScheduler} about thread safety
@@ -46,6 +55,9 @@ public class DynamicLifespanScheduler
 {
     private static final int NOT_ASSIGNED = -1;
 
+    private static final int STRAGGLING_DRIVER_GROUP_DURATION_FACTOR = 2;
+    private static final Duration MIN_STRAGGLING_DRIVER_GROUP_DURATION = new Duration(10, SECONDS);
+
     private final BucketNodeMap bucketNodeMap;
     private final List<InternalNode> nodeByTaskId;
     private final List<ConnectorPartitionHandle> partitionHandles;
@@ -57,6 +69,8 @@ public class DynamicLifespanScheduler
     private final IntArrayFIFOQueue noPreferenceDriverGroups;
     private final Map<InternalNode, IntArrayFIFOQueue> nodeToPreferredDriverGroups;
     private final IntSet failedTasks;
+    private final int maxSpeculativeDriverGroups;
+    private final Ticker ticker;
 
     // initialScheduled does not need to be guarded because this object
     // is safely published after its mutation.
@@ -71,11 +85,38 @@ public class DynamicLifespanScheduler
     @GuardedBy("this")
     private int totalLifespanExecutionFinished;
 
+    // A straggling driver group may get a second, speculative attempt on another task. Both attempts
+    // produce the complete output of the driver group, and the lifespan commit of the table writer
+    // keeps the output of whichever attempt finishes first.
+    @GuardedBy("this")
+    private final long[] driverGroupStartNanos;
+    @GuardedBy("this")
+    private final BitSet completelyScheduledDriverGroups;
+    @GuardedBy("this")
+    private final BitSet finishedDriverGroups;
+    @GuardedBy("this")
+    private final BitSet speculatedDriverGroups;
+    @GuardedBy("this")
+    private final int[] speculativeTaskByDriverGroup;
+    @GuardedBy("this")
+    private final StreamingMedian driverGroupExecutionNanos = new StreamingMedian();
+
     public DynamicLifespanScheduler(
             BucketNodeMap bucketNodeMap,
             List<InternalNode> nodeByTaskId,
             List<ConnectorPartitionHandle> partitionHandles,
             OptionalInt concurrentLifespansPerTask)
+    {
+        this(bucketNodeMap, nodeByTaskId, partitionHandles, concurrentLifespansPerTask, 0, Ticker.systemTicker());
+    }
+
+    public DynamicLifespanScheduler(
+            BucketNodeMap bucketNodeMap,
+            List<InternalNode> nodeByTaskId,
+            List<ConnectorPartitionHandle> partitionHandles,
+            OptionalInt concurrentLifespansPerTask,
+            int maxSpeculativeDriverGroups,
+            Ticker ticker)
     {
         this.bucketNodeMap = requireNonNull(bucketNodeMap, "bucketNodeMap is null");
         this.nodeByTaskId = requireNonNull(nodeByTaskId, "nodeByTaskId is null");
@@ -113,6 +154,16 @@ public class DynamicLifespanScheduler
             }
         }
         this.failedTasks = new IntOpenHashSet();
+
+        checkArgument(maxSpeculativeDriverGroups >= 0, "maxSpeculativeDriverGroups is negative");
+        this.maxSpeculativeDriverGroups = maxSpeculativeDriverGroups;
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.driverGroupStartNanos = new long[totalLifespans];
+        this.completelyScheduledDriverGroups = new BitSet(totalLifespans);
+        this.finishedDriverGroups = new BitSet(totalLifespans);
+        this.speculatedDriverGroups = new BitSet(totalLifespans);
+        this.speculativeTaskByDriverGroup = new int[totalLifespans];
+        Arrays.fill(speculativeTaskByDriverGroup, NOT_ASSIGNED);
     }
 
     @Override
@@ -129,9 +180,7 @@ public class DynamicLifespanScheduler
                     if (!driverGroupId.isPresent()) {
                         continue;
                     }
-                    scheduler.startLifespan(Lifespan.driverGroup(driverGroupId.getAsInt()), partitionHandles.get(driverGroupId.getAsInt()));
-                    taskByDriverGroup[driverGroupId.getAsInt()] = taskId;
-                    runningDriverGroupIdsByTask[taskId].add(driverGroupId.getAsInt());
+                    startDriverGroup(scheduler, driverGroupId.getAsInt(), taskId);
                 }
 
                 driverGroupsScheduledPerTask++;
@@ -144,7 +193,7 @@ public class DynamicLifespanScheduler
     }
 
     @Override
-    public void onLifespanExecutionFinished(Iterable<Lifespan> newlyCompletelyExecutedDriverGroups)
+    public void onLifespanExecutionFinished(int taskId, Iterable<Lifespan> newlyCompletelyExecutedDriverGroups)
     {
         checkState(initialScheduled, "onLifespanExecutionFinished should only be called after initial scheduling finished");
 
@@ -153,9 +202,22 @@ public class DynamicLifespanScheduler
             for (Lifespan newlyCompletelyExecutedDriverGroup : newlyCompletelyExecutedDriverGroups) {
                 checkArgument(!newlyCompletelyExecutedDriverGroup.isTaskWide());
                 int driverGroupId = newlyCompletelyExecutedDriverGroup.getId();
-                availableTasks.enqueue(taskByDriverGroup[driverGroupId]);
+                // The task of the losing attempt of a speculatively executed driver group keeps its slot until
+                // that attempt finishes as well. It is never freed if the attempt is cancelled, but the losing
+                // attempt is only cancelled once every driver group finished.
+                if (runningDriverGroupIdsByTask[taskId].remove(driverGroupId)) {
+                    availableTasks.enqueue(taskId);
+                }
+                if (finishedDriverGroups.get(driverGroupId)) {
+                    // the other attempt of a speculatively executed driver group finished first
+                    continue;
+                }
+                finishedDriverGroups.set(driverGroupId);
+                completelyScheduledDriverGroups.clear(driverGroupId);
                 totalLifespanExecutionFinished++;
-                runningDriverGroupIdsByTask[taskByDriverGroup[driverGroupId]].remove(driverGroupId);
+                if (!speculatedDriverGroups.get(driverGroupId)) {
+                    driverGroupExecutionNanos.add(ticker.read() - driverGroupStartNanos[driverGroupId]);
+                }
             }
             newDriverGroupReady = this.newDriverGroupReady;
         }
@@ -170,6 +232,11 @@ public class DynamicLifespanScheduler
         synchronized (this) {
             this.failedTasks.add(taskId);
             for (int driverGroupId : runningDriverGroupIdsByTask[taskId]) {
+                if (removeFailedSpeculativeAttempt(taskId, driverGroupId)) {
+                    // the other attempt of the driver group keeps running
+                    continue;
+                }
+                completelyScheduledDriverGroups.clear(driverGroupId);
                 for (SourceScheduler sourceScheduler : sourceSchedulers) {
                     sourceScheduler.rewindLifespan(Lifespan.driverGroup(driverGroupId), partitionHandles.get(driverGroupId));
                 }
@@ -209,7 +276,7 @@ public class DynamicLifespanScheduler
             newDriverGroupReady = SettableFuture.create();
             while (!availableTasks.isEmpty() && (!noPreferenceDriverGroups.isEmpty() || !nodeToPreferredDriverGroups.isEmpty())) {
                 int taskId = availableTasks.dequeueInt();
-                if (failedTasks.contains(taskId)) {
+                if (failedTasks.contains(taskId) || !hasFreeSlot(taskId)) {
                     continue;
                 }
 
@@ -217,20 +284,141 @@ public class DynamicLifespanScheduler
                 if (!nextDriverGroupId.isPresent()) {
                     continue;
                 }
-                scheduler.startLifespan(Lifespan.driverGroup(nextDriverGroupId.getAsInt()), partitionHandles.get(nextDriverGroupId.getAsInt()));
-                taskByDriverGroup[nextDriverGroupId.getAsInt()] = taskId;
-                runningDriverGroupIdsByTask[taskId].add(nextDriverGroupId.getAsInt());
+                startDriverGroup(scheduler, nextDriverGroupId.getAsInt(), taskId);
             }
         }
         return newDriverGroupReady;
     }
 
+    @Override
+    public synchronized void onLifespansCompletelyScheduled(Iterable<Lifespan> completelyScheduledDriverGroups)
+    {
+        for (Lifespan lifespan : completelyScheduledDriverGroups) {
+            checkArgument(!lifespan.isTaskWide());
+            if (!finishedDriverGroups.get(lifespan.getId())) {
+                this.completelyScheduledDriverGroups.set(lifespan.getId());
+            }
+        }
+    }
+
+    /**
+     * Once every driver group has started and at least half of them finished, a driver group that is
+     * still running after several times the median execution time of the finished ones is straggling,
+     * for example because its node is slow. A straggling driver group whose splits were all assigned
+     * is started again on an idle task of another node. Every driver group is speculated at most once,
+     * and at most {@code maxSpeculativeDriverGroups} are speculated, which bounds the extra CPU spent.
+     */
+    @Override
+    public List<SpeculativeLifespan> speculateStragglingLifespans(List<SourceScheduler> sourceSchedulers)
+    {
+        checkState(initialScheduled, "speculateStragglingLifespans should only be called after initial scheduling finished");
+
+        synchronized (this) {
+            if (speculatedDriverGroups.cardinality() >= maxSpeculativeDriverGroups ||
+                    !noPreferenceDriverGroups.isEmpty() ||
+                    !nodeToPreferredDriverGroups.isEmpty() ||
+                    driverGroupExecutionNanos.size() * 2 < partitionHandles.size()) {
+                return ImmutableList.of();
+            }
+
+            long stragglingNanos = max(
+                    driverGroupExecutionNanos.getMedian() * STRAGGLING_DRIVER_GROUP_DURATION_FACTOR,
+                    MIN_STRAGGLING_DRIVER_GROUP_DURATION.roundTo(NANOSECONDS));
+            long now = ticker.read();
+            ImmutableList.Builder<SpeculativeLifespan> speculativeLifespans = ImmutableList.builder();
+            for (int driverGroupId = completelyScheduledDriverGroups.nextSetBit(0);
+                    driverGroupId >= 0 && speculatedDriverGroups.cardinality() < maxSpeculativeDriverGroups;
+                    driverGroupId = completelyScheduledDriverGroups.nextSetBit(driverGroupId + 1)) {
+                if (speculatedDriverGroups.get(driverGroupId) ||
+                        now - driverGroupStartNanos[driverGroupId] <= stragglingNanos ||
+                        !isBucketCompletelyScheduled(driverGroupId)) {
+                    continue;
+                }
+
+                int originalTaskId = taskByDriverGroup[driverGroupId];
+                OptionalInt speculativeTaskId = getIdleTask(nodeByTaskId.get(originalTaskId));
+                if (!speculativeTaskId.isPresent()) {
+                    break;
+                }
+
+                // The original attempt has all its splits already. Splits are enumerated again for the
+                // speculative attempt, and the bucket is moved to the node of the speculative task.
+                for (SourceScheduler sourceScheduler : sourceSchedulers) {
+                    sourceScheduler.rewindLifespan(Lifespan.driverGroup(driverGroupId), partitionHandles.get(driverGroupId));
+                }
+                bucketNodeMap.assignOrUpdateBucketToNode(driverGroupId % bucketNodeMap.getBucketCount(), nodeByTaskId.get(speculativeTaskId.getAsInt()), false);
+                sourceSchedulers.get(0).startLifespan(Lifespan.driverGroup(driverGroupId), partitionHandles.get(driverGroupId));
+                runningDriverGroupIdsByTask[speculativeTaskId.getAsInt()].add(driverGroupId);
+                // until the speculative attempt has all its splits, the bucket must not move again
+                completelyScheduledDriverGroups.clear(driverGroupId);
+                speculativeTaskByDriverGroup[driverGroupId] = speculativeTaskId.getAsInt();
+                speculatedDriverGroups.set(driverGroupId);
+                speculativeLifespans.add(new SpeculativeLifespan(Lifespan.driverGroup(driverGroupId), originalTaskId, speculativeTaskId.getAsInt()));
+            }
+            return speculativeLifespans.build();
+        }
+    }
+
     @Override
     public synchronized boolean allLifespanExecutionFinished()
     {
         return totalLifespanExecutionFinished == partitionHandles.size();
     }
 
+    @GuardedBy("this")
+    private void startDriverGroup(SourceScheduler scheduler, int driverGroupId, int taskId)
+    {
+        scheduler.startLifespan(Lifespan.driverGroup(driverGroupId), partitionHandles.get(driverGroupId));
+        taskByDriverGroup[driverGroupId] = taskId;
+        runningDriverGroupIdsByTask[taskId].add(driverGroupId);
+        driverGroupStartNanos[driverGroupId] = ticker.read();
+    }
+
+    // A task may be queued more than once, for example after it ran a speculative attempt it was not queued for
+    @GuardedBy("this")
+    private boolean hasFreeSlot(int taskId)
+    {
+        return !concurrentLifespansPerTask.isPresent() || runningDriverGroupIdsByTask[taskId].size() < concurrentLifespansPerTask.getAsInt();
+    }
+
+    @GuardedBy("this")
+    private boolean removeFailedSpeculativeAttempt(int failedTaskId, int driverGroupId)
+    {
+        int speculativeTaskId = speculativeTaskByDriverGroup[driverGroupId];
+        if (speculativeTaskId == NOT_ASSIGNED) {
+            return false;
+        }
+        if (speculativeTaskId != failedTaskId) {
+            taskByDriverGroup[driverGroupId] = speculativeTaskId;
+        }
+        speculativeTaskByDriverGroup[driverGroupId] = NOT_ASSIGNED;
+        return true;
+    }
+
+    // Moving the bucket of a driver group to another node is only safe once every running driver group of the bucket has all its splits
+    @GuardedBy("this")
+    private boolean isBucketCompletelyScheduled(int driverGroupId)
+    {
+        int bucketCount = bucketNodeMap.getBucketCount();
+        for (int bucketDriverGroupId = driverGroupId % bucketCount; bucketDriverGroupId < partitionHandles.size(); bucketDriverGroupId += bucketCount) {
+            if (!finishedDriverGroups.get(bucketDriverGroupId) && !completelyScheduledDriverGroups.get(bucketDriverGroupId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @GuardedBy("this")
+    private OptionalInt getIdleTask(InternalNode excludedNode)
+    {
+        for (int taskId = 0; taskId < nodeByTaskId.size(); taskId++) {
+            if (!failedTasks.contains(taskId) && runningDriverGroupIdsByTask[taskId].isEmpty() && !nodeByTaskId.get(taskId).equals(excludedNode)) {
+                return OptionalInt.of(taskId);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
     private OptionalInt getNextDriverGroup(InternalNode node)
     {
         OptionalInt driverGroupId = OptionalInt.empty();
@@ -107,7 +107,7 @@ public class FixedLifespanScheduler
         }
     }
 
-    public void onLifespanExecutionFinished(Iterable<Lifespan> newlyCompletelyExecutedDriverGroups)
+    public void onLifespanExecutionFinished(int taskId, Iterable<Lifespan> newlyCompletelyExecutedDriverGroups)
     {
         checkState(initialScheduled);
 
@@ -130,6 +130,18 @@ public class FixedLifespanScheduler
         throw new UnsupportedOperationException("onTaskFailed is not supported in FixedLifespanScheduler");
     }
 
+    @Override
+    public void onLifespansCompletelyScheduled(Iterable<Lifespan> completelyScheduledDriverGroups)
+    {
+        throw new UnsupportedOperationException("onLifespansCompletelyScheduled is not supported in FixedLifespanScheduler");
+    }
+
+    @Override
+    public List<SpeculativeLifespan> speculateStragglingLifespans(List<SourceScheduler> sourceSchedulers)
+    {
+        throw new UnsupportedOperationException("speculateStragglingLifespans is not supported in FixedLifespanScheduler");
+    }
+
     public SettableFuture schedule(SourceScheduler scheduler)
     {
         // Return a new future even if newDriverGroupReady has not finished.
@@ -25,15 +25,24 @@ public interface LifespanScheduler
     // * Invocation of onLifespanExecutionFinished can be parallel and in any thread.
     //   There may be multiple invocations in flight at the same time,
     //   and may overlap with any other methods.
-    // * Invocation of schedule happens sequentially in a single thread.
+    // * Invocation of schedule, onTaskFailed, onLifespansCompletelyScheduled and
+    //   speculateStragglingLifespans happens sequentially in a single thread.
     // * This object is safely published after invoking scheduleInitial.
 
     void scheduleInitial(SourceScheduler scheduler);
 
-    void onLifespanExecutionFinished(Iterable<Lifespan> newlyCompletelyExecutedDriverGroups);
+    // Driver groups whose execution finished on the task. Each attempt of a speculatively
+    // executed driver group that finishes is reported by its own task.
+    void onLifespanExecutionFinished(int taskId, Iterable<Lifespan> newlyCompletelyExecutedDriverGroups);
 
     void onTaskFailed(int taskId, List<SourceScheduler> sourceSchedulers);
 
+    // Driver groups whose splits have all been assigned in every source scheduler
+    void onLifespansCompletelyScheduled(Iterable<Lifespan> completelyScheduledDriverGroups);
+
+    // Starts a second attempt of straggling driver groups on other tasks, and returns the attempts started
+    List<SpeculativeLifespan> speculateStragglingLifespans(List<SourceScheduler> sourceSchedulers);
+
     SettableFuture schedule(SourceScheduler scheduler);
 
     boolean allLifespanExecutionFinished();
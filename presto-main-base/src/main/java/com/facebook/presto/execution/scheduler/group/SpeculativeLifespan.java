@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler.group;
+
+import com.facebook.presto.execution.Lifespan;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A second attempt of a driver group, started on another task while the original attempt is still running.
+ */
+public class SpeculativeLifespan
+{
+    private final Lifespan lifespan;
+    private final int originalTaskId;
+    private final int speculativeTaskId;
+
+    public SpeculativeLifespan(Lifespan lifespan, int originalTaskId, int speculativeTaskId)
+    {
+        this.lifespan = requireNonNull(lifespan, "lifespan is null");
+        checkArgument(!lifespan.isTaskWide(), "lifespan is task wide");
+        checkArgument(originalTaskId != speculativeTaskId, "speculative attempt must run on another task");
+        this.originalTaskId = originalTaskId;
+        this.speculativeTaskId = speculativeTaskId;
+    }
+
+    public Lifespan getLifespan()
+    {
+        return lifespan;
+    }
+
+    public int getOriginalTaskId()
+    {
+        return originalTaskId;
+    }
+
+    public int getSpeculativeTaskId()
+    {
+        return speculativeTaskId;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SpeculativeLifespan that = (SpeculativeLifespan) o;
+        return originalTaskId == that.originalTaskId &&
+                speculativeTaskId == that.speculativeTaskId &&
+                lifespan.equals(that.lifespan);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(lifespan, originalTaskId, speculativeTaskId);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("lifespan", lifespan)
+                .add("originalTaskId", originalTaskId)
+                .add("speculativeTaskId", speculativeTaskId)
+                .toString();
+    }
+}
@@ -36,13 +36,17 @@ public class LowMemoryMonitor
     private final ScheduledExecutorService lowMemoryExecutor = newScheduledThreadPool(1, daemonThreadsNamed("low-memory-monitor-executor"));
     private final TaskExecutor taskExecutor;
     private final double threshold;
+    private final LocalMemoryManager localMemoryManager;
+    private final double memoryPoolThreshold;
     private static final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
 
     @Inject
-    public LowMemoryMonitor(TaskExecutor taskExecutor, TaskManagerConfig taskManagerConfig)
+    public LowMemoryMonitor(TaskExecutor taskExecutor, LocalMemoryManager localMemoryManager, TaskManagerConfig taskManagerConfig)
     {
         this.taskExecutor = requireNonNull(taskExecutor, "taskExecutor is null");
+        this.localMemoryManager = requireNonNull(localMemoryManager, "localMemoryManager is null");
         this.threshold = taskManagerConfig.getMemoryBasedSlowDownThreshold();
+        this.memoryPoolThreshold = taskManagerConfig.getMemoryPoolSplitThrottlingThreshold();
     }
 
     @PostConstruct
@@ -51,6 +55,9 @@ public class LowMemoryMonitor
         if (threshold < 1.0) {
             lowMemoryExecutor.scheduleWithFixedDelay(() -> checkLowMemory(), 1, 1, TimeUnit.SECONDS);
         }
+        if (memoryPoolThreshold < 1.0) {
+            lowMemoryExecutor.scheduleWithFixedDelay(() -> checkMemoryPoolPressure(), 1, 1, TimeUnit.SECONDS);
+        }
     }
 
     @PreDestroy
@@ -80,4 +87,19 @@ public class LowMemoryMonitor
             }
         }
     }
+
+    private void checkMemoryPoolPressure()
+    {
+        // revocable memory is left out, since it can be reclaimed by spilling instead of holding back splits
+        MemoryPool generalPool = localMemoryManager.getGeneralPool();
+        long reservedBytes = generalPool.getReservedBytes();
+        long maxBytes = generalPool.getMaxBytes();
+        long memoryThreshold = (long) (maxBytes * memoryPoolThreshold);
+
+        boolean memoryPoolPressure = reservedBytes > memoryThreshold;
+        if (memoryPoolPressure != taskExecutor.isMemoryPoolPressure()) {
+            log.debug("%s memory pool pressure: Reserved: %s Max: %s Threshold: %s", memoryPoolPressure ? "Enabling" : "Disabling", reservedBytes, maxBytes, memoryThreshold);
+            taskExecutor.setMemoryPoolPressure(memoryPoolPressure);
+        }
+    }
 }
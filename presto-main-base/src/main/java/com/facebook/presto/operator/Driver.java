@@ -494,7 +494,8 @@ public class Driver
                                 split.get(),
                                 outputPages,
                                 // also cache the bytes read count from the source operator for this fragment
-                                sourceOperator.get().getOperatorContext().getInputDataSize().getTotalCount());
+                                sourceOperator.get().getOperatorContext().getInputDataSize().getTotalCount(),
+                                sourceOperator.get().getOperatorContext().getRuntimeStats());
                     }
 
                     // Finish the next operator, which is now the first operator.
@@ -20,6 +20,7 @@ import com.facebook.airlift.units.Duration;
 import com.facebook.airlift.units.MinDataSize;
 import com.facebook.airlift.units.MinDuration;
 import com.facebook.presto.CompressionCodec;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 
 import java.net.URI;
@@ -41,6 +42,7 @@ public class FileFragmentResultCacheConfig
     private DataSize maxCacheSize = new DataSize(100, GIGABYTE);
 
     private boolean inputDataStatsEnabled;
+    private double minInputToResultSizeRatio;
 
     public boolean isCachingEnabled()
     {
@@ -163,4 +165,18 @@ public class FileFragmentResultCacheConfig
         this.inputDataStatsEnabled = inputDataStatsEnabled;
         return this;
     }
+
+    @DecimalMin("0.0")
+    public double getMinInputToResultSizeRatio()
+    {
+        return minInputToResultSizeRatio;
+    }
+
+    @Config("fragment-result-cache.min-input-to-result-size-ratio")
+    @ConfigDescription("Minimum ratio of the input data size to the result size for a fragment result to be cached. Zero caches all results")
+    public FileFragmentResultCacheConfig setMinInputToResultSizeRatio(double minInputToResultSizeRatio)
+    {
+        this.minInputToResultSizeRatio = minInputToResultSizeRatio;
+        return this;
+    }
 }
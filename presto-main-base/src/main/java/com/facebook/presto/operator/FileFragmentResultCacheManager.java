@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.metadata.Split;
@@ -47,6 +48,10 @@ import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
+import static com.facebook.presto.common.RuntimeMetricName.FRAGMENT_RESULT_CACHE_REJECTED_CACHE_FULL;
+import static com.facebook.presto.common.RuntimeMetricName.FRAGMENT_RESULT_CACHE_REJECTED_LOW_REDUCTION;
+import static com.facebook.presto.common.RuntimeMetricName.FRAGMENT_RESULT_CACHE_REJECTED_TOO_LARGE;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readPages;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writePages;
@@ -58,6 +63,10 @@ import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+/**
+ * Caches fragment results per plan fragment and split on local disk. Results are cached and
+ * served as a whole: partial aggregation results of different splits are not merged.
+ */
 public class FileFragmentResultCacheManager
         implements FragmentResultCacheManager
 {
@@ -77,6 +86,7 @@ public class FileFragmentResultCacheManager
 
     private final Cache<CacheKey, CacheEntry> cache;
     private final boolean inputDataStatsEnabled;
+    private final double minInputToResultSizeRatio;
 
     // TODO: Decouple CacheKey by encoding PlanNode and SplitIdentifier separately so we don't have to keep too many objects in memory
     @Inject
@@ -106,6 +116,7 @@ public class FileFragmentResultCacheManager
                 .recordStats()
                 .build();
         this.inputDataStatsEnabled = cacheConfig.isInputDataStatsEnabled();
+        this.minInputToResultSizeRatio = cacheConfig.getMinInputToResultSizeRatio();
 
         File target = Paths.get(baseDirectory.toUri()).toFile();
         if (!target.exists()) {
@@ -134,15 +145,29 @@ public class FileFragmentResultCacheManager
     }
 
     @Override
-    public Future<?> put(String serializedPlan, Split split, List<Page> result, long inputDataSize)
+    public Future<?> put(String serializedPlan, Split split, List<Page> result, long inputDataSize, RuntimeStats runtimeStats)
     {
         CacheKey key = new CacheKey(serializedPlan, split.getSplitIdentifier());
         long resultSize = getPagesSize(result);
+        if (cache.getIfPresent(key) != null) {
+            return immediateFuture(null);
+        }
+        if (resultSize > maxSinglePagesBytes) {
+            fragmentCacheStats.incrementRejectedTooLarge();
+            runtimeStats.addMetricValue(FRAGMENT_RESULT_CACHE_REJECTED_TOO_LARGE, NONE, 1);
+            return immediateFuture(null);
+        }
         if (fragmentCacheStats.getInFlightBytes() + resultSize > maxInFlightBytes ||
-                cache.getIfPresent(key) != null ||
-                resultSize > maxSinglePagesBytes ||
                 // Here we use the logical size resultSize as an estimate for admission control.
                 fragmentCacheStats.getCacheSizeInBytes() + resultSize > maxCacheBytes) {
+            fragmentCacheStats.incrementRejectedCacheFull();
+            runtimeStats.addMetricValue(FRAGMENT_RESULT_CACHE_REJECTED_CACHE_FULL, NONE, 1);
+            return immediateFuture(null);
+        }
+        // A result about as large as its input saves little work when read back, but takes as much space.
+        if (inputDataSize < resultSize * minInputToResultSizeRatio) {
+            fragmentCacheStats.incrementRejectedLowReduction();
+            runtimeStats.addMetricValue(FRAGMENT_RESULT_CACHE_REJECTED_LOW_REDUCTION, NONE, 1);
             return immediateFuture(null);
         }
 
@@ -213,6 +238,7 @@ public class FileFragmentResultCacheManager
             InputStream inputStream = newInputStream(cacheEntry.getPath());
             Iterator<Page> result = readPages(pagesSerdeFactory.createPagesSerde(), new InputStreamSliceInput(inputStream));
             fragmentCacheStats.incrementCacheHit();
+            fragmentCacheStats.addCacheHitInputBytes(cacheEntry.getInputDataSize());
             return new FragmentCacheResult(Optional.of(closeWhenExhausted(result, inputStream)), cacheEntry.getInputDataSize());
         }
         catch (UncheckedIOException | IOException e) {
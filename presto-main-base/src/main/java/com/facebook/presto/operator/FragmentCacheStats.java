@@ -24,6 +24,12 @@ public class FragmentCacheStats
     private final AtomicLong inFlightBytes = new AtomicLong();
     private final AtomicLong cacheRemoval = new AtomicLong();
     private final AtomicLong cacheEntries = new AtomicLong();
+    private final AtomicLong hitInputBytes = new AtomicLong();
+
+    // Results that were not cached, by reason.
+    private final AtomicLong rejectedTooLarge = new AtomicLong();
+    private final AtomicLong rejectedCacheFull = new AtomicLong();
+    private final AtomicLong rejectedLowReduction = new AtomicLong();
 
     // Total on-disk size in bytes.
     private final AtomicLong cacheSizeInBytes = new AtomicLong();
@@ -38,6 +44,26 @@ public class FragmentCacheStats
         miss.getAndIncrement();
     }
 
+    public void addCacheHitInputBytes(long bytes)
+    {
+        hitInputBytes.addAndGet(bytes);
+    }
+
+    public void incrementRejectedTooLarge()
+    {
+        rejectedTooLarge.getAndIncrement();
+    }
+
+    public void incrementRejectedCacheFull()
+    {
+        rejectedCacheFull.getAndIncrement();
+    }
+
+    public void incrementRejectedLowReduction()
+    {
+        rejectedLowReduction.getAndIncrement();
+    }
+
     public void addInFlightBytes(long bytes)
     {
         inFlightBytes.addAndGet(bytes);
@@ -75,6 +101,30 @@ public class FragmentCacheStats
         return miss.get();
     }
 
+    @Managed
+    public long getCacheHitInputBytes()
+    {
+        return hitInputBytes.get();
+    }
+
+    @Managed
+    public long getRejectedTooLarge()
+    {
+        return rejectedTooLarge.get();
+    }
+
+    @Managed
+    public long getRejectedCacheFull()
+    {
+        return rejectedCacheFull.get();
+    }
+
+    @Managed
+    public long getRejectedLowReduction()
+    {
+        return rejectedLowReduction.get();
+    }
+
     @Managed
     public long getInFlightBytes()
     {
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.metadata.Split;
 
 import java.util.List;
@@ -21,7 +22,11 @@ import java.util.concurrent.Future;
 
 public interface FragmentResultCacheManager
 {
-    Future<?> put(String serializedPlan, Split split, List<Page> result, long inputDataSize);
+    /**
+     * Caches the result of the fragment for the split. Results that are not admitted are
+     * recorded in {@code runtimeStats}.
+     */
+    Future<?> put(String serializedPlan, Split split, List<Page> result, long inputDataSize, RuntimeStats runtimeStats);
 
     FragmentCacheResult get(String serializedPlan, Split split);
 }
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.metadata.Split;
 
 import java.util.List;
@@ -26,7 +27,7 @@ public class NoOpFragmentResultCacheManager
         implements FragmentResultCacheManager
 {
     @Override
-    public Future<?> put(String serializedPlan, Split split, List<Page> result, long inputDataSize)
+    public Future<?> put(String serializedPlan, Split split, List<Page> result, long inputDataSize, RuntimeStats runtimeStats)
     {
         return immediateFuture(null);
     }
@@ -93,6 +93,7 @@ public class FeaturesConfig
     private boolean partitionAwareGroupedExecutionEnabled;
     private boolean groupedExecutionWhenCapableEnabled;
     private double maxFailedTaskPercentage = 0.3;
+    private double maxSpeculativeLifespanPercentage;
     private int concurrentLifespansPerTask;
     private boolean spatialJoinsEnabled = true;
     private boolean fastInequalityJoins = true;
@@ -237,6 +238,8 @@ public class FeaturesConfig
     private boolean spoolingOutputBufferEnabled;
     private DataSize spoolingOutputBufferThreshold = new DataSize(8, MEGABYTE);
     private String spoolingOutputBufferTempStorage = "local";
+    private boolean queryResultSpoolingEnabled;
+    private DataSize queryResultSpoolingSegmentSize = new DataSize(8, MEGABYTE);
 
     private String warnOnNoTableLayoutFilter = "";
 
@@ -761,6 +764,21 @@ public class FeaturesConfig
         return this;
     }
 
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMaxSpeculativeLifespanPercentage()
+    {
+        return maxSpeculativeLifespanPercentage;
+    }
+
+    @Config("max-speculative-lifespan-percentage")
+    @ConfigDescription("Max percentage of lifespans that may be executed speculatively a second time in recoverable dynamic scheduling")
+    public FeaturesConfig setMaxSpeculativeLifespanPercentage(double maxSpeculativeLifespanPercentage)
+    {
+        this.maxSpeculativeLifespanPercentage = maxSpeculativeLifespanPercentage;
+        return this;
+    }
+
     @Min(0)
     public int getConcurrentLifespansPerTask()
     {
@@ -2440,6 +2458,32 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isQueryResultSpoolingEnabled()
+    {
+        return queryResultSpoolingEnabled;
+    }
+
+    @Config("query-result-spooling-enabled")
+    @ConfigDescription("Spool query results on the coordinator to temp storage so the query can finish before the client drains them")
+    public FeaturesConfig setQueryResultSpoolingEnabled(boolean queryResultSpoolingEnabled)
+    {
+        this.queryResultSpoolingEnabled = queryResultSpoolingEnabled;
+        return this;
+    }
+
+    public DataSize getQueryResultSpoolingSegmentSize()
+    {
+        return queryResultSpoolingSegmentSize;
+    }
+
+    @Config("query-result-spooling-segment-size")
+    @ConfigDescription("Size of the segments written to temp storage when spooling query results")
+    public FeaturesConfig setQueryResultSpoolingSegmentSize(DataSize queryResultSpoolingSegmentSize)
+    {
+        this.queryResultSpoolingSegmentSize = queryResultSpoolingSegmentSize;
+        return this;
+    }
+
     public boolean isPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled()
     {
         return prestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled;
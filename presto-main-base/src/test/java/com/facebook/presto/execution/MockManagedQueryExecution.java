@@ -48,7 +48,7 @@ public class MockManagedQueryExecution
         implements ManagedQueryExecution
 {
     private final List<StateChangeListener<QueryState>> listeners = new ArrayList<>();
-    private final long memoryUsage;
+    private long memoryUsage;
     private final Duration cpuUsage;
     private final Session session;
     private QueryState state = WAITING_FOR_PREREQUISITES;
@@ -81,6 +81,11 @@ public class MockManagedQueryExecution
         this.resourceGroupId = resourceGroupId;
     }
 
+    public void setMemoryUsage(long memoryUsage)
+    {
+        this.memoryUsage = memoryUsage;
+    }
+
     public void complete()
     {
         state = FINISHED;
@@ -53,6 +53,8 @@ public class TestQueryManagerConfig
                 .setMaxConcurrentQueries(1000)
                 .setMaxQueuedQueries(5000)
                 .setHashPartitionCount(100)
+                .setAdaptiveHashPartitionCountEnabled(false)
+                .setHashPartitionTargetDataSize(new DataSize(256, MEGABYTE))
                 .setPartitioningProviderCatalog("system")
                 .setCtePartitioningProviderCatalog("system")
                 .setExchangeMaterializationStrategy(ExchangeMaterializationStrategy.NONE)
@@ -87,7 +89,8 @@ public class TestQueryManagerConfig
                 .setEnableWorkerIsolation(false)
                 .setMinColumnarEncodingChannelsToPreferRowWiseEncoding(1000)
                 .setMaxQueryAdmissionsPerSecond(Integer.MAX_VALUE)
-                .setMinRunningQueriesForPacing(30));
+                .setMinRunningQueriesForPacing(30)
+                .setMemoryReservationAdmissionEnabled(false));
     }
 
     @Test
@@ -110,6 +113,8 @@ public class TestQueryManagerConfig
                 .put("query.max-concurrent-queries", "10")
                 .put("query.max-queued-queries", "15")
                 .put("query.hash-partition-count", "16")
+                .put("query.adaptive-hash-partition-count-enabled", "true")
+                .put("query.hash-partition-target-data-size", "64MB")
                 .put("query.partitioning-provider-catalog", "hive")
                 .put("query.exchange-materialization-strategy", "ALL")
                 .put("query.manager-executor-pool-size", "11")
@@ -145,6 +150,7 @@ public class TestQueryManagerConfig
                 .put("min-columnar-encoding-channels-to-prefer-row-wise-encoding", "123")
                 .put("query-manager.query-pacing.max-queries-per-second", "10")
                 .put("query-manager.query-pacing.min-running-queries", "5")
+                .put("query-manager.memory-reservation-admission-enabled", "true")
                 .build();
 
         QueryManagerConfig expected = new QueryManagerConfig()
@@ -164,6 +170,8 @@ public class TestQueryManagerConfig
                 .setMaxConcurrentQueries(10)
                 .setMaxQueuedQueries(15)
                 .setHashPartitionCount(16)
+                .setAdaptiveHashPartitionCountEnabled(true)
+                .setHashPartitionTargetDataSize(new DataSize(64, MEGABYTE))
                 .setPartitioningProviderCatalog("hive")
                 .setCtePartitioningProviderCatalog("hive")
                 .setExchangeMaterializationStrategy(ExchangeMaterializationStrategy.ALL)
@@ -199,7 +207,8 @@ public class TestQueryManagerConfig
                 .setEnableWorkerIsolation(true)
                 .setMinColumnarEncodingChannelsToPreferRowWiseEncoding(123)
                 .setMaxQueryAdmissionsPerSecond(10)
-                .setMinRunningQueriesForPacing(5);
+                .setMinRunningQueriesForPacing(5)
+                .setMemoryReservationAdmissionEnabled(true);
         ConfigAssertions.assertFullMapping(properties, expected);
     }
 }
@@ -74,6 +74,7 @@ public class TestTaskManagerConfig
                 .setTaskPriorityTracking(TASK_FAIR)
                 .setInterruptRunawaySplitsTimeout(new Duration(600, SECONDS))
                 .setMemoryBasedSlowDownThreshold(1.0)
+                .setMemoryPoolSplitThrottlingThreshold(1.0)
                 .setHighMemoryTaskKillerEnabled(false)
                 .setHighMemoryTaskKillerStrategy(HighMemoryTaskKillerStrategy.FREE_MEMORY_ON_FULL_GC)
                 .setHighMemoryTaskKillerGCReclaimMemoryThreshold(0.01)
@@ -123,6 +124,7 @@ public class TestTaskManagerConfig
                 .put("task.task-priority-tracking", "QUERY_FAIR")
                 .put("task.interrupt-runaway-splits-timeout", "599s")
                 .put("experimental.task.memory-based-slowdown-threshold", "0.9")
+                .put("experimental.task.memory-pool-split-throttling-threshold", "0.8")
                 .put("experimental.task.high-memory-task-killer-enabled", "true")
                 .put("experimental.task.high-memory-task-killer-strategy", "FREE_MEMORY_ON_FREQUENT_FULL_GC")
                 .put("experimental.task.high-memory-task-killer-reclaim-memory-threshold", "0.8")
@@ -169,6 +171,7 @@ public class TestTaskManagerConfig
                 .setTaskPriorityTracking(QUERY_FAIR)
                 .setInterruptRunawaySplitsTimeout(new Duration(599, SECONDS))
                 .setMemoryBasedSlowDownThreshold(0.9)
+                .setMemoryPoolSplitThrottlingThreshold(0.8)
                 .setHighMemoryTaskKillerEnabled(true)
                 .setHighMemoryTaskKillerStrategy(HighMemoryTaskKillerStrategy.FREE_MEMORY_ON_FREQUENT_FULL_GC)
                 .setHighMemoryTaskKillerGCReclaimMemoryThreshold(0.8)
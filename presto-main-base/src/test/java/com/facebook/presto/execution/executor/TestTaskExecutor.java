@@ -34,6 +34,7 @@ import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
 import static com.facebook.airlift.testing.Assertions.assertLessThan;
@@ -456,6 +457,56 @@ public class TestTaskExecutor
         }
     }
 
+    @Test(timeOut = 30_000)
+    public void testMemoryPoolPressureThrottlesGrowingTask()
+            throws Exception
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
+        TestingTicker ticker = new TestingTicker();
+        TaskExecutor taskExecutor = new TaskExecutor(4, 16, 1, 4, TASK_FAIR, splitQueue, ticker);
+        taskExecutor.start();
+        try {
+            // the memory reservation of the task grows with every completed split
+            AtomicLong memoryReservation = new AtomicLong();
+            TaskHandle testTaskHandle = taskExecutor.addTask(new TaskId("test", 0, 0, 0, 0), () -> 0, memoryReservation::incrementAndGet, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+            taskExecutor.setMemoryPoolPressure(true);
+
+            // the first completed split only records the initial reservation, so the growth is known after the second one
+            for (int i = 0; i < 2; i++) {
+                Phaser firstPhaser = new Phaser();
+                firstPhaser.register();
+                taskExecutor.enqueueSplits(testTaskHandle, false, ImmutableList.of(new TestingJob(ticker, new Phaser(), new Phaser(), firstPhaser, 1, 0)));
+                firstPhaser.arriveAndDeregister();
+            }
+            while (!testTaskHandle.isMemoryReservationGrowing()) {
+                MILLISECONDS.sleep(10);
+            }
+
+            // enqueue all batches of splits
+            int batchCount = 3;
+            TestingJob[] splits = new TestingJob[batchCount];
+            Phaser[] phasers = new Phaser[batchCount];
+            for (int batch = 0; batch < batchCount; batch++) {
+                phasers[batch] = new Phaser();
+                phasers[batch].register();
+                TestingJob split = new TestingJob(ticker, new Phaser(), new Phaser(), phasers[batch], 1, 0);
+                splits[batch] = split;
+                taskExecutor.enqueueSplits(testTaskHandle, false, ImmutableList.of(split));
+            }
+
+            // the task only keeps its guaranteed split running while its memory grows
+            for (int batch = 0; batch < batchCount; batch++) {
+                waitUntilSplitsStart(ImmutableList.of(splits[batch]));
+                assertSplitStates(batch, splits);
+                phasers[batch].arriveAndDeregister();
+            }
+            assertGreaterThan(taskExecutor.getSplitThrottledDueToMemoryGrowth().getTotalCount(), 0L);
+        }
+        finally {
+            taskExecutor.stop();
+        }
+    }
+
     @Test
     public void testTaskExecutorRunawaySplitInterrupt()
             throws Exception
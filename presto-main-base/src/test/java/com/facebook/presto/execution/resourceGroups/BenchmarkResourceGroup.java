@@ -21,9 +21,11 @@ import com.facebook.presto.execution.scheduler.clusterOverload.ClusterOverloadPo
 import com.facebook.presto.execution.scheduler.clusterOverload.ClusterResourceChecker;
 import com.facebook.presto.metadata.InMemoryNodeManager;
 import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.spi.resourceGroups.SchedulingPolicy;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
@@ -38,12 +40,15 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.VerboseMode;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
 @SuppressWarnings("MethodMayBeStatic")
 @State(Scope.Thread)
@@ -61,6 +66,20 @@ public class BenchmarkResourceGroup
         return data.getRoot();
     }
 
+    @Benchmark
+    public Object benchmarkEnqueueAndDispatch(DispatchBenchmarkData data)
+    {
+        RootInternalResourceGroup root = data.getRoot();
+        List<InternalResourceGroup> groups = data.getGroups();
+        List<MockManagedQueryExecution> queries = data.getQueries();
+        for (int i = 0; i < queries.size(); i++) {
+            groups.get(i % groups.size()).run(queries.get(i));
+        }
+        root.setHardConcurrencyLimit(queries.size());
+        root.processQueuedQueries();
+        return root;
+    }
+
     @SuppressWarnings("FieldMayBeFinal")
     @State(Scope.Thread)
     public static class BenchmarkData
@@ -93,31 +112,6 @@ public class BenchmarkResourceGroup
             }
         }
 
-        private ClusterResourceChecker createClusterResourceChecker()
-        {
-            // Create a mock cluster overload policy that never reports overload
-            ClusterOverloadPolicy mockPolicy = new ClusterOverloadPolicy()
-            {
-                @Override
-                public boolean isClusterOverloaded(InternalNodeManager nodeManager)
-                {
-                    return false; // Never overloaded for benchmarks
-                }
-
-                @Override
-                public String getName()
-                {
-                    return "benchmark-policy";
-                }
-            };
-
-            // Create a config with throttling disabled for benchmarks
-            ClusterOverloadConfig config = new ClusterOverloadConfig()
-                    .setClusterOverloadThrottlingEnabled(false);
-
-            return new ClusterResourceChecker(mockPolicy, config, new InMemoryNodeManager());
-        }
-
         @TearDown
         public void tearDown()
         {
@@ -130,6 +124,98 @@ public class BenchmarkResourceGroup
         }
     }
 
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class DispatchBenchmarkData
+    {
+        @Param({"100", "10000"})
+        private int groups = 100;
+
+        @Param({"10000", "100000"})
+        private int queries = 10000;
+
+        @Param({"FAIR", "WEIGHTED", "WEIGHTED_FAIR", "QUERY_PRIORITY"})
+        private SchedulingPolicy schedulingPolicy = SchedulingPolicy.FAIR;
+
+        private RootInternalResourceGroup root;
+        private final List<InternalResourceGroup> leafGroups = new ArrayList<>();
+        private final List<MockManagedQueryExecution> queuedQueries = new ArrayList<>();
+
+        @Setup
+        public void setup()
+        {
+            root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, new InMemoryNodeManager(), createClusterResourceChecker(), QueryPacingContext.NOOP);
+            root.setSoftMemoryLimit(new DataSize(1, MEGABYTE));
+            root.setMaxQueuedQueries(queries);
+            root.setSchedulingPolicy(schedulingPolicy);
+            for (int i = 0; i < groups; i++) {
+                InternalResourceGroup group = root.getOrCreateSubGroup(String.valueOf(i), true);
+                group.setSoftMemoryLimit(new DataSize(1, MEGABYTE));
+                group.setMaxQueuedQueries(queries);
+                group.setHardConcurrencyLimit(queries);
+                group.setSchedulingPolicy(schedulingPolicy);
+                leafGroups.add(group);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void createQueries()
+        {
+            // queries are queued until the benchmark raises the concurrency limit
+            root.setHardConcurrencyLimit(0);
+            for (int i = 0; i < queries; i++) {
+                queuedQueries.add(new MockManagedQueryExecution(0));
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void completeQueries()
+        {
+            queuedQueries.forEach(MockManagedQueryExecution::complete);
+            queuedQueries.clear();
+        }
+
+        public RootInternalResourceGroup getRoot()
+        {
+            return root;
+        }
+
+        public List<InternalResourceGroup> getGroups()
+        {
+            return leafGroups;
+        }
+
+        public List<MockManagedQueryExecution> getQueries()
+        {
+            return queuedQueries;
+        }
+    }
+
+    private static ClusterResourceChecker createClusterResourceChecker()
+    {
+        // Create a mock cluster overload policy that never reports overload
+        ClusterOverloadPolicy mockPolicy = new ClusterOverloadPolicy()
+        {
+            @Override
+            public boolean isClusterOverloaded(InternalNodeManager nodeManager)
+            {
+                return false; // Never overloaded for benchmarks
+            }
+
+            @Override
+            public String getName()
+            {
+                return "benchmark-policy";
+            }
+        };
+
+        // Create a config with throttling disabled for benchmarks
+        ClusterOverloadConfig config = new ClusterOverloadConfig()
+                .setClusterOverloadThrottlingEnabled(false);
+
+        return new ClusterResourceChecker(mockPolicy, config, new InMemoryNodeManager());
+    }
+
     public static void main(String[] args)
             throws Throwable
     {
@@ -304,6 +304,106 @@ public class TestResourceGroups
         assertEquals(query3.getState(), RUNNING);
     }
 
+    @Test(timeOut = 10_000)
+    public void testMemoryReservationAdmission()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker(), QueryPacingContext.NOOP);
+        root.setMemoryReservationAdmissionEnabled(true);
+        root.setSoftMemoryLimit(new DataSize(30, BYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(3);
+
+        // nothing is reserved until a query of the group has finished
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0);
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        assertEquals(query1.getState(), RUNNING);
+        query1.complete();
+        long predictedPeakMemoryBytes = query1.getBasicQueryInfo().getQueryStats().getPeakUserMemoryReservation().toBytes();
+        assertEquals(root.getPredictedPeakMemoryBytes(), predictedPeakMemoryBytes);
+
+        // the reservation of the running query leaves no room for the predicted peak memory of another one
+        MockManagedQueryExecution query2 = new MockManagedQueryExecution(0);
+        query2.startWaitingForPrerequisites();
+        root.run(query2);
+        assertEquals(query2.getState(), RUNNING);
+        MockManagedQueryExecution query3 = new MockManagedQueryExecution(0);
+        query3.startWaitingForPrerequisites();
+        root.run(query3);
+        assertEquals(query3.getState(), QUEUED);
+        root.processQueuedQueries();
+        assertEquals(query3.getState(), QUEUED);
+
+        query2.complete();
+        root.processQueuedQueries();
+        assertEquals(query3.getState(), RUNNING);
+        assertEquals(root.getOverestimatedPeakMemoryBytes().getTotalCount(), 0);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testMemoryReservationReleasedPastPeak()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker(), QueryPacingContext.NOOP);
+        root.setMemoryReservationAdmissionEnabled(true);
+        root.setSoftMemoryLimit(new DataSize(30, BYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(3);
+
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0);
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        query1.complete();
+
+        MockManagedQueryExecution query2 = new MockManagedQueryExecution(0);
+        query2.startWaitingForPrerequisites();
+        root.run(query2);
+        assertEquals(query2.getState(), RUNNING);
+        MockManagedQueryExecution query3 = new MockManagedQueryExecution(0);
+        query3.startWaitingForPrerequisites();
+        root.run(query3);
+        assertEquals(query3.getState(), QUEUED);
+
+        // the reservation is kept while the usage of the query grows
+        query2.setMemoryUsage(5);
+        root.processQueuedQueries();
+        assertEquals(query3.getState(), QUEUED);
+
+        // once the usage drops the query is past its peak, and only its usage is accounted for
+        query2.setMemoryUsage(1);
+        root.processQueuedQueries();
+        assertEquals(query3.getState(), RUNNING);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testFailedQueriesDoNotUpdateMemoryPrediction()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker(), QueryPacingContext.NOOP);
+        root.setMemoryReservationAdmissionEnabled(true);
+        root.setSoftMemoryLimit(new DataSize(30, BYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(3);
+
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0);
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        query1.fail(new RuntimeException("query failed"));
+        assertEquals(root.getPredictedPeakMemoryBytes(), 0);
+
+        MockManagedQueryExecution query2 = new MockManagedQueryExecution(0);
+        query2.startWaitingForPrerequisites();
+        root.run(query2);
+        query2.complete();
+        long predictedPeakMemoryBytes = query2.getBasicQueryInfo().getQueryStats().getPeakUserMemoryReservation().toBytes();
+        assertEquals(root.getPredictedPeakMemoryBytes(), predictedPeakMemoryBytes);
+
+        MockManagedQueryExecution query3 = new MockManagedQueryExecution(0);
+        query3.startWaitingForPrerequisites();
+        root.run(query3);
+        query3.fail(new RuntimeException("query failed"));
+        assertEquals(root.getPredictedPeakMemoryBytes(), predictedPeakMemoryBytes);
+        assertEquals(root.getOverestimatedPeakMemoryBytes().getTotalCount(), 0);
+    }
+
     @Test(timeOut = 10_000)
     public void testSoftCpuLimit()
     {
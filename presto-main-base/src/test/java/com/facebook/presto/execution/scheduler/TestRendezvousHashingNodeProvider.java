@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.lang.String.format;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestRendezvousHashingNodeProvider
+{
+    @Test
+    public void testDistribution()
+    {
+        List<InternalNode> nodes = createTestNodes();
+        RendezvousHashingNodeProvider nodeProvider = RendezvousHashingNodeProvider.create(nodes);
+        Random random = new Random();
+        Map<HostAddress, Integer> result = new HashMap<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            List<HostAddress> candidates = nodeProvider.get(format("split%d", random.nextInt()), 2);
+            assertNotEquals(candidates.get(0), candidates.get(1));
+            result.merge(candidates.get(0), 1, Integer::sum);
+        }
+        assertEquals(result.size(), nodes.size());
+        assertTrue(result.values().stream().allMatch(count -> count >= 90000 && count <= 110000));
+    }
+
+    @Test
+    public void testMultipleCandidates()
+    {
+        List<InternalNode> nodes = createTestNodes();
+        RendezvousHashingNodeProvider nodeProvider = RendezvousHashingNodeProvider.create(nodes);
+        assertEquals(ImmutableSet.copyOf(nodeProvider.get("split1", 10)), nodes.stream().map(InternalNode::getHostAndPort).collect(toImmutableSet()));
+        assertEquals(ImmutableSet.copyOf(nodeProvider.get("split1", 11)), nodes.stream().map(InternalNode::getHostAndPort).collect(toImmutableSet()));
+        assertEquals(nodeProvider.get("split1", 2), nodeProvider.get("split1", 10).subList(0, 2));
+    }
+
+    @Test
+    public void testNodeRemoval()
+    {
+        List<InternalNode> nodes = createTestNodes();
+        RendezvousHashingNodeProvider nodeProvider = RendezvousHashingNodeProvider.create(nodes);
+        HostAddress removedNode = nodes.get(0).getHostAndPort();
+        RendezvousHashingNodeProvider remainingNodeProvider = RendezvousHashingNodeProvider.create(nodes.subList(1, nodes.size()));
+        for (int i = 0; i < 10_000; i++) {
+            String split = format("split%d", i);
+            List<HostAddress> candidates = nodeProvider.get(split, 2);
+            HostAddress primary = remainingNodeProvider.get(split, 1).get(0);
+            // only the splits of the removed node move, and they move to their secondary node
+            if (candidates.get(0).equals(removedNode)) {
+                assertEquals(primary, candidates.get(1));
+            }
+            else {
+                assertEquals(primary, candidates.get(0));
+            }
+        }
+    }
+
+    private List<InternalNode> createTestNodes()
+    {
+        return IntStream.range(0, 10)
+                .mapToObj(i -> new InternalNode(format("node%d", i), URI.create(format("http://127.0.0.%d:100", i)), NodeVersion.UNKNOWN, false))
+                .collect(toImmutableList());
+    }
+}
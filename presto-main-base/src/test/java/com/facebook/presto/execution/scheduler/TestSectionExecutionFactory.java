@@ -0,0 +1,382 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsAndCosts;
+import com.facebook.presto.dispatcher.NoOpQueryManager;
+import com.facebook.presto.execution.MockRemoteTaskFactory;
+import com.facebook.presto.execution.NodeTaskMap;
+import com.facebook.presto.execution.SqlStageExecution;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.execution.scheduler.nodeSelection.NodeSelectionStats;
+import com.facebook.presto.execution.scheduler.nodeSelection.SimpleTtlNodeSelectorConfig;
+import com.facebook.presto.failureDetector.NoOpFailureDetector;
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.metadata.TableFunctionHandle;
+import com.facebook.presto.operator.PartitionFunction;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.WarningCollector;
+import com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy;
+import com.facebook.presto.spi.plan.EquiJoinClause;
+import com.facebook.presto.spi.plan.JoinDistributionType;
+import com.facebook.presto.spi.plan.JoinNode;
+import com.facebook.presto.spi.plan.Partitioning;
+import com.facebook.presto.spi.plan.PartitioningHandle;
+import com.facebook.presto.spi.plan.PartitioningScheme;
+import com.facebook.presto.spi.plan.PlanFragmentId;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.plan.StageExecutionDescriptor;
+import com.facebook.presto.spi.plan.ValuesNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.split.SplitSource;
+import com.facebook.presto.split.SplitSourceProvider;
+import com.facebook.presto.sql.planner.NodePartitioningManager;
+import com.facebook.presto.sql.planner.PartitioningProviderManager;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.SplitSourceFactory;
+import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.facebook.presto.ttl.nodettlfetchermanagers.ThrowingNodeTtlFetcherManager;
+import com.facebook.presto.util.FinalizerService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.SystemSessionProperties.ADAPTIVE_HASH_PARTITION_COUNT_ENABLED;
+import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_COUNT;
+import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_TARGET_DATA_SIZE;
+import static com.facebook.presto.SystemSessionProperties.MAX_TASKS_PER_STAGE;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.spi.plan.JoinType.INNER;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SystemPartitionFunction.HASH;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SystemPartitioning.FIXED;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.createSystemPartitioning;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSectionExecutionFactory
+{
+    private static final ConnectorId CONNECTOR_ID = new ConnectorId("connector_id");
+    private static final OutputBufferId OUT = new OutputBufferId(0);
+    private static final VariableReferenceExpression VARIABLE = new VariableReferenceExpression(Optional.empty(), "column", BIGINT);
+    // a BIGINT row is estimated at 9 bytes including its null flag, so 1MB holds about 116.5k rows
+    private static final double ROWS_PER_MEGABYTE = 1024 * 1024 / 9.0;
+
+    private final ExecutorService queryExecutor = newCachedThreadPool(daemonThreadsNamed("stageExecutor-%s"));
+    private final ScheduledExecutorService scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("stageScheduledExecutor-%s"));
+    private final InMemoryNodeManager nodeManager = new InMemoryNodeManager();
+    private final FinalizerService finalizerService = new FinalizerService();
+
+    public TestSectionExecutionFactory()
+    {
+        for (int i = 0; i < 10; i++) {
+            nodeManager.addNode(CONNECTOR_ID, new InternalNode("worker" + i, URI.create("http://127.0.0.1:" + (10 + i)), NodeVersion.UNKNOWN, false));
+        }
+    }
+
+    @BeforeClass
+    public void setUp()
+    {
+        finalizerService.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void destroyExecutor()
+    {
+        queryExecutor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+        finalizerService.destroy();
+    }
+
+    @Test
+    public void testPartitionCountFromKnownEstimates()
+    {
+        Session session = adaptiveSession();
+
+        // 2.5MB of input with a 1MB target
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, consumerFragment(estimate(2.5 * ROWS_PER_MEGABYTE))),
+                createSystemPartitioning(FIXED, HASH, 3));
+        // the inputs of all remote sources are added up
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, consumerFragment(estimate(1.5 * ROWS_PER_MEGABYTE), estimate(1.5 * ROWS_PER_MEGABYTE))),
+                createSystemPartitioning(FIXED, HASH, 3));
+    }
+
+    @Test
+    public void testPartitionCountFromUnknownEstimates()
+    {
+        Session session = adaptiveSession();
+
+        // unknown row count
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, consumerFragment(PlanNodeStatsEstimate.unknown())),
+                FIXED_HASH_DISTRIBUTION);
+        // one of the remote sources has no estimate
+        PlanFragment fragment = consumerFragment(estimate(ROWS_PER_MEGABYTE), estimate(ROWS_PER_MEGABYTE));
+        PlanNodeId remoteSource = fragment.getRemoteSourceNodes().get(1).getId();
+        Map<PlanNodeId, PlanNodeStatsEstimate> stats = fragment.getStatsAndCosts().get().getStats().entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(remoteSource))
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, withStats(fragment, stats)),
+                FIXED_HASH_DISTRIBUTION);
+        // no statistics at all
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, withStats(fragment, ImmutableMap.of())),
+                FIXED_HASH_DISTRIBUTION);
+    }
+
+    @Test
+    public void testPartitionCountFromOutlierEstimates()
+    {
+        Session session = adaptiveSession();
+
+        // far more input than the configured partition count can cover
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, consumerFragment(estimate(1e15))),
+                createSystemPartitioning(FIXED, HASH, 8));
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, consumerFragment(estimate(Double.POSITIVE_INFINITY))),
+                createSystemPartitioning(FIXED, HASH, 8));
+        // bounded by max tasks per stage as well
+        Session maxTasksSession = Session.builder(session)
+                .setSystemProperty(MAX_TASKS_PER_STAGE, "5")
+                .build();
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(maxTasksSession, consumerFragment(estimate(1e15))),
+                createSystemPartitioning(FIXED, HASH, 5));
+        // empty input still gets one partition
+        assertEquals(
+                SectionExecutionFactory.getStagePartitioning(session, consumerFragment(estimate(0))),
+                createSystemPartitioning(FIXED, HASH, 1));
+    }
+
+    @Test
+    public void testPartitionCountNotAdaptive()
+    {
+        PlanFragment fragment = consumerFragment(estimate(ROWS_PER_MEGABYTE));
+        Session session = Session.builder(adaptiveSession())
+                .setSystemProperty(ADAPTIVE_HASH_PARTITION_COUNT_ENABLED, "false")
+                .build();
+        assertEquals(SectionExecutionFactory.getStagePartitioning(session, fragment), FIXED_HASH_DISTRIBUTION);
+
+        PlanFragment singleFragment = createFragment(0, fragment.getRoot(), SINGLE_DISTRIBUTION, SINGLE_DISTRIBUTION, fragment.getStatsAndCosts().get());
+        assertEquals(SectionExecutionFactory.getStagePartitioning(adaptiveSession(), singleFragment), SINGLE_DISTRIBUTION);
+    }
+
+    @Test
+    public void testProducerUsesConsumerBucketToPartition()
+    {
+        Session session = adaptiveSession();
+        NodeTaskMap nodeTaskMap = new NodeTaskMap(finalizerService);
+        NodeScheduler nodeScheduler = new NodeScheduler(
+                new LegacyNetworkTopology(),
+                nodeManager,
+                new NodeSelectionStats(),
+                new NodeSchedulerConfig().setIncludeCoordinator(false),
+                nodeTaskMap,
+                new ThrowingNodeTtlFetcherManager(),
+                new NoOpQueryManager(),
+                new SimpleTtlNodeSelectorConfig());
+        NodePartitioningManager nodePartitioningManager = new NodePartitioningManager(nodeScheduler, new PartitioningProviderManager(), new NodeSelectionStats());
+        SectionExecutionFactory sectionExecutionFactory = new SectionExecutionFactory(
+                createTestMetadataManager(),
+                nodePartitioningManager,
+                nodeTaskMap,
+                queryExecutor,
+                scheduledExecutor,
+                new NoOpFailureDetector(),
+                new SplitSchedulerStats(),
+                nodeScheduler,
+                1000,
+                false);
+
+        PlanFragment consumer = consumerFragment(estimate(2.5 * ROWS_PER_MEGABYTE));
+        ValuesNode values = new ValuesNode(Optional.empty(), new PlanNodeId("values"), ImmutableList.of(VARIABLE), ImmutableList.of(), Optional.empty());
+        PlanFragment producer = createFragment(1, values, SINGLE_DISTRIBUTION, FIXED_HASH_DISTRIBUTION, StatsAndCosts.empty());
+        StreamingPlanSection section = new StreamingPlanSection(
+                new StreamingSubPlan(consumer, ImmutableList.of(new StreamingSubPlan(producer, ImmutableList.of()))),
+                ImmutableList.of());
+
+        SectionExecution sectionExecution = sectionExecutionFactory.createSectionExecutions(
+                session,
+                section,
+                (fragmentId, tasks, noMoreExchangeLocations) -> {},
+                Optional.of(new int[1]),
+                createInitialEmptyOutputBuffers(PARTITIONED).withBuffer(OUT, 0).withNoMoreBufferIds(),
+                true,
+                new MockRemoteTaskFactory(queryExecutor, scheduledExecutor),
+                new SplitSourceFactory(new UnsupportedSplitSourceProvider(), WarningCollector.NOOP, createTestMetadataManager()),
+                0,
+                new CTEMaterializationTracker());
+
+        StageExecutionAndScheduler consumerStage = sectionExecution.getRootStage();
+        SqlStageExecution producerStage = sectionExecution.getSectionStages().get(0).getStageExecution();
+        assertEquals(producerStage.getFragment().getId(), producer.getId());
+
+        try {
+            // the consumer runs one task per adaptive partition
+            ScheduleResult scheduleResult = consumerStage.getStageScheduler().schedule();
+            assertEquals(scheduleResult.getNewTasks().size(), 3);
+            assertEquals(consumerStage.getStageExecution().getAllTasks().size(), 3);
+
+            // and the producer partitions its output into exactly those tasks
+            PartitioningScheme producerScheme = producerStage.getFragment().getPartitioningScheme();
+            assertTrue(producerScheme.getBucketToPartition().isPresent());
+            assertEquals(producerScheme.getBucketToPartition().get(), new int[] {0, 1, 2});
+
+            PartitionFunction partitionFunction = nodePartitioningManager.getPartitionFunction(session, producerScheme, ImmutableList.of(BIGINT));
+            assertEquals(partitionFunction.getPartitionCount(), 3);
+            Page page = createBigintPage(1000);
+            boolean[] usedPartitions = new boolean[3];
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                usedPartitions[partitionFunction.getPartition(page, position)] = true;
+            }
+            assertEquals(usedPartitions, new boolean[] {true, true, true});
+        }
+        finally {
+            sectionExecution.abort();
+        }
+    }
+
+    private static Session adaptiveSession()
+    {
+        return testSessionBuilder()
+                .setSystemProperty(ADAPTIVE_HASH_PARTITION_COUNT_ENABLED, "true")
+                .setSystemProperty(HASH_PARTITION_TARGET_DATA_SIZE, "1MB")
+                .setSystemProperty(HASH_PARTITION_COUNT, "8")
+                .build();
+    }
+
+    private static PlanNodeStatsEstimate estimate(double rowCount)
+    {
+        return PlanNodeStatsEstimate.builder()
+                .setOutputRowCount(rowCount)
+                .build();
+    }
+
+    private static PlanFragment consumerFragment(PlanNodeStatsEstimate... remoteSourceEstimates)
+    {
+        ImmutableMap.Builder<PlanNodeId, PlanNodeStatsEstimate> stats = ImmutableMap.builder();
+        ImmutableList.Builder<RemoteSourceNode> remoteSources = ImmutableList.builder();
+        for (int i = 0; i < remoteSourceEstimates.length; i++) {
+            RemoteSourceNode remoteSource = new RemoteSourceNode(
+                    Optional.empty(),
+                    new PlanNodeId("remote_" + i),
+                    new PlanFragmentId(i + 1),
+                    ImmutableList.of(i == 0 ? VARIABLE : new VariableReferenceExpression(Optional.empty(), "column_" + i, BIGINT)),
+                    false,
+                    Optional.empty(),
+                    REPARTITION);
+            remoteSources.add(remoteSource);
+            stats.put(remoteSource.getId(), remoteSourceEstimates[i]);
+        }
+        List<RemoteSourceNode> sources = remoteSources.build();
+        PlanNode root = sources.get(0);
+        if (sources.size() == 2) {
+            // a partitioned join reading both sides from remote sources
+            root = new JoinNode(
+                    Optional.empty(),
+                    new PlanNodeId("join"),
+                    INNER,
+                    sources.get(0),
+                    sources.get(1),
+                    ImmutableList.of(new EquiJoinClause(sources.get(0).getOutputVariables().get(0), sources.get(1).getOutputVariables().get(0))),
+                    ImmutableList.<VariableReferenceExpression>builder()
+                            .addAll(sources.get(0).getOutputVariables())
+                            .addAll(sources.get(1).getOutputVariables())
+                            .build(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.of(JoinDistributionType.PARTITIONED),
+                    ImmutableMap.of());
+        }
+        return createFragment(0, root, FIXED_HASH_DISTRIBUTION, SINGLE_DISTRIBUTION, new StatsAndCosts(stats.build(), ImmutableMap.of()));
+    }
+
+    private static PlanFragment withStats(PlanFragment fragment, Map<PlanNodeId, PlanNodeStatsEstimate> stats)
+    {
+        return createFragment(fragment.getId().getId(), fragment.getRoot(), fragment.getPartitioning(), SINGLE_DISTRIBUTION, new StatsAndCosts(stats, ImmutableMap.of()));
+    }
+
+    private static PlanFragment createFragment(int id, PlanNode root, PartitioningHandle partitioning, PartitioningHandle outputPartitioning, StatsAndCosts statsAndCosts)
+    {
+        return new PlanFragment(
+                new PlanFragmentId(id),
+                root,
+                ImmutableSet.copyOf(root.getOutputVariables()),
+                partitioning,
+                ImmutableList.of(),
+                new PartitioningScheme(Partitioning.create(outputPartitioning, ImmutableList.of(VARIABLE)), ImmutableList.of(VARIABLE)),
+                Optional.empty(),
+                StageExecutionDescriptor.ungroupedExecution(),
+                false,
+                Optional.of(statsAndCosts),
+                Optional.empty());
+    }
+
+    private static Page createBigintPage(int positionCount)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(blockBuilder, i);
+        }
+        return new Page(blockBuilder.build());
+    }
+
+    private static class UnsupportedSplitSourceProvider
+            implements SplitSourceProvider
+    {
+        @Override
+        public SplitSource getSplits(Session session, TableHandle tableHandle, SplitSchedulingStrategy splitSchedulingStrategy, WarningCollector warningCollector)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SplitSource getSplits(Session session, TableFunctionHandle tableFunctionHandle)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestStreamingMedian
+{
+    @Test
+    public void testMedian()
+    {
+        StreamingMedian median = new StreamingMedian();
+        median.add(5);
+        assertEquals(median.getMedian(), 5);
+        median.add(1);
+        assertEquals(median.getMedian(), 5);
+        median.add(3);
+        assertEquals(median.getMedian(), 3);
+        median.add(3);
+        assertEquals(median.getMedian(), 3);
+        median.add(10);
+        assertEquals(median.getMedian(), 3);
+        median.add(7);
+        assertEquals(median.getMedian(), 5);
+        assertEquals(median.size(), 6);
+    }
+
+    @Test
+    public void testMatchesSortedValues()
+    {
+        Random random = new Random(42);
+        StreamingMedian median = new StreamingMedian();
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(100);
+            median.add(values[i]);
+
+            long[] sorted = Arrays.copyOf(values, i + 1);
+            Arrays.sort(sorted);
+            assertEquals(median.getMedian(), sorted[sorted.length / 2]);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testEmpty()
+    {
+        new StreamingMedian().getMedian();
+    }
+}
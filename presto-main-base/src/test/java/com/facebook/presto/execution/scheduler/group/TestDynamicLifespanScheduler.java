@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.execution.scheduler.group;
 
+import com.facebook.airlift.testing.TestingTicker;
 import com.facebook.presto.client.NodeVersion;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.execution.scheduler.BucketNodeMap;
@@ -30,14 +31,21 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalInt;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.execution.Lifespan.driverGroup;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.HARD_AFFINITY;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestDynamicLifespanScheduler
 {
@@ -47,20 +55,22 @@ public class TestDynamicLifespanScheduler
     private static final InternalNode node1 = getInternalNode("1");
     private static final InternalNode node2 = getInternalNode("2");
     private static final InternalNode node3 = getInternalNode("3");
+    private static final InternalNode node4 = getInternalNode("4");
 
     @Test
     public void testSchedule()
     {
-        LifespanScheduler lifespanScheduler = getLifespanScheduler();
-        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler();
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(BUCKET_COUNT);
+        LifespanScheduler lifespanScheduler = getLifespanScheduler(bucketNodeMap);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
-        lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+        finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
 
         while (!lifespanScheduler.allLifespanExecutionFinished()) {
             lifespanScheduler.schedule(sourceScheduler);
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
             sourceScheduler.getLastStartedLifespans().clear();
         }
@@ -69,10 +79,11 @@ public class TestDynamicLifespanScheduler
     @Test
     public void testRetry()
     {
-        LifespanScheduler lifespanScheduler = getLifespanScheduler();
-        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler();
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(BUCKET_COUNT);
+        LifespanScheduler lifespanScheduler = getLifespanScheduler(bucketNodeMap);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
-        lifespanScheduler.onLifespanExecutionFinished(ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
 
@@ -82,7 +93,7 @@ public class TestDynamicLifespanScheduler
 
         while (!lifespanScheduler.allLifespanExecutionFinished()) {
             lifespanScheduler.schedule(sourceScheduler);
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 1);
             sourceScheduler.getLastStartedLifespans().clear();
         }
@@ -91,19 +102,20 @@ public class TestDynamicLifespanScheduler
     @Test(timeOut = 10_000)
     public void testRetryLastLifespan()
     {
-        LifespanScheduler lifespanScheduler = getLifespanScheduler();
-        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler();
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(BUCKET_COUNT);
+        LifespanScheduler lifespanScheduler = getLifespanScheduler(bucketNodeMap);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
 
         for (int i = 0; i < BUCKET_COUNT / TASK_COUNT - 1; i++) {
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             sourceScheduler.getLastStartedLifespans().clear();
             lifespanScheduler.schedule(sourceScheduler);
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         }
 
-        lifespanScheduler.onLifespanExecutionFinished(ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
         lifespanScheduler.onTaskFailed(0, ImmutableList.of(sourceScheduler));
@@ -112,7 +124,7 @@ public class TestDynamicLifespanScheduler
 
         lifespanScheduler.schedule(sourceScheduler);
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 1);
-        lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+        finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
     }
 
     @Test
@@ -123,15 +135,15 @@ public class TestDynamicLifespanScheduler
                 BUCKET_COUNT,
                 ImmutableList.of(node1, node2, node1, node2, node1, node2, node1, node2, node1, node2));
         LifespanScheduler lifespanScheduler = getAffinityLifespanScheduler(bucketNodeMap);
-        TestDynamicLifespanScheduler.TestingSourceScheduler sourceScheduler = new TestDynamicLifespanScheduler.TestingSourceScheduler();
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
-        lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+        finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
 
         while (!lifespanScheduler.allLifespanExecutionFinished()) {
             lifespanScheduler.schedule(sourceScheduler);
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
             sourceScheduler.getLastStartedLifespans().clear();
         }
@@ -145,10 +157,10 @@ public class TestDynamicLifespanScheduler
                 BUCKET_COUNT,
                 ImmutableList.of(node1, node2, node1, node2, node1, node2, node1, node2, node1, node2));
         LifespanScheduler lifespanScheduler = getAffinityLifespanScheduler(bucketNodeMap);
-        TestDynamicLifespanScheduler.TestingSourceScheduler sourceScheduler = new TestDynamicLifespanScheduler.TestingSourceScheduler();
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
 
-        lifespanScheduler.onLifespanExecutionFinished(ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
 
@@ -158,7 +170,7 @@ public class TestDynamicLifespanScheduler
 
         while (!lifespanScheduler.allLifespanExecutionFinished()) {
             lifespanScheduler.schedule(sourceScheduler);
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 1);
             sourceScheduler.getLastStartedLifespans().clear();
         }
@@ -172,7 +184,7 @@ public class TestDynamicLifespanScheduler
                 BUCKET_COUNT,
                 ImmutableList.of(node1, node3, node1, node3, node1, node3, node1, node3, node1, node3));
         LifespanScheduler lifespanScheduler = getAffinityLifespanScheduler(bucketNodeMap);
-        TestDynamicLifespanScheduler.TestingSourceScheduler sourceScheduler = new TestDynamicLifespanScheduler.TestingSourceScheduler();
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
         assertEquals(bucketNodeMap.getAssignedNode(0).get(), node1);
         // bucket 1 is already scheduled, thus its assignedNode is changed
@@ -187,13 +199,13 @@ public class TestDynamicLifespanScheduler
         assertEquals(bucketNodeMap.getAssignedNode(8).get(), node1);
         assertEquals(bucketNodeMap.getAssignedNode(9).get(), node3);
 
-        lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+        finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
 
         while (!lifespanScheduler.allLifespanExecutionFinished()) {
             lifespanScheduler.schedule(sourceScheduler);
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
             sourceScheduler.getLastStartedLifespans().clear();
         }
@@ -219,10 +231,10 @@ public class TestDynamicLifespanScheduler
                 BUCKET_COUNT,
                 ImmutableList.of(node1, node2, node1, node2, node1, node2, node1, node2, node1, node2));
         LifespanScheduler lifespanScheduler = getAffinityLifespanScheduler(bucketNodeMap);
-        TestDynamicLifespanScheduler.TestingSourceScheduler sourceScheduler = new TestDynamicLifespanScheduler.TestingSourceScheduler();
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, ImmutableList.of(node1, node2));
         lifespanScheduler.scheduleInitial(sourceScheduler);
 
-        lifespanScheduler.onLifespanExecutionFinished(ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(sourceScheduler.getLastStartedLifespans().get(1)));
         assertEquals(sourceScheduler.getLastStartedLifespans().size(), 2);
         sourceScheduler.getLastStartedLifespans().clear();
 
@@ -232,7 +244,7 @@ public class TestDynamicLifespanScheduler
 
         while (!lifespanScheduler.allLifespanExecutionFinished()) {
             lifespanScheduler.schedule(sourceScheduler);
-            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastStartedLifespans());
+            finishLifespans(lifespanScheduler, sourceScheduler, sourceScheduler.getLastStartedLifespans());
             assertEquals(sourceScheduler.getLastStartedLifespans().size(), 1);
             sourceScheduler.getLastStartedLifespans().clear();
         }
@@ -251,6 +263,218 @@ public class TestDynamicLifespanScheduler
         assertEquals(bucketNodeMap.getAssignedNode(9).get(), node2);
     }
 
+    @Test
+    public void testSpeculateStragglingLifespan()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<InternalNode> nodes = ImmutableList.of(node1, node2, node3);
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(6);
+        LifespanScheduler lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 1, ticker);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        runAllLifespansExcept(lifespanScheduler, sourceScheduler, ticker, ImmutableList.of(driverGroup(0)));
+
+        // driver group 0 has run for 3s while the others took 1s, but stragglers run for at least 10s
+        assertEquals(lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)), ImmutableList.of());
+
+        ticker.increment(10, SECONDS);
+        assertEquals(
+                lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)),
+                ImmutableList.of(new SpeculativeLifespan(driverGroup(0), 0, 1)));
+        assertEquals(sourceScheduler.getLastRewoundLifespans(), ImmutableList.of(driverGroup(0)));
+        assertEquals(sourceScheduler.getLastStartedLifespans(), ImmutableList.of(driverGroup(0)));
+
+        // a driver group is speculated only once
+        ticker.increment(100, SECONDS);
+        assertEquals(lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)), ImmutableList.of());
+
+        // whichever attempt finishes first completes the lifespan, the other attempt is ignored
+        lifespanScheduler.onLifespanExecutionFinished(1, ImmutableList.of(driverGroup(0)));
+        assertTrue(lifespanScheduler.allLifespanExecutionFinished());
+        lifespanScheduler.onLifespanExecutionFinished(0, ImmutableList.of(driverGroup(0)));
+        assertTrue(lifespanScheduler.allLifespanExecutionFinished());
+    }
+
+    @Test
+    public void testSpeculationLimit()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<InternalNode> nodes = ImmutableList.of(node1, node2, node3, node4);
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(8);
+        LifespanScheduler lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 1, ticker);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        runAllLifespansExcept(lifespanScheduler, sourceScheduler, ticker, ImmutableList.of(driverGroup(0), driverGroup(1)));
+
+        ticker.increment(10, SECONDS);
+        assertEquals(
+                lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)),
+                ImmutableList.of(new SpeculativeLifespan(driverGroup(0), 0, 2)));
+        assertEquals(lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)), ImmutableList.of());
+
+        bucketNodeMap = getBucketNodeMap(8);
+        lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 2, ticker);
+        sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        runAllLifespansExcept(lifespanScheduler, sourceScheduler, ticker, ImmutableList.of(driverGroup(0), driverGroup(1)));
+
+        ticker.increment(10, SECONDS);
+        assertEquals(
+                lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)),
+                ImmutableList.of(new SpeculativeLifespan(driverGroup(0), 0, 2), new SpeculativeLifespan(driverGroup(1), 1, 3)));
+
+        bucketNodeMap = getBucketNodeMap(8);
+        lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 0, ticker);
+        sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        runAllLifespansExcept(lifespanScheduler, sourceScheduler, ticker, ImmutableList.of(driverGroup(0), driverGroup(1)));
+
+        ticker.increment(10, SECONDS);
+        assertEquals(lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)), ImmutableList.of());
+    }
+
+    @Test
+    public void testNoSpeculationBeforeSplitsAssigned()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<InternalNode> nodes = ImmutableList.of(node1, node2, node3);
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(6);
+        LifespanScheduler lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 1, ticker);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        lifespanScheduler.scheduleInitial(sourceScheduler);
+        sourceScheduler.getLastStartedLifespans().clear();
+
+        // driver group 0 is still being scheduled, so its original attempt does not have all its splits
+        lifespanScheduler.onLifespansCompletelyScheduled(ImmutableList.of(driverGroup(1), driverGroup(2)));
+        List<Lifespan> running = ImmutableList.of(driverGroup(1), driverGroup(2));
+        while (!running.isEmpty()) {
+            ticker.increment(1, SECONDS);
+            finishLifespans(lifespanScheduler, sourceScheduler, running);
+            lifespanScheduler.schedule(sourceScheduler);
+            running = ImmutableList.copyOf(sourceScheduler.getLastStartedLifespans());
+            sourceScheduler.getLastStartedLifespans().clear();
+        }
+
+        ticker.increment(100, SECONDS);
+        assertEquals(lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)), ImmutableList.of());
+
+        lifespanScheduler.onLifespansCompletelyScheduled(ImmutableList.of(driverGroup(0)));
+        assertEquals(
+                lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)),
+                ImmutableList.of(new SpeculativeLifespan(driverGroup(0), 0, 1)));
+    }
+
+    @Test
+    public void testSpeculativeAttemptSurvivesTaskFailure()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<InternalNode> nodes = ImmutableList.of(node1, node2, node3);
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(6);
+        LifespanScheduler lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 1, ticker);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        runAllLifespansExcept(lifespanScheduler, sourceScheduler, ticker, ImmutableList.of(driverGroup(0)));
+
+        ticker.increment(10, SECONDS);
+        assertEquals(lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)).size(), 1);
+        sourceScheduler.getLastRewoundLifespans().clear();
+        sourceScheduler.getLastStartedLifespans().clear();
+
+        // the original attempt fails, and the speculative attempt keeps running without a rewind
+        lifespanScheduler.onTaskFailed(0, ImmutableList.of(sourceScheduler));
+        assertEquals(sourceScheduler.getLastRewoundLifespans(), ImmutableList.of());
+        lifespanScheduler.schedule(sourceScheduler);
+        assertEquals(sourceScheduler.getLastStartedLifespans(), ImmutableList.of());
+        assertFalse(lifespanScheduler.allLifespanExecutionFinished());
+
+        // without another attempt left, a failure rewinds the driver group
+        lifespanScheduler.onTaskFailed(1, ImmutableList.of(sourceScheduler));
+        assertEquals(sourceScheduler.getLastRewoundLifespans(), ImmutableList.of(driverGroup(0)));
+        lifespanScheduler.schedule(sourceScheduler);
+        assertEquals(sourceScheduler.getLastStartedLifespans(), ImmutableList.of(driverGroup(0)));
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(driverGroup(0)));
+        assertTrue(lifespanScheduler.allLifespanExecutionFinished());
+    }
+
+    @Test
+    public void testLosingAttemptKeepsTaskSlot()
+    {
+        TestingTicker ticker = new TestingTicker();
+        List<InternalNode> nodes = ImmutableList.of(node1, node2, node3, node4);
+        BucketNodeMap bucketNodeMap = getBucketNodeMap(8);
+        LifespanScheduler lifespanScheduler = getSpeculativeLifespanScheduler(bucketNodeMap, nodes, 1, ticker);
+        TestingSourceScheduler sourceScheduler = new TestingSourceScheduler(bucketNodeMap, nodes);
+        runAllLifespansExcept(lifespanScheduler, sourceScheduler, ticker, ImmutableList.of(driverGroup(0), driverGroup(2), driverGroup(3)));
+
+        ticker.increment(10, SECONDS);
+        assertEquals(
+                lifespanScheduler.speculateStragglingLifespans(ImmutableList.of(sourceScheduler)),
+                ImmutableList.of(new SpeculativeLifespan(driverGroup(0), 0, 1)));
+        sourceScheduler.getLastStartedLifespans().clear();
+
+        // the speculative attempt wins, while the original attempt keeps running on task 0
+        lifespanScheduler.onLifespanExecutionFinished(1, ImmutableList.of(driverGroup(0)));
+
+        // the driver groups of failed tasks only run on task 1, the only task with a free slot
+        lifespanScheduler.onTaskFailed(2, ImmutableList.of(sourceScheduler));
+        lifespanScheduler.onTaskFailed(3, ImmutableList.of(sourceScheduler));
+        lifespanScheduler.schedule(sourceScheduler);
+        assertEquals(sourceScheduler.getLastStartedLifespans(), ImmutableList.of(driverGroup(2)));
+        assertEquals(sourceScheduler.getLastTaskId(driverGroup(2)), 1);
+        sourceScheduler.getLastStartedLifespans().clear();
+
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(driverGroup(2)));
+        lifespanScheduler.schedule(sourceScheduler);
+        assertEquals(sourceScheduler.getLastStartedLifespans(), ImmutableList.of(driverGroup(3)));
+        assertEquals(sourceScheduler.getLastTaskId(driverGroup(3)), 1);
+        sourceScheduler.getLastStartedLifespans().clear();
+
+        // the slot of task 0 is freed once the losing attempt finishes
+        lifespanScheduler.onLifespanExecutionFinished(0, ImmutableList.of(driverGroup(0)));
+        assertFalse(lifespanScheduler.allLifespanExecutionFinished());
+        finishLifespans(lifespanScheduler, sourceScheduler, ImmutableList.of(driverGroup(3)));
+        assertTrue(lifespanScheduler.allLifespanExecutionFinished());
+    }
+
+    /**
+     * Runs every driver group except the stragglers to completion, each taking one second.
+     */
+    private static void runAllLifespansExcept(LifespanScheduler lifespanScheduler, TestingSourceScheduler sourceScheduler, TestingTicker ticker, List<Lifespan> stragglers)
+    {
+        lifespanScheduler.scheduleInitial(sourceScheduler);
+        List<Lifespan> running = new ArrayList<>(sourceScheduler.getLastStartedLifespans());
+        sourceScheduler.getLastStartedLifespans().clear();
+        lifespanScheduler.onLifespansCompletelyScheduled(running);
+        running.removeAll(stragglers);
+
+        while (!running.isEmpty()) {
+            ticker.increment(1, SECONDS);
+            finishLifespans(lifespanScheduler, sourceScheduler, running);
+            lifespanScheduler.schedule(sourceScheduler);
+            running = new ArrayList<>(sourceScheduler.getLastStartedLifespans());
+            sourceScheduler.getLastStartedLifespans().clear();
+            lifespanScheduler.onLifespansCompletelyScheduled(running);
+        }
+    }
+
+    private static void finishLifespans(LifespanScheduler lifespanScheduler, TestingSourceScheduler sourceScheduler, List<Lifespan> lifespans)
+    {
+        for (Lifespan lifespan : lifespans) {
+            lifespanScheduler.onLifespanExecutionFinished(sourceScheduler.getLastTaskId(lifespan), ImmutableList.of(lifespan));
+        }
+    }
+
+    private static BucketNodeMap getBucketNodeMap(int bucketCount)
+    {
+        return new DynamicBucketNodeMap(split -> ((TestSplit) split.getConnectorSplit()).getBucketNumber(), bucketCount);
+    }
+
+    private static LifespanScheduler getSpeculativeLifespanScheduler(BucketNodeMap bucketNodeMap, List<InternalNode> nodes, int maxSpeculativeDriverGroups, TestingTicker ticker)
+    {
+        return new DynamicLifespanScheduler(
+                bucketNodeMap,
+                nodes,
+                IntStream.range(0, bucketNodeMap.getBucketCount()).mapToObj(TestPartitionHandle::new).collect(toImmutableList()),
+                OptionalInt.of(1),
+                maxSpeculativeDriverGroups,
+                ticker);
+    }
+
     private static LifespanScheduler getAffinityLifespanScheduler(BucketNodeMap bucketNodeMap)
     {
         return new DynamicLifespanScheduler(
@@ -260,11 +484,11 @@ public class TestDynamicLifespanScheduler
                 OptionalInt.of(1));
     }
 
-    private static LifespanScheduler getLifespanScheduler()
+    private static LifespanScheduler getLifespanScheduler(BucketNodeMap bucketNodeMap)
     {
         return new DynamicLifespanScheduler(
-                new DynamicBucketNodeMap(split -> ((TestSplit) split.getConnectorSplit()).getBucketNumber(), BUCKET_COUNT),
-                ImmutableList.of(getInternalNode("1"), getInternalNode("2")),
+                bucketNodeMap,
+                ImmutableList.of(node1, node2),
                 IntStream.range(0, 10).mapToObj(TestPartitionHandle::new).collect(toImmutableList()),
                 OptionalInt.of(1));
     }
@@ -338,11 +562,20 @@ public class TestDynamicLifespanScheduler
         }
     }
 
-    public class TestingSourceScheduler
+    public static class TestingSourceScheduler
             implements SourceScheduler
     {
+        private final BucketNodeMap bucketNodeMap;
+        private final List<InternalNode> nodeByTaskId;
         private final List<Lifespan> lastStartedLifespans = new ArrayList<>();
         private final List<Lifespan> lastRewoundLifespans = new ArrayList<>();
+        private final Map<Lifespan, Integer> lastTaskIds = new HashMap<>();
+
+        public TestingSourceScheduler(BucketNodeMap bucketNodeMap, List<InternalNode> nodeByTaskId)
+        {
+            this.bucketNodeMap = requireNonNull(bucketNodeMap, "bucketNodeMap is null");
+            this.nodeByTaskId = ImmutableList.copyOf(requireNonNull(nodeByTaskId, "nodeByTaskId is null"));
+        }
 
         public ScheduleResult schedule()
         {
@@ -365,6 +598,9 @@ public class TestDynamicLifespanScheduler
         public void startLifespan(Lifespan lifespan, ConnectorPartitionHandle partitionHandle)
         {
             lastStartedLifespans.add(lifespan);
+            // the bucket of a driver group is assigned to the node of its task before the driver group is started
+            InternalNode node = bucketNodeMap.getAssignedNode(lifespan.getId() % bucketNodeMap.getBucketCount()).get();
+            lastTaskIds.put(lifespan, nodeByTaskId.indexOf(node));
         }
 
         @Override
@@ -394,5 +630,11 @@ public class TestDynamicLifespanScheduler
         {
             return lastRewoundLifespans;
         }
+
+        // the task the lifespan was started on most recently
+        public int getLastTaskId(Lifespan lifespan)
+        {
+            return lastTaskIds.get(lifespan);
+        }
     }
 }
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.airlift.units.Duration;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.execution.FragmentResultCacheContext;
@@ -679,7 +680,7 @@ public class TestDriver
         private final Map<CacheKey, FragmentCacheResult> cache = new HashMap<>();
 
         @Override
-        public Future<?> put(String plan, Split split, List<Page> result, long inputDataSize)
+        public Future<?> put(String plan, Split split, List<Page> result, long inputDataSize, RuntimeStats runtimeStats)
         {
             cache.put(new CacheKey(plan, split.getSplitIdentifier()), new FragmentCacheResult(Optional.of(result.stream().iterator()), inputDataSize));
             return immediateFuture(null);
@@ -43,7 +43,8 @@ public class TestFileFragmentResultCacheConfig
                 .setMaxInFlightSize(new DataSize(1, GIGABYTE))
                 .setMaxSinglePagesSize(new DataSize(500, MEGABYTE))
                 .setMaxCacheSize(new DataSize(100, GIGABYTE))
-                .setInputDataStatsEnabled(false));
+                .setInputDataStatsEnabled(false)
+                .setMinInputToResultSizeRatio(0));
     }
 
     @Test
@@ -60,6 +61,7 @@ public class TestFileFragmentResultCacheConfig
                 .put("fragment-result-cache.max-single-pages-size", "200MB")
                 .put("fragment-result-cache.max-cache-size", "200GB")
                 .put("fragment-result-cache.input-data-stats-enabled", "true")
+                .put("fragment-result-cache.min-input-to-result-size-ratio", "2.5")
                 .build();
 
         FileFragmentResultCacheConfig expected = new FileFragmentResultCacheConfig()
@@ -71,7 +73,8 @@ public class TestFileFragmentResultCacheConfig
                 .setMaxInFlightSize(new DataSize(2, GIGABYTE))
                 .setMaxSinglePagesSize(new DataSize(200, MEGABYTE))
                 .setMaxCacheSize(new DataSize(200, GIGABYTE))
-                .setInputDataStatsEnabled(true);
+                .setInputDataStatsEnabled(true)
+                .setMinInputToResultSizeRatio(2.5);
 
         assertFullMapping(properties, expected);
     }
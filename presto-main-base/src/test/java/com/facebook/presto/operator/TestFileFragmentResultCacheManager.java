@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.airlift.units.DataSize;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.TestingBlockEncodingSerde;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ConnectorId;
@@ -42,6 +43,8 @@ import java.util.concurrent.TimeUnit;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.RuntimeMetricName.FRAGMENT_RESULT_CACHE_REJECTED_CACHE_FULL;
+import static com.facebook.presto.common.RuntimeMetricName.FRAGMENT_RESULT_CACHE_REJECTED_LOW_REDUCTION;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
@@ -112,7 +115,7 @@ public class TestFileFragmentResultCacheManager
         assertEquals(stats.getCacheSizeInBytes(), 0);
 
         // Test empty page. Current cache status: empty
-        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1, ImmutableList.of(), INPUT_DATA_SIZE_1).get();
+        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1, ImmutableList.of(), INPUT_DATA_SIZE_1, new RuntimeStats()).get();
         fragmentCacheResult = cacheManager.get(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1);
         Optional<Iterator<Page>> result = fragmentCacheResult.getPages();
         assertTrue(result.isPresent());
@@ -125,7 +128,7 @@ public class TestFileFragmentResultCacheManager
 
         // Test non-empty page. Current cache status: { (plan1, split1) -> [] }
         List<Page> pages = ImmutableList.of(new Page(createStringsBlock("plan-1-split-2")));
-        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_2, SPLIT_2, pages, INPUT_DATA_SIZE_2).get();
+        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_2, SPLIT_2, pages, INPUT_DATA_SIZE_2, new RuntimeStats()).get();
         fragmentCacheResult = cacheManager.get(SERIALIZED_PLAN_FRAGMENT_2, SPLIT_2);
         result = fragmentCacheResult.getPages();
         assertTrue(result.isPresent());
@@ -171,7 +174,7 @@ public class TestFileFragmentResultCacheManager
         FileFragmentResultCacheManager cacheManager = fileFragmentResultCacheManager(stats, config, cacheDirectory);
 
         // Put one cache entry.
-        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1, pages, INPUT_DATA_SIZE_1).get();
+        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1, pages, INPUT_DATA_SIZE_1, new RuntimeStats()).get();
         FragmentCacheResult fragmentCacheResult = cacheManager.get(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1);
         Optional<Iterator<Page>> result = fragmentCacheResult.getPages();
         assertTrue(result.isPresent());
@@ -183,7 +186,10 @@ public class TestFileFragmentResultCacheManager
         assertEquals(stats.getCacheSizeInBytes(), getCachePhysicalSize(cacheDirectory));
 
         // Trying to add another cache entry which will fail due to total size limit.
-        assertNull(cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_2, pages, INPUT_DATA_SIZE_2).get());
+        RuntimeStats runtimeStats = new RuntimeStats();
+        assertNull(cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_2, pages, INPUT_DATA_SIZE_2, runtimeStats).get());
+        assertEquals(stats.getRejectedCacheFull(), 1);
+        assertEquals(runtimeStats.getMetric(FRAGMENT_RESULT_CACHE_REJECTED_CACHE_FULL).getSum(), 1);
         fragmentCacheResult = cacheManager.get(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_2);
         result = fragmentCacheResult.getPages();
         assertFalse(result.isPresent());
@@ -194,7 +200,7 @@ public class TestFileFragmentResultCacheManager
         assertEquals(stats.getCacheSizeInBytes(), getCachePhysicalSize(cacheDirectory));
 
         // Adding an empty page is fine.
-        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_2, SPLIT_1, ImmutableList.of(), 0).get();
+        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_2, SPLIT_1, ImmutableList.of(), 0, new RuntimeStats()).get();
         fragmentCacheResult = cacheManager.get(SERIALIZED_PLAN_FRAGMENT_2, SPLIT_1);
         result = fragmentCacheResult.getPages();
         assertTrue(result.isPresent());
@@ -216,6 +222,39 @@ public class TestFileFragmentResultCacheManager
         cleanupCacheDirectory(cacheDirectory);
     }
 
+    @Test(timeOut = 30_000)
+    public void testAdmissionByInputToResultSizeRatio()
+            throws Exception
+    {
+        List<Page> pages = ImmutableList.of(new Page(createStringsBlock("plan-1-split-1")));
+        long resultSize = pages.get(0).getSizeInBytes();
+
+        URI cacheDirectory = getNewCacheDirectory("testAdmissionByInputToResultSizeRatio");
+        FragmentCacheStats stats = new FragmentCacheStats();
+        FileFragmentResultCacheConfig config = new FileFragmentResultCacheConfig();
+        config.setMinInputToResultSizeRatio(10);
+        FileFragmentResultCacheManager cacheManager = fileFragmentResultCacheManager(stats, config, cacheDirectory);
+
+        // the fragment barely reduces its input, so the result is not cached
+        RuntimeStats runtimeStats = new RuntimeStats();
+        assertNull(cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1, pages, resultSize * 2, runtimeStats).get());
+        assertFalse(cacheManager.get(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_1).getPages().isPresent());
+        assertEquals(stats.getRejectedLowReduction(), 1);
+        assertEquals(runtimeStats.getMetric(FRAGMENT_RESULT_CACHE_REJECTED_LOW_REDUCTION).getSum(), 1);
+        assertEquals(stats.getCacheEntries(), 0);
+
+        cacheManager.put(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_2, pages, resultSize * 10, new RuntimeStats()).get();
+        FragmentCacheResult fragmentCacheResult = cacheManager.get(SERIALIZED_PLAN_FRAGMENT_1, SPLIT_2);
+        assertTrue(fragmentCacheResult.getPages().isPresent());
+        assertPagesEqual(fragmentCacheResult.getPages().get(), pages.iterator());
+        assertEquals(stats.getRejectedLowReduction(), 1);
+        assertEquals(stats.getCacheEntries(), 1);
+        assertEquals(stats.getCacheHitInputBytes(), resultSize * 10);
+
+        cacheManager.invalidateAllCache();
+        cleanupCacheDirectory(cacheDirectory);
+    }
+
     private static void assertPagesEqual(Iterator<Page> pages1, Iterator<Page> pages2)
     {
         while (pages1.hasNext() && pages2.hasNext()) {
@@ -244,7 +283,7 @@ public class TestFileFragmentResultCacheManager
                 try {
                     String threadInfo = String.format(writeThreadNameFormat, Thread.currentThread().getName(), Thread.currentThread().getId());
                     List<Page> pages = ImmutableList.of(new Page(createStringsBlock(threadInfo)));
-                    threadWriteCacheManager.put(threadInfo, SPLIT_2, pages, INPUT_DATA_SIZE_2).get();
+                    threadWriteCacheManager.put(threadInfo, SPLIT_2, pages, INPUT_DATA_SIZE_2, new RuntimeStats()).get();
                     FragmentCacheResult fragmentCacheResult = threadWriteCacheManager.get(threadInfo, SPLIT_2);
                     Optional<Iterator<Page>> result = fragmentCacheResult.getPages();
                     assertTrue(result.isPresent());
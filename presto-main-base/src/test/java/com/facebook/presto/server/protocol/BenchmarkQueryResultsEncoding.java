@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.protocol;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.CompressionCodec;
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.StatementStats;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockEncodingManager;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import io.airlift.slice.DynamicSliceOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.net.URI;
+import java.util.Base64;
+import java.util.List;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.block.BlockAssertions.createDoubleSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.client.BinaryDataUtils.decodeBinaryData;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the end-to-end cost of sending query results as JSON rows against the
+ * binary page format: decoding the exchange pages and encoding the results on the
+ * coordinator, the {@link QueryResults} JSON envelope, and decoding into row values
+ * on the client. Reported in rows per second.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(SECONDS)
+@Fork(2)
+@Warmup(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class BenchmarkQueryResultsEncoding
+{
+    private static final int POSITIONS_PER_PAGE = 1024;
+    private static final int PAGE_COUNT = 10;
+    private static final int POSITIONS = POSITIONS_PER_PAGE * PAGE_COUNT;
+    private static final List<Type> COLUMN_TYPES = ImmutableList.of(BIGINT, DOUBLE, VARCHAR);
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+    private static final URI INFO_URI = URI.create("http://localhost/ui/query.html");
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long jsonResults(BenchmarkData data)
+    {
+        ImmutableList.Builder<RowIterable> rows = ImmutableList.builder();
+        for (SerializedPage serializedPage : data.exchangePages) {
+            rows.add(new RowIterable(SESSION, data.types, data.exchangeSerde.deserialize(serializedPage)));
+        }
+        byte[] json = QUERY_RESULTS_CODEC.toJsonBytes(createQueryResults(data.columns, Iterables.concat(rows.build()), null));
+        return countRows(QUERY_RESULTS_CODEC.fromJson(json).getData());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long binaryResults(BenchmarkData data)
+    {
+        byte[] json = QUERY_RESULTS_CODEC.toJsonBytes(createQueryResults(data.columns, null, encodeBinaryResults(data)));
+        QueryResults results = QUERY_RESULTS_CODEC.fromJson(json);
+        return countRows(decodeBinaryData(results.getColumns(), results.getBinaryData()));
+    }
+
+    /**
+     * The coordinator side of {@link #binaryResults} alone, to show how much of it is
+     * spent re-encoding compressed exchange pages.
+     */
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public List<String> binaryResultsCoordinator(BenchmarkData data)
+    {
+        return encodeBinaryResults(data);
+    }
+
+    private static List<String> encodeBinaryResults(BenchmarkData data)
+    {
+        ImmutableList.Builder<String> encodedPages = ImmutableList.builder();
+        for (SerializedPage serializedPage : data.exchangePages) {
+            // same as Query: clients do not know the exchange compression codec
+            if (COMPRESSED.isSet(serializedPage.getPageCodecMarkers())) {
+                serializedPage = data.binaryResultsSerde.serialize(data.exchangeSerde.deserialize(serializedPage));
+            }
+            DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1000);
+            writeSerializedPage(sliceOutput, serializedPage);
+            encodedPages.add(Base64.getEncoder().encodeToString(sliceOutput.slice().getBytes()));
+        }
+        return encodedPages.build();
+    }
+
+    private static QueryResults createQueryResults(List<Column> columns, Iterable<List<Object>> data, List<String> binaryData)
+    {
+        return new QueryResults(
+                "query",
+                INFO_URI,
+                null,
+                null,
+                columns,
+                data,
+                binaryData,
+                StatementStats.builder().setState("RUNNING").build(),
+                null,
+                ImmutableList.of(),
+                null,
+                null);
+    }
+
+    private static long countRows(Iterable<List<Object>> rows)
+    {
+        long count = 0;
+        for (List<Object> ignored : rows) {
+            count++;
+        }
+        return count;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"10", "100"})
+        private int columnCount = 100;
+
+        @Param({"NONE", "LZ4"})
+        private CompressionCodec exchangeCompressionCodec = CompressionCodec.LZ4;
+
+        private final PagesSerde binaryResultsSerde = new PagesSerdeFactory(new BlockEncodingManager(), CompressionCodec.NONE).createPagesSerde();
+
+        private PagesSerde exchangeSerde;
+        private List<Type> types;
+        private List<Column> columns;
+        private List<SerializedPage> exchangePages;
+
+        @Setup
+        public void setup()
+        {
+            ImmutableList.Builder<Type> types = ImmutableList.builder();
+            ImmutableList.Builder<Column> columns = ImmutableList.builder();
+            for (int i = 0; i < columnCount; i++) {
+                Type type = COLUMN_TYPES.get(i % COLUMN_TYPES.size());
+                types.add(type);
+                columns.add(new Column("column_" + i, type));
+            }
+            this.types = types.build();
+            this.columns = columns.build();
+            this.exchangeSerde = new PagesSerdeFactory(new BlockEncodingManager(), exchangeCompressionCodec).createPagesSerde();
+
+            ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                int start = page * POSITIONS_PER_PAGE;
+                Block[] blocks = new Block[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    blocks[i] = createBlock(this.types.get(i), start, start + POSITIONS_PER_PAGE);
+                }
+                pages.add(exchangeSerde.serialize(new Page(blocks)));
+            }
+            this.exchangePages = pages.build();
+        }
+
+        private static Block createBlock(Type type, int start, int end)
+        {
+            if (type == BIGINT) {
+                return createLongSequenceBlock(start, end);
+            }
+            if (type == DOUBLE) {
+                return createDoubleSequenceBlock(start, end);
+            }
+            return createStringSequenceBlock(start, end);
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        new BenchmarkQueryResultsEncoding().jsonResults(data);
+        new BenchmarkQueryResultsEncoding().binaryResults(data);
+        new BenchmarkQueryResultsEncoding().binaryResultsCoordinator(data);
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkQueryResultsEncoding.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -77,6 +77,7 @@ public class TestFeaturesConfig
                 .setPartitionAwareGroupedExecutionEnabled(false)
                 .setGroupedExecutionWhenCapableEnabled(false)
                 .setMaxFailedTaskPercentage(0.3)
+                .setMaxSpeculativeLifespanPercentage(0)
                 .setConcurrentLifespansPerTask(0)
                 .setFastInequalityJoins(true)
                 .setColocatedJoinsEnabled(true)
@@ -207,6 +208,8 @@ public class TestFeaturesConfig
                 .setSpoolingOutputBufferEnabled(false)
                 .setSpoolingOutputBufferThreshold(new DataSize(8, MEGABYTE))
                 .setSpoolingOutputBufferTempStorage("local")
+                .setQueryResultSpoolingEnabled(false)
+                .setQueryResultSpoolingSegmentSize(new DataSize(8, MEGABYTE))
                 .setPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled(false)
                 .setPartialResultsEnabled(false)
                 .setPartialResultsCompletionRatioThreshold(0.5)
@@ -357,6 +360,7 @@ public class TestFeaturesConfig
                 .put("partition-aware-grouped-execution-enabled", "true")
                 .put("grouped-execution-when-capable-enabled", "true")
                 .put("max-failed-task-percentage", "0.8")
+                .put("max-speculative-lifespan-percentage", "0.2")
                 .put("concurrent-lifespans-per-task", "1")
                 .put("fast-inequality-joins", "false")
                 .put("colocated-joins-enabled", "false")
@@ -468,6 +472,8 @@ public class TestFeaturesConfig
                 .put("spooling-output-buffer-enabled", "true")
                 .put("spooling-output-buffer-threshold", "16MB")
                 .put("spooling-output-buffer-temp-storage", "tempfs")
+                .put("query-result-spooling-enabled", "true")
+                .put("query-result-spooling-segment-size", "32MB")
                 .put("spark.assign-bucket-to-partition-for-partitioned-table-write-enabled", "true")
                 .put("partial-results-enabled", "true")
                 .put("partial-results-completion-ratio-threshold", "0.9")
@@ -625,6 +631,7 @@ public class TestFeaturesConfig
                 .setPartitionAwareGroupedExecutionEnabled(true)
                 .setGroupedExecutionWhenCapableEnabled(true)
                 .setMaxFailedTaskPercentage(0.8)
+                .setMaxSpeculativeLifespanPercentage(0.2)
                 .setConcurrentLifespansPerTask(1)
                 .setFastInequalityJoins(false)
                 .setColocatedJoinsEnabled(false)
@@ -737,6 +744,8 @@ public class TestFeaturesConfig
                 .setSpoolingOutputBufferEnabled(true)
                 .setSpoolingOutputBufferThreshold(new DataSize(16, MEGABYTE))
                 .setSpoolingOutputBufferTempStorage("tempfs")
+                .setQueryResultSpoolingEnabled(true)
+                .setQueryResultSpoolingSegmentSize(new DataSize(32, MEGABYTE))
                 .setPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled(true)
                 .setPartialResultsEnabled(true)
                 .setPartialResultsCompletionRatioThreshold(0.9)
@@ -20,6 +20,7 @@ import com.facebook.airlift.json.smile.SmileCodec;
 import com.facebook.airlift.log.Logger;
 import com.facebook.airlift.units.DataSize;
 import com.facebook.airlift.units.Duration;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.execution.LocationFactory;
 import com.facebook.presto.execution.QueryExecution;
 import com.facebook.presto.execution.QueryIdGenerator;
@@ -79,6 +80,12 @@ import static com.facebook.presto.SystemSessionProperties.RESOURCE_OVERCOMMIT;
 import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemory;
 import static com.facebook.presto.SystemSessionProperties.getQueryMaxTotalMemory;
 import static com.facebook.presto.SystemSessionProperties.resourceOvercommit;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_KILL_DELAY_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_KILL_MEMORY_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_KILL_REVOCABLE_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_RECLAIMED_REVOCABLE_BYTES;
+import static com.facebook.presto.common.RuntimeUnit.BYTE;
+import static com.facebook.presto.common.RuntimeUnit.NANO;
 import static com.facebook.presto.execution.QueryLimit.Source.QUERY;
 import static com.facebook.presto.execution.QueryLimit.Source.RESOURCE_GROUP;
 import static com.facebook.presto.execution.QueryLimit.Source.SYSTEM;
@@ -95,11 +102,13 @@ import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.MoreCollectors.toOptional;
 import static com.google.common.collect.Sets.difference;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.util.AbstractMap.SimpleEntry;
 import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.function.Function.identity;
 import static org.weakref.jmx.ObjectNames.generatedNameOf;
 
@@ -128,6 +137,7 @@ public class ClusterMemoryManager
     private final AtomicLong clusterTotalMemoryReservation = new AtomicLong();
     private final AtomicLong clusterMemoryBytes = new AtomicLong();
     private final AtomicLong queriesKilledDueToOutOfMemory = new AtomicLong();
+    private final AtomicLong outOfMemoryResolvedWithoutKill = new AtomicLong();
     private final boolean isWorkScheduledOnCoordinator;
     private final boolean isBinaryTransportEnabled;
 
@@ -146,6 +156,17 @@ public class ClusterMemoryManager
     @GuardedBy("this")
     private QueryId lastKilledQuery;
 
+    @GuardedBy("this")
+    private boolean wasOutOfMemory;
+
+    // true once a query was killed because the cluster ran out of memory, until the cluster has free memory again
+    @GuardedBy("this")
+    private boolean outOfMemoryKillInProgress;
+
+    // revocable memory of the general pool when the cluster last ran out of memory
+    @GuardedBy("this")
+    private long revocableBytesWhenOutOfMemory;
+
     @Inject
     public ClusterMemoryManager(
             @ForMemoryManager HttpClient httpClient,
@@ -244,9 +265,19 @@ public class ClusterMemoryManager
 
         boolean outOfMemory = isClusterOutOfMemory();
         if (!outOfMemory) {
+            if (wasOutOfMemory && !outOfMemoryKillInProgress) {
+                // memory was released, e.g. by queries finishing, before any query had to be killed for the cluster
+                outOfMemoryResolvedWithoutKill.incrementAndGet();
+            }
             lastTimeNotOutOfMemory = System.nanoTime();
+            outOfMemoryKillInProgress = false;
+        }
+        else if (!wasOutOfMemory) {
+            revocableBytesWhenOutOfMemory = pools.get(GENERAL_POOL).getReservedRevocableDistributedBytes();
         }
+        wasOutOfMemory = outOfMemory;
 
+        // kills of queries exceeding their own limits are not out of memory kills, they happen whether or not the cluster is out of memory
         boolean queryKilled = false;
         long totalUserMemoryBytes = 0L;
         long totalMemoryBytes = 0L;
@@ -258,9 +289,11 @@ public class ClusterMemoryManager
             if (resourceOvercommit && outOfMemory) {
                 // If a query has requested resource overcommit, only kill it if the cluster has run out of memory
                 DataSize memory = succinctBytes(getQueryMemoryReservation(query));
+                recordOutOfMemoryKill(query);
                 query.fail(new PrestoException(CLUSTER_OUT_OF_MEMORY,
                         format("The cluster is out of memory and %s=true, so this query was killed. It was using %s of memory", RESOURCE_OVERCOMMIT, memory)));
                 queryKilled = true;
+                outOfMemoryKillInProgress = true;
             }
 
             if (!resourceOvercommit) {
@@ -373,14 +406,28 @@ public class ClusterMemoryManager
             Optional<QueryExecution> chosenQuery = Streams.stream(runningQueries).filter(query -> chosenQueryId.get().equals(query.getQueryId())).collect(toOptional());
             if (chosenQuery.isPresent()) {
                 // See comments in  isLastKilledQueryGone for why chosenQuery might be absent.
+                recordOutOfMemoryKill(chosenQuery.get());
                 chosenQuery.get().fail(new PrestoException(CLUSTER_OUT_OF_MEMORY, "Query killed because the cluster is out of memory. Please try again in a few minutes."));
                 queriesKilledDueToOutOfMemory.incrementAndGet();
+                outOfMemoryKillInProgress = true;
                 lastKilledQuery = chosenQueryId.get();
                 logQueryKill(chosenQueryId.get(), nodeMemoryInfos);
             }
         }
     }
 
+    @GuardedBy("this")
+    private void recordOutOfMemoryKill(QueryExecution query)
+    {
+        // recorded before the query fails, so the kill decision is part of its final stats and its query completed event
+        ClusterMemoryPool generalPool = pools.get(GENERAL_POOL);
+        RuntimeStats runtimeStats = query.getSession().getRuntimeStats();
+        runtimeStats.addMetricValue(OUT_OF_MEMORY_KILL_MEMORY_BYTES, BYTE, getQueryMemoryReservation(query));
+        runtimeStats.addMetricValue(OUT_OF_MEMORY_KILL_REVOCABLE_BYTES, BYTE, generalPool.getQueryMemoryRevocableReservations().getOrDefault(query.getQueryId(), 0L));
+        runtimeStats.addMetricValue(OUT_OF_MEMORY_RECLAIMED_REVOCABLE_BYTES, BYTE, max(revocableBytesWhenOutOfMemory - generalPool.getReservedRevocableDistributedBytes(), 0));
+        runtimeStats.addMetricValue(OUT_OF_MEMORY_KILL_DELAY_NANOS, NANO, nanosSince(lastTimeNotOutOfMemory).roundTo(NANOSECONDS));
+    }
+
     @GuardedBy("this")
     private boolean isLastKilledQueryGone()
     {
@@ -412,7 +459,9 @@ public class ClusterMemoryManager
             return;
         }
         StringBuilder nodeDescription = new StringBuilder();
-        nodeDescription.append("Query Kill Decision: Killed ").append(killedQueryId).append("\n");
+        nodeDescription.append("Query Kill Decision: Killed ").append(killedQueryId)
+                .append(" RevocableBytes ").append(pools.get(GENERAL_POOL).getQueryMemoryRevocableReservations().getOrDefault(killedQueryId, 0L))
+                .append("\n");
         Comparator<Entry<MemoryPoolInfo, Long>> nodeMemoryComparator = comparingLong(Entry::getValue);
         nodes.stream()
                 .filter(node -> node.getPools().get(GENERAL_POOL) != null)
@@ -426,6 +475,7 @@ public class ClusterMemoryManager
                     nodeDescription.append("Query Kill Scenario: ");
                     nodeDescription.append("MaxBytes ").append(memoryPoolInfo.getMaxBytes()).append(' ');
                     nodeDescription.append("FreeBytes ").append(memoryPoolInfo.getFreeBytes() + memoryPoolInfo.getReservedRevocableBytes()).append(' ');
+                    nodeDescription.append("RevocableBytes ").append(memoryPoolInfo.getReservedRevocableBytes()).append(' ');
                     nodeDescription.append("Queries ");
                     Comparator<Entry<QueryId, Long>> queryMemoryComparator = comparingLong(Entry::getValue);
                     Stream<Entry<QueryId, Long>> sortedMemoryReservations =
@@ -685,4 +735,16 @@ public class ClusterMemoryManager
     {
         return queriesKilledDueToOutOfMemory.get();
     }
+
+    @Managed
+    public long getOutOfMemoryResolvedWithoutKill()
+    {
+        return outOfMemoryResolvedWithoutKill.get();
+    }
+
+    @Managed
+    public synchronized boolean isOutOfMemory()
+    {
+        return wasOutOfMemory;
+    }
 }
@@ -24,6 +24,9 @@ import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.server.ForStatementResource;
 import com.facebook.presto.server.RetryConfig;
 import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.storage.TempDataOperationContext;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.storage.TempStorageManager;
 import com.facebook.presto.transaction.TransactionManager;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -42,6 +45,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static com.facebook.airlift.concurrent.Threads.threadsNamed;
+import static com.facebook.presto.SystemSessionProperties.isQueryResultSpoolingEnabled;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static jakarta.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static java.util.Objects.requireNonNull;
@@ -60,6 +64,9 @@ public class LocalQueryProvider
     private final ScheduledExecutorService timeoutExecutor;
     private final RetryCircuitBreaker retryCircuitBreaker;
     private final RetryConfig retryConfig;
+    private final TempStorageManager tempStorageManager;
+    private final String resultSpoolingTempStorage;
+    private final long resultSpoolingSegmentSizeInBytes;
 
     private final ConcurrentMap<QueryId, Query> queries = new ConcurrentHashMap<>();
     private final ScheduledExecutorService queryPurger = newSingleThreadScheduledExecutor(threadsNamed("execution-query-purger"));
@@ -73,7 +80,9 @@ public class LocalQueryProvider
             @ForStatementResource BoundedExecutor responseExecutor,
             @ForStatementResource ScheduledExecutorService timeoutExecutor,
             RetryCircuitBreaker retryCircuitBreaker,
-            RetryConfig retryConfig)
+            RetryConfig retryConfig,
+            TempStorageManager tempStorageManager,
+            FeaturesConfig featuresConfig)
     {
         this.queryManager = requireNonNull(queryManager, "queryManager is null");
         this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
@@ -83,6 +92,10 @@ public class LocalQueryProvider
         this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
         this.retryCircuitBreaker = requireNonNull(retryCircuitBreaker, "retryCircuitBreaker is null");
         this.retryConfig = requireNonNull(retryConfig, "retryConfig is null");
+        this.tempStorageManager = requireNonNull(tempStorageManager, "tempStorageManager is null");
+        requireNonNull(featuresConfig, "featuresConfig is null");
+        this.resultSpoolingTempStorage = featuresConfig.getSpoolingOutputBufferTempStorage();
+        this.resultSpoolingSegmentSizeInBytes = featuresConfig.getQueryResultSpoolingSegmentSize().toBytes();
     }
 
     @PostConstruct
@@ -98,7 +111,11 @@ public class LocalQueryProvider
                             }
                             catch (NoSuchElementException e) {
                                 // query is no longer registered
-                                queries.remove(entry.getKey());
+                                Query query = queries.remove(entry.getKey());
+                                if (query != null) {
+                                    // release any results the client never fetched
+                                    query.dispose();
+                                }
                             }
                         }
                     }
@@ -157,6 +174,7 @@ public class LocalQueryProvider
                     queryManager,
                     transactionManager,
                     exchangeClient,
+                    createResultSpool(session),
                     responseExecutor,
                     timeoutExecutor,
                     blockEncodingSerde,
@@ -191,6 +209,24 @@ public class LocalQueryProvider
         }
     }
 
+    private Optional<QueryResultSpool> createResultSpool(Session session)
+    {
+        if (!isQueryResultSpoolingEnabled(session)) {
+            return Optional.empty();
+        }
+        TempDataOperationContext tempDataOperationContext = new TempDataOperationContext(
+                session.getSource(),
+                session.getQueryId().getId(),
+                session.getClientInfo(),
+                Optional.of(session.getClientTags()),
+                session.getIdentity());
+        return Optional.of(new QueryResultSpool(
+                tempStorageManager.getTempStorage(resultSpoolingTempStorage),
+                tempDataOperationContext,
+                resultSpoolingSegmentSizeInBytes,
+                responseExecutor));
+    }
+
     private static WebApplicationException notFound(String message)
     {
         throw new WebApplicationException(
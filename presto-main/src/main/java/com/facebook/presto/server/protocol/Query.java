@@ -16,6 +16,7 @@ package com.facebook.presto.server.protocol;
 import com.facebook.airlift.log.Logger;
 import com.facebook.airlift.units.DataSize;
 import com.facebook.airlift.units.Duration;
+import com.facebook.presto.CompressionCodec;
 import com.facebook.presto.Session;
 import com.facebook.presto.client.Column;
 import com.facebook.presto.client.FailureInfo;
@@ -87,6 +88,7 @@ import static com.facebook.presto.SystemSessionProperties.useHistoryBasedPlanSta
 import static com.facebook.presto.execution.QueryState.FAILED;
 import static com.facebook.presto.execution.QueryState.WAITING_FOR_PREREQUISITES;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
 import static com.facebook.presto.util.Failures.toFailure;
 import static com.facebook.presto.util.QueryInfoUtils.toStatementStats;
@@ -120,10 +122,14 @@ class Query
     @GuardedBy("this")
     private final ExchangeClient exchangeClient;
 
+    @GuardedBy("this")
+    private final Optional<QueryResultSpool> resultSpool;
+
     private final Executor resultsProcessorExecutor;
     private final ScheduledExecutorService timeoutExecutor;
 
     private final PagesSerde serde;
+    private final PagesSerde binaryResultsSerde;
     private final RetryCircuitBreaker retryCircuitBreaker;
     private final RetryConfig retryConfig;
 
@@ -187,6 +193,7 @@ class Query
             QueryManager queryManager,
             TransactionManager transactionManager,
             ExchangeClient exchangeClient,
+            Optional<QueryResultSpool> resultSpool,
             Executor dataProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
             BlockEncodingSerde blockEncodingSerde,
@@ -205,6 +212,7 @@ class Query
                 queryManager,
                 transactionManager,
                 exchangeClient,
+                resultSpool,
                 dataProcessorExecutor,
                 timeoutExecutor,
                 blockEncodingSerde,
@@ -220,6 +228,10 @@ class Query
             }
         });
 
+        if (resultSpool.isPresent()) {
+            result.spoolAvailablePages();
+        }
+
         return result;
     }
 
@@ -232,6 +244,7 @@ class Query
             QueryManager queryManager,
             TransactionManager transactionManager,
             ExchangeClient exchangeClient,
+            Optional<QueryResultSpool> resultSpool,
             Executor resultsProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
             BlockEncodingSerde blockEncodingSerde,
@@ -245,6 +258,7 @@ class Query
         requireNonNull(queryManager, "queryManager is null");
         requireNonNull(transactionManager, "transactionManager is null");
         requireNonNull(exchangeClient, "exchangeClient is null");
+        requireNonNull(resultSpool, "resultSpool is null");
         requireNonNull(resultsProcessorExecutor, "resultsProcessorExecutor is null");
         requireNonNull(timeoutExecutor, "timeoutExecutor is null");
         requireNonNull(blockEncodingSerde, "serde is null");
@@ -261,10 +275,12 @@ class Query
         this.retryExpirationEpochTime = retryExpirationEpochTime;
         this.isRetryQuery = isRetryQuery;
         this.exchangeClient = exchangeClient;
+        this.resultSpool = resultSpool;
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
 
         this.serde = new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session)).createPagesSerde();
+        this.binaryResultsSerde = new PagesSerdeFactory(blockEncodingSerde, CompressionCodec.NONE, false).createPagesSerde();
         this.retryCircuitBreaker = retryCircuitBreaker;
         this.retryConfig = retryConfig;
     }
@@ -278,6 +294,7 @@ class Query
     public synchronized void dispose()
     {
         exchangeClient.close();
+        resultSpool.ifPresent(QueryResultSpool::close);
     }
 
     public QueryId getQueryId()
@@ -373,6 +390,11 @@ class Query
 
     private synchronized ListenableFuture<?> getFutureStateChange()
     {
+        // spooled pages can be returned once they are read from temp storage
+        if (hasSpooledPages()) {
+            return resultSpool.get().isBlocked();
+        }
+
         // if the exchange client is open, wait for data
         if (!exchangeClient.isClosed()) {
             return exchangeClient.isBlocked();
@@ -511,10 +533,14 @@ class Query
             if (binaryResults) {
                 ImmutableList.Builder<String> pages = ImmutableList.builder();
                 while (bytes < targetResultBytes) {
-                    SerializedPage serializedPage = exchangeClient.pollPage();
+                    SerializedPage serializedPage = pollPage();
                     if (serializedPage == null) {
                         break;
                     }
+                    // clients do not know the exchange compression codec, so binary results are sent uncompressed
+                    if (COMPRESSED.isSet(serializedPage.getPageCodecMarkers())) {
+                        serializedPage = binaryResultsSerde.serialize(serde.deserialize(serializedPage));
+                    }
 
                     rows += serializedPage.getPositionCount();
                     bytes += serializedPage.getSizeInBytes();
@@ -533,7 +559,7 @@ class Query
             else {
                 ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
                 while (bytes < targetResultBytes) {
-                    SerializedPage serializedPage = exchangeClient.pollPage();
+                    SerializedPage serializedPage = pollPage();
                     if (serializedPage == null) {
                         break;
                     }
@@ -586,8 +612,8 @@ class Query
         // only return a next if
         // (1) the query is not done AND the query state is not FAILED
         //   OR
-        // (2)there is more data to send (due to buffering)
-        if ((!queryInfo.isFinalQueryInfo() && queryInfo.getState() != FAILED) || !exchangeClient.isClosed()) {
+        // (2)there is more data to send (due to buffering or spooling)
+        if ((!queryInfo.isFinalQueryInfo() && queryInfo.getState() != FAILED) || !exchangeClient.isClosed() || hasSpooledPages()) {
             nextToken = OptionalLong.of(token + 1);
         }
         else {
@@ -644,6 +670,70 @@ class Query
         return queryResults;
     }
 
+    private synchronized SerializedPage pollPage()
+    {
+        // spooled pages were drained from the exchange earlier, so they must be returned first,
+        // even if the next spooled page is not read back from temp storage yet
+        if (hasSpooledPages()) {
+            return resultSpool.get().pollPage();
+        }
+        return exchangeClient.pollPage();
+    }
+
+    private synchronized boolean hasSpooledPages()
+    {
+        return resultSpool.isPresent() && !resultSpool.get().isEmpty();
+    }
+
+    private void spoolAvailablePages()
+    {
+        // Drain the exchange into the spool as pages arrive, so the output stage can finish
+        // and release its resources without waiting for the client to fetch the results.
+        if (!drainExchangeIntoSpool()) {
+            return;
+        }
+        try {
+            // temp storage is written without holding the lock, so client requests are not blocked on it
+            resultSpool.get().flush();
+        }
+        catch (Exception e) {
+            queryManager.failQuery(queryId, e);
+            return;
+        }
+
+        ListenableFuture<?> blocked;
+        synchronized (this) {
+            if (exchangeClient.isClosed()) {
+                return;
+            }
+            blocked = exchangeClient.isBlocked();
+        }
+        blocked.addListener(this::spoolAvailablePages, resultsProcessorExecutor);
+    }
+
+    private synchronized boolean drainExchangeIntoSpool()
+    {
+        // This runs while holding the lock for the same reason as getNextResult: the query
+        // may finish as soon as the last page is removed from the exchange client.
+        if (exchangeClient.isClosed()) {
+            return false;
+        }
+        try {
+            // Drain at most one segment per pass, so the pages held in memory are bounded
+            // by the segment size. The next pass is scheduled once the segment is flushed.
+            QueryResultSpool spool = resultSpool.get();
+            SerializedPage page;
+            while (!spool.isFull() && (page = exchangeClient.pollPage()) != null) {
+                spool.addPage(page);
+            }
+        }
+        catch (Exception e) {
+            queryManager.failQuery(queryId, e);
+            return false;
+        }
+        return true;
+    }
+
     private synchronized void closeExchangeClientIfNecessary(QueryInfo queryInfo)
     {
         // Close the exchange client if the query has failed, or if the query
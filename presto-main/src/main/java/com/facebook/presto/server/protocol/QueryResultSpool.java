@@ -0,0 +1,307 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.protocol;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.io.DataOutput;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.PageDataOutput;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.storage.TempDataOperationContext;
+import com.facebook.presto.spi.storage.TempDataSink;
+import com.facebook.presto.spi.storage.TempStorage;
+import com.facebook.presto.spi.storage.TempStorageHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.SliceInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.facebook.presto.spi.StandardErrorCode.SPOOLING_STORAGE_ERROR;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPages;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds the result pages of a query that have been drained from the output stage but
+ * not yet sent to the client. Pages are buffered in memory and written to temp storage
+ * in segments of roughly {@code segmentSizeInBytes}, so a slow client does not keep the
+ * output stage and its workers' buffers alive. Pages are returned in the order they were added.
+ * <p>
+ * Callers bound the memory of the spool by not adding pages while it {@link #isFull is full},
+ * that is while a full segment waits to be written by {@link #flush}.
+ * <p>
+ * The spool is internal to the coordinator: clients keep paging through {@code QueryResults},
+ * and segments are never exposed to them.
+ * <p>
+ * Temp storage is never accessed while holding the lock of the spool. {@link #addPage} and
+ * {@link #pollPage} only move pages in memory, so they can be called while holding the lock of
+ * the query. Segments are written by {@link #flush}, and read and deleted on the executor.
+ */
+@ThreadSafe
+class QueryResultSpool
+        implements Closeable
+{
+    private static final Logger log = Logger.get(QueryResultSpool.class);
+
+    private final TempStorage tempStorage;
+    private final TempDataOperationContext tempDataOperationContext;
+    private final long segmentSizeInBytes;
+    private final Executor executor;
+
+    // segments in temp storage come before the segments still in memory
+    @GuardedBy("this")
+    private final Deque<TempStorageHandle> spooledSegments = new ArrayDeque<>();
+    @GuardedBy("this")
+    private final Deque<List<SerializedPage>> bufferedSegments = new ArrayDeque<>();
+    @GuardedBy("this")
+    private final Deque<SerializedPage> readBuffer = new ArrayDeque<>();
+    @GuardedBy("this")
+    private List<SerializedPage> writeBuffer = new ArrayList<>();
+    @GuardedBy("this")
+    private long writeBufferBytes;
+    // set while the first spooled segment is read
+    @GuardedBy("this")
+    private SettableFuture<?> segmentLoaded;
+    @GuardedBy("this")
+    private RuntimeException failure;
+    @GuardedBy("this")
+    private boolean closed;
+
+    public QueryResultSpool(TempStorage tempStorage, TempDataOperationContext tempDataOperationContext, long segmentSizeInBytes, Executor executor)
+    {
+        this.tempStorage = requireNonNull(tempStorage, "tempStorage is null");
+        this.tempDataOperationContext = requireNonNull(tempDataOperationContext, "tempDataOperationContext is null");
+        checkArgument(segmentSizeInBytes > 0, "segmentSizeInBytes must be positive");
+        this.segmentSizeInBytes = segmentSizeInBytes;
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    public synchronized void addPage(SerializedPage page)
+    {
+        checkState(!closed, "spool is closed");
+        writeBuffer.add(requireNonNull(page, "page is null"));
+        writeBufferBytes += page.getSizeInBytes();
+        if (writeBufferBytes >= segmentSizeInBytes) {
+            bufferedSegments.add(writeBuffer);
+            writeBuffer = new ArrayList<>();
+            writeBufferBytes = 0;
+        }
+    }
+
+    /**
+     * Returns the next page, or null if the spool is empty or the next page is still read from temp storage.
+     */
+    public synchronized SerializedPage pollPage()
+    {
+        if (failure != null) {
+            throw failure;
+        }
+        if (readBuffer.isEmpty()) {
+            if (!spooledSegments.isEmpty()) {
+                loadSegment();
+            }
+            else if (!bufferedSegments.isEmpty()) {
+                readBuffer.addAll(bufferedSegments.poll());
+            }
+            else {
+                readBuffer.addAll(writeBuffer);
+                writeBuffer.clear();
+                writeBufferBytes = 0;
+            }
+        }
+        return readBuffer.poll();
+    }
+
+    /**
+     * Returns a future that completes once {@link #pollPage} can return the next page.
+     */
+    public synchronized ListenableFuture<?> isBlocked()
+    {
+        if (readBuffer.isEmpty() && !spooledSegments.isEmpty() && failure == null && !closed) {
+            loadSegment();
+            if (segmentLoaded != null) {
+                return nonCancellationPropagating(segmentLoaded);
+            }
+        }
+        return immediateFuture(null);
+    }
+
+    /**
+     * Returns true if a full segment is held in memory and not yet written to temp storage.
+     */
+    public synchronized boolean isFull()
+    {
+        return !bufferedSegments.isEmpty();
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return readBuffer.isEmpty() && spooledSegments.isEmpty() && bufferedSegments.isEmpty() && writeBuffer.isEmpty();
+    }
+
+    /**
+     * Writes the full segments held in memory to temp storage.
+     */
+    public void flush()
+    {
+        while (true) {
+            List<SerializedPage> segment;
+            synchronized (this) {
+                if (closed || bufferedSegments.isEmpty()) {
+                    return;
+                }
+                segment = bufferedSegments.peek();
+            }
+
+            TempStorageHandle handle = writeSegment(segment);
+            synchronized (this) {
+                if (!closed && bufferedSegments.peek() == segment) {
+                    bufferedSegments.poll();
+                    spooledSegments.add(handle);
+                    continue;
+                }
+            }
+            // the segment was read from memory, or the spool was closed, while it was written
+            removeSegment(handle);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        List<TempStorageHandle> segments;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segments = ImmutableList.copyOf(spooledSegments);
+            spooledSegments.clear();
+            bufferedSegments.clear();
+            readBuffer.clear();
+            writeBuffer.clear();
+            writeBufferBytes = 0;
+        }
+        if (!segments.isEmpty()) {
+            executor.execute(() -> segments.forEach(this::removeSegment));
+        }
+    }
+
+    @GuardedBy("this")
+    private void loadSegment()
+    {
+        if (segmentLoaded != null) {
+            return;
+        }
+        TempStorageHandle handle = spooledSegments.peek();
+        SettableFuture<?> future = SettableFuture.create();
+        segmentLoaded = future;
+        executor.execute(() -> {
+            try {
+                load(handle);
+            }
+            finally {
+                future.set(null);
+            }
+        });
+    }
+
+    private void load(TempStorageHandle handle)
+    {
+        List<SerializedPage> pages = ImmutableList.of();
+        RuntimeException loadFailure = null;
+        try {
+            pages = readSegment(handle);
+        }
+        catch (RuntimeException e) {
+            loadFailure = e;
+        }
+
+        synchronized (this) {
+            segmentLoaded = null;
+            if (closed) {
+                // close removed the segment
+                return;
+            }
+            if (loadFailure != null) {
+                failure = loadFailure;
+                return;
+            }
+            verify(spooledSegments.poll() == handle, "spooled segments changed while a segment was read");
+            readBuffer.addAll(pages);
+        }
+        removeSegment(handle);
+    }
+
+    private TempStorageHandle writeSegment(List<SerializedPage> pages)
+    {
+        List<DataOutput> dataOutputs = pages.stream()
+                .map(PageDataOutput::new)
+                .collect(toImmutableList());
+        TempDataSink dataSink = null;
+        try {
+            dataSink = tempStorage.create(tempDataOperationContext);
+            dataSink.write(dataOutputs);
+            return dataSink.commit();
+        }
+        catch (IOException e) {
+            if (dataSink != null) {
+                try {
+                    dataSink.rollback();
+                }
+                catch (IOException rollbackException) {
+                    e.addSuppressed(rollbackException);
+                }
+            }
+            throw new PrestoException(SPOOLING_STORAGE_ERROR, "Failed to spool query results", e);
+        }
+    }
+
+    private List<SerializedPage> readSegment(TempStorageHandle handle)
+    {
+        try (SliceInput input = new InputStreamSliceInput(tempStorage.open(tempDataOperationContext, handle))) {
+            return ImmutableList.copyOf(readSerializedPages(input));
+        }
+        catch (IOException | UncheckedIOException e) {
+            throw new PrestoException(SPOOLING_STORAGE_ERROR, "Failed to read spooled query results", e);
+        }
+    }
+
+    private void removeSegment(TempStorageHandle handle)
+    {
+        try {
+            tempStorage.remove(tempDataOperationContext, handle);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to remove spooled query results for query %s", tempDataOperationContext.getQueryId());
+        }
+    }
+}
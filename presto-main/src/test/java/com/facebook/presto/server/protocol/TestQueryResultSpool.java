@@ -0,0 +1,425 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.protocol;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.facebook.presto.spi.security.Identity;
+import com.facebook.presto.spi.storage.StorageCapabilities;
+import com.facebook.presto.spi.storage.TempDataOperationContext;
+import com.facebook.presto.spi.storage.TempDataSink;
+import com.facebook.presto.spi.storage.TempStorage;
+import com.facebook.presto.spi.storage.TempStorageHandle;
+import com.facebook.presto.testing.TestingTempStorageManager;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static com.facebook.presto.spi.StandardErrorCode.SPOOLING_STORAGE_ERROR;
+import static com.facebook.presto.spiller.LocalTempStorage.NAME;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.MoreFiles.listFiles;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.util.Objects.requireNonNull;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestQueryResultSpool
+{
+    private static final PagesSerde SERDE = testingPagesSerde();
+    private static final TempDataOperationContext CONTEXT = new TempDataOperationContext(
+            Optional.empty(),
+            "test_query",
+            Optional.empty(),
+            Optional.empty(),
+            new Identity("user", Optional.empty()));
+
+    private File tempDirectory;
+    private FailingTempStorage tempStorage;
+    private QueuedExecutor executor;
+    private long pageSize;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        tempDirectory = Files.createTempDir();
+        tempStorage = new FailingTempStorage(new TestingTempStorageManager(tempDirectory.getPath()).getTempStorage(NAME));
+        executor = new QueuedExecutor();
+        pageSize = createPage(0).getSizeInBytes();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testPagesReturnedInOrder()
+            throws Exception
+    {
+        // two pages per segment
+        QueryResultSpool spool = createSpool(2 * pageSize);
+
+        addPages(spool, 0, 5);
+        spool.flush();
+        assertEquals(countSegments(), 2);
+
+        // the first segment is read from temp storage before the pages added later
+        addPages(spool, 5, 10);
+        assertEquals(readAll(spool), ImmutableList.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+        assertTrue(spool.isEmpty());
+        assertEquals(countSegments(), 0);
+    }
+
+    @Test
+    public void testPagesReadFromMemory()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+
+        addPages(spool, 0, 3);
+        assertEquals(readAll(spool), ImmutableList.of(0L, 1L, 2L));
+        assertTrue(spool.isEmpty());
+
+        // nothing is left to write
+        spool.flush();
+        assertEquals(countSegments(), 0);
+    }
+
+    @Test
+    public void testFull()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 1);
+        assertFalse(spool.isFull());
+
+        // a full segment is held in memory until it is written
+        addPages(spool, 1, 3);
+        assertTrue(spool.isFull());
+        spool.flush();
+        assertFalse(spool.isFull());
+        assertEquals(countSegments(), 1);
+
+        // reading the segment from memory also frees the spool
+        addPages(spool, 3, 5);
+        assertTrue(spool.isFull());
+        assertEquals(readAll(spool), ImmutableList.of(0L, 1L, 2L, 3L, 4L));
+        assertFalse(spool.isFull());
+    }
+
+    @Test
+    public void testSegmentDeletedOnRead()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 4);
+        spool.flush();
+        assertEquals(countSegments(), 2);
+
+        // the segment is read on the executor
+        assertNull(spool.pollPage());
+        ListenableFuture<?> blocked = spool.isBlocked();
+        assertFalse(blocked.isDone());
+        executor.runAll();
+        assertTrue(blocked.isDone());
+        assertEquals(countSegments(), 1);
+
+        assertEquals(getValue(spool.pollPage()), 0);
+        assertEquals(getValue(spool.pollPage()), 1);
+        assertEquals(countSegments(), 1);
+
+        assertNull(spool.pollPage());
+        executor.runAll();
+        assertEquals(countSegments(), 0);
+        assertEquals(getValue(spool.pollPage()), 2);
+        assertEquals(getValue(spool.pollPage()), 3);
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void testSegmentReadFromMemoryWhileWritten()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 2);
+
+        // the client reads the pages while the segment is written
+        ImmutableList.Builder<Long> values = ImmutableList.builder();
+        tempStorage.setOnCreate(() -> values.add(getValue(spool.pollPage()), getValue(spool.pollPage())));
+        spool.flush();
+
+        assertEquals(values.build(), ImmutableList.of(0L, 1L));
+        assertTrue(spool.isEmpty());
+        assertEquals(countSegments(), 0);
+    }
+
+    @Test
+    public void testClose()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 5);
+        spool.flush();
+        assertEquals(countSegments(), 2);
+
+        spool.close();
+        assertTrue(spool.isEmpty());
+        executor.runAll();
+        assertEquals(countSegments(), 0);
+
+        // closing again is a no-op
+        spool.close();
+        assertTrue(executor.isEmpty());
+    }
+
+    @Test
+    public void testCloseWhileSegmentRead()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 4);
+        spool.flush();
+
+        assertNull(spool.pollPage());
+        spool.close();
+        executor.runAll();
+        assertTrue(spool.isEmpty());
+        assertEquals(countSegments(), 0);
+    }
+
+    @Test
+    public void testWriteFailure()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 2);
+
+        tempStorage.setFailWrites(true);
+        try {
+            spool.flush();
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), SPOOLING_STORAGE_ERROR.toErrorCode());
+            assertEquals(e.getMessage(), "Failed to spool query results");
+        }
+
+        // the pages stay in memory
+        assertEquals(readAll(spool), ImmutableList.of(0L, 1L));
+    }
+
+    @Test
+    public void testReadFailure()
+            throws Exception
+    {
+        QueryResultSpool spool = createSpool(2 * pageSize);
+        addPages(spool, 0, 2);
+        spool.flush();
+
+        tempStorage.setFailReads(true);
+        assertNull(spool.pollPage());
+        ListenableFuture<?> blocked = spool.isBlocked();
+        executor.runAll();
+        assertTrue(blocked.isDone());
+        try {
+            spool.pollPage();
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), SPOOLING_STORAGE_ERROR.toErrorCode());
+            assertEquals(e.getMessage(), "Failed to read spooled query results");
+        }
+
+        // the segment is removed when the query is disposed
+        spool.close();
+        executor.runAll();
+        assertEquals(countSegments(), 0);
+    }
+
+    private QueryResultSpool createSpool(long segmentSizeInBytes)
+    {
+        return new QueryResultSpool(tempStorage, CONTEXT, segmentSizeInBytes, executor);
+    }
+
+    private List<Long> readAll(QueryResultSpool spool)
+    {
+        ImmutableList.Builder<Long> values = ImmutableList.builder();
+        while (!spool.isEmpty()) {
+            SerializedPage page = spool.pollPage();
+            if (page == null) {
+                ListenableFuture<?> blocked = spool.isBlocked();
+                assertFalse(blocked.isDone());
+                executor.runAll();
+                assertTrue(blocked.isDone());
+                continue;
+            }
+            values.add(getValue(page));
+        }
+        return values.build();
+    }
+
+    private int countSegments()
+            throws IOException
+    {
+        return listFiles(tempDirectory.toPath()).size();
+    }
+
+    private static void addPages(QueryResultSpool spool, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            spool.addPage(createPage(i));
+        }
+    }
+
+    private static SerializedPage createPage(int value)
+    {
+        return SERDE.serialize(new Page(createLongSequenceBlock(value, value + 1)));
+    }
+
+    private static long getValue(SerializedPage serializedPage)
+    {
+        Page page = SERDE.deserialize(serializedPage);
+        assertEquals(page.getPositionCount(), 1);
+        return BIGINT.getLong(page.getBlock(0), 0);
+    }
+
+    private static class QueuedExecutor
+            implements Executor
+    {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task)
+        {
+            tasks.add(requireNonNull(task, "task is null"));
+        }
+
+        public void runAll()
+        {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+
+        public boolean isEmpty()
+        {
+            return tasks.isEmpty();
+        }
+    }
+
+    private static class FailingTempStorage
+            implements TempStorage
+    {
+        private final TempStorage delegate;
+        private boolean failWrites;
+        private boolean failReads;
+        private Runnable onCreate = () -> {};
+
+        public FailingTempStorage(TempStorage delegate)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        public void setFailWrites(boolean failWrites)
+        {
+            this.failWrites = failWrites;
+        }
+
+        public void setFailReads(boolean failReads)
+        {
+            this.failReads = failReads;
+        }
+
+        public void setOnCreate(Runnable onCreate)
+        {
+            this.onCreate = requireNonNull(onCreate, "onCreate is null");
+        }
+
+        @Override
+        public TempDataSink create(TempDataOperationContext context)
+                throws IOException
+        {
+            onCreate.run();
+            if (failWrites) {
+                throw new IOException("write failed");
+            }
+            return delegate.create(context);
+        }
+
+        @Override
+        public InputStream open(TempDataOperationContext context, TempStorageHandle handle)
+                throws IOException
+        {
+            if (failReads) {
+                throw new IOException("read failed");
+            }
+            return delegate.open(context, handle);
+        }
+
+        @Override
+        public void remove(TempDataOperationContext context, TempStorageHandle handle)
+                throws IOException
+        {
+            delegate.remove(context, handle);
+        }
+
+        @Override
+        public TempStorageHandle getRootDirectoryHandle()
+        {
+            return delegate.getRootDirectoryHandle();
+        }
+
+        @Override
+        public byte[] serializeHandle(TempStorageHandle storageHandle)
+        {
+            return delegate.serializeHandle(storageHandle);
+        }
+
+        @Override
+        public TempStorageHandle deserialize(byte[] serializedStorageHandle)
+        {
+            return delegate.deserialize(serializedStorageHandle);
+        }
+
+        @Override
+        public List<StorageCapabilities> getStorageCapabilities()
+        {
+            return delegate.getStorageCapabilities();
+        }
+    }
+}
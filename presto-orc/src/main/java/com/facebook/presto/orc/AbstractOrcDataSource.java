@@ -26,6 +26,7 @@ import io.airlift.slice.Slices;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.function.Supplier;
@@ -65,6 +66,22 @@ public abstract class AbstractOrcDataSource
     protected abstract void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
             throws IOException;
 
+    /**
+     * Reads each of the non-overlapping disk ranges into a buffer of its own. Data sources on
+     * remote storage can override this to fetch the ranges concurrently.
+     */
+    protected Map<DiskRange, byte[]> readInternal(List<DiskRange> diskRanges)
+            throws IOException
+    {
+        Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
+        for (DiskRange diskRange : diskRanges) {
+            byte[] buffer = new byte[diskRange.getLength()];
+            readInternal(diskRange.getOffset(), buffer, 0, buffer.length);
+            buffers.put(diskRange, buffer);
+        }
+        return buffers;
+    }
+
     @Override
     public OrcDataSourceId getId()
     {
@@ -152,7 +169,7 @@ public abstract class AbstractOrcDataSource
             return ImmutableMap.of();
         }
 
-        Iterable<DiskRange> mergedRanges = mergeAdjacentDiskRanges(diskRanges.values(), maxMergeDistance, maxBufferSize);
+        List<DiskRange> mergedRanges = mergeAdjacentDiskRanges(diskRanges.values(), maxMergeDistance, maxBufferSize);
 
         ImmutableMap.Builder<K, OrcDataSourceInput> slices = ImmutableMap.builder();
         if (lazyReadSmallRanges) {
@@ -168,12 +185,12 @@ public abstract class AbstractOrcDataSource
             }
         }
         else {
-            Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
+            // read each merged range in one request
+            long start = System.nanoTime();
+            Map<DiskRange, byte[]> buffers = readInternal(mergedRanges);
+            readTimeNanos += System.nanoTime() - start;
             for (DiskRange mergedRange : mergedRanges) {
-                // read full range in one request
-                byte[] buffer = new byte[mergedRange.getLength()];
-                readFully(mergedRange.getOffset(), buffer);
-                buffers.put(mergedRange, buffer);
+                readBytes += mergedRange.getLength();
             }
 
             for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
@@ -411,6 +411,11 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         }
     }
 
+    protected RuntimeStats getRuntimeStats()
+    {
+        return runtimeStats;
+    }
+
     protected T[] getStreamReaders()
     {
         return streamReaders;
@@ -568,10 +573,18 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
                 column.startRowGroup(rowGroupStreamSources);
             }
         }
+        rowGroupStarted(currentRowGroup);
 
         return true;
     }
 
+    /**
+     * Invoked after all stream readers have been positioned at the start of a new row group.
+     */
+    protected void rowGroupStarted(RowGroup rowGroup)
+    {
+    }
+
     private static int adjustMaxBatchSize(int maxBatchSize, long maxBlockBytes, long averageRowBytes)
     {
         return toIntExact(min(maxBatchSize, max(1, maxBlockBytes / averageRowBytes)));
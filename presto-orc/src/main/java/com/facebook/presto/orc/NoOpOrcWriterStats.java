@@ -38,6 +38,11 @@ public class NoOpOrcWriterStats
     {
     }
 
+    @Override
+    public void recordColumnEncodeTime(String columnName, long encodeTimeNanos)
+    {
+    }
+
     @Override
     public String toString()
     {
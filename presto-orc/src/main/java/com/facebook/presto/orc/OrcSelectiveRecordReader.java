@@ -15,6 +15,7 @@ package com.facebook.presto.orc;
 
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.RuntimeUnit;
 import com.facebook.presto.common.Subfield;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockLease;
@@ -64,6 +65,8 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.common.RuntimeMetricName.ORC_LATE_MATERIALIZATION_SKIPPED_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.ORC_LATE_MATERIALIZATION_SKIPPED_ROW_GROUPS;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.common.type.DateType.DATE;
@@ -153,6 +156,13 @@ public class OrcSelectiveRecordReader
     // true if row number needs to be added, false otherwise
     private final boolean appendRowNumber;
 
+    // orc column ids (including nested columns) of output columns without filters; these are loaded lazily
+    // and their streams are never opened for row groups in which no rows pass the filters
+    private int[] lateMaterializedOrcColumns = new int[0];
+    @Nullable
+    private RowGroup currentRowGroup;
+    private boolean currentRowGroupHasOutput;
+
     public OrcSelectiveRecordReader(
             Map<Integer, Type> includedColumns,                 // key: hiveColumnIndex
             List<Integer> outputColumns,                        // elements are hive column indices
@@ -330,6 +340,23 @@ public class OrcSelectiveRecordReader
                 .boxed()
                 .map(this.filterFunctionInputMapping::get)
                 .collect(toImmutableSet());
+
+        if (!columnsWithFilterScores.isEmpty() || !this.filterFunctionInputMapping.isEmpty()) {
+            lateMaterializedOrcColumns = this.outputColumns.stream()
+                    .filter(columnIndex -> this.constantValues[columnIndex] == null)
+                    .filter(columnIndex -> !hasAnyFilter(columnIndex))
+                    .mapToInt(columnIndex -> this.hiveColumnIndices[columnIndex])
+                    .filter(hiveColumnIndex -> hiveColumnIndex >= 0 && hiveColumnIndex < types.get(0).getFieldCount())
+                    .flatMap(hiveColumnIndex -> collectOrcColumns(types, types.get(0).getFieldTypeIndex(hiveColumnIndex)))
+                    .toArray();
+        }
+    }
+
+    private static IntStream collectOrcColumns(List<OrcType> types, int orcColumnId)
+    {
+        return IntStream.concat(
+                IntStream.of(orcColumnId),
+                types.get(orcColumnId).getFieldTypeIndexes().stream().flatMapToInt(child -> collectOrcColumns(types, child)));
     }
 
     private boolean evaluateDeterministicFilterFunctionsWithConstantInputs(List<FilterFunction> filterFunctions)
@@ -638,6 +665,8 @@ public class OrcSelectiveRecordReader
         }
         int batchSize = prepareNextBatch();
         if (batchSize < 0) {
+            recordRowGroupSkipStats();
+            currentRowGroup = null;
             return null;
         }
         readPositions += batchSize;
@@ -708,6 +737,8 @@ public class OrcSelectiveRecordReader
             return EMPTY_PAGE;
         }
 
+        currentRowGroupHasOutput = true;
+
         if (constantFilterError != null) {
             throw constantFilterError;
         }
@@ -753,6 +784,29 @@ public class OrcSelectiveRecordReader
         return page;
     }
 
+    @Override
+    protected void rowGroupStarted(RowGroup rowGroup)
+    {
+        recordRowGroupSkipStats();
+        currentRowGroup = rowGroup;
+        currentRowGroupHasOutput = false;
+    }
+
+    private void recordRowGroupSkipStats()
+    {
+        if (currentRowGroup == null || currentRowGroupHasOutput || lateMaterializedOrcColumns.length == 0) {
+            return;
+        }
+
+        // no rows of the row group passed the filters, so the streams of the lazily loaded columns were never opened
+        long skippedBytes = 0;
+        for (int orcColumnId : lateMaterializedOrcColumns) {
+            skippedBytes += currentRowGroup.getColumnValueSize(orcColumnId);
+        }
+        getRuntimeStats().addMetricValue(ORC_LATE_MATERIALIZATION_SKIPPED_ROW_GROUPS, RuntimeUnit.NONE, 1);
+        getRuntimeStats().addMetricValue(ORC_LATE_MATERIALIZATION_SKIPPED_BYTES, RuntimeUnit.BYTE, skippedBytes);
+    }
+
     private long getSelfRetainedSizeInBytes()
     {
         return INSTANCE_SIZE +
@@ -765,7 +819,8 @@ public class OrcSelectiveRecordReader
                 sizeOf(positions) +
                 sizeOf(outputPositions) +
                 sizeOf(errors) +
-                sizeOf(tmpErrors);
+                sizeOf(tmpErrors) +
+                sizeOf(lateMaterializedOrcColumns);
     }
 
     private SelectiveStreamReader getStreamReader(int columnIndex)
@@ -41,6 +41,7 @@ import com.facebook.presto.orc.stream.StreamDataOutput;
 import com.facebook.presto.orc.writer.ColumnWriter;
 import com.facebook.presto.orc.writer.CompressionBufferPool;
 import com.facebook.presto.orc.writer.CompressionBufferPool.LastUsedCompressionBufferPool;
+import com.facebook.presto.orc.writer.CompressionBufferPool.SharedCompressionBufferPool;
 import com.facebook.presto.orc.writer.DictionaryColumnWriter;
 import com.facebook.presto.orc.writer.StreamLayout;
 import com.google.common.annotations.VisibleForTesting;
@@ -64,6 +65,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -72,7 +74,11 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -94,12 +100,14 @@ import static com.facebook.presto.orc.metadata.statistics.ColumnStatistics.merge
 import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.Integer.min;
 import static java.lang.Math.toIntExact;
+import static java.lang.Runtime.getRuntime;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
@@ -142,6 +150,9 @@ public class OrcWriter
     @Nullable
     private final OrcWriteValidation.OrcWriteValidationBuilder validationBuilder;
     private final CompressionBufferPool compressionBufferPool;
+    private final Optional<Executor> columnWriterExecutor;
+    private final List<String> columnNames;
+    private final long[] columnEncodeNanos;
 
     private int stripeRowCount;
     private int rowGroupRowCount;
@@ -211,9 +222,13 @@ public class OrcWriter
         this.dataSink = requireNonNull(dataSink, "dataSink is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.orcEncoding = requireNonNull(orcEncoding, "orcEncoding is null");
-        this.compressionBufferPool = new LastUsedCompressionBufferPool();
+        // the data encryptor of an encryption group is shared by the writers of its columns and is not thread safe
+        requireNonNull(encryption, "encryption is null");
+        this.columnWriterExecutor = encryption.isPresent() ? Optional.empty() : requireNonNull(options.getColumnWriterExecutor(), "columnWriterExecutor is null");
+        // column writers running concurrently check buffers in and out at the same time
+        this.compressionBufferPool = columnWriterExecutor.isPresent() ? new SharedCompressionBufferPool(getRuntime().availableProcessors()) : new LastUsedCompressionBufferPool();
 
-        requireNonNull(columnNames, "columnNames is null");
+        this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
         requireNonNull(inputOrcTypes, "inputOrcTypes is null");
         this.orcTypes = inputOrcTypes.orElseGet(() -> OrcType.createOrcRowType(0, columnNames, types));
         this.nodeIdToColumn = createNodeIdToColumnMap(this.orcTypes);
@@ -338,6 +353,7 @@ public class OrcWriter
             }
         }
         this.columnWriters = columnWriters.build();
+        this.columnEncodeNanos = new long[this.columnWriters.size()];
         this.dictionaryMaxMemoryBytes = toIntExact(options.getDictionaryMaxMemory().toBytes());
         int dictionaryMemoryAlmostFullRangeBytes = toIntExact(options.getDictionaryMemoryAlmostFullRange().toBytes());
         int dictionaryUsefulCheckColumnSizeBytes = toIntExact(options.getDictionaryUsefulCheckColumnSize().toBytes());
@@ -444,11 +460,12 @@ public class OrcWriter
         }
 
         // write chunks
+        long[] rawSizes = new long[chunk.getChannelCount()];
+        runColumnWriters(channel -> rawSizes[channel] = columnWriters.get(channel).writeBlock(chunk.getBlock(channel)));
         bufferedBytes = 0;
         for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
-            ColumnWriter writer = columnWriters.get(channel);
-            stripeRawSize += writer.writeBlock(chunk.getBlock(channel));
-            bufferedBytes += writer.getBufferedBytes();
+            stripeRawSize += rawSizes[channel];
+            bufferedBytes += columnWriters.get(channel).getBufferedBytes();
         }
 
         // update stats
@@ -531,7 +548,50 @@ public class OrcWriter
             dictionaryCompressionOptimizer.finalOptimize(bufferedBytes);
         }
 
-        columnWriters.forEach(ColumnWriter::close);
+        // closing a column writer flushes and compresses its remaining buffered data
+        runColumnWriters(column -> columnWriters.get(column).close());
+        if (stripeRowCount > 0) {
+            for (int column = 0; column < columnEncodeNanos.length; column++) {
+                stats.recordColumnEncodeTime(columnNames.get(column), columnEncodeNanos[column]);
+            }
+        }
+        Arrays.fill(columnEncodeNanos, 0);
+    }
+
+    /**
+     * Runs the action for every column writer and waits for all of them to finish.
+     * Column writers do not share state, so when an executor is configured and the
+     * file is not encrypted they are run concurrently. Streams are still collected in column order afterwards,
+     * so the resulting file layout does not depend on the execution order.
+     */
+    private void runColumnWriters(IntConsumer action)
+    {
+        if (!columnWriterExecutor.isPresent() || columnWriters.size() == 1) {
+            for (int column = 0; column < columnWriters.size(); column++) {
+                runColumnWriter(column, action);
+            }
+            return;
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[columnWriters.size()];
+        for (int column = 0; column < columnWriters.size(); column++) {
+            int currentColumn = column;
+            futures[column] = CompletableFuture.runAsync(() -> runColumnWriter(currentColumn, action), columnWriterExecutor.get());
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        }
+        catch (CompletionException e) {
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void runColumnWriter(int column, IntConsumer action)
+    {
+        long start = System.nanoTime();
+        action.accept(column);
+        columnEncodeNanos[column] += System.nanoTime() - start;
     }
 
     /**
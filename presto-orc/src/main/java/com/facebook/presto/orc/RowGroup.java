@@ -14,6 +14,9 @@
 package com.facebook.presto.orc;
 
 import com.facebook.presto.orc.stream.InputStreamSources;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -26,8 +29,15 @@ public class RowGroup
     private final long rowCount;
     private final long minAverageRowBytes;
     private final InputStreamSources streamSources;
+    // key: orc column id; value: uncompressed size of the column values in this row group, when known
+    private final Map<Integer, Long> columnValueSizes;
 
     public RowGroup(int groupId, long rowOffset, long rowCount, long totalBytes, InputStreamSources streamSources)
+    {
+        this(groupId, rowOffset, rowCount, totalBytes, streamSources, ImmutableMap.of());
+    }
+
+    public RowGroup(int groupId, long rowOffset, long rowCount, long totalBytes, InputStreamSources streamSources, Map<Integer, Long> columnValueSizes)
     {
         checkArgument(rowOffset >= 0, "Invalid row offset %s for group id %s", rowOffset, groupId);
         checkArgument(rowCount >= 0, "Invalid row count %s for group id %s", rowCount, groupId);
@@ -36,6 +46,7 @@ public class RowGroup
         this.rowCount = rowCount;
         this.minAverageRowBytes = rowCount > 0 ? totalBytes / rowCount : totalBytes;
         this.streamSources = requireNonNull(streamSources, "streamSources is null");
+        this.columnValueSizes = ImmutableMap.copyOf(requireNonNull(columnValueSizes, "columnValueSizes is null"));
     }
 
     public int getGroupId()
@@ -63,6 +74,11 @@ public class RowGroup
         return streamSources;
     }
 
+    public long getColumnValueSize(int orcColumnId)
+    {
+        return columnValueSizes.getOrDefault(orcColumnId, 0L);
+    }
+
     @Override
     public String toString()
     {
@@ -263,6 +263,7 @@ public class StripeReader
         Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripeId, diskRanges, systemMemoryUsage, decryptors, sharedDecompressionBuffer);
 
         long totalBytes = 0;
+        Map<Integer, Long> columnValueSizes = new HashMap<>();
         ImmutableMap.Builder<StreamId, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
         for (Entry<StreamId, Stream> entry : includedStreams.entrySet()) {
             if (entry.getKey().getStreamKind() == ROW_INDEX) {
@@ -272,6 +273,7 @@ public class StripeReader
                     ColumnStatistics columnStatistics = rowGroupIndex.getColumnStatistics();
                     if (columnStatistics.hasMinAverageValueSizeInBytes()) {
                         totalBytes += columnStatistics.getTotalValueSizeInBytes();
+                        columnValueSizes.merge(entry.getKey().getColumn(), columnStatistics.getTotalValueSizeInBytes(), Long::sum);
                     }
                 }
 
@@ -294,7 +296,7 @@ public class StripeReader
         for (Entry<StreamId, ValueInputStream<?>> entry : valueStreams.entrySet()) {
             builder.put(entry.getKey(), new ValueInputStreamSource<>(entry.getValue()));
         }
-        RowGroup rowGroup = new RowGroup(0, 0, stripe.getNumberOfRows(), totalBytes, new InputStreamSources(builder.build()));
+        RowGroup rowGroup = new RowGroup(0, 0, stripe.getNumberOfRows(), totalBytes, new InputStreamSources(builder.build()), columnValueSizes);
 
         return new Stripe(
                 stripe.getNumberOfRows(),
@@ -467,13 +469,13 @@ public class StripeReader
     @VisibleForTesting
     static RowGroup createRowGroup(int groupId, long rowsInStripe, long rowsInRowGroup, Map<StreamId, List<RowGroupIndex>> columnIndexes, Map<StreamId, ValueInputStream<?>> valueStreams, Map<StreamId, StreamCheckpoint> checkpoints)
     {
-        long totalRowGroupBytes = columnIndexes
-                .values()
-                .stream()
-                .mapToLong(e -> e.get(groupId)
-                        .getColumnStatistics()
-                        .getTotalValueSizeInBytes())
-                .sum();
+        long totalRowGroupBytes = 0;
+        ImmutableMap.Builder<Integer, Long> columnValueSizes = ImmutableMap.builder();
+        for (Entry<StreamId, List<RowGroupIndex>> entry : columnIndexes.entrySet()) {
+            long columnBytes = entry.getValue().get(groupId).getColumnStatistics().getTotalValueSizeInBytes();
+            totalRowGroupBytes += columnBytes;
+            columnValueSizes.put(entry.getKey().getColumn(), columnBytes);
+        }
 
         long rowOffset = multiplyExact(groupId, rowsInRowGroup);
         int rowCount = toIntExact(Math.min(rowsInStripe - rowOffset, rowsInRowGroup));
@@ -491,7 +493,7 @@ public class StripeReader
             builder.put(streamId, createCheckpointStreamSource(valueStream, checkpoint));
         }
         InputStreamSources rowGroupStreams = new InputStreamSources(builder.build());
-        return new RowGroup(groupId, rowOffset, rowCount, totalRowGroupBytes, rowGroupStreams);
+        return new RowGroup(groupId, rowOffset, rowCount, totalRowGroupBytes, rowGroupStreams, columnValueSizes.build());
     }
 
     public StripeFooter readStripeFooter(StripeId stripeId, StripeInformation stripe, OrcAggregatedMemoryContext systemMemoryUsage)
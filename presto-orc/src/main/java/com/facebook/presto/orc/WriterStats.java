@@ -26,4 +26,9 @@ public interface WriterStats
             StripeInformation stripeInformation);
 
     void updateSizeInBytes(long deltaInBytes);
+
+    /**
+     * Records the time spent encoding and compressing one top-level column of a stripe.
+     */
+    void recordColumnEncodeTime(String columnName, long encodeTimeNanos);
 }
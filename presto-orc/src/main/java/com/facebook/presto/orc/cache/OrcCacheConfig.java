@@ -19,8 +19,10 @@ import com.facebook.airlift.units.DataSize;
 import com.facebook.airlift.units.Duration;
 import com.facebook.airlift.units.MinDataSize;
 import com.facebook.airlift.units.MinDuration;
+import jakarta.validation.constraints.AssertTrue;
 
 import static com.facebook.airlift.units.DataSize.Unit.BYTE;
+import static com.facebook.airlift.units.DataSize.Unit.GIGABYTE;
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
 import static com.facebook.presto.orc.OrcDataSourceUtils.EXPECTED_FOOTER_SIZE_IN_BYTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -31,6 +33,10 @@ public class OrcCacheConfig
     private DataSize fileTailCacheSize = new DataSize(1, MEGABYTE);
     private Duration fileTailCacheTtlSinceLastAccess = new Duration(0, SECONDS);
 
+    private boolean fileTailPersistentCacheEnabled;
+    private String fileTailPersistentCacheDirectory;
+    private DataSize fileTailPersistentCacheSize = new DataSize(1, GIGABYTE);
+
     private boolean stripeMetadataCacheEnabled;
     private DataSize stripeFooterCacheSize = new DataSize(0, BYTE);
     private Duration stripeFooterCacheTtlSinceLastAccess = new Duration(0, SECONDS);
@@ -85,6 +91,52 @@ public class OrcCacheConfig
         return this;
     }
 
+    public boolean isFileTailPersistentCacheEnabled()
+    {
+        return fileTailPersistentCacheEnabled;
+    }
+
+    @Config("orc.file-tail-persistent-cache-enabled")
+    @ConfigDescription("Enable local disk cache for orc file tail that survives worker restarts")
+    public OrcCacheConfig setFileTailPersistentCacheEnabled(boolean fileTailPersistentCacheEnabled)
+    {
+        this.fileTailPersistentCacheEnabled = fileTailPersistentCacheEnabled;
+        return this;
+    }
+
+    public String getFileTailPersistentCacheDirectory()
+    {
+        return fileTailPersistentCacheDirectory;
+    }
+
+    @Config("orc.file-tail-persistent-cache-directory")
+    @ConfigDescription("Local directory of the orc file tail persistent cache")
+    public OrcCacheConfig setFileTailPersistentCacheDirectory(String fileTailPersistentCacheDirectory)
+    {
+        this.fileTailPersistentCacheDirectory = fileTailPersistentCacheDirectory;
+        return this;
+    }
+
+    @AssertTrue(message = "orc.file-tail-persistent-cache-directory must be set when orc.file-tail-persistent-cache-enabled is true")
+    public boolean isFileTailPersistentCacheDirectoryValid()
+    {
+        return !fileTailPersistentCacheEnabled || (fileTailPersistentCacheDirectory != null && !fileTailPersistentCacheDirectory.trim().isEmpty());
+    }
+
+    @MinDataSize("1MB")
+    public DataSize getFileTailPersistentCacheSize()
+    {
+        return fileTailPersistentCacheSize;
+    }
+
+    @Config("orc.file-tail-persistent-cache-size")
+    @ConfigDescription("Maximum size on disk of the orc file tail persistent cache")
+    public OrcCacheConfig setFileTailPersistentCacheSize(DataSize fileTailPersistentCacheSize)
+    {
+        this.fileTailPersistentCacheSize = fileTailPersistentCacheSize;
+        return this;
+    }
+
     public boolean isStripeMetadataCacheEnabled()
     {
         return stripeMetadataCacheEnabled;
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Single thread that writes the entries of {@link PersistentOrcFileTailSource}. Writes are
+ * queued up to {@code maxQueuedWrites}; further writes are rejected, and the source drops
+ * them, so a slow cache disk never holds file tails in memory without bound.
+ */
+public class OrcFileTailCacheWriterExecutor
+        implements Executor
+{
+    public static final int DEFAULT_MAX_QUEUED_WRITES = 1000;
+
+    private final ThreadPoolExecutor executor;
+
+    public OrcFileTailCacheWriterExecutor(ThreadFactory threadFactory, int maxQueuedWrites)
+    {
+        requireNonNull(threadFactory, "threadFactory is null");
+        checkArgument(maxQueuedWrites > 0, "maxQueuedWrites must be positive");
+        this.executor = new ThreadPoolExecutor(1, 1, 0, MILLISECONDS, new ArrayBlockingQueue<>(maxQueuedWrites), threadFactory);
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        executor.execute(command);
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+}
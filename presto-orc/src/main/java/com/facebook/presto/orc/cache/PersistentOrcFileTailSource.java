@@ -0,0 +1,324 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcWriteValidation;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DwrfStripeCacheData;
+import com.facebook.presto.orc.metadata.DwrfStripeCacheMode;
+import com.facebook.presto.orc.metadata.MetadataReader;
+import com.facebook.presto.orc.metadata.OrcFileTail;
+import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import io.airlift.slice.BasicSliceInput;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.facebook.presto.orc.OrcReader.MODIFICATION_TIME_NOT_SET;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.cache.RemovalCause.EXPLICIT;
+import static com.google.common.hash.Hashing.sha256;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps serialized file tails on local disk so they survive worker restarts.
+ * Entries are keyed by file path, modification time and length, so a rewritten
+ * file never matches a stale entry. The on-disk index is rebuilt from the cache
+ * directory on startup and evicts the least recently used tails once the
+ * configured size is exceeded. Tails read from storage are written to disk on
+ * {@code writeExecutor}, off the read path of the query.
+ */
+public class PersistentOrcFileTailSource
+        implements OrcFileTailSource
+{
+    private static final Logger log = Logger.get(PersistentOrcFileTailSource.class);
+
+    private static final int MAGIC = 0x4F544331; // "OTC1"
+    private static final String CACHE_FILE_SUFFIX = ".tail";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final OrcFileTailSource delegate;
+    private final Path cacheDirectory;
+    private final Executor writeExecutor;
+    private final Cache<String, Long> index;
+    // hits are only known once the entry has been read back, so they are not recorded by the index
+    private final StatsCounter stats = new SimpleStatsCounter();
+    private final Set<String> pendingWrites = ConcurrentHashMap.newKeySet();
+
+    public PersistentOrcFileTailSource(OrcFileTailSource delegate, Path cacheDirectory, long maxCacheSizeInBytes, Executor writeExecutor)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.cacheDirectory = requireNonNull(cacheDirectory, "cacheDirectory is null");
+        checkArgument(maxCacheSizeInBytes > 0, "maxCacheSizeInBytes must be positive");
+        this.writeExecutor = requireNonNull(writeExecutor, "writeExecutor is null");
+
+        this.index = CacheBuilder.newBuilder()
+                .maximumWeight(maxCacheSizeInBytes)
+                .weigher((String fileName, Long size) -> (int) Math.min(size, Integer.MAX_VALUE))
+                .removalListener(this::onRemoval)
+                .build();
+
+        try {
+            Files.createDirectories(cacheDirectory);
+            loadIndex();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to initialize orc file tail cache directory " + cacheDirectory, e);
+        }
+    }
+
+    public long getSize()
+    {
+        return index.size();
+    }
+
+    public CacheStats getStats()
+    {
+        return stats.snapshot();
+    }
+
+    @Override
+    public OrcFileTail getOrcFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader, Optional<OrcWriteValidation> writeValidation, boolean cacheable, long fileModificationTime)
+            throws IOException
+    {
+        if (!cacheable || fileModificationTime == MODIFICATION_TIME_NOT_SET) {
+            return delegate.getOrcFileTail(orcDataSource, metadataReader, writeValidation, cacheable, fileModificationTime);
+        }
+
+        String path = orcDataSource.getId().toString();
+        long fileLength = orcDataSource.getSize();
+        String fileName = getCacheFileName(path, fileModificationTime, fileLength);
+
+        // look up through the map view, which updates the access order without recording stats
+        if (index.asMap().get(fileName) != null) {
+            Optional<OrcFileTail> orcFileTail = readCacheFile(fileName, path, fileModificationTime, fileLength);
+            if (orcFileTail.isPresent()) {
+                stats.recordHits(1);
+                return orcFileTail.get();
+            }
+            index.invalidate(fileName);
+        }
+        stats.recordMisses(1);
+
+        OrcFileTail orcFileTail = delegate.getOrcFileTail(orcDataSource, metadataReader, writeValidation, cacheable, fileModificationTime);
+        scheduleWrite(fileName, path, fileLength, orcFileTail);
+        return orcFileTail;
+    }
+
+    private void loadIndex()
+            throws IOException
+    {
+        List<Path> cacheFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_FILE_SUFFIX)) {
+                    // left behind by a write that did not finish before shutdown
+                    Files.deleteIfExists(file);
+                }
+                else if (name.endsWith(CACHE_FILE_SUFFIX)) {
+                    cacheFiles.add(file);
+                }
+            }
+        }
+
+        // insert the oldest files first so they are the first to be evicted
+        cacheFiles.sort(comparingLong(PersistentOrcFileTailSource::getLastModifiedTime));
+        for (Path file : cacheFiles) {
+            index.put(file.getFileName().toString(), Files.size(file));
+        }
+    }
+
+    private Optional<OrcFileTail> readCacheFile(String fileName, String path, long fileModificationTime, long fileLength)
+    {
+        try {
+            Slice slice = Slices.wrappedBuffer(Files.readAllBytes(cacheDirectory.resolve(fileName)));
+            BasicSliceInput input = slice.getInput();
+            if (input.readInt() != MAGIC
+                    || !readString(input).equals(path)
+                    || input.readLong() != fileModificationTime
+                    || input.readLong() != fileLength) {
+                return Optional.empty();
+            }
+
+            HiveWriterVersion hiveWriterVersion = HiveWriterVersion.valueOf(readString(input));
+            int bufferSize = input.readInt();
+            CompressionKind compressionKind = CompressionKind.valueOf(readString(input));
+            int footerSize = input.readInt();
+            Slice footerSlice = readSlice(input);
+            int metadataSize = input.readInt();
+            Slice metadataSlice = readSlice(input);
+            Optional<DwrfStripeCacheData> dwrfStripeCacheData = Optional.empty();
+            if (input.readBoolean()) {
+                DwrfStripeCacheMode mode = DwrfStripeCacheMode.valueOf(readString(input));
+                int stripeCacheSize = input.readInt();
+                dwrfStripeCacheData = Optional.of(new DwrfStripeCacheData(readSlice(input), stripeCacheSize, mode));
+            }
+            return Optional.of(new OrcFileTail(hiveWriterVersion, bufferSize, compressionKind, footerSlice, footerSize, metadataSlice, metadataSize, dwrfStripeCacheData, fileModificationTime));
+        }
+        catch (IOException | RuntimeException e) {
+            // a missing or corrupt entry is treated as a miss and rewritten from storage
+            log.warn(e, "Failed to read orc file tail cache entry %s for %s", fileName, path);
+            return Optional.empty();
+        }
+    }
+
+    private void scheduleWrite(String fileName, String path, long fileLength, OrcFileTail orcFileTail)
+    {
+        // concurrent misses on the same file only write it once
+        if (!pendingWrites.add(fileName)) {
+            return;
+        }
+        try {
+            writeExecutor.execute(() -> {
+                try {
+                    writeCacheFile(fileName, path, fileLength, orcFileTail);
+                }
+                finally {
+                    pendingWrites.remove(fileName);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // the write queue is full or shut down, so the tail is read from storage again on the next miss
+            pendingWrites.remove(fileName);
+            log.debug("Dropped orc file tail cache write for %s", path);
+        }
+    }
+
+    private void writeCacheFile(String fileName, String path, long fileLength, OrcFileTail orcFileTail)
+    {
+        SliceOutput output = new DynamicSliceOutput(orcFileTail.getTotalSize() + path.length() + 64);
+        output.writeInt(MAGIC);
+        writeString(output, path);
+        output.writeLong(orcFileTail.getFileModificationTime());
+        output.writeLong(fileLength);
+        writeString(output, orcFileTail.getHiveWriterVersion().name());
+        output.writeInt(orcFileTail.getBufferSize());
+        writeString(output, orcFileTail.getCompressionKind().name());
+        output.writeInt(orcFileTail.getFooterSize());
+        writeSlice(output, orcFileTail.getFooterSlice());
+        output.writeInt(orcFileTail.getMetadataSize());
+        writeSlice(output, orcFileTail.getMetadataSlice());
+        Optional<DwrfStripeCacheData> dwrfStripeCacheData = orcFileTail.getDwrfStripeCacheData();
+        output.writeBoolean(dwrfStripeCacheData.isPresent());
+        if (dwrfStripeCacheData.isPresent()) {
+            writeString(output, dwrfStripeCacheData.get().getDwrfStripeCacheMode().name());
+            output.writeInt(dwrfStripeCacheData.get().getDwrfStripeCacheSize());
+            writeSlice(output, dwrfStripeCacheData.get().getDwrfStripeCacheSlice());
+        }
+        Slice serialized = output.slice();
+
+        // write to a unique temporary file and rename it so readers never see a partial entry
+        Path tempFile = cacheDirectory.resolve(fileName + "." + UUID.randomUUID() + TEMP_FILE_SUFFIX);
+        try {
+            Files.write(tempFile, serialized.getBytes());
+            Files.move(tempFile, cacheDirectory.resolve(fileName), ATOMIC_MOVE);
+            index.put(fileName, (long) serialized.length());
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn(e, "Failed to write orc file tail cache entry %s for %s", fileName, path);
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private void onRemoval(RemovalNotification<String, Long> notification)
+    {
+        if (notification.wasEvicted()) {
+            stats.recordEviction();
+        }
+        // replaced entries point at the file that was just rewritten, so only drop evicted or invalidated ones
+        if (notification.wasEvicted() || notification.getCause() == EXPLICIT) {
+            deleteQuietly(cacheDirectory.resolve(notification.getKey()));
+        }
+    }
+
+    private static String getCacheFileName(String path, long fileModificationTime, long fileLength)
+    {
+        return sha256().newHasher()
+                .putString(path, UTF_8)
+                .putLong(fileModificationTime)
+                .putLong(fileLength)
+                .hash()
+                .toString() + CACHE_FILE_SUFFIX;
+    }
+
+    private static long getLastModifiedTime(Path file)
+    {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        }
+        catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete orc file tail cache file %s", file);
+        }
+    }
+
+    private static void writeString(SliceOutput output, String value)
+    {
+        writeSlice(output, Slices.utf8Slice(value));
+    }
+
+    private static String readString(BasicSliceInput input)
+    {
+        return readSlice(input).toStringUtf8();
+    }
+
+    private static void writeSlice(SliceOutput output, Slice slice)
+    {
+        output.writeInt(slice.length());
+        output.writeBytes(slice);
+    }
+
+    private static Slice readSlice(BasicSliceInput input)
+    {
+        int length = input.readInt();
+        return Slices.copyOf(input.readSlice(length));
+    }
+}
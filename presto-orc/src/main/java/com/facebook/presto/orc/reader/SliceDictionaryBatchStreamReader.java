@@ -15,6 +15,7 @@ package com.facebook.presto.orc.reader;
 
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.DictionaryId;
 import com.facebook.presto.common.block.VariableWidthBlock;
 import com.facebook.presto.orc.OrcCorruptionException;
 import com.facebook.presto.orc.OrcLocalMemoryContext;
@@ -35,6 +36,7 @@ import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.IN_DICTIONARY;
@@ -82,6 +84,8 @@ public class SliceDictionaryBatchStreamReader
     private int[] stripeDictionaryOffsetVector = EMPTY_DICTIONARY_OFFSETS;
 
     private VariableWidthBlock dictionaryBlock = new VariableWidthBlock(1, wrappedBuffer(EMPTY_DICTIONARY_DATA), EMPTY_DICTIONARY_OFFSETS, Optional.of(new boolean[] {true}));
+    // changes together with dictionaryBlock, so that consumers can recognize blocks sharing the same dictionary
+    private DictionaryId dictionaryId = randomDictionaryId();
     private byte[] currentDictionaryData = EMPTY_DICTIONARY_DATA;
 
     private InputStreamSource<LongInputStream> stripeDictionaryLengthStreamSource = getLongMissingStreamSource();
@@ -189,7 +193,7 @@ public class SliceDictionaryBatchStreamReader
                 }
             }
         }
-        Block block = new DictionaryBlock(nextBatchSize, dictionaryBlock, idsVector);
+        Block block = new DictionaryBlock(nextBatchSize, dictionaryBlock, idsVector, dictionaryId);
 
         readOffset = 0;
         nextBatchSize = 0;
@@ -206,6 +210,7 @@ public class SliceDictionaryBatchStreamReader
             isNullVector[positionCount - 1] = true;
             dictionaryOffsets[positionCount] = dictionaryOffsets[positionCount - 1];
             dictionaryBlock = new VariableWidthBlock(positionCount, wrappedBuffer(dictionaryData), dictionaryOffsets, Optional.of(isNullVector));
+            dictionaryId = randomDictionaryId();
             currentDictionaryData = dictionaryData;
         }
     }
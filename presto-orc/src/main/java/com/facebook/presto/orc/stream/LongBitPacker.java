@@ -29,6 +29,8 @@ public final class LongBitPacker
 {
     // ORC uses no more than 9 bits to store run lengths (https://orc.apache.org/docs/run-length.html#direct)
     private static final int MAX_BUFFERED_POSITIONS = 512;
+    // a value of this many bits starting at any bit of a byte fits in a single 8 byte word
+    private static final int MAX_WORD_UNPACK_BIT_SIZE = Long.SIZE - 7;
 
     // We use this temp buffer to work around poor read performance of single bytes from Slice.
     // Benchmarks show that reading from this byte[] is ~3x faster, even after accounting for the
@@ -76,7 +78,35 @@ public final class LongBitPacker
                 unpack64(buffer, offset, len, input);
                 break;
             default:
-                unpackGeneric(buffer, offset, len, bitSize, input);
+                if (bitSize > 0 && bitSize <= MAX_WORD_UNPACK_BIT_SIZE) {
+                    unpackFromWords(buffer, offset, len, bitSize, input);
+                }
+                else {
+                    unpackGeneric(buffer, offset, len, bitSize, input);
+                }
+        }
+    }
+
+    /**
+     * Unpacks values of any width up to {@link #MAX_WORD_UNPACK_BIT_SIZE} bits without a per-bit loop: every
+     * value is extracted from a single big endian 8 byte word starting at the byte that holds its first bit.
+     */
+    private void unpackFromWords(long[] buffer, int offset, int len, int bitSize, InputStream input)
+            throws IOException
+    {
+        int blockReadableBytes = (bitSize * len + 7) / 8;
+        for (int i = 0; i < blockReadableBytes; ) {
+            i += input.read(tmp, i, blockReadableBytes - i);
+        }
+
+        // It's safe to read 8 bytes past the last value, because slice is a view over tmp,
+        // which has 8 bytes of buffer space for every position; the extra bits are shifted out
+        int valueShift = Long.SIZE - bitSize;
+        long bitOffset = 0;
+        for (int i = 0; i < len; i++) {
+            long word = Long.reverseBytes(getLongUnchecked(slice, (int) (bitOffset >>> 3)));
+            buffer[offset + i] = (word << (bitOffset & 7)) >>> valueShift;
+            bitOffset += bitSize;
         }
     }
 
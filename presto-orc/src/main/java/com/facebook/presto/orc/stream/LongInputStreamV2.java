@@ -41,6 +41,8 @@ public class LongInputStreamV2
     private final OrcInputStream input;
     private final boolean signed;
     private final long[] literals = new long[MAX_LITERAL_SIZE];
+    // reused for the data blob of patched base runs
+    private final long[] unpacked = new long[MAX_LITERAL_SIZE];
     private int numLiterals;
     private int used;
     private final boolean skipCorrupt;
@@ -179,7 +181,6 @@ public class LongInputStreamV2
         }
 
         // unpack the data blob
-        long[] unpacked = new long[length];
         packer.unpack(unpacked, 0, length, fb, input);
 
         // unpack the patch blob
@@ -213,7 +214,7 @@ public class LongInputStreamV2
         actualGap += currentGap;
 
         // unpack data blob, patch it (if required), add base to get final result
-        for (int i = 0; i < unpacked.length; i++) {
+        for (int i = 0; i < length; i++) {
             if (i == actualGap) {
                 // extract the patch value
                 long patchedValue = unpacked[i] | (currentPatch << fb);
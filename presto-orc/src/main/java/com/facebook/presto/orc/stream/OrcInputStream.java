@@ -52,6 +52,7 @@ public final class OrcInputStream
 
     private static final long VARINT_MASK = 0x8080_8080_8080_8080L;
     private static final int MAX_VARINT_LENGTH = 10;
+    private static final int BLOCK_HEADER_SIZE = 3;
     private static final double BUFFER_ALLOWED_MEMORY_WASTE_RATIO = 1.5;
 
     private final OrcDataSourceId orcDataSourceId;
@@ -252,6 +253,10 @@ public final class OrcInputStream
         if (result != 0) {
             return result;
         }
+        result = skipUncompressedChunk(n);
+        if (result != 0) {
+            return result;
+        }
         if (read() == -1) {
             return 0;
         }
@@ -260,6 +265,38 @@ public final class OrcInputStream
         return 1 + result;
     }
 
+    /**
+     * Skips the next chunk without copying it into the buffer if the chunk is stored
+     * uncompressed and lies entirely within the requested range. Returns the number of
+     * skipped bytes, or 0 if the chunk must be loaded.
+     */
+    private long skipUncompressedChunk(long n)
+    {
+        if (!decompressor.isPresent() || dwrfDecryptor.isPresent() || compressedSliceInput.remaining() < BLOCK_HEADER_SIZE) {
+            return 0;
+        }
+
+        int chunkOffset = toIntExact(compressedSliceInput.position());
+        int b0 = compressedSliceInput.readUnsignedByte();
+        int b1 = compressedSliceInput.readUnsignedByte();
+        int b2 = compressedSliceInput.readUnsignedByte();
+
+        boolean isUncompressed = (b0 & 0x01) == 1;
+        int chunkLength = (b2 << 15) | (b1 << 7) | (b0 >>> 1);
+        if (!isUncompressed || chunkLength == 0 || chunkLength > n || chunkLength > compressedSliceInput.remaining()) {
+            compressedSliceInput.setPosition(chunkOffset);
+            return 0;
+        }
+
+        compressedSliceInput.setPosition(chunkOffset + BLOCK_HEADER_SIZE + chunkLength);
+        // the buffer no longer holds the current chunk; force seekToCheckpoint to reposition the input
+        currentCompressedBlockOffset = -1;
+        position = 0;
+        length = 0;
+        uncompressedOffset = 0;
+        return chunkLength;
+    }
+
     public long readDwrfLong(OrcTypeKind type)
             throws IOException
     {
@@ -14,8 +14,14 @@
 package com.facebook.presto.orc.writer;
 
 import com.facebook.airlift.concurrent.NotThreadSafe;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.SizeOf.sizeOf;
 import static java.util.Objects.requireNonNull;
 
@@ -58,4 +64,58 @@ public interface CompressionBufferPool
             return INSTANCE_SIZE + sizeOf(lastUsed);
         }
     }
+
+    /**
+     * Pool shared by column writers that compress concurrently. Keeps up to
+     * {@code maxBufferCount} buffers so each concurrently running writer can
+     * reuse one instead of allocating a new buffer for every chunk.
+     */
+    @ThreadSafe
+    class SharedCompressionBufferPool
+            implements CompressionBufferPool
+    {
+        private static final int INSTANCE_SIZE = ClassLayout.parseClass(SharedCompressionBufferPool.class).instanceSize();
+
+        private final int maxBufferCount;
+        @GuardedBy("this")
+        private final Deque<byte[]> buffers = new ArrayDeque<>();
+        @GuardedBy("this")
+        private long buffersRetainedBytes;
+
+        public SharedCompressionBufferPool(int maxBufferCount)
+        {
+            checkArgument(maxBufferCount > 0, "maxBufferCount must be positive");
+            this.maxBufferCount = maxBufferCount;
+        }
+
+        @Override
+        public synchronized byte[] checkOut(int length)
+        {
+            byte[] buffer = buffers.pollFirst();
+            if (buffer == null) {
+                return new byte[length];
+            }
+            buffersRetainedBytes -= sizeOf(buffer);
+            if (buffer.length < length) {
+                return new byte[length];
+            }
+            return buffer;
+        }
+
+        @Override
+        public synchronized void checkIn(byte[] buffer)
+        {
+            requireNonNull(buffer, "buffer is null");
+            if (buffers.size() < maxBufferCount) {
+                buffers.addFirst(buffer);
+                buffersRetainedBytes += sizeOf(buffer);
+            }
+        }
+
+        @Override
+        public synchronized long getRetainedBytes()
+        {
+            return INSTANCE_SIZE + buffersRetainedBytes;
+        }
+    }
 }
@@ -18,10 +18,13 @@ import com.facebook.airlift.units.DataSize;
 import com.facebook.airlift.units.Duration;
 import com.facebook.presto.orc.cache.OrcCacheConfig;
 import com.google.common.collect.ImmutableMap;
+import jakarta.validation.constraints.AssertTrue;
 import org.testng.annotations.Test;
 
 import java.util.Map;
 
+import static com.facebook.airlift.testing.ValidationAssertions.assertFailsValidation;
+import static com.facebook.airlift.testing.ValidationAssertions.assertValidates;
 import static com.facebook.airlift.units.DataSize.Unit.BYTE;
 import static com.facebook.airlift.units.DataSize.Unit.GIGABYTE;
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
@@ -38,6 +41,9 @@ public class TestOrcCacheConfig
                 .setFileTailCacheEnabled(false)
                 .setFileTailCacheSize(new DataSize(1, MEGABYTE))
                 .setFileTailCacheTtlSinceLastAccess(new Duration(0, SECONDS))
+                .setFileTailPersistentCacheEnabled(false)
+                .setFileTailPersistentCacheDirectory(null)
+                .setFileTailPersistentCacheSize(new DataSize(1, GIGABYTE))
                 .setStripeMetadataCacheEnabled(false)
                 .setStripeFooterCacheSize(new DataSize(0, BYTE))
                 .setStripeFooterCacheTtlSinceLastAccess(new Duration(0, SECONDS))
@@ -57,6 +63,9 @@ public class TestOrcCacheConfig
                 .put("orc.file-tail-cache-enabled", "true")
                 .put("orc.file-tail-cache-size", "1GB")
                 .put("orc.file-tail-cache-ttl-since-last-access", "10m")
+                .put("orc.file-tail-persistent-cache-enabled", "true")
+                .put("orc.file-tail-persistent-cache-directory", "/tmp/orc-file-tail")
+                .put("orc.file-tail-persistent-cache-size", "10GB")
                 .put("orc.stripe-metadata-cache-enabled", "true")
                 .put("orc.stripe-footer-cache-size", "2GB")
                 .put("orc.stripe-footer-cache-ttl-since-last-access", "5m")
@@ -73,6 +82,9 @@ public class TestOrcCacheConfig
                 .setFileTailCacheEnabled(true)
                 .setFileTailCacheSize(new DataSize(1, GIGABYTE))
                 .setFileTailCacheTtlSinceLastAccess(new Duration(10, MINUTES))
+                .setFileTailPersistentCacheEnabled(true)
+                .setFileTailPersistentCacheDirectory("/tmp/orc-file-tail")
+                .setFileTailPersistentCacheSize(new DataSize(10, GIGABYTE))
                 .setStripeMetadataCacheEnabled(true)
                 .setStripeFooterCacheSize(new DataSize(2, GIGABYTE))
                 .setStripeFooterCacheTtlSinceLastAccess(new Duration(5, MINUTES))
@@ -86,4 +98,18 @@ public class TestOrcCacheConfig
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
+
+    @Test
+    public void testPersistentCacheDirectoryValidation()
+    {
+        assertValidates(new OrcCacheConfig());
+        assertValidates(new OrcCacheConfig()
+                .setFileTailPersistentCacheEnabled(true)
+                .setFileTailPersistentCacheDirectory("/tmp/orc-file-tail"));
+        assertFailsValidation(
+                new OrcCacheConfig().setFileTailPersistentCacheEnabled(true),
+                "fileTailPersistentCacheDirectoryValid",
+                "orc.file-tail-persistent-cache-directory must be set when orc.file-tail-persistent-cache-enabled is true",
+                AssertTrue.class);
+    }
 }
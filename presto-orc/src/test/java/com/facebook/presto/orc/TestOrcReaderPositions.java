@@ -15,10 +15,13 @@ package com.facebook.presto.orc;
 
 import com.facebook.airlift.units.DataSize;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeMetric;
 import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.Subfield;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.function.SqlFunctionProperties;
 import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BigintRange;
 import com.facebook.presto.common.relation.Predicate;
 import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.CompressionKind;
@@ -55,6 +58,8 @@ import java.util.Map;
 import java.util.stream.LongStream;
 
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static com.facebook.presto.common.RuntimeMetricName.ORC_LATE_MATERIALIZATION_SKIPPED_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.ORC_LATE_MATERIALIZATION_SKIPPED_ROW_GROUPS;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
@@ -273,6 +278,55 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testLateMaterializationSkippedRowGroups()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            // create single stripe file with 4 row groups; only the odd row groups have rows matching the filter
+            int rowCount = 40_000;
+            createFilteredColumnFile(tempFile.getFile(), rowCount);
+
+            try (OrcSelectiveRecordReader reader = createCustomOrcSelectiveRecordReader(tempFile.getFile(),
+                    ORC,
+                    OrcPredicate.TRUE,
+                    ImmutableList.of(BIGINT, BIGINT),
+                    MAX_BATCH_SIZE,
+                    ImmutableMap.of(0, ImmutableMap.of(new Subfield("c"), BigintRange.of(1, 1, false))),
+                    ImmutableList.of(),
+                    ImmutableMap.of(),
+                    ImmutableMap.of(),
+                    ImmutableMap.of(),
+                    ImmutableMap.of(),
+                    ImmutableMap.of(0, BIGINT, 1, BIGINT),
+                    ImmutableList.of(1),
+                    false,
+                    new TestingHiveOrcAggregatedMemoryContext(),
+                    false)) {
+                long positionCount = 0;
+                while (true) {
+                    Page page = reader.getNextPage();
+                    if (page == null) {
+                        break;
+                    }
+                    positionCount += page.getPositionCount();
+                }
+                assertEquals(positionCount, 10_000);
+
+                // the lazily loaded column is never read from the even row groups
+                RuntimeStats runtimeStats = reader.getRuntimeStats();
+                RuntimeMetric skippedRowGroups = runtimeStats.getMetric(ORC_LATE_MATERIALIZATION_SKIPPED_ROW_GROUPS);
+                assertNotNull(skippedRowGroups);
+                assertEquals(skippedRowGroups.getSum(), 2);
+
+                RuntimeMetric skippedBytes = runtimeStats.getMetric(ORC_LATE_MATERIALIZATION_SKIPPED_BYTES);
+                assertNotNull(skippedBytes);
+                assertEquals(skippedBytes.getCount(), 2);
+                assertTrue(skippedBytes.getSum() > 0);
+            }
+        }
+    }
+
     private void verifyAppendNumber(List<Long> expectedValues, OrcSelectiveRecordReader reader)
             throws IOException
     {
@@ -646,6 +700,31 @@ public class TestOrcReaderPositions
         writer.close(false);
     }
 
+    // write a filter column and a value column; the filter column holds 0 and 2 in the even
+    // row groups and alternates 0 and 1 in the odd row groups, so every row group matches
+    // the row group statistics of a "= 1" filter but only the odd ones have matching rows
+    private static void createFilteredColumnFile(File file, int count)
+            throws IOException, SerDeException
+    {
+        FileSinkOperator.RecordWriter writer = createOrcRecordWriter(file, ORC_12, CompressionKind.NONE, ImmutableList.of(BIGINT, BIGINT));
+
+        Serializer serde = new OrcSerde();
+        SettableStructObjectInspector objectInspector = createSettableStructObjectInspector(ImmutableList.of(BIGINT, BIGINT));
+        Object row = objectInspector.create();
+        StructField filterField = objectInspector.getAllStructFieldRefs().get(0);
+        StructField valueField = objectInspector.getAllStructFieldRefs().get(1);
+
+        for (int i = 0; i < count; i++) {
+            long filterValue = (i / 10_000) % 2 == 0 ? (i % 2) * 2 : i % 2;
+            objectInspector.setStructFieldData(row, filterField, filterValue);
+            objectInspector.setStructFieldData(row, valueField, (long) i);
+            Writable record = serde.serialize(row, objectInspector);
+            writer.write(record);
+        }
+
+        writer.close(false);
+    }
+
     private static void createGrowingSequentialFile(File file, int count, int step, int initialLength)
             throws IOException, SerDeException
     {
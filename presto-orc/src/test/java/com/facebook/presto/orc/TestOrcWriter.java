@@ -33,20 +33,27 @@ import io.airlift.slice.Slices;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThanOrEqual;
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
 import static com.facebook.presto.orc.NoOpOrcWriterStats.NOOP_WRITER_STATS;
@@ -59,6 +66,10 @@ import static com.facebook.presto.orc.TestingOrcPredicate.ORC_STRIPE_SIZE;
 import static com.facebook.presto.orc.metadata.CompressionKind.NONE;
 import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
 import static com.facebook.presto.orc.metadata.CompressionKind.ZSTD;
+import static com.facebook.presto.orc.metadata.KeyProvider.UNKNOWN;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Collections.nCopies;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 
@@ -179,6 +190,143 @@ public class TestOrcWriter
         }
     }
 
+    @Test(dataProvider = "compressionLevels")
+    public void testParallelColumnEncoding(OrcEncoding encoding, CompressionKind kind, OptionalInt level)
+            throws IOException
+    {
+        ExecutorService executor = newFixedThreadPool(4, daemonThreadsNamed("test-orc-column-writer-%s"));
+        try {
+            OrcWriterOptions.Builder options = OrcWriterOptions.builder()
+                    .withFlushPolicy(DefaultOrcWriterFlushPolicy.builder()
+                            .withStripeMinSize(new DataSize(0, MEGABYTE))
+                            .withStripeMaxSize(new DataSize(32, MEGABYTE))
+                            .withStripeMaxRowCount(ORC_STRIPE_SIZE)
+                            .build())
+                    .withRowGroupMaxRowCount(ORC_ROW_GROUP_SIZE)
+                    .withCompressionLevel(level);
+
+            byte[] sequential = writeColumns(encoding, kind, options.build());
+            byte[] parallel = writeColumns(encoding, kind, options.withColumnWriterExecutor(Optional.of(executor)).build());
+
+            // columns are encoded independently and their streams are collected in column order
+            assertEquals(parallel, sequential);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testColumnEncodeTimePerColumn()
+            throws IOException
+    {
+        ExecutorService executor = newFixedThreadPool(4, daemonThreadsNamed("test-orc-column-writer-%s"));
+        try {
+            OrcWriterOptions options = OrcWriterOptions.builder()
+                    .withFlushPolicy(DefaultOrcWriterFlushPolicy.builder()
+                            .withStripeMinSize(new DataSize(0, MEGABYTE))
+                            .withStripeMaxSize(new DataSize(32, MEGABYTE))
+                            .withStripeMaxRowCount(ORC_STRIPE_SIZE)
+                            .build())
+                    .withRowGroupMaxRowCount(ORC_ROW_GROUP_SIZE)
+                    .withColumnWriterExecutor(Optional.of(executor))
+                    .build();
+
+            List<String> recordedColumns = new ArrayList<>();
+            WriterStats stats = new NoOpOrcWriterStats()
+            {
+                @Override
+                public void recordColumnEncodeTime(String columnName, long encodeTimeNanos)
+                {
+                    assertGreaterThanOrEqual(encodeTimeNanos, 0L);
+                    recordedColumns.add(columnName);
+                }
+            };
+            writeColumns(ORC, ZSTD, options, stats);
+
+            // the encode time of every column is reported once per stripe, in column order
+            List<String> columnNames = IntStream.range(0, 16).mapToObj(column -> "test" + column).collect(toImmutableList());
+            assertEquals(recordedColumns.size() % columnNames.size(), 0);
+            assertFalse(recordedColumns.isEmpty());
+            for (int i = 0; i < recordedColumns.size(); i++) {
+                assertEquals(recordedColumns.get(i), columnNames.get(i % columnNames.size()));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] writeColumns(OrcEncoding encoding, CompressionKind kind, OrcWriterOptions options)
+            throws IOException
+    {
+        return writeColumns(encoding, kind, options, NOOP_WRITER_STATS);
+    }
+
+    @Test
+    public void testEncryptedColumnsEncodedSequentially()
+            throws IOException
+    {
+        AtomicInteger columnWriterTasks = new AtomicInteger();
+        OrcWriterOptions options = OrcWriterOptions.builder()
+                .withColumnWriterExecutor(Optional.of(command -> {
+                    columnWriterTasks.incrementAndGet();
+                    command.run();
+                }))
+                .build();
+        DwrfWriterEncryption encryption = new DwrfWriterEncryption(UNKNOWN, ImmutableList.of(new WriterEncryptionGroup(ImmutableList.of(1, 2), Slices.utf8Slice("iek"))));
+
+        // the encryptor of the group is shared by its column writers, so they are not run on the executor
+        writeColumns(DWRF, ZSTD, options, Optional.of(encryption), new DwrfEncryptionProvider(new UnsupportedEncryptionLibrary(), new TestingEncryptionLibrary()), NOOP_WRITER_STATS);
+        assertEquals(columnWriterTasks.get(), 0);
+    }
+
+    private static byte[] writeColumns(OrcEncoding encoding, CompressionKind kind, OrcWriterOptions options, WriterStats stats)
+            throws IOException
+    {
+        return writeColumns(encoding, kind, options, Optional.empty(), NO_ENCRYPTION, stats);
+    }
+
+    private static byte[] writeColumns(
+            OrcEncoding encoding,
+            CompressionKind kind,
+            OrcWriterOptions options,
+            Optional<DwrfWriterEncryption> encryption,
+            DwrfEncryptionProvider encryptionProvider,
+            WriterStats stats)
+            throws IOException
+    {
+        int columnCount = 16;
+        int entries = 100_000;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamDataSink(output),
+                IntStream.range(0, columnCount).mapToObj(column -> "test" + column).collect(toImmutableList()),
+                nCopies(columnCount, BIGINT),
+                encoding,
+                kind,
+                encryption,
+                encryptionProvider,
+                options,
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                false,
+                null,
+                stats);
+
+        Block[] blocks = new Block[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, entries);
+            for (int i = 0; i < entries; i++) {
+                BIGINT.writeLong(blockBuilder, (long) i * (column + 1) % 1000);
+            }
+            blocks[column] = blockBuilder.build();
+        }
+        writer.write(new Page(blocks));
+        writer.close();
+        return output.toByteArray();
+    }
+
     @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Dummy exception from mocked instance")
     public void testVerifyNoIllegalStateException()
             throws IOException
@@ -0,0 +1,264 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.presto.orc.cache.OrcFileTailSource;
+import com.facebook.presto.orc.cache.PersistentOrcFileTailSource;
+import com.facebook.presto.orc.metadata.DwrfStripeCacheData;
+import com.facebook.presto.orc.metadata.MetadataReader;
+import com.facebook.presto.orc.metadata.OrcFileTail;
+import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZSTD;
+import static com.facebook.presto.orc.metadata.DwrfStripeCacheMode.INDEX_AND_FOOTER;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestPersistentOrcFileTailSource
+{
+    private static final DataSize DEFAULT_SIZE = new DataSize(1, MEGABYTE);
+    private static final long MAX_CACHE_SIZE = 1024 * 1024;
+
+    private File cacheDirectory;
+    private TempFile file;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        cacheDirectory = createTempDir();
+        file = new TempFile();
+        Files.write(file.getFile().toPath(), new byte[1000]);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        file.close();
+        deleteRecursively(cacheDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testEntriesSurviveRestart()
+            throws IOException
+    {
+        CountingOrcFileTailSource delegate = new CountingOrcFileTailSource();
+        PersistentOrcFileTailSource source = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, directExecutor());
+
+        OrcFileTail expected = getOrcFileTail(source, 10);
+        assertEquals(delegate.getCallCount(), 1);
+        getOrcFileTail(source, 10);
+        assertEquals(delegate.getCallCount(), 1);
+        assertEquals(source.getStats().hitCount(), 1);
+
+        // a new instance on the same directory serves the tail without reading the file
+        PersistentOrcFileTailSource restarted = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, directExecutor());
+        assertOrcFileTailEquals(getOrcFileTail(restarted, 10), expected);
+        assertEquals(delegate.getCallCount(), 1);
+    }
+
+    @Test
+    public void testModifiedFileIsReloaded()
+            throws IOException
+    {
+        CountingOrcFileTailSource delegate = new CountingOrcFileTailSource();
+        PersistentOrcFileTailSource source = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, directExecutor());
+
+        getOrcFileTail(source, 10);
+        OrcFileTail orcFileTail = getOrcFileTail(source, 20);
+        assertEquals(delegate.getCallCount(), 2);
+        assertEquals(orcFileTail.getFileModificationTime(), 20);
+
+        getOrcFileTail(source, 10);
+        getOrcFileTail(source, 20);
+        assertEquals(delegate.getCallCount(), 2);
+    }
+
+    @Test
+    public void testCorruptEntryIsReplaced()
+            throws IOException
+    {
+        CountingOrcFileTailSource delegate = new CountingOrcFileTailSource();
+        PersistentOrcFileTailSource source = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, directExecutor());
+        OrcFileTail expected = getOrcFileTail(source, 10);
+
+        for (Path cacheFile : listCacheFiles()) {
+            Files.write(cacheFile, new byte[] {1, 2, 3});
+        }
+
+        PersistentOrcFileTailSource restarted = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, directExecutor());
+        assertOrcFileTailEquals(getOrcFileTail(restarted, 10), expected);
+        assertEquals(delegate.getCallCount(), 2);
+        // an indexed entry that cannot be read is a miss
+        assertEquals(restarted.getStats().hitCount(), 0);
+        assertEquals(restarted.getStats().missCount(), 1);
+
+        // the rewritten entry is valid again
+        getOrcFileTail(restarted, 10);
+        assertEquals(delegate.getCallCount(), 2);
+        assertEquals(restarted.getStats().hitCount(), 1);
+    }
+
+    @Test
+    public void testEntriesAreWrittenOnExecutor()
+            throws IOException
+    {
+        CountingOrcFileTailSource delegate = new CountingOrcFileTailSource();
+        List<Runnable> pendingWrites = new ArrayList<>();
+        PersistentOrcFileTailSource source = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, pendingWrites::add);
+
+        // the miss returns the tail read from storage without writing it
+        OrcFileTail expected = getOrcFileTail(source, 10);
+        assertEquals(listCacheFiles().length, 0);
+        assertEquals(pendingWrites.size(), 1);
+
+        // a second miss on the same file before the write ran does not schedule another write
+        getOrcFileTail(source, 10);
+        assertEquals(delegate.getCallCount(), 2);
+        assertEquals(pendingWrites.size(), 1);
+
+        pendingWrites.remove(0).run();
+        assertEquals(listCacheFiles().length, 1);
+        assertOrcFileTailEquals(getOrcFileTail(source, 10), expected);
+        assertEquals(delegate.getCallCount(), 2);
+        assertEquals(source.getStats().hitCount(), 1);
+        assertEquals(source.getStats().missCount(), 2);
+    }
+
+    @Test
+    public void testRejectedWritesAreDropped()
+            throws IOException
+    {
+        CountingOrcFileTailSource delegate = new CountingOrcFileTailSource();
+        AtomicBoolean rejectWrites = new AtomicBoolean(true);
+        Executor executor = command -> {
+            if (rejectWrites.get()) {
+                throw new RejectedExecutionException();
+            }
+            command.run();
+        };
+        PersistentOrcFileTailSource source = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), MAX_CACHE_SIZE, executor);
+
+        // the tail is still returned when the write queue is full
+        OrcFileTail expected = getOrcFileTail(source, 10);
+        assertEquals(listCacheFiles().length, 0);
+
+        // the dropped write is scheduled again on the next miss
+        rejectWrites.set(false);
+        getOrcFileTail(source, 10);
+        assertEquals(listCacheFiles().length, 1);
+        assertOrcFileTailEquals(getOrcFileTail(source, 10), expected);
+        assertEquals(delegate.getCallCount(), 2);
+    }
+
+    @Test
+    public void testEviction()
+            throws IOException
+    {
+        CountingOrcFileTailSource delegate = new CountingOrcFileTailSource();
+        PersistentOrcFileTailSource source = new PersistentOrcFileTailSource(delegate, cacheDirectory.toPath(), 1024, directExecutor());
+        int entries = 100;
+        for (int i = 1; i <= entries; i++) {
+            getOrcFileTail(source, i);
+        }
+
+        assertTrue(source.getStats().evictionCount() > 0);
+        assertEquals(listCacheFiles().length, source.getSize());
+        assertTrue(listCacheFiles().length < entries);
+    }
+
+    private OrcFileTail getOrcFileTail(OrcFileTailSource source, long modificationTime)
+            throws IOException
+    {
+        OrcDataSource orcDataSource = new FileOrcDataSource(file.getFile(), DEFAULT_SIZE, DEFAULT_SIZE, DEFAULT_SIZE, false);
+        return source.getOrcFileTail(orcDataSource, null, Optional.empty(), true, modificationTime);
+    }
+
+    private Path[] listCacheFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = Files.list(cacheDirectory.toPath())) {
+            return files.toArray(Path[]::new);
+        }
+    }
+
+    private static void assertOrcFileTailEquals(OrcFileTail actual, OrcFileTail expected)
+    {
+        assertEquals(actual.getHiveWriterVersion(), expected.getHiveWriterVersion());
+        assertEquals(actual.getBufferSize(), expected.getBufferSize());
+        assertEquals(actual.getCompressionKind(), expected.getCompressionKind());
+        assertEquals(actual.getFooterSlice(), expected.getFooterSlice());
+        assertEquals(actual.getFooterSize(), expected.getFooterSize());
+        assertEquals(actual.getMetadataSlice(), expected.getMetadataSlice());
+        assertEquals(actual.getMetadataSize(), expected.getMetadataSize());
+        assertEquals(actual.getFileModificationTime(), expected.getFileModificationTime());
+        assertTrue(actual.getDwrfStripeCacheData().isPresent());
+        DwrfStripeCacheData actualStripeCache = actual.getDwrfStripeCacheData().get();
+        DwrfStripeCacheData expectedStripeCache = expected.getDwrfStripeCacheData().get();
+        assertEquals(actualStripeCache.getDwrfStripeCacheSlice(), expectedStripeCache.getDwrfStripeCacheSlice());
+        assertEquals(actualStripeCache.getDwrfStripeCacheSize(), expectedStripeCache.getDwrfStripeCacheSize());
+        assertEquals(actualStripeCache.getDwrfStripeCacheMode(), expectedStripeCache.getDwrfStripeCacheMode());
+    }
+
+    private static class CountingOrcFileTailSource
+            implements OrcFileTailSource
+    {
+        private int callCount;
+
+        @Override
+        public OrcFileTail getOrcFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader, Optional<OrcWriteValidation> writeValidation, boolean cacheable, long fileModificationTime)
+        {
+            callCount++;
+            return new OrcFileTail(
+                    HiveWriterVersion.ORC_HIVE_8732,
+                    256 * 1024,
+                    ZSTD,
+                    utf8Slice("footer"),
+                    6,
+                    utf8Slice("metadata"),
+                    8,
+                    Optional.of(new DwrfStripeCacheData(utf8Slice("stripe cache"), 12, INDEX_AND_FOOTER)),
+                    fileModificationTime);
+        }
+
+        public int getCallCount()
+        {
+            return callCount;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.TestingHiveOrcAggregatedMemoryContext;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.OrcDecompressor.createOrcDecompressor;
+import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamCheckpoint;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static org.testng.Assert.assertEquals;
+
+public class TestOrcInputStream
+{
+    private static final OrcDataSourceId ORC_DATA_SOURCE_ID = new OrcDataSourceId("test");
+    private static final int CHUNK_SIZE = 100;
+    private static final int CHUNK_COUNT = 5;
+
+    @Test
+    public void testSkipUncompressedChunks()
+            throws IOException
+    {
+        OrcInputStream inputStream = createInputStream(createUncompressedChunks());
+
+        // skip two whole chunks and part of the third
+        inputStream.skipFully(2 * CHUNK_SIZE + 10);
+        assertEquals(inputStream.read(), valueAt(2 * CHUNK_SIZE + 10));
+
+        // skip the rest of the third chunk and the whole fourth chunk
+        inputStream.skipFully(2 * CHUNK_SIZE - 11);
+        long checkpoint = inputStream.getCheckpoint();
+        assertEquals(inputStream.read(), valueAt(4 * CHUNK_SIZE));
+
+        inputStream.seekToCheckpoint(createInputStreamCheckpoint(0, 5));
+        assertEquals(inputStream.read(), valueAt(5));
+
+        inputStream.seekToCheckpoint(checkpoint);
+        assertEquals(inputStream.read(), valueAt(4 * CHUNK_SIZE));
+    }
+
+    @Test
+    public void testSeekToSkippedChunk()
+            throws IOException
+    {
+        OrcInputStream inputStream = createInputStream(createUncompressedChunks());
+        inputStream.skipFully(3 * CHUNK_SIZE);
+
+        // the second chunk starts after one chunk and its header
+        inputStream.seekToCheckpoint(createInputStreamCheckpoint(CHUNK_SIZE + 3, 7));
+        assertEquals(inputStream.read(), valueAt(CHUNK_SIZE + 7));
+    }
+
+    private static Slice createUncompressedChunks()
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(CHUNK_COUNT * (CHUNK_SIZE + 3));
+        for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+            // 3 byte header: length in the upper bits, uncompressed flag in the lowest bit
+            int header = (CHUNK_SIZE << 1) | 1;
+            output.writeByte(header & 0xFF);
+            output.writeByte((header >>> 8) & 0xFF);
+            output.writeByte((header >>> 16) & 0xFF);
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                output.writeByte(valueAt(chunk * CHUNK_SIZE + i));
+            }
+        }
+        return output.slice();
+    }
+
+    private static int valueAt(int position)
+    {
+        return position % 251;
+    }
+
+    private static OrcInputStream createInputStream(Slice slice)
+    {
+        TestingHiveOrcAggregatedMemoryContext aggregatedMemoryContext = new TestingHiveOrcAggregatedMemoryContext();
+        return new OrcInputStream(
+                ORC_DATA_SOURCE_ID,
+                new SharedBuffer(aggregatedMemoryContext.newOrcLocalMemoryContext("sharedDecompressionBuffer")),
+                slice.getInput(),
+                createOrcDecompressor(ORC_DATA_SOURCE_ID, SNAPPY, 256 * 1024),
+                Optional.empty(),
+                aggregatedMemoryContext,
+                slice.getRetainedSize());
+    }
+}
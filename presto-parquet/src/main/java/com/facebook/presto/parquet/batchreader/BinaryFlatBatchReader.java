@@ -15,6 +15,8 @@
 package com.facebook.presto.parquet.batchreader;
 
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.DictionaryId;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.block.VariableWidthBlock;
 import com.facebook.presto.parquet.ColumnReader;
@@ -26,6 +28,8 @@ import com.facebook.presto.parquet.batchreader.decoders.Decoders.FlatDecoders;
 import com.facebook.presto.parquet.batchreader.decoders.FlatDefinitionLevelDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder.ValueBuffer;
+import com.facebook.presto.parquet.batchreader.decoders.rle.BinaryRLEDictionaryValuesDecoder.RLEValueBuffer;
+import com.facebook.presto.parquet.batchreader.dictionary.BinaryBatchDictionary;
 import com.facebook.presto.parquet.batchreader.dictionary.Dictionaries;
 import com.facebook.presto.parquet.dictionary.Dictionary;
 import com.facebook.presto.parquet.reader.ColumnChunk;
@@ -43,6 +47,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.parquet.ParquetErrorCode.PARQUET_IO_READ_ERROR;
 import static com.facebook.presto.parquet.batchreader.decoders.Decoders.readFlatPage;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -52,6 +57,10 @@ public class BinaryFlatBatchReader
         implements ColumnReader
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(BinaryFlatBatchReader.class).instanceSize();
+    // Batches are passed through as dictionary blocks unless the materialized values of this many batches are
+    // still smaller than the dictionary divided by MATERIALIZATION_RATIO (same heuristic as the ORC slice dictionary reader)
+    private static final int BATCHES_PER_COLUMN_CHUNK = 10;
+    private static final float MATERIALIZATION_RATIO = 2.0f;
 
     private final RichColumnDescriptor columnDescriptor;
 
@@ -62,6 +71,8 @@ public class BinaryFlatBatchReader
     protected int remainingCountInPage;
 
     private Dictionary dictionary;
+    // identifies the dictionary of this column chunk in the DictionaryBlocks produced by this reader
+    private DictionaryId dictionaryId;
     private int readOffset;
     private PageReader pageReader;
 
@@ -87,6 +98,7 @@ public class BinaryFlatBatchReader
         DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
         if (dictionaryPage != null) {
             dictionary = Dictionaries.createDictionary(columnDescriptor, dictionaryPage, timezone);
+            dictionaryId = randomDictionaryId();
         }
     }
 
@@ -190,6 +202,10 @@ public class BinaryFlatBatchReader
             return new ColumnChunk(block, new int[0], new int[0]);
         }
 
+        if (isDictionaryPassThroughPossible(valueBuffers, bufferSize)) {
+            return new ColumnChunk(createDictionaryBlock(valueBuffers, valuesDecoderContexts, isNull), new int[0], new int[0]);
+        }
+
         byte[] byteBuffer = new byte[bufferSize];
         int[] offsets = new int[nextBatchSize + 1];
 
@@ -261,6 +277,10 @@ public class BinaryFlatBatchReader
             remainingCountInPage -= readChunkSize;
         }
 
+        if (isDictionaryPassThroughPossible(valueBuffers, bufferSize)) {
+            return new ColumnChunk(createDictionaryBlock(valueBuffers, valuesDecoderContexts, isNull), new int[0], new int[0]);
+        }
+
         byte[] byteBuffer = new byte[bufferSize];
         int[] offsets = new int[nextBatchSize + 1];
 
@@ -280,6 +300,38 @@ public class BinaryFlatBatchReader
         return new ColumnChunk(block, new int[0], new int[0]);
     }
 
+    private boolean isDictionaryPassThroughPossible(List<ValueBuffer> valueBuffers, int bufferSize)
+    {
+        if (!(dictionary instanceof BinaryBatchDictionary)) {
+            return false;
+        }
+        // pages of a column chunk may fall back from dictionary to plain encoding
+        for (ValueBuffer valueBuffer : valueBuffers) {
+            if (!(valueBuffer instanceof RLEValueBuffer)) {
+                return false;
+            }
+        }
+        return (long) bufferSize * BATCHES_PER_COLUMN_CHUNK >= ((BinaryBatchDictionary) dictionary).getPageSizeInBytes() / MATERIALIZATION_RATIO;
+    }
+
+    private Block createDictionaryBlock(List<ValueBuffer> valueBuffers, List<ValuesDecoderContext> valuesDecoderContexts, boolean[] isNull)
+    {
+        BinaryBatchDictionary binaryDictionary = (BinaryBatchDictionary) dictionary;
+        // the dictionary block has an extra null entry after the dictionary values
+        int nullId = binaryDictionary.getDictionarySize();
+
+        int[] ids = new int[nextBatchSize];
+        for (int i = 0; i < valuesDecoderContexts.size(); i++) {
+            ValuesDecoderContext valuesDecoderContext = valuesDecoderContexts.get(i);
+            int[] dictionaryIds = ((RLEValueBuffer) valueBuffers.get(i)).getDictionaryIds();
+            int sourceIndex = 0;
+            for (int position = valuesDecoderContext.getStart(); position < valuesDecoderContext.getEnd(); position++) {
+                ids[position] = isNull[position] ? nullId : dictionaryIds[sourceIndex++];
+            }
+        }
+        return new DictionaryBlock(nextBatchSize, binaryDictionary.getDictionaryBlock(), ids, dictionaryId);
+    }
+
     private void seek()
             throws IOException
     {
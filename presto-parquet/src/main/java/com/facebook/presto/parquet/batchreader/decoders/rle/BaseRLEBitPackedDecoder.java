@@ -18,15 +18,15 @@ import org.apache.parquet.column.values.bitpacking.Packer;
 import org.apache.parquet.io.ParquetDecodingException;
 import org.openjdk.jol.info.ClassLayout;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import static com.facebook.presto.parquet.batchreader.decoders.rle.BaseRLEBitPackedDecoder.Mode.PACKED;
 import static com.facebook.presto.parquet.batchreader.decoders.rle.BaseRLEBitPackedDecoder.Mode.RLE;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.io.ByteStreams.readFully;
 import static io.airlift.slice.SizeOf.sizeOf;
-import static java.lang.Math.ceil;
 import static org.apache.parquet.bytes.BytesUtils.readIntLittleEndianPaddedOnBitWidth;
 import static org.apache.parquet.bytes.BytesUtils.readUnsignedVarInt;
 
@@ -43,6 +43,7 @@ public abstract class BaseRLEBitPackedDecoder
     protected int currentCount;
     protected int currentValue;
     protected int[] currentBuffer;
+    private byte[] packedBuffer = new byte[0];
 
     public BaseRLEBitPackedDecoder(int valueCount, int bitWidth, InputStream inputStream)
     {
@@ -76,7 +77,7 @@ public abstract class BaseRLEBitPackedDecoder
 
     public long getRetainedSizeInBytes()
     {
-        return INSTANCE_SIZE + sizeOf(currentBuffer);
+        return INSTANCE_SIZE + sizeOf(currentBuffer) + sizeOf(packedBuffer);
     }
 
     protected boolean decode()
@@ -102,17 +103,30 @@ public abstract class BaseRLEBitPackedDecoder
             case PACKED:
                 int numGroups = header >>> 1;
                 currentCount = numGroups * 8;
-                currentBuffer = new int[currentCount];
-                byte[] bytes = new byte[numGroups * bitWidth];
-                int bytesToRead = (int) ceil((double) (currentCount * bitWidth) / 8.0D);
-                bytesToRead = Math.min(bytesToRead, inputStream.available());
-                DataInputStream dataInputStream = new DataInputStream(inputStream);
-                dataInputStream.readFully(bytes, 0, bytesToRead);
-                int valueIndex = 0;
+                // subclasses locate the unread values relative to the end of currentBuffer, so it is only reused if it has the exact size
+                if (currentBuffer == null || currentBuffer.length != currentCount) {
+                    currentBuffer = new int[currentCount];
+                }
+                int packedBytes = numGroups * bitWidth;
+                if (packedBytes > packedBuffer.length) {
+                    packedBuffer = new byte[packedBytes];
+                }
+                byte[] bytes = packedBuffer;
+                int bytesToRead = Math.min(packedBytes, inputStream.available());
+                readFully(inputStream, bytes, 0, bytesToRead);
+                // zero the padding of a truncated last run
+                Arrays.fill(bytes, bytesToRead, packedBytes, (byte) 0);
 
-                for (int byteIndex = 0; valueIndex < currentCount; byteIndex += bitWidth) {
+                // the packer is generated for each bit width; unpack 32 values per call where possible
+                int valueIndex = 0;
+                int byteIndex = 0;
+                for (; valueIndex + 32 <= currentCount; valueIndex += 32) {
+                    packer.unpack32Values(bytes, byteIndex, currentBuffer, valueIndex);
+                    byteIndex += 4 * bitWidth;
+                }
+                for (; valueIndex < currentCount; valueIndex += 8) {
                     packer.unpack8Values(bytes, byteIndex, currentBuffer, valueIndex);
-                    valueIndex += 8;
+                    byteIndex += bitWidth;
                 }
                 return true;
             default:
@@ -14,6 +14,8 @@
 
 package com.facebook.presto.parquet.batchreader.dictionary;
 
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.VariableWidthBlock;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.batchreader.BytesUtils;
 import com.facebook.presto.parquet.dictionary.Dictionary;
@@ -21,8 +23,11 @@ import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.Optional;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.util.Objects.requireNonNull;
 
 public final class BinaryBatchDictionary
@@ -34,6 +39,7 @@ public final class BinaryBatchDictionary
     private final int dictionarySize;
     private final int[] offsets;
     private final Integer length;
+    private Block dictionaryBlock;
 
     public BinaryBatchDictionary(DictionaryPage dictionaryPage)
     {
@@ -100,9 +106,44 @@ public final class BinaryBatchDictionary
         }
     }
 
+    public int getDictionarySize()
+    {
+        return dictionarySize;
+    }
+
+    public int getPageSizeInBytes()
+    {
+        return pageBuffer.length;
+    }
+
+    /**
+     * Returns the dictionary values as a block with one extra null entry at position {@link #getDictionarySize()}.
+     * The block is created once and shared by all batches that are read with this dictionary.
+     */
+    public Block getDictionaryBlock()
+    {
+        if (dictionaryBlock == null) {
+            int[] blockOffsets = new int[dictionarySize + 2];
+            for (int dictionaryId = 0; dictionaryId < dictionarySize; dictionaryId++) {
+                blockOffsets[dictionaryId + 1] = blockOffsets[dictionaryId] + getLength(dictionaryId);
+            }
+            blockOffsets[dictionarySize + 1] = blockOffsets[dictionarySize];
+
+            byte[] data = new byte[blockOffsets[dictionarySize]];
+            for (int dictionaryId = 0; dictionaryId < dictionarySize; dictionaryId++) {
+                copyTo(data, blockOffsets[dictionaryId], dictionaryId);
+            }
+
+            boolean[] isNull = new boolean[dictionarySize + 1];
+            isNull[dictionarySize] = true;
+            dictionaryBlock = new VariableWidthBlock(dictionarySize + 1, wrappedBuffer(data), blockOffsets, Optional.of(isNull));
+        }
+        return dictionaryBlock;
+    }
+
     @Override
     public long getRetainedSizeInBytes()
     {
-        return INSTANCE_SIZE + sizeOf(pageBuffer) + sizeOf(offsets);
+        return INSTANCE_SIZE + sizeOf(pageBuffer) + sizeOf(offsets) + (dictionaryBlock == null ? 0 : dictionaryBlock.getRetainedSizeInBytes());
     }
 }
@@ -0,0 +1,285 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.VariableWidthBlock;
+import com.facebook.presto.parquet.DataPage;
+import com.facebook.presto.parquet.DataPageV1;
+import com.facebook.presto.parquet.DictionaryPage;
+import com.facebook.presto.parquet.ParquetEncoding;
+import com.facebook.presto.parquet.PrimitiveField;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.reader.ColumnChunk;
+import com.facebook.presto.parquet.reader.PageReader;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slices;
+import org.apache.parquet.bytes.BytesUtils;
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.values.plain.PlainValuesWriter;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.parquet.ParquetEncoding.PLAIN;
+import static com.facebook.presto.parquet.ParquetEncoding.PLAIN_DICTIONARY;
+import static com.facebook.presto.parquet.ParquetEncoding.RLE;
+import static com.facebook.presto.parquet.ParquetEncoding.RLE_DICTIONARY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestBinaryFlatBatchReader
+{
+    private static final List<String> DICTIONARY = ImmutableList.of("apple", "banana", "cherry", "durian", "elderberry", "fig", "grape", "honeydew");
+    private static final int PAGE_SIZE = 1000;
+    private static final int BATCH_SIZE = 300;
+
+    @Test
+    public void testDictionaryEncodedPages()
+    {
+        List<String> firstPage = generateValues(PAGE_SIZE, 0, true);
+        List<String> secondPage = generateValues(PAGE_SIZE, 3, true);
+        BinaryFlatBatchReader reader = createReader(false, ImmutableList.of(
+                createDictionaryDataPage(firstPage, false),
+                createDictionaryDataPage(secondPage, false)));
+
+        List<Block> blocks = readAll(reader, 2 * PAGE_SIZE);
+        // batches within a page and batches spanning both pages are passed through as dictionary blocks
+        for (Block block : blocks) {
+            assertTrue(block instanceof DictionaryBlock, block.getClass().getSimpleName());
+        }
+        // all batches of the column chunk share one dictionary
+        DictionaryBlock first = (DictionaryBlock) blocks.get(0);
+        for (Block block : blocks) {
+            assertSame(((DictionaryBlock) block).getDictionary(), first.getDictionary());
+            assertEquals(((DictionaryBlock) block).getDictionarySourceId(), first.getDictionarySourceId());
+        }
+        assertValues(blocks, concat(firstPage, secondPage));
+    }
+
+    @Test
+    public void testDictionaryEncodedPagesWithoutNulls()
+    {
+        List<String> firstPage = generateValues(PAGE_SIZE, 0, false);
+        List<String> secondPage = generateValues(PAGE_SIZE, 5, false);
+        BinaryFlatBatchReader reader = createReader(true, ImmutableList.of(
+                createDictionaryDataPage(firstPage, true),
+                createDictionaryDataPage(secondPage, true)));
+
+        List<Block> blocks = readAll(reader, 2 * PAGE_SIZE);
+        for (Block block : blocks) {
+            assertTrue(block instanceof DictionaryBlock, block.getClass().getSimpleName());
+        }
+        assertValues(blocks, concat(firstPage, secondPage));
+    }
+
+    @Test
+    public void testPlainFallbackInColumnChunk()
+    {
+        // writers fall back from dictionary to plain encoding when the dictionary grows too large
+        List<String> dictionaryPage = generateValues(PAGE_SIZE, 0, true);
+        List<String> plainPage = generateValues(PAGE_SIZE, 1, true);
+        BinaryFlatBatchReader reader = createReader(false, ImmutableList.of(
+                createDictionaryDataPage(dictionaryPage, false),
+                createPlainDataPage(plainPage, false)));
+
+        // 0-300, 300-600 and 600-900 only read the dictionary encoded page
+        // 900-1200 spans both pages, the remaining batches only read the plain page
+        List<Block> blocks = readAll(reader, 2 * PAGE_SIZE);
+        assertEquals(blocks.size(), 7);
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (i < 3) {
+                assertTrue(block instanceof DictionaryBlock, "batch " + i + ": " + block.getClass().getSimpleName());
+            }
+            else {
+                assertTrue(block instanceof VariableWidthBlock, "batch " + i + ": " + block.getClass().getSimpleName());
+            }
+        }
+        assertValues(blocks, concat(dictionaryPage, plainPage));
+    }
+
+    @Test
+    public void testPlainFallbackInColumnChunkWithoutNulls()
+    {
+        List<String> dictionaryPage = generateValues(PAGE_SIZE, 0, false);
+        List<String> plainPage = generateValues(PAGE_SIZE, 1, false);
+        BinaryFlatBatchReader reader = createReader(true, ImmutableList.of(
+                createDictionaryDataPage(dictionaryPage, true),
+                createPlainDataPage(plainPage, true)));
+
+        List<Block> blocks = readAll(reader, 2 * PAGE_SIZE);
+        assertTrue(blocks.get(0) instanceof DictionaryBlock);
+        assertTrue(blocks.get(3) instanceof VariableWidthBlock);
+        assertTrue(blocks.get(blocks.size() - 1) instanceof VariableWidthBlock);
+        assertValues(blocks, concat(dictionaryPage, plainPage));
+    }
+
+    private static BinaryFlatBatchReader createReader(boolean required, List<DataPage> dataPages)
+    {
+        PrimitiveType parquetType = required ? Types.required(BINARY).named("value") : Types.optional(BINARY).named("value");
+        RichColumnDescriptor descriptor = new RichColumnDescriptor(new ColumnDescriptor(new String[] {"value"}, parquetType, 0, required ? 0 : 1), parquetType);
+        PrimitiveField field = new PrimitiveField(VARCHAR, 0, required ? 0 : 1, required, descriptor, 0);
+
+        long valueCount = dataPages.stream().mapToLong(DataPage::getValueCount).sum();
+        PageReader pageReader = new PageReader(UNCOMPRESSED, new ArrayList<>(dataPages).iterator(), valueCount, createDictionaryPage(), null, Optional.empty(), null, -1, -1);
+
+        BinaryFlatBatchReader reader = new BinaryFlatBatchReader(descriptor);
+        reader.init(pageReader, field, null, Optional.empty());
+        return reader;
+    }
+
+    private static List<Block> readAll(BinaryFlatBatchReader reader, int valueCount)
+    {
+        ImmutableList.Builder<Block> blocks = ImmutableList.builder();
+        int read = 0;
+        while (read < valueCount) {
+            int batchSize = Math.min(BATCH_SIZE, valueCount - read);
+            reader.prepareNextRead(batchSize);
+            ColumnChunk columnChunk = reader.readNext(Optional.empty());
+            assertEquals(columnChunk.getBlock().getPositionCount(), batchSize);
+            blocks.add(columnChunk.getBlock());
+            read += batchSize;
+        }
+        return blocks.build();
+    }
+
+    private static void assertValues(List<Block> blocks, List<String> expected)
+    {
+        int position = 0;
+        for (Block block : blocks) {
+            for (int i = 0; i < block.getPositionCount(); i++) {
+                String expectedValue = expected.get(position++);
+                if (expectedValue == null) {
+                    assertTrue(block.isNull(i), "position " + (position - 1));
+                }
+                else {
+                    assertEquals(VARCHAR.getSlice(block, i).toStringUtf8(), expectedValue, "position " + (position - 1));
+                }
+            }
+        }
+        assertEquals(position, expected.size());
+    }
+
+    private static List<String> generateValues(int count, int seed, boolean withNulls)
+    {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (withNulls && (i + seed) % 7 == 0) {
+                values.add(null);
+            }
+            else {
+                values.add(DICTIONARY.get((i * 3 + seed) % DICTIONARY.size()));
+            }
+        }
+        return values;
+    }
+
+    private static DictionaryPage createDictionaryPage()
+    {
+        PlainValuesWriter writer = new PlainValuesWriter(1024, 1024 * 1024, new HeapByteBufferAllocator());
+        for (String value : DICTIONARY) {
+            writer.writeBytes(Binary.fromString(value));
+        }
+        byte[] bytes = toByteArray(writer);
+        return new DictionaryPage(Slices.wrappedBuffer(bytes), bytes.length, DICTIONARY.size(), PLAIN_DICTIONARY);
+    }
+
+    private static DataPage createDictionaryDataPage(List<String> values, boolean required)
+    {
+        int bitWidth = BytesUtils.getWidthFromMaxInt(DICTIONARY.size() - 1);
+        RunLengthBitPackingHybridEncoder encoder = new RunLengthBitPackingHybridEncoder(bitWidth, 1024, 1024 * 1024, new HeapByteBufferAllocator());
+        try {
+            for (String value : values) {
+                if (value != null) {
+                    encoder.writeInt(DICTIONARY.indexOf(value));
+                }
+            }
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            data.write(bitWidth);
+            encoder.toBytes().writeAllTo(data);
+            return createDataPage(values, required, data.toByteArray(), RLE_DICTIONARY);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DataPage createPlainDataPage(List<String> values, boolean required)
+    {
+        PlainValuesWriter writer = new PlainValuesWriter(1024, 1024 * 1024, new HeapByteBufferAllocator());
+        for (String value : values) {
+            if (value != null) {
+                writer.writeBytes(Binary.fromConstantByteArray(value.getBytes(UTF_8)));
+            }
+        }
+        return createDataPage(values, required, toByteArray(writer), PLAIN);
+    }
+
+    private static DataPage createDataPage(List<String> values, boolean required, byte[] valuesData, ParquetEncoding valuesEncoding)
+    {
+        try {
+            ByteArrayOutputStream page = new ByteArrayOutputStream();
+            if (!required) {
+                // data page v1 prefixes the definition levels with their length
+                RunLengthBitPackingHybridEncoder encoder = new RunLengthBitPackingHybridEncoder(1, 1024, 1024 * 1024, new HeapByteBufferAllocator());
+                for (String value : values) {
+                    encoder.writeInt(value == null ? 0 : 1);
+                }
+                byte[] definitionLevels = encoder.toBytes().toByteArray();
+                BytesUtils.writeIntLittleEndian(page, definitionLevels.length);
+                page.write(definitionLevels);
+            }
+            page.write(valuesData);
+            byte[] bytes = page.toByteArray();
+            return new DataPageV1(Slices.wrappedBuffer(bytes), values.size(), bytes.length, -1, null, RLE, RLE, valuesEncoding);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] toByteArray(PlainValuesWriter writer)
+    {
+        try {
+            return writer.getBytes().toByteArray();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> concat(List<String> first, List<String> second)
+    {
+        List<String> values = new ArrayList<>(first);
+        values.addAll(second);
+        return values;
+    }
+}
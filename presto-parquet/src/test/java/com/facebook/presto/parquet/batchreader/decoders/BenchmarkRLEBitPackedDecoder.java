@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader.decoders;
+
+import org.apache.parquet.bytes.ByteBufferInputStream;
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridDecoder;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkRLEBitPackedDecoder
+{
+    private static final int VALUE_COUNT = 64 * 1024;
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public Object baseline(BenchmarkData data)
+            throws IOException
+    {
+        RunLengthBitPackingHybridDecoder decoder = new RunLengthBitPackingHybridDecoder(data.bitWidth, ByteBufferInputStream.wrap(ByteBuffer.wrap(data.encoded)));
+        int[] values = data.values;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = decoder.readInt();
+        }
+        return values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public Object optimized(BenchmarkData data)
+            throws IOException
+    {
+        DefinitionLevelDecoder decoder = new DefinitionLevelDecoder(VALUE_COUNT, data.bitWidth, new ByteArrayInputStream(data.encoded));
+        decoder.readNext(data.values, 0, VALUE_COUNT);
+        return data.values;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        private final int[] values = new int[VALUE_COUNT];
+        private final int[] expected = new int[VALUE_COUNT];
+
+        @Param({"1", "2", "3", "4", "5", "7", "8", "11", "13", "16", "20", "24", "32"})
+        private int bitWidth;
+
+        // percentage of values that repeat the previous value, which controls how many RLE runs are produced
+        @Param({"0", "90"})
+        private int repeatPercentage;
+
+        private byte[] encoded;
+
+        @Setup
+        public void setup()
+        {
+            Random random = new Random(42);
+            long maxValue = (1L << bitWidth) - 1;
+            try {
+                RunLengthBitPackingHybridEncoder encoder = new RunLengthBitPackingHybridEncoder(bitWidth, 1024, 1024 * 1024, new HeapByteBufferAllocator());
+                for (int i = 0; i < VALUE_COUNT; i++) {
+                    if (i > 0 && random.nextInt(100) < repeatPercentage) {
+                        expected[i] = expected[i - 1];
+                    }
+                    else {
+                        expected[i] = (int) (random.nextLong() & maxValue);
+                    }
+                    encoder.writeInt(expected[i]);
+                }
+                encoded = encoder.toBytes().toByteArray();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.bitWidth = 13;
+        data.repeatPercentage = 90;
+        data.setup();
+        BenchmarkRLEBitPackedDecoder benchmark = new BenchmarkRLEBitPackedDecoder();
+        assertEquals((int[]) benchmark.baseline(data), data.expected);
+        assertEquals((int[]) benchmark.optimized(data), data.expected);
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkRLEBitPackedDecoder.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
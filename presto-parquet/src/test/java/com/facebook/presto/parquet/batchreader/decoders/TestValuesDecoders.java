@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.parquet.batchreader.decoders;
 
+import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Decimals;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.batchreader.decoders.ValuesDecoder.BinaryValuesDecoder;
@@ -72,6 +73,8 @@ import static java.lang.Math.min;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.parquet.bytes.BytesUtils.getWidthFromMaxInt;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 public abstract class TestValuesDecoders
 {
@@ -503,6 +506,25 @@ public abstract class TestValuesDecoders
         binaryBatchReadWithSkipHelper(1024, 1024, valueCount, binaryPlain(pageBytes), expectedValues);
     }
 
+    @Test
+    public void testBinaryBatchDictionaryBlock()
+    {
+        int dictionarySize = 29;
+        List<Object> dictionary = new ArrayList<>();
+        byte[] dictionaryPage = generatePlainValuesPage(dictionarySize, -1, dictionary);
+
+        BinaryBatchDictionary binaryDictionary = new BinaryBatchDictionary(new DictionaryPage(Slices.wrappedBuffer(dictionaryPage), dictionarySize, PLAIN_DICTIONARY));
+        Block dictionaryBlock = binaryDictionary.getDictionaryBlock();
+
+        // the dictionary block is shared by all batches of the column chunk and has a trailing null entry
+        assertSame(binaryDictionary.getDictionaryBlock(), dictionaryBlock);
+        assertEquals(dictionaryBlock.getPositionCount(), dictionarySize + 1);
+        for (int i = 0; i < dictionarySize; i++) {
+            assertEquals(dictionaryBlock.getSlice(i, 0, dictionaryBlock.getSliceLength(i)).toStringUtf8(), dictionary.get(i));
+        }
+        assertTrue(dictionaryBlock.isNull(dictionarySize));
+    }
+
     @Test
     public void testBinaryRLEDictionary()
             throws IOException
@@ -14,6 +14,8 @@
 package com.facebook.presto.memory;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.common.RuntimeMetric;
+import com.facebook.presto.execution.QueryInfo;
 import com.facebook.presto.execution.QueryManager;
 import com.facebook.presto.server.BasicQueryInfo;
 import com.facebook.presto.server.BasicQueryStats;
@@ -43,6 +45,10 @@ import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_MEMORY_PER_N
 import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_TOTAL_MEMORY;
 import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_TOTAL_MEMORY_PER_NODE;
 import static com.facebook.presto.SystemSessionProperties.RESOURCE_OVERCOMMIT;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_KILL_DELAY_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_KILL_MEMORY_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_KILL_REVOCABLE_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.OUT_OF_MEMORY_RECLAIMED_REVOCABLE_BYTES;
 import static com.facebook.presto.execution.QueryState.FINISHED;
 import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
 import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
@@ -53,6 +59,7 @@ import static com.facebook.presto.tests.tpch.TpchQueryRunner.createQueryRunner;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
@@ -368,6 +375,112 @@ public class TestMemoryManager
         }
     }
 
+    @BeforeGroups(groups = {"outOfMemoryResolution"})
+    public void outOfMemoryResolutionSetup()
+            throws Exception
+    {
+        Map<String, String> properties = ImmutableMap.<String, String>builder()
+                .put("experimental.reserved-pool-enabled", "false")
+                .put("query.low-memory-killer.delay", "5s")
+                .put("query.low-memory-killer.policy", "total-reservation")
+                .build();
+        queryRunner2 = createQueryRunner(properties);
+    }
+
+    @AfterGroups(groups = {"outOfMemoryResolution"})
+    public void outOfMemoryResolutionCleanup()
+    {
+        queryRunner2.close();
+    }
+
+    @Test(timeOut = 240_000, groups = {"outOfMemoryResolution"})
+    public void testOutOfMemoryResolvedWithoutKill()
+            throws Exception
+    {
+        ClusterMemoryManager memoryManager = queryRunner2.getCoordinator().getClusterMemoryManager();
+        long resolvedWithoutKill = memoryManager.getOutOfMemoryResolvedWithoutKill();
+        long killed = memoryManager.getQueriesKilledDueToOutOfMemory();
+
+        // Reserve all the memory, no query is running that could be killed
+        QueryId fakeQueryId = new QueryId("fake");
+        for (TestingPrestoServer server : queryRunner2.getServers()) {
+            MemoryPool general = server.getLocalMemoryManager().getGeneralPool();
+            assertTrue(general.tryReserve(fakeQueryId, "test", general.getMaxBytes()));
+        }
+        while (!memoryManager.isOutOfMemory()) {
+            MILLISECONDS.sleep(10);
+        }
+
+        // Free up the memory, as a finishing query would
+        for (TestingPrestoServer server : queryRunner2.getServers()) {
+            MemoryPool general = server.getLocalMemoryManager().getGeneralPool();
+            general.free(fakeQueryId, "test", general.getMaxBytes());
+        }
+        while (memoryManager.getOutOfMemoryResolvedWithoutKill() == resolvedWithoutKill) {
+            MILLISECONDS.sleep(10);
+        }
+
+        assertFalse(memoryManager.isOutOfMemory());
+        assertEquals(memoryManager.getOutOfMemoryResolvedWithoutKill(), resolvedWithoutKill + 1);
+        assertEquals(memoryManager.getQueriesKilledDueToOutOfMemory(), killed);
+    }
+
+    @Test(timeOut = 240_000, groups = {"outOfMemoryResolution"}, expectedExceptions = ExecutionException.class, expectedExceptionsMessageRegExp = ".*Query killed because the cluster is out of memory. Please try again in a few minutes.")
+    public void testOutOfMemoryResolvedByKill()
+            throws Exception
+    {
+        ClusterMemoryManager memoryManager = queryRunner2.getCoordinator().getClusterMemoryManager();
+        long resolvedWithoutKill = memoryManager.getOutOfMemoryResolvedWithoutKill();
+        long killed = memoryManager.getQueriesKilledDueToOutOfMemory();
+
+        // Reserve all the memory
+        QueryId fakeQueryId = new QueryId("fake");
+        for (TestingPrestoServer server : queryRunner2.getServers()) {
+            MemoryPool general = server.getLocalMemoryManager().getGeneralPool();
+            assertTrue(general.tryReserve(fakeQueryId, "test", general.getMaxBytes()));
+        }
+
+        List<Future<?>> queryFutures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            queryFutures.add(executor.submit(() -> queryRunner2.execute("SELECT COUNT(*), clerk FROM orders GROUP BY clerk")));
+        }
+
+        // Wait for one of the queries to die
+        waitForQueryToBeKilled(queryRunner2);
+
+        // the kill decision is recorded in the stats of the killed query
+        QueryManager queryManager = queryRunner2.getCoordinator().getQueryManager();
+        QueryId killedQueryId = queryManager.getQueries().stream()
+                .filter(info -> info.getState().isDone())
+                .map(BasicQueryInfo::getQueryId)
+                .findFirst()
+                .get();
+        QueryInfo killedQuery = queryManager.getFullQueryInfo(killedQueryId);
+        Map<String, RuntimeMetric> metrics = killedQuery.getQueryStats().getRuntimeStats().getMetrics();
+        assertTrue(metrics.get(OUT_OF_MEMORY_KILL_MEMORY_BYTES).getSum() > 0);
+        assertEquals(metrics.get(OUT_OF_MEMORY_KILL_REVOCABLE_BYTES).getCount(), 1);
+        assertEquals(metrics.get(OUT_OF_MEMORY_RECLAIMED_REVOCABLE_BYTES).getCount(), 1);
+        // the low memory killer waits for its delay before killing
+        assertTrue(metrics.get(OUT_OF_MEMORY_KILL_DELAY_NANOS).getSum() >= SECONDS.toNanos(5));
+
+        // Free up the memory, so the cluster is no longer out of memory
+        for (TestingPrestoServer server : queryRunner2.getServers()) {
+            MemoryPool general = server.getLocalMemoryManager().getGeneralPool();
+            general.free(fakeQueryId, "test", general.getMaxBytes());
+        }
+        while (memoryManager.isOutOfMemory()) {
+            MILLISECONDS.sleep(10);
+        }
+
+        // the out of memory episode ended with a kill, so it is not counted as resolved without one
+        assertTrue(memoryManager.getQueriesKilledDueToOutOfMemory() > killed);
+        assertEquals(memoryManager.getOutOfMemoryResolvedWithoutKill(), resolvedWithoutKill);
+
+        for (Future<?> query : queryFutures) {
+            query.get();
+        }
+    }
+
     @BeforeGroups(groups = {"outOfMemoryKillerMultiCoordinator"})
     public void outOfMemoryKillerMultiCoordinatorSetup()
             throws Exception
@@ -0,0 +1,220 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.client.ClientSession;
+import com.facebook.presto.client.StatementClient;
+import com.facebook.presto.execution.QueryState;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.storage.TempStorageManager;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.DistributedQueryRunner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Key;
+import okhttp3.OkHttpClient;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static com.facebook.presto.client.StatementClientFactory.newStatementClient;
+import static com.facebook.presto.execution.QueryState.FINISHED;
+import static com.facebook.presto.spiller.LocalTempStorage.NAME;
+import static com.facebook.presto.tests.tpch.TpchQueryRunner.createQueryRunner;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.listFiles;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestQueryResultSpooling
+{
+    private static final String QUERY = "SELECT orderkey, linenumber, comment FROM tpch.tiny.lineitem ORDER BY orderkey, linenumber";
+    private static final int LINEITEM_COUNT = 60175;
+
+    private DistributedQueryRunner queryRunner;
+    private OkHttpClient httpClient;
+    private File tempStorageDirectory;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        queryRunner = createQueryRunner(ImmutableMap.of(
+                "query-result-spooling-enabled", "true",
+                // spool the results in many small segments
+                "query-result-spooling-segment-size", "1kB"));
+        httpClient = new OkHttpClient();
+        String path = queryRunner.getCoordinator()
+                .getInstance(Key.get(TempStorageManager.class))
+                .getTempStorage(NAME)
+                .getRootDirectoryHandle()
+                .getPathAsString();
+        tempStorageDirectory = Paths.get(path).toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        if (queryRunner != null) {
+            queryRunner.close();
+            queryRunner = null;
+        }
+        if (httpClient != null) {
+            httpClient.dispatcher().executorService().shutdown();
+            httpClient.connectionPool().evictAll();
+            httpClient = null;
+        }
+    }
+
+    @Test(timeOut = 60_000)
+    public void testResultsInOrder()
+            throws Exception
+    {
+        MaterializedResult result = queryRunner.execute(QUERY);
+        assertOrdered(result.getMaterializedRows().stream()
+                .map(row -> ImmutableList.of(row.getField(0), row.getField(1)))
+                .collect(toImmutableList()));
+
+        // every segment is deleted once it is read
+        waitFor(() -> countSegments() == 0);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testQueryFinishesBeforeResultsAreRead()
+            throws Exception
+    {
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(), QUERY)) {
+            ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+            advanceToFirstData(client, rows);
+            QueryId queryId = new QueryId(client.currentStatusInfo().getId());
+
+            // the coordinator drains the output stage into the spool while the client is not reading
+            waitFor(() -> getQueryState(queryId) == FINISHED);
+            assertTrue(countSegments() > 0);
+
+            // the spooled pages are returned before the pages left in the exchange
+            while (client.advance()) {
+                addData(client, rows);
+            }
+            assertTrue(client.isFinished());
+            assertOrdered(rows.build());
+        }
+
+        waitFor(() -> countSegments() == 0);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testCancelRemovesSpooledResults()
+            throws Exception
+    {
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(), QUERY)) {
+            advanceToFirstData(client, ImmutableList.builder());
+            waitFor(() -> countSegments() > 0);
+        }
+
+        // closing the client cancels the query, which releases the results the client never fetched
+        waitFor(() -> countSegments() == 0);
+    }
+
+    private static void advanceToFirstData(StatementClient client, ImmutableList.Builder<List<Object>> rows)
+    {
+        while (client.isRunning() && client.currentData().getData() == null) {
+            client.advance();
+        }
+        addData(client, rows);
+    }
+
+    private static void addData(StatementClient client, ImmutableList.Builder<List<Object>> rows)
+    {
+        Iterable<List<Object>> data = client.currentData().getData();
+        if (data != null) {
+            rows.addAll(data);
+        }
+    }
+
+    private static void assertOrdered(List<List<Object>> rows)
+    {
+        assertEquals(rows.size(), LINEITEM_COUNT);
+        for (int i = 1; i < rows.size(); i++) {
+            long previousOrderKey = ((Number) rows.get(i - 1).get(0)).longValue();
+            long orderKey = ((Number) rows.get(i).get(0)).longValue();
+            long previousLineNumber = ((Number) rows.get(i - 1).get(1)).longValue();
+            long lineNumber = ((Number) rows.get(i).get(1)).longValue();
+            assertTrue(previousOrderKey < orderKey || (previousOrderKey == orderKey && previousLineNumber < lineNumber),
+                    "rows out of order at position " + i);
+        }
+    }
+
+    private QueryState getQueryState(QueryId queryId)
+    {
+        return queryRunner.getCoordinator().getQueryManager().getQueryState(queryId);
+    }
+
+    private int countSegments()
+    {
+        try {
+            return listFiles(tempStorageDirectory.toPath()).size();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition)
+            throws InterruptedException
+    {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(50);
+        }
+    }
+
+    private ClientSession createClientSession()
+    {
+        return new ClientSession(
+                queryRunner.getCoordinator().getBaseUrl(),
+                "user",
+                "source",
+                Optional.empty(),
+                ImmutableSet.of(),
+                null,
+                null,
+                null,
+                "America/Los_Angeles",
+                Locale.ENGLISH,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                null,
+                new Duration(2, MINUTES),
+                true,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                false);
+    }
+}